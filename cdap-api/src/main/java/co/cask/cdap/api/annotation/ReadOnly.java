@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a {@link co.cask.cdap.api.service.http.HttpServiceHandler} method to indicate that it only reads
+ * from datasets. A read-only method runs with a snapshot of the datasets that may be shared with other
+ * read-only calls started shortly before it, and the snapshot is never committed. This avoids calls to the
+ * transaction service for most requests, at the cost of possibly not seeing changes committed during the last
+ * few milliseconds. Writes performed by a read-only method are never persisted. A write to a dataset that tracks
+ * its changes for conflict detection, such as a {@code Table}, fails the request. Writes to datasets that don't
+ * track changes are discarded without failing the request.
+ *
+ * <p>
+ * When used on a handler class, all handler methods of the class are read-only unless a method is annotated
+ * with {@code @ReadOnly(false)}.
+ * </p>
+ *
+ * <pre>
+ * <code>
+ * public class LookupHandler extends AbstractHttpServiceHandler {
+ *   {@literal @}UseDataSet("lookup")
+ *   private KeyValueTable lookup;
+ *
+ *   {@literal @}ReadOnly
+ *   {@literal @}GET
+ *   {@literal @}Path("/lookup/{key}")
+ *   public void get(HttpServiceRequest request, HttpServiceResponder responder,
+ *                   {@literal @}PathParam("key") String key) {
+ *     responder.sendString(Bytes.toString(lookup.read(key)));
+ *   }
+ * }
+ * </code>
+ * </pre>
+ *
+ * @see co.cask.cdap.api.service.http.HttpServiceHandler
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadOnly {
+
+  /**
+   * Returns {@code true} if the annotated method, or methods of the annotated class, are read-only.
+   */
+  boolean value() default true;
+}
@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -104,7 +105,14 @@ public class IndexedTable extends AbstractDataset implements Table {
   private static final byte DELIMITER_BYTE = 0;
   private static final byte[] KEY_DELIMITER = new byte[] { DELIMITER_BYTE };
 
+  /**
+   * Default number of index rows to read ahead and resolve with one multi-get when reading by index.
+   */
+  public static final int DEFAULT_INDEX_SCAN_READ_AHEAD = 100;
+
   private final boolean hasColumnWithDelimiter;
+  // number of index rows to resolve with one multi-get on the data table
+  private final int indexScanReadAhead;
   // the two underlying tables
   private Table table, index;
   // the secondary index column
@@ -120,11 +128,29 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param columnsToIndex the names of the data columns to index
    */
   public IndexedTable(String name, Table table, Table index, byte[][] columnsToIndex) {
+    this(name, table, index, columnsToIndex, DEFAULT_INDEX_SCAN_READ_AHEAD);
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param indexScanReadAhead the number of index rows to read ahead when reading by index. The data rows of the
+   *                           index rows read ahead are fetched from the data table with one multi-get.
+   */
+  public IndexedTable(String name, Table table, Table index, byte[][] columnsToIndex, int indexScanReadAhead) {
     super(name, table, index);
+    if (indexScanReadAhead <= 0) {
+      throw new IllegalArgumentException("Index scan read ahead must be positive: " + indexScanReadAhead);
+    }
     this.table = table;
     this.index = index;
     this.indexedColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
+    this.indexScanReadAhead = indexScanReadAhead;
     Collections.addAll(this.indexedColumns, columnsToIndex);
   }
 
@@ -589,10 +615,17 @@ public class IndexedTable extends AbstractDataset implements Table {
     // scanner over index table
     private final Scanner baseScanner;
     private final byte[] column;
+    // data rows fetched for the index rows read ahead, and the indexed column values of those index rows
+    private final List<byte[]> columnValues;
+    private List<Row> rows;
+    private int nextRow;
+    private boolean indexExhausted;
 
     public AbstractIndexScanner(Scanner baseScanner, byte[] column) {
       this.baseScanner = baseScanner;
       this.column = column;
+      this.columnValues = new ArrayList<>();
+      this.rows = Collections.emptyList();
     }
 
     /**
@@ -606,9 +639,42 @@ public class IndexedTable extends AbstractDataset implements Table {
     @Nullable
     @Override
     public Row next() {
-      // TODO: retrieve results in batches to minimize RPC overhead (requires multi-get support in table)
-      // keep going until we hit a non-null, non-empty data row, or we exhaust the index
-      for (Row indexRow = baseScanner.next(); indexRow != null; indexRow = baseScanner.next()) {
+      // keep going until we hit a data row that matches, or we exhaust the index
+      while (true) {
+        while (nextRow < rows.size()) {
+          Row row = rows.get(nextRow);
+          byte[] columnValue = columnValues.get(nextRow);
+          nextRow++;
+          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
+          // to be sure this row isn't a false positive in the scan.
+          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
+          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
+            continue;
+          }
+          return row;
+        }
+        if (indexExhausted || !readAhead()) {
+          // end of index
+          return null;
+        }
+      }
+    }
+
+    /**
+     * Reads up to {@link #indexScanReadAhead} matching rows from the index and fetches the corresponding data rows
+     * with one multi-get, in the same order as the index rows.
+     *
+     * @return true if any data row is fetched, false if the end of the index is reached
+     */
+    private boolean readAhead() {
+      List<Get> gets = new ArrayList<>(indexScanReadAhead);
+      columnValues.clear();
+      while (gets.size() < indexScanReadAhead) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          indexExhausted = true;
+          break;
+        }
         byte[] rowkey = indexRow.get(IDX_COL);
         if (rowkey == null) {
           LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
@@ -620,18 +686,13 @@ public class IndexedTable extends AbstractDataset implements Table {
         // Verify that datarow matches the expected row key to avoid issues with column name or value
         // containing the delimiter used. This is a sufficient check, as long as columns don't contain the null byte.
         if (matches(columnValue)) {
-          Row row = table.get(rowkey);
-          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
-          // to be sure this row isn't a false positive in the scan.
-          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
-          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
-            continue;
-          }
-          return row;
+          gets.add(new Get(rowkey));
+          columnValues.add(columnValue);
         }
       }
-      // end of index
-      return null;
+      rows = gets.isEmpty() ? Collections.<Row>emptyList() : table.get(gets);
+      nextRow = 0;
+      return !rows.isEmpty();
     }
 
     @Override
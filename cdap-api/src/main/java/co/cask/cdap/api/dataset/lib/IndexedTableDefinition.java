@@ -43,6 +43,13 @@ public class IndexedTableDefinition
    */
   public static final String INDEX_COLUMNS_CONF_KEY = "columnsToIndex";
 
+  /**
+   * Configuration key for defining the number of index rows to read ahead when reading by index. The data rows
+   * of the index rows read ahead are fetched with one multi-get. Defaults to
+   * {@link IndexedTable#DEFAULT_INDEX_SCAN_READ_AHEAD}.
+   */
+  public static final String INDEX_SCAN_READ_AHEAD_CONF_KEY = "indexScanReadAhead";
+
   private final DatasetDefinition<? extends Table, ?> tableDef;
 
   public IndexedTableDefinition(String name, DatasetDefinition<? extends Table, ?> tableDef) {
@@ -90,9 +97,13 @@ public class IndexedTableDefinition
       columnsToIndex[i] = Bytes.toBytes(columns[i]);
     }
 
+    String readAhead = spec.getProperty(INDEX_SCAN_READ_AHEAD_CONF_KEY);
+    int indexScanReadAhead = readAhead == null ? IndexedTable.DEFAULT_INDEX_SCAN_READ_AHEAD
+                                               : Integer.parseInt(readAhead);
+
     // TODO: add support for setting index key delimiter
 
-    return new IndexedTable(spec.getName(), table, index, columnsToIndex);
+    return new IndexedTable(spec.getName(), table, index, columnsToIndex, indexScanReadAhead);
   }
 
 }
@@ -38,12 +38,11 @@ import co.cask.cdap.proto.ProgramType;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.collect.Table;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.AbstractIdleService;
 import org.apache.twill.api.RunId;
@@ -53,13 +52,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nullable;
 
 /**
@@ -72,16 +71,21 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
                                                                                       ProgramController.State.KILLED,
                                                                                       ProgramController.State.ERROR);
   private final CConfiguration cConf;
-  private final ReadWriteLock runtimeInfosLock;
-  private final Table<ProgramType, RunId, RuntimeInfo> runtimeInfos;
+  // Runtime infos of running programs, indexed by program type and by program. Reads are lock free, while
+  // modifications are done while holding the object lock, so that both indices are updated together.
+  private final Map<ProgramType, ConcurrentMap<RunId, RuntimeInfo>> runtimeInfos;
+  private final ConcurrentMap<Id.Program, ConcurrentMap<RunId, RuntimeInfo>> programRuntimeInfos;
   private final ProgramRunnerFactory programRunnerFactory;
   private final ArtifactRepository artifactRepository;
 
   protected AbstractProgramRuntimeService(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory,
                                           ArtifactRepository artifactRepository) {
     this.cConf = cConf;
-    this.runtimeInfosLock = new ReentrantReadWriteLock();
-    this.runtimeInfos = HashBasedTable.create();
+    this.runtimeInfos = new EnumMap<>(ProgramType.class);
+    for (ProgramType type : ProgramType.values()) {
+      this.runtimeInfos.put(type, Maps.<RunId, RuntimeInfo>newConcurrentMap());
+    }
+    this.programRuntimeInfos = Maps.newConcurrentMap();
     this.programRunnerFactory = programRunnerFactory;
     this.artifactRepository = artifactRepository;
   }
@@ -206,45 +210,39 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
   }
 
   protected List<RuntimeInfo> getRuntimeInfos() {
-    Lock lock = runtimeInfosLock.readLock();
-    lock.lock();
-    try {
-      return ImmutableList.copyOf(runtimeInfos.values());
-    } finally {
-      lock.unlock();
+    ImmutableList.Builder<RuntimeInfo> builder = ImmutableList.builder();
+    for (Map<RunId, RuntimeInfo> infos : runtimeInfos.values()) {
+      builder.addAll(infos.values());
     }
+    return builder.build();
   }
 
   @Override
   public RuntimeInfo lookup(Id.Program programId, RunId runId) {
-    Lock lock = runtimeInfosLock.readLock();
-    lock.lock();
-    try {
-      return runtimeInfos.get(programId.getType(), runId);
-    } finally {
-      lock.unlock();
-    }
+    return runtimeInfos.get(programId.getType()).get(runId);
   }
 
   @Override
   public Map<RunId, RuntimeInfo> list(ProgramType type) {
-    Lock lock = runtimeInfosLock.readLock();
-    lock.lock();
-    try {
-      return ImmutableMap.copyOf(runtimeInfos.row(type));
-    } finally {
-      lock.unlock();
-    }
+    return ImmutableMap.copyOf(runtimeInfos.get(type));
   }
 
   @Override
-  public Map<RunId, RuntimeInfo> list(final Id.Program program) {
-    return Maps.filterValues(list(program.getType()), new Predicate<RuntimeInfo>() {
-      @Override
-      public boolean apply(RuntimeInfo info) {
-        return info.getProgramId().equals(program);
+  public Map<RunId, RuntimeInfo> list(Id.Program program) {
+    Map<RunId, RuntimeInfo> infos = programRuntimeInfos.get(program);
+    return infos == null ? ImmutableMap.<RunId, RuntimeInfo>of() : ImmutableMap.copyOf(infos);
+  }
+
+  @Override
+  public Map<Id.Program, Map<RunId, RuntimeInfo>> list(Collection<Id.Program> programs) {
+    ImmutableMap.Builder<Id.Program, Map<RunId, RuntimeInfo>> builder = ImmutableMap.builder();
+    for (Id.Program program : ImmutableSet.copyOf(programs)) {
+      Map<RunId, RuntimeInfo> infos = list(program);
+      if (!infos.isEmpty()) {
+        builder.put(program, infos);
       }
-    });
+    }
+    return builder.build();
   }
 
   @Override
@@ -276,16 +274,19 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
     // No-op
   }
 
-  protected void updateRuntimeInfo(ProgramType type, RunId runId, RuntimeInfo runtimeInfo) {
-    Lock lock = runtimeInfosLock.readLock();
-    lock.lock();
-    try {
-      if (!runtimeInfos.contains(type, runId)) {
-        monitorProgram(runtimeInfo, createCleanupTask());
-      }
-    } finally {
-      lock.unlock();
+  /**
+   * Adds the given {@link RuntimeInfo} of a program that is already running, and starts monitoring it,
+   * unless there is already one for the same run.
+   *
+   * @return the {@link RuntimeInfo} of the run, which is the given one if there wasn't one already
+   */
+  protected RuntimeInfo updateRuntimeInfo(ProgramType type, RunId runId, RuntimeInfo runtimeInfo) {
+    RuntimeInfo existing = addIfAbsent(runtimeInfo);
+    if (existing != null) {
+      return existing;
     }
+    monitorProgram(runtimeInfo, createCleanupTask());
+    return runtimeInfo;
   }
 
   /**
@@ -300,7 +301,9 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
 
       @Override
       public void init(ProgramController.State currentState, @Nullable Throwable cause) {
-        if (!COMPLETED_STATES.contains(currentState)) {
+        if (COMPLETED_STATES.contains(currentState)) {
+          remove(runtimeInfo, cleanUpTask);
+        } else {
           add(runtimeInfo);
         }
       }
@@ -322,36 +325,55 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
     }, Threads.SAME_THREAD_EXECUTOR);
   }
 
-  private void add(RuntimeInfo runtimeInfo) {
-    Lock lock = runtimeInfosLock.writeLock();
-    lock.lock();
-    try {
-      runtimeInfos.put(runtimeInfo.getType(), runtimeInfo.getController().getRunId(), runtimeInfo);
-    } finally {
-      lock.unlock();
+  private synchronized void add(RuntimeInfo runtimeInfo) {
+    RunId runId = runtimeInfo.getController().getRunId();
+    runtimeInfos.get(runtimeInfo.getType()).put(runId, runtimeInfo);
+    getProgramRuntimeInfos(runtimeInfo.getProgramId()).put(runId, runtimeInfo);
+  }
+
+  /**
+   * Adds the given {@link RuntimeInfo} if there is no {@link RuntimeInfo} for the same run.
+   *
+   * @return the existing {@link RuntimeInfo} or {@code null} if the given one was added
+   */
+  @Nullable
+  private synchronized RuntimeInfo addIfAbsent(RuntimeInfo runtimeInfo) {
+    RunId runId = runtimeInfo.getController().getRunId();
+    RuntimeInfo existing = runtimeInfos.get(runtimeInfo.getType()).putIfAbsent(runId, runtimeInfo);
+    if (existing == null) {
+      getProgramRuntimeInfos(runtimeInfo.getProgramId()).put(runId, runtimeInfo);
     }
+    return existing;
   }
 
   private void remove(RuntimeInfo info, Runnable cleanUpTask) {
-    Lock lock = runtimeInfosLock.writeLock();
-    lock.lock();
     try {
-      LOG.debug("Removing RuntimeInfo: {} {} {}",
-                info.getType(), info.getProgramId().getId(), info.getController().getRunId());
-      RuntimeInfo removed = runtimeInfos.remove(info.getType(), info.getController().getRunId());
-      LOG.debug("RuntimeInfo removed: {}", removed);
+      RunId runId = info.getController().getRunId();
+      LOG.debug("Removing RuntimeInfo: {} {} {}", info.getType(), info.getProgramId().getId(), runId);
+      synchronized (this) {
+        // Only remove the given RuntimeInfo, since the run may be tracked by another RuntimeInfo instance
+        boolean removed = runtimeInfos.get(info.getType()).remove(runId, info);
+        Map<RunId, RuntimeInfo> programInfos = programRuntimeInfos.get(info.getProgramId());
+        if (programInfos != null && programInfos.remove(runId, info) && programInfos.isEmpty()) {
+          programRuntimeInfos.remove(info.getProgramId());
+        }
+        LOG.debug("RuntimeInfo removed: {}", removed);
+      }
     } finally {
-      lock.unlock();
       cleanUpTask.run();
     }
   }
 
-  protected boolean isRunning(Id.Program programId) {
-    for (Map.Entry<RunId, RuntimeInfo> entry : list(programId.getType()).entrySet()) {
-      if (entry.getValue().getProgramId().equals(programId)) {
-        return true;
-      }
+  private ConcurrentMap<RunId, RuntimeInfo> getProgramRuntimeInfos(Id.Program programId) {
+    ConcurrentMap<RunId, RuntimeInfo> infos = programRuntimeInfos.get(programId);
+    if (infos == null) {
+      infos = Maps.newConcurrentMap();
+      programRuntimeInfos.put(programId, infos);
     }
-    return false;
+    return infos;
+  }
+
+  protected boolean isRunning(Id.Program programId) {
+    return programRuntimeInfos.containsKey(programId);
   }
 }
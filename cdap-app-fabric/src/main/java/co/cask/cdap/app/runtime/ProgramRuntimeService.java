@@ -24,6 +24,7 @@ import com.google.common.base.Predicate;
 import com.google.common.util.concurrent.Service;
 import org.apache.twill.api.RunId;
 
+import java.util.Collection;
 import java.util.Map;
 import javax.annotation.Nullable;
 
@@ -79,6 +80,14 @@ public interface ProgramRuntimeService extends Service {
    */
   Map<RunId, RuntimeInfo> list(Id.Program program);
 
+  /**
+   * Get {@link RuntimeInfo} for multiple programs in one call.
+   * @param programs The programs for which the {@link RuntimeInfo} needs to be determined
+   * @return An immutable map from program to the map from {@link RunId} to {@link RuntimeInfo} of its runs.
+   *         Programs that are not running are not in the map.
+   */
+  Map<Id.Program, Map<RunId, RuntimeInfo>> list(Collection<Id.Program> programs);
+
   /**
    * Get runtime information about a running program. The content of this information is different
    * for each runtime environment. For example, in a distributed environment, this would contain the
@@ -73,6 +73,7 @@ import co.cask.http.HttpResponder;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -549,12 +550,29 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
 
     List<BatchProgram> programs = validateAndGetBatchInput(request, BATCH_PROGRAMS_TYPE);
 
-    List<BatchProgramStatus> statuses = new ArrayList<>(programs.size());
+    List<Id.Program> programIds = new ArrayList<>(programs.size());
+    List<Id.Program> validProgramIds = new ArrayList<>(programs.size());
     for (BatchProgram program : programs) {
       Id.Program progId = Id.Program.from(namespaceId, program.getAppId(),
                                           program.getProgramType(), program.getProgramId());
+      programIds.add(progId);
+      if (progId.getType() != null) {
+        validProgramIds.add(progId);
+      }
+    }
+    // Get the runtime info of all programs in one call
+    Map<Id.Program, Map<RunId, ProgramRuntimeService.RuntimeInfo>> runtimeInfos =
+      runtimeService.list(validProgramIds);
+
+    List<BatchProgramStatus> statuses = new ArrayList<>(programs.size());
+    for (int i = 0; i < programs.size(); i++) {
+      BatchProgram program = programs.get(i);
+      Id.Program progId = programIds.get(i);
+      Map<RunId, ProgramRuntimeService.RuntimeInfo> programRuntimeInfos = runtimeInfos.get(progId);
+      ProgramRuntimeService.RuntimeInfo runtimeInfo = programRuntimeInfos == null
+        ? null : Iterables.getFirst(programRuntimeInfos.values(), null);
       try {
-        ProgramStatus programStatus = getProgramStatus(progId);
+        ProgramStatus programStatus = getProgramStatus(progId, runtimeInfo);
         statuses.add(new BatchProgramStatus(
           program, HttpResponseStatus.OK.getCode(), null, programStatus.name()));
       } catch (BadRequestException e) {
@@ -1210,6 +1228,19 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
    * @throws NotFoundException if the application to which this program belongs was not found
    */
   private ProgramStatus getProgramStatus(Id.Program id) throws BadRequestException, NotFoundException {
+    return getProgramStatus(id, id.getType() == null ? null : findRuntimeInfo(id, null));
+  }
+
+  /**
+   * Returns the program status, given the runtime info of the program that was already looked up.
+   * @param id the id of the program for which the status call is made
+   * @param runtimeInfo the runtime info of the program, or {@code null} if the program is not running
+   * @return the status of the program
+   * @throws BadRequestException if the program type is invalid
+   * @throws NotFoundException if the application to which this program belongs was not found
+   */
+  private ProgramStatus getProgramStatus(Id.Program id, @Nullable ProgramRuntimeService.RuntimeInfo runtimeInfo)
+    throws BadRequestException, NotFoundException {
     // invalid type does not exist
     if (id.getType() == null) {
       throw new BadRequestException(String.format("Invalid program type provided for program %s.", id.getId()));
@@ -1221,8 +1252,6 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
       throw new NotFoundException(Id.Application.from(id.getNamespaceId(), id.getApplicationId()));
     }
 
-    ProgramRuntimeService.RuntimeInfo runtimeInfo = findRuntimeInfo(id, null);
-
     if (runtimeInfo == null) {
       if (id.getType() != ProgramType.WEBAPP) {
         //Runtime info not found. Check to see if the program exists.
@@ -1261,18 +1290,12 @@ public class ProgramLifecycleHttpHandler extends AbstractAppFabricHttpHandler {
    */
   @Nullable
   private ProgramRuntimeService.RuntimeInfo findRuntimeInfo(Id.Program identifier, @Nullable String runId) {
-    Map<RunId, ProgramRuntimeService.RuntimeInfo> runtimeInfos = runtimeService.list(identifier.getType());
+    Map<RunId, ProgramRuntimeService.RuntimeInfo> runtimeInfos = runtimeService.list(identifier);
 
     if (runId != null) {
       return runtimeInfos.get(RunIds.fromString(runId));
     }
-
-    for (ProgramRuntimeService.RuntimeInfo info : runtimeInfos.values()) {
-      if (identifier.equals(info.getProgramId())) {
-        return info;
-      }
-    }
-    return null;
+    return Iterables.getFirst(runtimeInfos.values(), null);
   }
 
   @Nullable
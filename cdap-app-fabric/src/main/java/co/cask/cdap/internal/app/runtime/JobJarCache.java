@@ -0,0 +1,484 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime;
+
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.utils.ProjectInfo;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import com.google.common.io.InputSupplier;
+import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * A content-addressed cache of the jars built for submitting programs, such as the MapReduce job jar and launcher jar
+ * and the Spark dependency jar. A jar is identified by a hash of everything that goes into building it, so that
+ * the same jar is reused across runs as long as the inputs are unchanged.
+ *
+ * Jars are cached in a local directory and, if provided, in a directory of a {@link LocationFactory} so that they
+ * are shared by program runners on different hosts. A cached jar is written under a temporary name and then renamed,
+ * hence concurrent runs never see a partially written jar. Cached jars are never modified once created.
+ *
+ * Whenever a new jar is built, the jars that have not been used for longer than the maximum age are deleted from
+ * both directories, together with temporary files left behind by failed runs.
+ */
+public final class JobJarCache {
+
+  public static final String METRIC_HITS = "jar.cache.hits";
+  public static final String METRIC_MISSES = "jar.cache.misses";
+  public static final String METRIC_TIME_SAVED_MS = "jar.cache.time.saved.ms";
+
+  private static final Logger LOG = LoggerFactory.getLogger(JobJarCache.class);
+
+  // Bump it whenever the way jars are built changes, so that old cached jars are not used anymore
+  private static final int VERSION = 1;
+  // Suffix of the file that stores the time it took to build a cached jar. It is rewritten when the jar is used,
+  // hence its modification time tells when the jar was last used.
+  private static final String BUILD_TIME_SUFFIX = ".buildms";
+  private static final String JAR_SUFFIX = ".jar";
+
+  // Content hashes of class path files, keyed by path, modification time and size
+  private static final Cache<String, HashCode> CONTENT_HASHES = CacheBuilder.newBuilder().maximumSize(10000).build();
+
+  private final Location localDir;
+  private final Location remoteDir;
+  private final long maxAgeMillis;
+  private final MetricsContext metricsContext;
+
+  /**
+   * Creates a {@link JobJarCache} based on the configuration.
+   *
+   * @param cConf the configuration for the cache directory
+   * @param remoteLocationFactory the {@link LocationFactory} for sharing jars across hosts,
+   *                              or {@code null} to only cache jars locally
+   * @param metricsContext {@link MetricsContext} for emitting cache metrics
+   * @return a new {@link JobJarCache} or {@code null} if the cache is disabled
+   */
+  @Nullable
+  public static JobJarCache create(CConfiguration cConf, @Nullable LocationFactory remoteLocationFactory,
+                                   MetricsContext metricsContext) {
+    if (!cConf.getBoolean(Constants.AppFabric.JOB_JAR_CACHE_ENABLED)) {
+      return null;
+    }
+    String cacheDir = cConf.get(Constants.AppFabric.JOB_JAR_CACHE_DIR);
+    Location localDir = Locations.toLocation(new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cacheDir));
+    Location remoteDir = remoteLocationFactory == null ? null : remoteLocationFactory.create(cacheDir);
+    long maxAgeMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.AppFabric.JOB_JAR_CACHE_MAX_AGE_SECONDS));
+    return new JobJarCache(localDir, remoteDir, maxAgeMillis, metricsContext);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param localDir the directory for caching jars locally
+   * @param remoteDir the directory for sharing jars across hosts, or {@code null} to only cache jars locally
+   * @param maxAgeMillis cached jars that are not used for longer than this are deleted; {@code 0} to keep them
+   * @param metricsContext {@link MetricsContext} for emitting cache metrics
+   */
+  public JobJarCache(Location localDir, @Nullable Location remoteDir, long maxAgeMillis,
+                     MetricsContext metricsContext) {
+    this.localDir = localDir;
+    this.remoteDir = remoteDir;
+    this.maxAgeMillis = maxAgeMillis;
+    this.metricsContext = metricsContext;
+  }
+
+  /**
+   * Creates a {@link Hasher} for computing the key of a cached jar.
+   *
+   * @param name name of the jar, which is part of the key
+   */
+  public static Hasher newKeyHasher(String name) {
+    return Hashing.sha1().newHasher().putInt(VERSION).putString(name, Charsets.UTF_8);
+  }
+
+  /**
+   * Adds the CDAP version and the class path of the given {@link ClassLoader} and its parents to the
+   * given {@link Hasher}. The name and content hash of each class path entry are used, without the directory, so that
+   * it is the same for program runners that run in different YARN containers, where the class path entries
+   * are localized to different directories. The content hash of a file is only computed again in the same JVM if
+   * the path, size or modification time of the file changes.
+   */
+  public static Hasher putClassPath(Hasher hasher, @Nullable ClassLoader classLoader) throws IOException {
+    hasher.putString(ProjectInfo.getVersion().toString(), Charsets.UTF_8);
+    ClassLoader cl = classLoader;
+    while (cl != null) {
+      if (cl instanceof URLClassLoader) {
+        for (URL url : ((URLClassLoader) cl).getURLs()) {
+          File file = toFile(url);
+          if (file == null) {
+            hasher.putString(url.toString(), Charsets.UTF_8);
+          } else {
+            hasher.putString(file.getName(), Charsets.UTF_8).putBytes(getContentHash(file).asBytes());
+          }
+        }
+      }
+      cl = cl.getParent();
+    }
+    return hasher;
+  }
+
+  /**
+   * Adds the content of the given {@link Location} to the given {@link Hasher}.
+   */
+  public static Hasher putContent(Hasher hasher, Location location) throws IOException {
+    return hasher.putBytes(ByteStreams.hash(Locations.newInputSupplier(location), Hashing.sha1()).asBytes());
+  }
+
+  /**
+   * Adds the content of the given {@link URL} to the given {@link Hasher}.
+   */
+  public static Hasher putContent(Hasher hasher, final URL url) throws IOException {
+    return hasher.putBytes(ByteStreams.hash(new InputSupplier<InputStream>() {
+      @Override
+      public InputStream getInput() throws IOException {
+        return url.openStream();
+      }
+    }, Hashing.sha1()).asBytes());
+  }
+
+  /**
+   * Returns a local {@link File} of the jar with the given name and key. If the jar is not in the local cache,
+   * it is copied from the shared cache, or it is built with the given {@link JarBuilder} and added to both caches.
+   *
+   * @param name name of the jar
+   * @param key key of the jar, computed from all the inputs of the {@link JarBuilder}
+   * @param builder the {@link JarBuilder} for building the jar if it is not cached
+   * @return the cached jar file, which must not be modified
+   */
+  public File getLocal(String name, HashCode key, JarBuilder builder) throws IOException {
+    Stopwatch stopwatch = new Stopwatch().start();
+    String fileName = getFileName(name, key);
+    Location localJar = localDir.append(fileName);
+    if (localJar.exists()) {
+      hit(localJar, stopwatch);
+      return toFile(localJar);
+    }
+
+    Locations.mkdirsIfNotExists(localDir);
+    Location remoteJar = remoteDir == null ? null : remoteDir.append(fileName);
+    if (remoteJar != null && remoteJar.exists()) {
+      copyBuildTime(remoteJar, localJar);
+      copy(remoteJar, localJar);
+      hit(localJar, stopwatch);
+      return toFile(localJar);
+    }
+
+    build(localJar, builder, stopwatch);
+    if (remoteJar != null) {
+      try {
+        publish(localJar, remoteJar);
+      } catch (IOException e) {
+        // It's only the shared cache, the local jar can still be used
+        LOG.warn("Failed to add jar {} to the cache at {}", localJar, remoteJar, e);
+      }
+    }
+
+    // Only cleanup after building a new jar, so that it costs nothing on the common path where jars are cached
+    cleanup(System.currentTimeMillis());
+    return toFile(localJar);
+  }
+
+  /**
+   * Deletes the jars that have not been used for longer than the maximum age from the local and shared cache
+   * directories, together with temporary files older than the maximum age.
+   *
+   * @param now the current time in milliseconds
+   */
+  @VisibleForTesting
+  void cleanup(long now) {
+    if (maxAgeMillis <= 0) {
+      return;
+    }
+    cleanup(localDir, now);
+    if (remoteDir != null) {
+      cleanup(remoteDir, now);
+    }
+  }
+
+  /**
+   * Returns a {@link Location} of the jar with the given name and key in the shared cache. If the jar is not in the
+   * shared cache, it is copied from the local cache, or it is built with the given {@link JarBuilder} and added to
+   * both caches.
+   *
+   * @param name name of the jar
+   * @param key key of the jar, computed from all the inputs of the {@link JarBuilder}
+   * @param builder the {@link JarBuilder} for building the jar if it is not cached
+   * @return the cached jar location, which must not be modified
+   * @throws IllegalStateException if this cache has no shared cache directory
+   */
+  public Location getRemote(String name, HashCode key, JarBuilder builder) throws IOException {
+    if (remoteDir == null) {
+      throw new IllegalStateException("No shared jar cache directory is configured");
+    }
+    Stopwatch stopwatch = new Stopwatch().start();
+    Location remoteJar = remoteDir.append(getFileName(name, key));
+    if (remoteJar.exists()) {
+      hit(remoteJar, stopwatch);
+      return remoteJar;
+    }
+
+    Location localJar = Locations.toLocation(getLocal(name, key, builder));
+    if (!remoteJar.exists()) {
+      publish(localJar, remoteJar);
+    }
+    return remoteJar;
+  }
+
+  private void hit(Location jar, Stopwatch stopwatch) {
+    long buildMillis = readBuildTime(jar);
+    long savedMillis = Math.max(0L, buildMillis - stopwatch.elapsedMillis());
+    LOG.debug("Using cached jar {}, saved {} ms", jar, savedMillis);
+    metricsContext.increment(METRIC_HITS, 1);
+    metricsContext.increment(METRIC_TIME_SAVED_MS, savedMillis);
+
+    // Record that the jar is used, so that it is not deleted by cleanup. To avoid a write on every run,
+    // it is only recorded if the last record is older than a quarter of the maximum age.
+    try {
+      if (maxAgeMillis > 0 && System.currentTimeMillis() - getLastUsed(jar) > maxAgeMillis / 4) {
+        writeBuildTime(jar, buildMillis);
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to record usage of jar {}", jar, e);
+    }
+  }
+
+  private void cleanup(Location dir, long now) {
+    try {
+      if (!dir.exists()) {
+        return;
+      }
+      for (Location location : dir.list()) {
+        String name = location.getName();
+        long lastUsed;
+        if (name.endsWith(JAR_SUFFIX)) {
+          lastUsed = getLastUsed(location);
+        } else if (name.endsWith(BUILD_TIME_SUFFIX)) {
+          // Build times are deleted with their jar, unless the jar is gone
+          String jarName = name.substring(0, name.length() - BUILD_TIME_SUFFIX.length());
+          if (dir.append(jarName).exists()) {
+            continue;
+          }
+          lastUsed = getLastModified(location);
+        } else {
+          // Temporary files left behind by failed runs
+          lastUsed = getLastModified(location);
+        }
+
+        if (now - lastUsed > maxAgeMillis) {
+          LOG.debug("Deleting cached jar file {} last used at {}", location, lastUsed);
+          Locations.deleteQuietly(location);
+          if (name.endsWith(JAR_SUFFIX)) {
+            Locations.deleteQuietly(getBuildTimeLocation(location));
+          }
+        }
+      }
+    } catch (IOException e) {
+      // Cleanup is retried after the next jar is built
+      LOG.warn("Failed to cleanup jar cache directory {}", dir, e);
+    }
+  }
+
+  /**
+   * Returns the last time the given jar was built or used.
+   */
+  private static long getLastUsed(Location jar) throws IOException {
+    return Math.max(getLastModified(jar), getLastModified(getBuildTimeLocation(jar)));
+  }
+
+  /**
+   * Returns the modification time of the given {@link Location}, or {@code 0} if it doesn't exist.
+   */
+  private static long getLastModified(Location location) throws IOException {
+    try {
+      return location.lastModified();
+    } catch (FileNotFoundException e) {
+      return 0L;
+    }
+  }
+
+  private void build(Location target, JarBuilder builder, Stopwatch stopwatch) throws IOException {
+    Location tempJar = target.getTempFile(".tmp");
+    try {
+      builder.build(tempJar);
+      long buildMillis = stopwatch.elapsedMillis();
+      writeBuildTime(target, buildMillis);
+      commit(tempJar, target);
+      LOG.info("Built jar {} in {} ms", target, buildMillis);
+      metricsContext.increment(METRIC_MISSES, 1);
+    } finally {
+      Locations.deleteQuietly(tempJar);
+    }
+  }
+
+  /**
+   * Copies a jar together with its build time to the shared cache.
+   */
+  private void publish(Location localJar, Location remoteJar) throws IOException {
+    Locations.mkdirsIfNotExists(remoteDir);
+    copyBuildTime(localJar, remoteJar);
+    copy(localJar, remoteJar);
+    LOG.debug("Added jar {} to the cache at {}", localJar, remoteJar);
+  }
+
+  /**
+   * Copies the source to a temporary location and renames it to the target, so that the target is never
+   * partially written.
+   */
+  private static void copy(Location source, Location target) throws IOException {
+    Location tempLocation = target.getTempFile(".tmp");
+    try {
+      ByteStreams.copy(Locations.newInputSupplier(source), Locations.newOutputSupplier(tempLocation));
+      commit(tempLocation, target);
+    } finally {
+      Locations.deleteQuietly(tempLocation);
+    }
+  }
+
+  private static void commit(Location tempLocation, Location target) throws IOException {
+    // The rename fails if another run created the target concurrently, which has the same content
+    if (tempLocation.renameTo(target) == null && !target.exists()) {
+      throw new IOException("Failed to rename " + tempLocation + " to " + target);
+    }
+  }
+
+  private static void writeBuildTime(Location jar, long buildMillis) {
+    try (OutputStream os = getBuildTimeLocation(jar).getOutputStream()) {
+      os.write(Long.toString(buildMillis).getBytes(Charsets.UTF_8));
+    } catch (IOException e) {
+      // The build time is only for metrics
+      LOG.debug("Failed to write build time of jar {}", jar, e);
+    }
+  }
+
+  private static long readBuildTime(Location jar) {
+    try (InputStreamReader reader = new InputStreamReader(getBuildTimeLocation(jar).getInputStream(),
+                                                          Charsets.UTF_8)) {
+      return Long.parseLong(CharStreams.toString(reader).trim());
+    } catch (Exception e) {
+      LOG.debug("Failed to read build time of jar {}", jar, e);
+      return 0L;
+    }
+  }
+
+  private static void copyBuildTime(Location sourceJar, Location targetJar) {
+    try {
+      Location source = getBuildTimeLocation(sourceJar);
+      if (source.exists()) {
+        copy(source, getBuildTimeLocation(targetJar));
+      }
+    } catch (IOException e) {
+      LOG.debug("Failed to copy build time of jar {} to {}", sourceJar, targetJar, e);
+    }
+  }
+
+  private static Location getBuildTimeLocation(Location jar) throws IOException {
+    Location parent = Locations.getParent(jar);
+    if (parent == null) {
+      throw new IOException("Jar " + jar + " has no parent directory");
+    }
+    return parent.append(jar.getName() + BUILD_TIME_SUFFIX);
+  }
+
+  private static String getFileName(String name, HashCode key) {
+    return name + "-" + key + JAR_SUFFIX;
+  }
+
+  /**
+   * Returns the content hash of the given file, or of all files under the given directory.
+   */
+  private static HashCode getContentHash(File file) throws IOException {
+    if (file.isDirectory()) {
+      // The modification time of a directory doesn't change with its files, hence only the files are memoized
+      Hasher hasher = Hashing.sha1().newHasher();
+      File[] children = file.listFiles();
+      if (children != null) {
+        Arrays.sort(children);
+        for (File child : children) {
+          hasher.putString(child.getName(), Charsets.UTF_8).putBytes(getContentHash(child).asBytes());
+        }
+      }
+      return hasher.hash();
+    }
+    if (!file.isFile()) {
+      // A missing class path entry doesn't contribute to the jar
+      return Hashing.sha1().hashLong(-1L);
+    }
+
+    String cacheKey = file.getAbsolutePath() + ':' + file.lastModified() + ':' + file.length();
+    HashCode hash = CONTENT_HASHES.getIfPresent(cacheKey);
+    if (hash == null) {
+      hash = Files.hash(file, Hashing.sha1());
+      CONTENT_HASHES.put(cacheKey, hash);
+    }
+    return hash;
+  }
+
+  private static File toFile(Location location) {
+    return new File(Locations.toURI(location));
+  }
+
+  @Nullable
+  private static File toFile(URL url) {
+    if (!"file".equals(url.getProtocol())) {
+      return null;
+    }
+    try {
+      return new File(url.toURI());
+    } catch (URISyntaxException e) {
+      return new File(url.getPath());
+    }
+  }
+
+  /**
+   * Builds a jar to be cached.
+   */
+  public interface JarBuilder {
+
+    /**
+     * Builds the jar at the given {@link Location}.
+     */
+    void build(Location target) throws IOException;
+  }
+}
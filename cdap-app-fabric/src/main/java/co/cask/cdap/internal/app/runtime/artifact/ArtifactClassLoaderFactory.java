@@ -19,14 +19,10 @@ package co.cask.cdap.internal.app.runtime.artifact;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.lang.FilterClassLoader;
 import co.cask.cdap.common.lang.ProgramClassLoader;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.spark.SparkUtils;
 import co.cask.cdap.proto.ProgramType;
 import com.google.common.io.Closeables;
 import org.apache.twill.filesystem.Location;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.File;
@@ -34,18 +30,17 @@ import java.io.IOException;
 import java.net.URLClassLoader;
 
 /**
- * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact and
- * cleaning up the directory when the classloader is closed.
+ * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact through
+ * the {@link ArtifactUnpackCache} and releasing the unpacked directory when the classloader is closed.
  */
 public class ArtifactClassLoaderFactory {
-  private static final Logger LOG = LoggerFactory.getLogger(ArtifactClassLoaderFactory.class);
 
   private final CConfiguration cConf;
-  private final File baseUnpackDir;
+  private final ArtifactUnpackCache unpackCache;
 
   public ArtifactClassLoaderFactory(CConfiguration cConf, File baseUnpackDir) {
     this.cConf = cConf;
-    this.baseUnpackDir = baseUnpackDir;
+    this.unpackCache = ArtifactUnpackCache.getInstance(cConf, baseUnpackDir);
   }
 
   /**
@@ -58,24 +53,26 @@ public class ArtifactClassLoaderFactory {
    * @throws IOException if there was an error copying or unpacking the artifact
    */
   public CloseableClassLoader createClassLoader(Location artifactLocation) throws IOException {
-    final File unpackDir = DirUtils.createTempDir(baseUnpackDir);
-    BundleJarUtil.unJar(artifactLocation, unpackDir);
+    final ArtifactUnpackCache.UnpackedArtifact unpackedArtifact = unpackCache.unpack(artifactLocation);
 
     // Always have spark classes visible for artifact class loading purpose since we don't know if
     // any classes inside the artifact is a Spark program
     final URLClassLoader parentClassLoader = SparkUtils.createSparkFrameworkClassLoader(getClass().getClassLoader());
-    final ProgramClassLoader programClassLoader =
-      ProgramClassLoader.create(cConf, unpackDir, parentClassLoader, ProgramType.SPARK);
+    final ProgramClassLoader programClassLoader;
+    try {
+      programClassLoader =
+        ProgramClassLoader.create(cConf, unpackedArtifact.getDirectory(), parentClassLoader, ProgramType.SPARK);
+    } catch (IOException | RuntimeException e) {
+      Closeables.closeQuietly(parentClassLoader);
+      unpackedArtifact.close();
+      throw e;
+    }
     return new CloseableClassLoader(programClassLoader, new Closeable() {
       @Override
       public void close() {
-        try {
-          Closeables.closeQuietly(programClassLoader);
-          Closeables.closeQuietly(parentClassLoader);
-          DirUtils.deleteDirectoryContents(unpackDir);
-        } catch (IOException e) {
-          LOG.warn("Failed to delete directory {}", unpackDir, e);
-        }
+        Closeables.closeQuietly(programClassLoader);
+        Closeables.closeQuietly(parentClassLoader);
+        unpackedArtifact.close();
       }
     });
   }
@@ -0,0 +1,307 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.artifact;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.lang.jar.BundleJarUtil;
+import co.cask.cdap.common.utils.DirUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A process-wide cache of unpacked artifact jars, so that class loaders created from the same artifact share
+ * the same unpacked directory instead of each unpacking the artifact again. Artifacts are identified by
+ * the checksum of their content, hence copies of the same artifact at different locations also share the same
+ * unpacked directory.
+ *
+ * Each {@link UnpackedArtifact} returned by {@link #unpack(Location)} holds a reference to the unpacked directory,
+ * which must be released by closing it. Directories without reference are kept for reuse, and the least
+ * recently used ones are deleted once the total size of them exceeds the configured disk budget.
+ *
+ * This class is thread-safe.
+ */
+public final class ArtifactUnpackCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactUnpackCache.class);
+
+  // One cache per base directory in the process
+  private static final ConcurrentMap<File, ArtifactUnpackCache> INSTANCES = Maps.newConcurrentMap();
+
+  private final File cacheDir;
+  private final long maxUnusedBytes;
+  // Ordered from least recently used to most recently used
+  private final Map<String, Entry> entries;
+  // Checksum of artifacts, keyed by location, size and modification time, to avoid reading unchanged artifacts again
+  private final Cache<String, String> checksums;
+  private long unusedBytes;
+
+  /**
+   * Returns the {@link ArtifactUnpackCache} for unpacking artifacts in the given base directory.
+   * There is only one instance for each base directory in the process.
+   *
+   * @param cConf the configuration for the disk budget of the cache
+   * @param baseDir the directory to unpack artifacts in
+   */
+  public static ArtifactUnpackCache getInstance(CConfiguration cConf, File baseDir) {
+    File dir = baseDir.getAbsoluteFile();
+    ArtifactUnpackCache cache = INSTANCES.get(dir);
+    if (cache != null) {
+      return cache;
+    }
+    long maxUnusedBytes = cConf.getLong(Constants.AppFabric.ARTIFACT_UNPACK_CACHE_SIZE_MB) * 1024 * 1024;
+    // Always use a new directory, since the directory of a previous process cannot be trusted
+    cache = new ArtifactUnpackCache(DirUtils.createTempDir(new File(dir, "unpack")), maxUnusedBytes);
+    ArtifactUnpackCache existing = INSTANCES.putIfAbsent(dir, cache);
+    if (existing != null) {
+      cache.cacheDir.delete();
+      return existing;
+    }
+
+    // Unpacked directories are kept for reuse until the process exits
+    final File cacheDir = cache.cacheDir;
+    Runtime.getRuntime().addShutdownHook(new Thread("artifact-unpack-cache-cleanup") {
+      @Override
+      public void run() {
+        deleteQuietly(cacheDir);
+      }
+    });
+    return cache;
+  }
+
+  @VisibleForTesting
+  ArtifactUnpackCache(File cacheDir, long maxUnusedBytes) {
+    this.cacheDir = cacheDir;
+    this.maxUnusedBytes = maxUnusedBytes;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.checksums = CacheBuilder.newBuilder().maximumSize(1000).build();
+  }
+
+  /**
+   * Unpacks the given artifact, or returns the directory that the same artifact was already unpacked to.
+   *
+   * @param artifactLocation location of the artifact jar
+   * @return an {@link UnpackedArtifact}, which must be closed once the unpacked directory is no longer used
+   * @throws IOException if failed to read or unpack the artifact
+   */
+  public UnpackedArtifact unpack(Location artifactLocation) throws IOException {
+    String checksum = getChecksum(artifactLocation);
+
+    Entry entry;
+    boolean created = false;
+    synchronized (this) {
+      entry = entries.get(checksum);
+      if (entry != null && entry.isDeleted()) {
+        // The directory was deleted from outside, unpack it again
+        entries.remove(checksum);
+        entry.removed = true;
+        if (entry.refCount == 0) {
+          unusedBytes -= entry.size;
+        }
+        entry = null;
+      }
+      if (entry == null) {
+        entry = new Entry(checksum);
+        entries.put(checksum, entry);
+        created = true;
+      }
+      if (entry.refCount++ == 0 && entry.size >= 0) {
+        unusedBytes -= entry.size;
+      }
+    }
+
+    if (created) {
+      unpack(artifactLocation, entry);
+    }
+
+    try {
+      Futures.get(entry.directory, IOException.class);
+    } catch (IOException e) {
+      release(entry);
+      throw e;
+    }
+    return new UnpackedArtifact(entry);
+  }
+
+  /**
+   * Returns the total size in bytes of the unpacked directories that are not used.
+   */
+  @VisibleForTesting
+  synchronized long getUnusedBytes() {
+    return unusedBytes;
+  }
+
+  private void unpack(Location artifactLocation, Entry entry) {
+    Stopwatch stopwatch = new Stopwatch().start();
+    File dir = null;
+    try {
+      dir = DirUtils.createTempDir(cacheDir);
+      BundleJarUtil.unJar(artifactLocation, dir);
+      long size = getSize(dir);
+      synchronized (this) {
+        entry.size = size;
+        if (entry.refCount == 0) {
+          unusedBytes += size;
+        }
+      }
+      LOG.debug("Unpacked artifact {} to {} in {} ms", artifactLocation, dir, stopwatch.elapsedMillis());
+      entry.directory.set(dir);
+    } catch (Throwable t) {
+      synchronized (this) {
+        if (entries.get(entry.checksum) == entry) {
+          entries.remove(entry.checksum);
+        }
+      }
+      if (dir != null) {
+        deleteQuietly(dir);
+      }
+      entry.directory.setException(t);
+    }
+  }
+
+  private void release(Entry entry) {
+    List<File> toDelete = Lists.newArrayList();
+    synchronized (this) {
+      if (--entry.refCount > 0 || entry.size < 0 || entry.removed) {
+        return;
+      }
+      unusedBytes += entry.size;
+
+      // Delete the least recently used directories that are not used until the cache is within the budget
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (unusedBytes > maxUnusedBytes && iterator.hasNext()) {
+        Entry candidate = iterator.next();
+        if (candidate.refCount == 0 && candidate.size >= 0) {
+          iterator.remove();
+          candidate.removed = true;
+          unusedBytes -= candidate.size;
+          toDelete.add(Futures.getUnchecked(candidate.directory));
+        }
+      }
+    }
+
+    for (File dir : toDelete) {
+      deleteQuietly(dir);
+    }
+  }
+
+  private String getChecksum(Location artifactLocation) throws IOException {
+    String key = artifactLocation.toURI() + ":" + artifactLocation.length() + ":" + artifactLocation.lastModified();
+    String checksum = checksums.getIfPresent(key);
+    if (checksum == null) {
+      checksum = ByteStreams.hash(Locations.newInputSupplier(artifactLocation), Hashing.sha1()).toString();
+      checksums.put(key, checksum);
+    }
+    return checksum;
+  }
+
+  private static long getSize(File file) {
+    if (!file.isDirectory()) {
+      return file.length();
+    }
+    long size = 0L;
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        size += getSize(child);
+      }
+    }
+    return size;
+  }
+
+  private static void deleteQuietly(File dir) {
+    try {
+      DirUtils.deleteDirectoryContents(dir);
+    } catch (IOException e) {
+      LOG.warn("Failed to delete directory {}", dir, e);
+    }
+  }
+
+  /**
+   * A directory that an artifact is unpacked to.
+   */
+  private static final class Entry {
+    private final String checksum;
+    private final SettableFuture<File> directory;
+    private int refCount;
+    // Size of the unpacked directory, or -1 if the artifact is not unpacked yet
+    private long size;
+    // Whether the entry was removed from the cache
+    private boolean removed;
+
+    Entry(String checksum) {
+      this.checksum = checksum;
+      this.directory = SettableFuture.create();
+      this.size = -1L;
+    }
+
+    boolean isDeleted() {
+      return directory.isDone() && size >= 0 && !Futures.getUnchecked(directory).isDirectory();
+    }
+  }
+
+  /**
+   * A reference to an unpacked artifact directory. The directory must not be modified, and it may be deleted
+   * once this is closed.
+   */
+  public final class UnpackedArtifact implements Closeable {
+
+    private final Entry entry;
+    private final AtomicBoolean closed;
+
+    private UnpackedArtifact(Entry entry) {
+      this.entry = entry;
+      this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * Returns the directory that the artifact is unpacked to.
+     */
+    public File getDirectory() {
+      return Futures.getUnchecked(entry.directory);
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(entry);
+      }
+    }
+  }
+}
@@ -43,6 +43,7 @@ import co.cask.cdap.data2.registry.UsageRegistry;
 import co.cask.cdap.data2.transaction.Transactions;
 import co.cask.cdap.data2.transaction.stream.StreamAdmin;
 import co.cask.cdap.data2.util.hbase.HBaseTableUtilFactory;
+import co.cask.cdap.internal.app.runtime.JobJarCache;
 import co.cask.cdap.internal.app.runtime.LocalizationUtils;
 import co.cask.cdap.internal.app.runtime.batch.dataset.MultipleOutputs;
 import co.cask.cdap.internal.app.runtime.batch.dataset.MultipleOutputsMainOutputWrapper;
@@ -58,11 +59,14 @@ import co.cask.tephra.TransactionContext;
 import co.cask.tephra.TransactionFailureException;
 import co.cask.tephra.TransactionSystemClient;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.reflect.TypeToken;
@@ -236,9 +240,13 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
       MapperWrapper.wrap(job);
       ReducerWrapper.wrap(job);
 
+      // Jars built for the job are cached across runs in distributed mode
+      JobJarCache jarCache = MapReduceTaskContextProvider.isLocal(mapredConf)
+        ? null : JobJarCache.create(cConf, locationFactory, context.getProgramMetrics());
+
       // packaging job jar which includes cdap classes with dependencies
-      File jobJar = buildJobJar(job, tempDir);
-      job.setJar(jobJar.toURI().toString());
+      URI jobJar = buildJobJar(job, tempDir, jarCache);
+      job.setJar(jobJar.toString());
 
       Location programJar = programJarLocation;
       if (!MapReduceTaskContextProvider.isLocal(mapredConf)) {
@@ -251,7 +259,8 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
         paths.add("job.jar/lib/*");
         paths.add("job.jar/classes");
         Location launcherJar = createLauncherJar(
-          Joiner.on(",").join(MapReduceContainerHelper.getMapReduceClassPath(mapredConf, paths)), tempLocation);
+          Joiner.on(",").join(MapReduceContainerHelper.getMapReduceClassPath(mapredConf, paths)), tempLocation,
+          jarCache);
         job.addCacheFile(Locations.toURI(launcherJar));
 
         // The only thing in the container classpath is the launcher.jar
@@ -644,33 +653,55 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
 
   /**
    * Creates a jar that contains everything that are needed for running the MapReduce program by Hadoop.
+   * If a {@link JobJarCache} is given, the jar is taken from the cache if it was built before by another run.
    *
-   * @return a new {@link File} containing the job jar
+   * @return the {@link URI} of the job jar
    */
-  private File buildJobJar(Job job, File tempDir) throws IOException, URISyntaxException {
-    File jobJar = new File(tempDir, "job.jar");
-    LOG.debug("Creating Job jar: {}", jobJar);
-
+  private URI buildJobJar(final Job job, File tempDir,
+                          @Nullable JobJarCache jarCache) throws IOException, URISyntaxException {
     // For local mode, nothing is needed in the job jar since we use the classloader in the configuration object.
     if (MapReduceTaskContextProvider.isLocal(job.getConfiguration())) {
+      File jobJar = new File(tempDir, "job.jar");
+      LOG.debug("Creating Job jar: {}", jobJar);
       JarOutputStream output = new JarOutputStream(new FileOutputStream(jobJar));
       output.close();
-      return jobJar;
+      return jobJar.toURI();
     }
 
-    // Excludes libraries that are for sure not needed.
-    // Hadoop - Available from the cluster
-    // Spark - MR never uses Spark
-    final HadoopClassExcluder hadoopClassExcluder = new HadoopClassExcluder();
-    ApplicationBundler appBundler = new ApplicationBundler(new ClassAcceptor() {
+    final Set<Class<?>> classes = getJobJarClasses(job);
+
+    // Add the logback.xml as a resource while creating the MapReduce Job JAR
+    final Set<URI> logbackURI = Sets.newHashSet();
+    URL logback = getClass().getResource("/logback.xml");
+    if (logback != null) {
+      logbackURI.add(logback.toURI());
+    } else {
+      LOG.warn("Could not find logback.xml while building MapReduce Job JAR!");
+    }
+
+    JobJarCache.JarBuilder jarBuilder = new JobJarCache.JarBuilder() {
       @Override
-      public boolean accept(String className, URL classUrl, URL classPathUrl) {
-        if (className.startsWith("org.apache.spark") || classPathUrl.toString().contains("spark-assembly")) {
-          return false;
-        }
-        return hadoopClassExcluder.accept(className, classUrl, classPathUrl);
+      public void build(Location target) throws IOException {
+        createJobJar(job, classes, logbackURI, target);
       }
-    });
+    };
+
+    if (jarCache == null) {
+      Location jobJar = new LocalLocationFactory().create(new File(tempDir, "job.jar").toURI());
+      LOG.debug("Creating Job jar: {}", jobJar);
+      jarBuilder.build(jobJar);
+      return jobJar.toURI();
+    }
+
+    Location jobJar = jarCache.getRemote("job", getJobJarKey(classes, logback), jarBuilder);
+    LOG.info("Using MapReduce Job Jar at {}", jobJar.toURI());
+    return jobJar.toURI();
+  }
+
+  /**
+   * Returns the set of classes to trace dependencies from for building the job jar.
+   */
+  private Set<Class<?>> getJobJarClasses(Job job) {
     Set<Class<?>> classes = Sets.newHashSet();
     classes.add(MapReduce.class);
     classes.add(MapperWrapper.class);
@@ -714,22 +745,83 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
     } catch (ProvisionException e) {
       LOG.warn("Not including HBaseTableUtil classes in submitted Job Jar since they are not available");
     }
+    return classes;
+  }
 
-    // Add the logback.xml as a resource while creating the MapReduce Job JAR
-    Set<URI> logbackURI = Sets.newHashSet();
-    URL logback = getClass().getResource("/logback.xml");
-    if (logback != null) {
-      logbackURI.add(logback.toURI());
-    } else {
-      LOG.warn("Could not find logback.xml while building MapReduce Job JAR!");
-    }
+  /**
+   * Creates the job jar at the given location by tracing dependencies of the given classes.
+   */
+  private void createJobJar(Job job, Set<Class<?>> classes, Set<URI> resources, Location jobJar) throws IOException {
+    // Excludes libraries that are for sure not needed.
+    // Hadoop - Available from the cluster
+    // Spark - MR never uses Spark
+    final HadoopClassExcluder hadoopClassExcluder = new HadoopClassExcluder();
+    ApplicationBundler appBundler = new ApplicationBundler(new ClassAcceptor() {
+      @Override
+      public boolean accept(String className, URL classUrl, URL classPathUrl) {
+        if (className.startsWith("org.apache.spark") || classPathUrl.toString().contains("spark-assembly")) {
+          return false;
+        }
+        return hadoopClassExcluder.accept(className, classUrl, classPathUrl);
+      }
+    });
 
     ClassLoader oldCLassLoader = ClassLoaders.setContextClassLoader(job.getConfiguration().getClassLoader());
-    appBundler.createBundle(new LocalLocationFactory().create(jobJar.toURI()), classes, logbackURI);
-    ClassLoaders.setContextClassLoader(oldCLassLoader);
+    try {
+      appBundler.createBundle(jobJar, classes, resources);
+    } finally {
+      ClassLoaders.setContextClassLoader(oldCLassLoader);
+    }
 
     LOG.info("Built MapReduce Job Jar at {}", jobJar.toURI());
-    return jobJar;
+  }
+
+  /**
+   * Computes the {@link JobJarCache} key of the job jar. The job jar content is determined by the CDAP class path,
+   * the classes to trace, and the logback.xml. If any of the classes comes from the program or its plugins
+   * instead of CDAP, the program jar and the plugin archive are also part of the key.
+   */
+  private HashCode getJobJarKey(Set<Class<?>> classes, @Nullable URL logback) throws IOException {
+    ClassLoader cdapClassLoader = getClass().getClassLoader();
+    Hasher hasher = JobJarCache.putClassPath(JobJarCache.newKeyHasher("job"), cdapClassLoader);
+
+    Set<String> classNames = Sets.newTreeSet();
+    boolean hasProgramClasses = false;
+    for (Class<?> cls : classes) {
+      classNames.add(cls.getName());
+      hasProgramClasses = hasProgramClasses || !isLoadedBy(cls, cdapClassLoader);
+    }
+    for (String className : classNames) {
+      hasher.putString(className, Charsets.UTF_8);
+    }
+
+    if (hasProgramClasses) {
+      JobJarCache.putContent(hasher, programJarLocation);
+      File pluginArchive = context.getPluginArchive();
+      if (pluginArchive != null) {
+        JobJarCache.putContent(hasher, Locations.toLocation(pluginArchive));
+      }
+    }
+    if (logback != null) {
+      JobJarCache.putContent(hasher, logback);
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Returns {@code true} if the given class is loaded by the given {@link ClassLoader} or any of its parents.
+   */
+  private static boolean isLoadedBy(Class<?> cls, ClassLoader classLoader) {
+    ClassLoader clsLoader = cls.getClassLoader();
+    if (clsLoader == null) {
+      return true;
+    }
+    for (ClassLoader cl = classLoader; cl != null; cl = cl.getParent()) {
+      if (cl == clsLoader) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -868,16 +960,33 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
   }
 
   /**
-   * Creates a launcher jar.
+   * Creates a launcher jar. If a {@link JobJarCache} is given, the jar is taken from the cache if it was created
+   * before by another run.
    *
    * @see MapReduceContainerLauncher
    * @see ContainerLauncherGenerator
    */
-  private Location createLauncherJar(String applicationClassPath, Location targetDir) throws IOException {
-    Location launcherJar = targetDir.append("launcher.jar");
-    ContainerLauncherGenerator.generateLauncherJar(applicationClassPath, MapReduceClassLoader.class.getName(),
-                                                   Locations.newOutputSupplier(launcherJar));
-    return launcherJar;
+  private Location createLauncherJar(final String applicationClassPath, Location targetDir,
+                                     @Nullable JobJarCache jarCache) throws IOException {
+    JobJarCache.JarBuilder jarBuilder = new JobJarCache.JarBuilder() {
+      @Override
+      public void build(Location target) throws IOException {
+        ContainerLauncherGenerator.generateLauncherJar(applicationClassPath, MapReduceClassLoader.class.getName(),
+                                                       Locations.newOutputSupplier(target));
+      }
+    };
+
+    if (jarCache == null) {
+      Location launcherJar = targetDir.append("launcher.jar");
+      jarBuilder.build(launcherJar);
+      return launcherJar;
+    }
+
+    HashCode key = JobJarCache.putClassPath(JobJarCache.newKeyHasher("launcher"), getClass().getClassLoader())
+      .putString(applicationClassPath, Charsets.UTF_8)
+      .putString(MapReduceClassLoader.class.getName(), Charsets.UTF_8)
+      .hash();
+    return jarCache.getRemote("launcher", key, jarBuilder);
   }
 
   private Runnable createCleanupTask(final Object...resources) {
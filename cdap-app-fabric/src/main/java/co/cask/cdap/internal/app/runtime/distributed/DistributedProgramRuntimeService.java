@@ -50,13 +50,13 @@ import co.cask.tephra.TransactionExecutorFactory;
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -69,6 +69,7 @@ import org.apache.twill.api.RunId;
 import org.apache.twill.api.TwillController;
 import org.apache.twill.api.TwillRunResources;
 import org.apache.twill.api.TwillRunner;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -84,8 +85,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 import static co.cask.cdap.proto.Containers.ContainerInfo;
 import static co.cask.cdap.proto.Containers.ContainerType.FLOWLET;
@@ -109,6 +114,11 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
   private final StreamAdmin streamAdmin;
   private final TransactionExecutorFactory txExecutorFactory;
   private final ProgramResourceReporter resourceReporter;
+  private final long syncIntervalSeconds;
+  // Twill RunIds of live Twill applications that are not programs, which are skipped when syncing.
+  // It is only accessed by the sync thread.
+  private final Set<RunId> ignoredTwillRunIds;
+  private ScheduledExecutorService syncExecutor;
 
   @Inject
   DistributedProgramRuntimeService(ProgramRunnerFactory programRunnerFactory, TwillRunner twillRunner,
@@ -124,6 +134,8 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
     this.streamAdmin = streamAdmin;
     this.txExecutorFactory = txExecutorFactory;
     this.resourceReporter = new ClusterResourceReporter(metricsCollectionService, hConf);
+    this.syncIntervalSeconds = cConf.getLong(Constants.AppFabric.PROGRAM_RUNTIME_SYNC_INTERVAL_SECONDS);
+    this.ignoredTwillRunIds = Sets.newHashSet();
   }
 
   @Override
@@ -135,100 +147,86 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
     return null;
   }
 
-  // TODO SAGAR better data structure to support this efficiently
-  private synchronized boolean isTwillRunIdCached(RunId twillRunId) {
-    for (RuntimeInfo runtimeInfo : getRuntimeInfos()) {
-      if (twillRunId.equals(runtimeInfo.getTwillRunId())) {
-        return true;
-      }
-    }
-    return false;
-  }
-
   @Override
-  public synchronized RuntimeInfo lookup(Id.Program programId, final RunId runId) {
+  public RuntimeInfo lookup(Id.Program programId, RunId runId) {
     RuntimeInfo runtimeInfo = super.lookup(programId, runId);
     if (runtimeInfo != null) {
       return runtimeInfo;
     }
 
-    // Goes through all live application and fill the twillProgramInfo table
-    for (TwillRunner.LiveInfo liveInfo : twillRunner.lookupLive()) {
-      String appName = liveInfo.getApplicationName();
-      Matcher matcher = APP_NAME_PATTERN.matcher(appName);
-      if (!matcher.matches()) {
-        continue;
-      }
-
-      ProgramType type = getType(matcher.group(1));
-      Id.Program id = Id.Program.from(matcher.group(2), matcher.group(3), type, matcher.group(4));
-      if (!id.equals(programId)) {
-        continue;
-      }
-
-      // Program matched
-      RunRecordMeta record = store.getRun(programId, runId.getId());
-      if (record == null) {
-        return null;
-      }
-      if (record.getTwillRunId() == null) {
-        LOG.warn("Twill RunId does not exist for the program {}, runId {}", programId, runId.getId());
-        return null;
-      }
-      RunId twillRunIdFromRecord = org.apache.twill.internal.RunIds.fromString(record.getTwillRunId());
+    // The run may not be synced yet. Resolve it directly if the program is running in Twill.
+    String twillAppName = getTwillAppName(programId);
+    if (!twillRunner.lookup(twillAppName).iterator().hasNext()) {
+      return null;
+    }
+    RunRecordMeta record = store.getRun(programId, runId.getId());
+    if (record == null) {
+      return null;
+    }
+    if (record.getTwillRunId() == null) {
+      LOG.warn("Twill RunId does not exist for the program {}, runId {}", programId, runId.getId());
+      return null;
+    }
+    RunId twillRunId = org.apache.twill.internal.RunIds.fromString(record.getTwillRunId());
+    TwillController controller = twillRunner.lookup(twillAppName, twillRunId);
+    if (controller == null) {
+      return null;
+    }
 
-      for (TwillController controller : liveInfo.getControllers()) {
-        RunId twillRunId = controller.getRunId();
-        if (!twillRunId.equals(twillRunIdFromRecord)) {
-          continue;
-        }
-        runtimeInfo = createRuntimeInfo(programId, controller, runId);
-        if (runtimeInfo != null) {
-          updateRuntimeInfo(programId.getType(), runId, runtimeInfo);
-        } else {
-          LOG.warn("Unable to find program for runId {}", runId);
-        }
-        return runtimeInfo;
-      }
+    // The sync thread may have added the run in the meantime
+    runtimeInfo = super.lookup(programId, runId);
+    if (runtimeInfo != null) {
+      return runtimeInfo;
     }
-    return null;
+    runtimeInfo = createRuntimeInfo(programId, controller, runId);
+    if (runtimeInfo == null) {
+      LOG.warn("Unable to find program for runId {}", runId);
+      return null;
+    }
+    return addRuntimeInfo(programId.getType(), runId, runtimeInfo);
   }
 
-  @Override
-  public synchronized Map<RunId, RuntimeInfo> list(ProgramType type) {
-    Map<RunId, RuntimeInfo> result = Maps.newHashMap();
-    result.putAll(super.list(type));
-
-    // Table holds the Twill RunId and TwillController associated with the program matching the input type
-    Table<Id.Program, RunId, TwillController> twillProgramInfo = HashBasedTable.create();
-
-    // Goes through all live application and fill the twillProgramInfo table
-    for (TwillRunner.LiveInfo liveInfo : twillRunner.lookupLive()) {
-      String appName = liveInfo.getApplicationName();
-      Matcher matcher = APP_NAME_PATTERN.matcher(appName);
-      if (!matcher.matches()) {
-        continue;
-      }
-      if (!type.equals(getType(matcher.group(1)))) {
-        continue;
+  /**
+   * Adds runs of programs that were not started through this service, such as the ones started before this process
+   * started, to the runtime infos. Runs are removed from the runtime infos by the program controllers once they
+   * are completed, hence only Twill applications that were not seen before are matched against the run records.
+   */
+  private void syncLiveInfo() {
+    Set<RunId> knownTwillRunIds = Sets.newHashSet();
+    for (RuntimeInfo runtimeInfo : getRuntimeInfos()) {
+      if (runtimeInfo.getTwillRunId() != null) {
+        knownTwillRunIds.add(runtimeInfo.getTwillRunId());
       }
+    }
 
+    // Program and TwillController of the unknown Twill applications, keyed by the Twill RunId
+    Map<RunId, Map.Entry<Id.Program, TwillController>> unknownRuns = Maps.newHashMap();
+    Set<RunId> liveTwillRunIds = Sets.newHashSet();
+    for (TwillRunner.LiveInfo liveInfo : twillRunner.lookupLive()) {
+      Id.Program programId = null;
       for (TwillController controller : liveInfo.getControllers()) {
         RunId twillRunId = controller.getRunId();
-        if (isTwillRunIdCached(twillRunId)) {
+        liveTwillRunIds.add(twillRunId);
+        if (knownTwillRunIds.contains(twillRunId) || ignoredTwillRunIds.contains(twillRunId)) {
           continue;
         }
-
-        Id.Program programId = Id.Program.from(matcher.group(2), matcher.group(3), type, matcher.group(4));
-        twillProgramInfo.put(programId, twillRunId, controller);
+        if (programId == null) {
+          programId = getProgramId(liveInfo.getApplicationName());
+        }
+        if (programId == null) {
+          ignoredTwillRunIds.add(twillRunId);
+        } else {
+          unknownRuns.put(twillRunId, Maps.immutableEntry(programId, controller));
+        }
       }
     }
+    ignoredTwillRunIds.retainAll(liveTwillRunIds);
 
-    if (twillProgramInfo.isEmpty()) {
-      return ImmutableMap.copyOf(result);
+    if (unknownRuns.isEmpty()) {
+      return;
     }
 
-    final Set<RunId> twillRunIds = twillProgramInfo.columnKeySet();
+    final Set<RunId> twillRunIds = unknownRuns.keySet();
     List<RunRecordMeta> activeRunRecords = store.getRuns(ProgramRunStatus.RUNNING, new Predicate<RunRecordMeta>() {
       @Override
       public boolean apply(RunRecordMeta record) {
@@ -242,22 +240,42 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
       // Get the CDAP RunId from RunRecord
       RunId runId = RunIds.fromString(record.getPid());
       // Get the Program and TwillController for the current twillRunId
-      Map<Id.Program, TwillController> mapForTwillId = twillProgramInfo.columnMap().get(twillRunIdFromRecord);
-      Map.Entry<Id.Program, TwillController> entry = mapForTwillId.entrySet().iterator().next();
+      Map.Entry<Id.Program, TwillController> entry = unknownRuns.get(twillRunIdFromRecord);
+      // Skip runs added by a concurrent lookup since the known runs were collected
+      if (super.lookup(entry.getKey(), runId) != null) {
+        continue;
+      }
 
       // Create RuntimeInfo for the current Twill RunId
       RuntimeInfo runtimeInfo = createRuntimeInfo(entry.getKey(), entry.getValue(), runId);
       if (runtimeInfo != null) {
-        result.put(runId, runtimeInfo);
-        updateRuntimeInfo(type, runId, runtimeInfo);
+        addRuntimeInfo(entry.getKey().getType(), runId, runtimeInfo);
       } else {
-        LOG.warn("Unable to find program {} {}", type, entry.getKey());
+        LOG.warn("Unable to find program {} {}", entry.getKey().getType(), entry.getKey());
       }
     }
+  }
 
-    return ImmutableMap.copyOf(result);
+  /**
+   * Adds the given {@link RuntimeInfo} created by {@link #createRuntimeInfo(Id.Program, TwillController, RunId)},
+   * unless a concurrent lookup or sync already added one for the same run. The program controller only starts
+   * listening to the {@link TwillController} once added, since Twill listeners cannot be removed from a discarded
+   * controller.
+   *
+   * @return the {@link RuntimeInfo} of the run
+   */
+  private RuntimeInfo addRuntimeInfo(ProgramType type, RunId runId, RuntimeInfo runtimeInfo) {
+    RuntimeInfo result = updateRuntimeInfo(type, runId, runtimeInfo);
+    if (result == runtimeInfo) {
+      ((AbstractTwillProgramController) runtimeInfo.getController()).startListen();
+    }
+    return result;
   }
 
+  /**
+   * Creates a {@link RuntimeInfo} with a program controller that is not yet listening to the given
+   * {@link TwillController}.
+   */
   private RuntimeInfo createRuntimeInfo(Id.Program programId, TwillController controller, RunId runId) {
     try {
       Program program = store.loadProgram(programId);
@@ -272,7 +290,9 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
     }
   }
 
-  private ProgramController createController(Program program, TwillController controller, RunId runId) {
+  @Nullable
+  private AbstractTwillProgramController createController(Program program, TwillController controller,
+                                                          RunId runId) {
     AbstractTwillProgramController programController = null;
     Id.Program programId = program.getId();
 
@@ -303,7 +323,26 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
         programController = new WorkerTwillProgramController(programId, controller, runId);
         break;
     }
-    return programController == null ? null : programController.startListen();
+    return programController;
+  }
+
+  /**
+   * Returns the program id from the given Twill application name, or {@code null} if the Twill application
+   * is not a program.
+   */
+  @Nullable
+  private Id.Program getProgramId(String twillAppName) {
+    Matcher matcher = APP_NAME_PATTERN.matcher(twillAppName);
+    if (!matcher.matches()) {
+      return null;
+    }
+    ProgramType type = getType(matcher.group(1));
+    return type == null ? null : Id.Program.from(matcher.group(2), matcher.group(3), type, matcher.group(4));
+  }
+
+  private static String getTwillAppName(Id.Program program) {
+    return String.format("%s.%s.%s.%s", program.getType().name().toLowerCase(),
+                         program.getNamespaceId(), program.getApplicationId(), program.getId());
   }
 
   private ProgramType getType(String typeName) {
@@ -338,8 +377,7 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
 
   @Override
   public ProgramLiveInfo getLiveInfo(Id.Program program) {
-    String twillAppName = String.format("%s.%s.%s.%s", program.getType().name().toLowerCase(),
-                                        program.getNamespaceId(), program.getApplicationId(), program.getId());
+    String twillAppName = getTwillAppName(program);
     Iterator<TwillController> controllers = twillRunner.lookup(twillAppName).iterator();
     // this will return an empty Json if there is no live instance
     if (controllers.hasNext()) {
@@ -527,18 +565,8 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
     }
 
     private Map<String, String> getMetricContext(TwillRunner.LiveInfo info) {
-      Matcher matcher = APP_NAME_PATTERN.matcher(info.getApplicationName());
-      if (!matcher.matches()) {
-        return null;
-      }
-
-      ProgramType type = getType(matcher.group(1));
-      if (type == null) {
-        return null;
-      }
-
-      Id.Program programId = Id.Program.from(matcher.group(2), matcher.group(3), type, matcher.group(4));
-      return getMetricsContext(type, programId);
+      Id.Program programId = getProgramId(info.getApplicationName());
+      return programId == null ? null : getMetricsContext(programId.getType(), programId);
     }
   }
 
@@ -551,11 +579,32 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
   @Override
   protected void startUp() throws Exception {
     resourceReporter.start();
+
+    long syncInterval = syncIntervalSeconds;
+    if (syncInterval <= 0) {
+      LOG.debug("Invalid runtime sync interval {}. Setting it to 5 seconds.", syncInterval);
+      syncInterval = 5L;
+    }
+    syncExecutor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("program-runtime-sync"));
+    syncExecutor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          syncLiveInfo();
+        } catch (Throwable t) {
+          LOG.warn("Failed to sync runtime infos with live Twill applications", t);
+        }
+      }
+    }, 0L, syncInterval, TimeUnit.SECONDS);
     LOG.debug("started distributed program runtime service");
   }
 
   @Override
   protected void shutDown() throws Exception {
+    if (syncExecutor != null) {
+      syncExecutor.shutdownNow();
+    }
     resourceReporter.stop();
   }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.flow;
+
+import co.cask.cdap.api.annotation.Batch;
+import co.cask.cdap.api.flow.flowlet.Flowlet;
+import co.cask.cdap.api.flow.flowlet.InputContext;
+import co.cask.cdap.app.queue.InputDatum;
+import com.google.common.base.Preconditions;
+import com.google.common.reflect.TypeToken;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Base implementation of {@link ProcessMethod} that iterates over the input and calls the user process method
+ * through {@link #invokeMethod(Object, InputContext)}.
+ *
+ * @param <T> Type of input accepted by this process method.
+ */
+@NotThreadSafe
+abstract class AbstractProcessMethod<T> implements ProcessMethod<T> {
+
+  private final Flowlet flowlet;
+  private final Method method;
+  private final boolean hasParam;
+  private final boolean batch;
+  private final boolean needsIterator;
+  private final boolean needContext;
+  private final int maxRetries;
+
+  protected AbstractProcessMethod(Flowlet flowlet, Method method, int maxRetries) {
+    this.flowlet = flowlet;
+    this.method = method;
+    this.maxRetries = maxRetries;
+
+    this.hasParam = method.getGenericParameterTypes().length > 0;
+    this.batch = method.isAnnotationPresent(Batch.class);
+    this.needsIterator = hasParam &&
+      TypeToken.of(method.getGenericParameterTypes()[0]).getRawType().equals(Iterator.class);
+    this.needContext = method.getGenericParameterTypes().length == 2;
+  }
+
+  @Override
+  public boolean needsInput() {
+    return hasParam;
+  }
+
+  @Override
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  @Override
+  public ProcessResult<T> invoke(InputDatum<T> input) {
+    try {
+      Preconditions.checkState(!hasParam || input.needProcess(), "Empty input provided to method that needs input.");
+      InputContext inputContext = input.getInputContext();
+
+      if (hasParam) {
+        if (needsIterator) {
+          invokeMethod(input.iterator(), inputContext);
+        } else {
+          for (T event : input) {
+            invokeMethod(event, inputContext);
+          }
+        }
+      } else {
+        invokeMethod(null, null);
+      }
+
+      return createResult(input, null);
+    } catch (Throwable t) {
+      return createResult(input, getFailureCause(t));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return flowlet.getClass() + "." + method.toString();
+  }
+
+  /**
+   * Calls the user process method.
+   *
+   * @param event the event or the event {@link Iterator} to pass to the method,
+   *              or {@code null} if the method takes no parameter
+   * @param inputContext the {@link InputContext} of the input, or {@code null} if the method takes no parameter
+   */
+  protected abstract void invokeMethod(@Nullable Object event, @Nullable InputContext inputContext) throws Exception;
+
+  /**
+   * Returns the failure cause to report for the given exception raised from
+   * {@link #invokeMethod(Object, InputContext)}.
+   */
+  protected Throwable getFailureCause(Throwable t) {
+    return t;
+  }
+
+  protected final Flowlet getFlowlet() {
+    return flowlet;
+  }
+
+  protected final Method getMethod() {
+    return method;
+  }
+
+  /**
+   * Returns {@code true} if the {@link InputContext} should be passed to the process method.
+   */
+  protected final boolean needsContext() {
+    return needContext;
+  }
+
+  @SuppressWarnings("unchecked")
+  private ProcessResult<T> createResult(InputDatum<T> input, Throwable failureCause) {
+    // If the method has param, then object for the result would be iterator or the first event (batch vs no-batch)
+    T event = hasParam ? (batch ? (T) input.iterator() : input.iterator().next()) : null;
+    return new DefaultProcessResult<>(event, failureCause);
+  }
+
+  private static final class DefaultProcessResult<V> implements ProcessResult<V> {
+
+    private final V event;
+    private final Throwable cause;
+
+    private DefaultProcessResult(V event, Throwable cause) {
+      this.event = event;
+      this.cause = cause;
+    }
+
+    @Override
+    public V getEvent() {
+      return event;
+    }
+
+    @Override
+    public boolean isSuccess() {
+      return cause == null;
+    }
+
+    @Override
+    public Throwable getCause() {
+      return cause;
+    }
+  }
+}
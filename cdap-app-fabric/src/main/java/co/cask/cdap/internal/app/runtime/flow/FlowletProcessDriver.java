@@ -60,6 +60,13 @@ final class FlowletProcessDriver extends AbstractExecutionThreadService {
 
   private static final Logger LOG = LoggerFactory.getLogger(FlowletProcessDriver.class);
 
+  // Metrics for the total time in microseconds spent in each stage of handling a process entry
+  private static final String TX_START_METRIC = "process.tx.start.micros";
+  private static final String DEQUEUE_METRIC = "process.dequeue.micros";
+  private static final String PROCESS_METRIC = "process.invoke.micros";
+  private static final String TX_COMMIT_METRIC = "process.tx.commit.micros";
+  private static final String CALLBACK_METRIC = "process.callback.micros";
+
   private final BasicFlowletContext flowletContext;
   private final DataFabricFacade dataFabricFacade;
   private final Callback txCallback;
@@ -220,10 +227,13 @@ final class FlowletProcessDriver extends AbstractExecutionThreadService {
     // Begin transaction and dequeue
     TransactionContext txContext = dataFabricFacade.createTransactionContext();
     try {
+      long startTime = System.nanoTime();
       txContext.start();
+      startTime = emitStageTime(TX_START_METRIC, startTime);
 
       try {
         InputDatum<T> input = entry.getProcessSpec().getQueueReader().dequeue(0, TimeUnit.MILLISECONDS);
+        startTime = emitStageTime(DEQUEUE_METRIC, startTime);
         if (!input.needProcess()) {
           entry.backOff();
           // End the transaction if nothing in the queue
@@ -237,6 +247,7 @@ final class FlowletProcessDriver extends AbstractExecutionThreadService {
         // Call the process method and commit the transaction. The current process entry will put
         // back to queue in the postProcess method (either a retry copy or itself).
         ProcessMethod.ProcessResult<?> result = processMethod.invoke(input);
+        emitStageTime(PROCESS_METRIC, startTime);
         postProcess(processMethodCallback(processQueue, entry, input), txContext, input, result);
         return true;
 
@@ -263,6 +274,7 @@ final class FlowletProcessDriver extends AbstractExecutionThreadService {
     InputContext inputContext = input.getInputContext();
     Throwable failureCause = null;
     FailureReason.Type failureType = FailureReason.Type.IO_ERROR;
+    long startTime = System.nanoTime();
     try {
       if (result.isSuccess()) {
         // If it is a retry input, force the dequeued entries into current transaction.
@@ -290,6 +302,8 @@ final class FlowletProcessDriver extends AbstractExecutionThreadService {
       }
     }
 
+    startTime = emitStageTime(TX_COMMIT_METRIC, startTime);
+
     try {
       if (failureCause == null) {
         callback.onSuccess(result.getEvent(), inputContext);
@@ -301,6 +315,21 @@ final class FlowletProcessDriver extends AbstractExecutionThreadService {
     } catch (Throwable t) {
       LOG.error("Failed to invoke callback.", t);
     }
+    emitStageTime(CALLBACK_METRIC, startTime);
+  }
+
+  /**
+   * Emits the time spent in a stage of processing, in microseconds.
+   *
+   * @param metricName name of the metric for the stage
+   * @param startTime the {@link System#nanoTime()} when the stage started
+   * @return the {@link System#nanoTime()} when this method is called, which can be used as the start time of
+   *         the next stage
+   */
+  private long emitStageTime(String metricName, long startTime) {
+    long now = System.nanoTime();
+    flowletContext.getProgramMetrics().increment(metricName, TimeUnit.NANOSECONDS.toMicros(now - startTime));
+    return now;
   }
 
   private InputAcknowledger createInputAcknowledger(final InputDatum input) {
@@ -72,8 +72,9 @@ import co.cask.cdap.internal.app.runtime.DataFabricFacadeFactory;
 import co.cask.cdap.internal.app.runtime.DataSetFieldSetter;
 import co.cask.cdap.internal.app.runtime.MetricsFieldSetter;
 import co.cask.cdap.internal.app.runtime.ProgramOptionConstants;
+import co.cask.cdap.internal.io.DatumReader;
+import co.cask.cdap.internal.io.DatumReaderFactory;
 import co.cask.cdap.internal.io.DatumWriterFactory;
-import co.cask.cdap.internal.io.ReflectionDatumReader;
 import co.cask.cdap.internal.io.SchemaGenerator;
 import co.cask.cdap.internal.lang.Reflections;
 import co.cask.cdap.internal.specification.FlowletMethod;
@@ -127,6 +128,7 @@ public final class FlowletProgramRunner implements ProgramRunner {
 
   private final SchemaGenerator schemaGenerator;
   private final DatumWriterFactory datumWriterFactory;
+  private final DatumReaderFactory datumReaderFactory;
   private final DataFabricFacadeFactory dataFabricFacadeFactory;
   private final StreamCoordinatorClient streamCoordinatorClient;
   private final QueueReaderFactory queueReaderFactory;
@@ -139,6 +141,7 @@ public final class FlowletProgramRunner implements ProgramRunner {
   @Inject
   public FlowletProgramRunner(SchemaGenerator schemaGenerator,
                               DatumWriterFactory datumWriterFactory,
+                              DatumReaderFactory datumReaderFactory,
                               DataFabricFacadeFactory dataFabricFacadeFactory,
                               StreamCoordinatorClient streamCoordinatorClient,
                               QueueReaderFactory queueReaderFactory,
@@ -149,6 +152,7 @@ public final class FlowletProgramRunner implements ProgramRunner {
                               UsageRegistry usageRegistry) {
     this.schemaGenerator = schemaGenerator;
     this.datumWriterFactory = datumWriterFactory;
+    this.datumReaderFactory = datumReaderFactory;
     this.dataFabricFacadeFactory = dataFabricFacadeFactory;
     this.streamCoordinatorClient = streamCoordinatorClient;
     this.queueReaderFactory = queueReaderFactory;
@@ -233,8 +237,8 @@ public final class FlowletProgramRunner implements ProgramRunner {
       Flowlet flowlet = new InstantiatorFactory(false).get(TypeToken.of(flowletClass)).create();
       TypeToken<? extends Flowlet> flowletType = TypeToken.of(flowletClass);
 
-      // Set the context classloader to the cdap classloader. It is needed for the DatumWriterFactory be able
-      // to load cdap classes
+      // Set the context classloader to the cdap classloader. It is needed for the DatumWriterFactory and
+      // DatumReaderFactory be able to load cdap classes
       Thread.currentThread().setContextClassLoader(FlowletProgramRunner.class.getClassLoader());
 
       // Inject DataSet, OutputEmitter, Metric fields
@@ -510,6 +514,14 @@ public final class FlowletProgramRunner implements ProgramRunner {
     return new ProcessMethodFactory() {
       @Override
       public <T> ProcessMethod<T> create(Method method, int maxRetries) {
+        // Try to call the process method directly through generated bytecode, with reflection as fallback
+        if (GeneratedProcessMethod.isSupported(method)) {
+          try {
+            return GeneratedProcessMethod.create(flowlet, method, maxRetries);
+          } catch (Throwable t) {
+            LOG.warn("Failed to generate invoker for process method {}. Fallback to use reflection.", method, t);
+          }
+        }
         return ReflectionProcessMethod.create(flowlet, method, maxRetries);
       }
     };
@@ -589,7 +601,7 @@ public final class FlowletProgramRunner implements ProgramRunner {
 
   private <T> Function<ByteBuffer, T> createInputDatumDecoder(final TypeToken<T> dataType, final Schema schema,
                                                               final SchemaCache schemaCache) {
-    final ReflectionDatumReader<T> datumReader = new ReflectionDatumReader<>(schema, dataType);
+    final DatumReader<T> datumReader = datumReaderFactory.create(dataType, schema);
     final ByteBufferInputStream byteBufferInput = new ByteBufferInputStream(null);
     final BinaryDecoder decoder = new BinaryDecoder(byteBufferInput);
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.flow;
+
+import co.cask.cdap.api.flow.flowlet.Flowlet;
+import co.cask.cdap.api.flow.flowlet.InputContext;
+import co.cask.cdap.internal.asm.ByteCodeClassLoader;
+import co.cask.cdap.internal.asm.ClassDefinition;
+
+import java.lang.reflect.Method;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Represents a {@link ProcessMethod} that calls the process method through a {@link ProcessMethodInvoker}
+ * generated by {@link ProcessMethodInvokerGenerator}, which avoids the cost of reflection for every event.
+ *
+ * @param <T> Type of input accepted by this process method.
+ */
+@NotThreadSafe
+final class GeneratedProcessMethod<T> extends AbstractProcessMethod<T> {
+
+  private final ProcessMethodInvoker invoker;
+
+  /**
+   * Returns {@code true} if a {@link GeneratedProcessMethod} can be created for the given method.
+   */
+  static boolean isSupported(Method method) {
+    return ProcessMethodInvokerGenerator.isSupported(method);
+  }
+
+  /**
+   * Creates a {@link GeneratedProcessMethod} by generating a {@link ProcessMethodInvoker} class for the given method.
+   *
+   * @throws Exception if failed to generate or load the invoker class
+   */
+  static <T> GeneratedProcessMethod<T> create(Flowlet flowlet, Method method, int maxRetries) throws Exception {
+    ClassDefinition classDefinition = new ProcessMethodInvokerGenerator().generate(method);
+
+    // The ClassLoader of the generated invoker has CDAP system ClassLoader as parent.
+    // The ClassDefinition contains list of classes that should not be loaded by the generated class ClassLoader
+    ByteCodeClassLoader classLoader = new ByteCodeClassLoader(GeneratedProcessMethod.class.getClassLoader());
+    classLoader.addClass(classDefinition);
+    ProcessMethodInvoker invoker = classLoader.loadClass(classDefinition.getClassName())
+      .asSubclass(ProcessMethodInvoker.class).newInstance();
+
+    return new GeneratedProcessMethod<>(flowlet, method, maxRetries, invoker);
+  }
+
+  private GeneratedProcessMethod(Flowlet flowlet, Method method, int maxRetries, ProcessMethodInvoker invoker) {
+    super(flowlet, method, maxRetries);
+    this.invoker = invoker;
+  }
+
+  @Override
+  protected void invokeMethod(@Nullable Object event, @Nullable InputContext inputContext) throws Exception {
+    invoker.invoke(getFlowlet(), event, inputContext);
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.flow;
+
+import co.cask.cdap.api.flow.flowlet.InputContext;
+
+import javax.annotation.Nullable;
+
+/**
+ * Calls a flowlet process method directly. Implementations are generated by
+ * {@link ProcessMethodInvokerGenerator}. This interface has to be public so that it is accessible by the generated
+ * classes, which are defined in a different {@link ClassLoader}.
+ */
+public interface ProcessMethodInvoker {
+
+  /**
+   * Calls the process method.
+   *
+   * @param flowlet the flowlet instance to call the method on
+   * @param event the event or event iterator to pass to the method, or {@code null} if the method takes no parameter
+   * @param inputContext the {@link InputContext} to pass to the method if it takes one
+   * @throws Exception any exception thrown by the process method
+   */
+  void invoke(Object flowlet, @Nullable Object event, @Nullable InputContext inputContext) throws Exception;
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.flow;
+
+import co.cask.cdap.api.flow.flowlet.InputContext;
+import co.cask.cdap.internal.asm.ClassDefinition;
+import co.cask.cdap.internal.asm.Methods;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Generates a class that implements {@link ProcessMethodInvoker} for a given flowlet process method.
+ * The generated class calls the process method directly instead of through Java reflection:
+ *
+ * <pre>{@code
+ * public final class MyFlowlet$ProcessMethodInvoker<hash> implements ProcessMethodInvoker {
+ *
+ *   public void invoke(Object flowlet, Object event, InputContext inputContext) throws Exception {
+ *     ((MyFlowlet) flowlet).process((String) event, inputContext);
+ *   }
+ * }
+ * }</pre>
+ *
+ * Since the generated class is defined in a different {@link ClassLoader} than the flowlet class, only public methods
+ * of public classes with public parameter types can be called directly. See {@link #isSupported(Method)}.
+ */
+final class ProcessMethodInvokerGenerator {
+
+  /**
+   * Returns {@code true} if an invoker can be generated for the given method.
+   */
+  static boolean isSupported(Method method) {
+    if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+      || !isPublic(method.getDeclaringClass())) {
+      return false;
+    }
+    for (Class<?> paramType : method.getParameterTypes()) {
+      if (!isPublic(paramType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Generates a {@link ProcessMethodInvoker} class for calling the given process method.
+   *
+   * @param method the process method, which must be supported as determined by {@link #isSupported(Method)}
+   * @return A {@link ClassDefinition} containing information of the newly generated class.
+   */
+  ClassDefinition generate(Method method) {
+    Preconditions.checkArgument(isSupported(method), "Process method %s is not accessible", method);
+
+    Class<?> declaringClass = method.getDeclaringClass();
+    String className = Type.getInternalName(declaringClass) + "$ProcessMethodInvoker"
+      + Hashing.md5().hashString(method.toGenericString());
+
+    // The flowlet class and the parameter types, which are loaded by the user ClassLoader
+    List<Class<?>> preservedClasses = Lists.newArrayList();
+    preservedClasses.add(declaringClass);
+    for (Class<?> paramType : method.getParameterTypes()) {
+      while (paramType.isArray()) {
+        paramType = paramType.getComponentType();
+      }
+      // Classes loaded by bootstrap classloader are having null ClassLoader. They don't need to be preserved.
+      if (!paramType.isPrimitive() && paramType.getClassLoader() != null) {
+        preservedClasses.add(paramType);
+      }
+    }
+
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC + Opcodes.ACC_FINAL, className, null,
+                      Type.getInternalName(Object.class),
+                      new String[] { Type.getInternalName(ProcessMethodInvoker.class) });
+
+    generateConstructor(classWriter);
+    generateInvoke(method, classWriter);
+
+    classWriter.visitEnd();
+
+    ClassDefinition classDefinition = new ClassDefinition(classWriter.toByteArray(), className, preservedClasses);
+    // DEBUG block. Uncomment for debug
+    // co.cask.cdap.internal.asm.Debugs.debugByteCode(classDefinition, new java.io.PrintWriter(System.out));
+    // End DEBUG block
+    return classDefinition;
+  }
+
+  private void generateConstructor(ClassWriter classWriter) {
+    org.objectweb.asm.commons.Method constructor = Methods.getMethod(void.class, "<init>");
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, constructor, null, null, classWriter);
+    mg.loadThis();
+    mg.invokeConstructor(Type.getType(Object.class), constructor);
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates the {@link ProcessMethodInvoker#invoke(Object, Object, InputContext)} method.
+   */
+  private void generateInvoke(Method method, ClassWriter classWriter) {
+    org.objectweb.asm.commons.Method invokeMethod = Methods.getMethod(void.class, "invoke", Object.class,
+                                                                      Object.class, InputContext.class);
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, invokeMethod, null,
+                                               new Type[] { Type.getType(Exception.class) }, classWriter);
+
+    // ((FlowletClass) flowlet).method((ParamType) event, (InputContext) inputContext);
+    Type flowletType = Type.getType(method.getDeclaringClass());
+    mg.loadArg(0);
+    mg.checkCast(flowletType);
+
+    Class<?>[] paramTypes = method.getParameterTypes();
+    for (int i = 0; i < paramTypes.length; i++) {
+      // The first parameter is the event and the second one is the InputContext
+      mg.loadArg(i + 1);
+      Type paramType = Type.getType(paramTypes[i]);
+      if (paramTypes[i].isPrimitive()) {
+        mg.unbox(paramType);
+      } else {
+        mg.checkCast(paramType);
+      }
+    }
+    mg.invokeVirtual(flowletType, org.objectweb.asm.commons.Method.getMethod(method));
+
+    // Discard the return value, if any
+    Type returnType = Type.getReturnType(method);
+    if (returnType.getSize() == 2) {
+      mg.pop2();
+    } else if (returnType.getSize() == 1) {
+      mg.pop();
+    }
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  private static boolean isPublic(Class<?> cls) {
+    if (cls.isArray()) {
+      return isPublic(cls.getComponentType());
+    }
+    return cls.isPrimitive() || Modifier.isPublic(cls.getModifiers());
+  }
+}
@@ -28,8 +28,7 @@ import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.InstantiatorFactory;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.internal.app.runtime.artifact.ArtifactUnpackCache;
 import co.cask.cdap.internal.app.runtime.artifact.Artifacts;
 import co.cask.cdap.internal.lang.FieldVisitor;
 import co.cask.cdap.internal.lang.Fields;
@@ -40,6 +39,7 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import com.google.common.primitives.Primitives;
@@ -57,13 +57,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 
 /**
  * This class helps creating new instances of plugins. It also contains a ClassLoader cache to
  * save ClassLoader creation.
  *
- * This class implements {@link Closeable} as well for cleanup of temporary directories created for the ClassLoaders.
+ * This class implements {@link Closeable} as well for releasing the unpacked artifact directories used by
+ * the ClassLoaders.
  */
 public class PluginInstantiator implements Closeable {
 
@@ -71,7 +73,8 @@ public class PluginInstantiator implements Closeable {
 
   private final LoadingCache<ArtifactId, ClassLoader> classLoaders;
   private final InstantiatorFactory instantiatorFactory;
-  private final File tmpDir;
+  private final ArtifactUnpackCache unpackCache;
+  private final ConcurrentMap<ArtifactId, ArtifactUnpackCache.UnpackedArtifact> unpackedArtifacts;
   private final File pluginDir;
   private final ClassLoader parentClassLoader;
 
@@ -81,7 +84,8 @@ public class PluginInstantiator implements Closeable {
       cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
 
     this.pluginDir = pluginDir;
-    this.tmpDir = DirUtils.createTempDir(tmpDir);
+    this.unpackCache = ArtifactUnpackCache.getInstance(cConf, tmpDir);
+    this.unpackedArtifacts = Maps.newConcurrentMap();
     this.classLoaders = CacheBuilder.newBuilder()
                                     .removalListener(new ClassLoaderRemovalListener())
                                     .build(new ClassLoaderCacheLoader());
@@ -204,17 +208,11 @@ public class PluginInstantiator implements Closeable {
 
   @Override
   public void close() throws IOException {
-    // Cleanup the ClassLoader cache and the temporary directoy for the expanded plugin jar.
+    // Cleanup the ClassLoader cache, which also releases the expanded plugin jars.
     classLoaders.invalidateAll();
     if (parentClassLoader instanceof Closeable) {
       Closeables.closeQuietly((Closeable) parentClassLoader);
     }
-    try {
-      DirUtils.deleteDirectoryContents(tmpDir);
-    } catch (IOException e) {
-      // It's the cleanup step. Nothing much can be done if cleanup failed.
-      LOG.warn("Failed to delete directory {}", tmpDir);
-    }
   }
 
   /**
@@ -224,17 +222,23 @@ public class PluginInstantiator implements Closeable {
 
     @Override
     public ClassLoader load(ArtifactId artifactId) throws Exception {
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
       File artifact = new File(pluginDir, Artifacts.getFileName(artifactId));
-      BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
-      return new PluginClassLoader(unpackedDir, parentClassLoader);
+      ArtifactUnpackCache.UnpackedArtifact unpackedArtifact = unpackCache.unpack(Locations.toLocation(artifact));
+      try {
+        ClassLoader classLoader = new PluginClassLoader(unpackedArtifact.getDirectory(), parentClassLoader);
+        unpackedArtifacts.put(artifactId, unpackedArtifact);
+        return classLoader;
+      } catch (Exception e) {
+        unpackedArtifact.close();
+        throw e;
+      }
     }
   }
 
   /**
-   * A RemovalListener for closing plugin ClassLoader.
+   * A RemovalListener for closing plugin ClassLoader and releasing the expanded plugin jar.
    */
-  private static final class ClassLoaderRemovalListener implements RemovalListener<ArtifactId, ClassLoader> {
+  private final class ClassLoaderRemovalListener implements RemovalListener<ArtifactId, ClassLoader> {
 
     @Override
     public void onRemoval(RemovalNotification<ArtifactId, ClassLoader> notification) {
@@ -242,6 +246,10 @@ public class PluginInstantiator implements Closeable {
       if (cl instanceof Closeable) {
         Closeables.closeQuietly((Closeable) cl);
       }
+      ArtifactUnpackCache.UnpackedArtifact unpackedArtifact = unpackedArtifacts.remove(notification.getKey());
+      if (unpackedArtifact != null) {
+        unpackedArtifact.close();
+      }
     }
   }
 
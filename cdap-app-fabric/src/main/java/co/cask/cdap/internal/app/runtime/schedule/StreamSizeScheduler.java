@@ -41,12 +41,14 @@ import co.cask.cdap.notifications.service.NotificationService;
 import co.cask.cdap.proto.Id;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.proto.ScheduledRuntime;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
@@ -76,14 +78,16 @@ import javax.annotation.Nullable;
 
 /**
  * {@link Scheduler} that triggers program executions based on data availability in streams.
+ * The sizes of all the streams that need to be polled are fetched with one metrics query. How often a stream is
+ * polled depends on how close its schedules are to their data triggers.
  */
 @Singleton
 public class StreamSizeScheduler implements Scheduler {
   private static final Logger LOG = LoggerFactory.getLogger(StreamSizeScheduler.class);
-  private static final int STREAM_POLLING_THREAD_POOL_SIZE = 10;
   private static final int POLLING_AFTER_NOTIFICATION_RETRY = 3;
 
   private final long pollingDelay;
+  private final long minPollingDelay;
   private final NotificationService notificationService;
   private final MetricStore metricStore;
   private final Provider<Store> storeProvider;
@@ -102,7 +106,7 @@ public class StreamSizeScheduler implements Scheduler {
   // Used to schedule polling of a stream only after a certain time - the time after which the metrics are updated
   private ScheduledExecutorService pollBookingExecutor;
 
-  // Scheduled executor used to poll stream at regular intervals, by querying the metric system
+  // Scheduled executor used to poll the streams that are due for polling, by querying the metric system
   private ScheduledExecutorService streamPollingExecutor;
 
   private ListeningExecutorService taskExecutorService;
@@ -114,6 +118,8 @@ public class StreamSizeScheduler implements Scheduler {
                              PropertiesResolver propertiesResolver, DatasetBasedStreamSizeScheduleStore scheduleStore) {
     this.pollingDelay = TimeUnit.SECONDS.toMillis(
       cConf.getLong(Constants.Notification.Stream.STREAM_SIZE_SCHEDULE_POLLING_DELAY));
+    this.minPollingDelay = Math.min(pollingDelay, TimeUnit.SECONDS.toMillis(
+      cConf.getLong(Constants.Notification.Stream.STREAM_SIZE_SCHEDULE_MIN_POLLING_DELAY)));
     this.notificationService = notificationService;
     this.metricStore = metricStore;
     this.storeProvider = storeProvider;
@@ -128,8 +134,8 @@ public class StreamSizeScheduler implements Scheduler {
   public void init() throws SchedulerException {
     sendPollingInfoExecutor = Executors.newCachedThreadPool(
       Threads.createDaemonThreadFactory("stream-size-scheduler-%d"));
-    streamPollingExecutor = Executors.newScheduledThreadPool(STREAM_POLLING_THREAD_POOL_SIZE,
-                                                             Threads.createDaemonThreadFactory("stream-polling-%d"));
+    streamPollingExecutor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("stream-polling"));
     pollBookingExecutor = Executors.newSingleThreadScheduledExecutor(
       Threads.createDaemonThreadFactory("polling-booking-executor"));
     taskExecutorService = MoreExecutors.listeningDecorator(
@@ -138,6 +144,9 @@ public class StreamSizeScheduler implements Scheduler {
     store = storeProvider.get();
 
     initializeScheduleStore();
+
+    streamPollingExecutor.scheduleWithFixedDelay(new StreamSizePoller(), minPollingDelay, minPollingDelay,
+                                                 TimeUnit.MILLISECONDS);
   }
 
   void start() throws SchedulerException {
@@ -183,19 +192,18 @@ public class StreamSizeScheduler implements Scheduler {
     }
 
     // Poll all the Streams for active tasks
+    List<StreamSubscriber> activeSubscribers = Lists.newArrayList();
     for (StreamSubscriber streamSubscriber : streamSubscribers.values()) {
-      if (streamSubscriber.getActiveTasksCount() <= 0) {
-        continue;
-      }
-
-      try {
-        StreamSize streamSize = streamSubscriber.pollOnce();
-        streamSubscriber.sendPollingInfoToActiveTasks(streamSize);
-      } catch (IOException e) {
-        // Failing to poll should not make this init fail
-        LOG.warn("Could not poll size for stream '{}'", streamSubscriber.getStreamId(), e);
+      if (streamSubscriber.getActiveTasksCount() > 0) {
+        activeSubscribers.add(streamSubscriber);
       }
     }
+    try {
+      pollStreams(activeSubscribers);
+    } catch (IOException e) {
+      // Failing to poll should not make this init fail
+      LOG.warn("Could not poll size for streams", e);
+    }
   }
 
   public void stop() {
@@ -447,18 +455,145 @@ public class StreamSizeScheduler implements Scheduler {
     return streamSubscriber;
   }
 
+  /**
+   * Polls the sizes of the streams of the given {@link StreamSubscriber}s with one metrics query, and sends the
+   * sizes to the active tasks of the subscribers.
+   */
+  private void pollStreams(Collection<StreamSubscriber> subscribers) throws IOException {
+    if (subscribers.isEmpty()) {
+      return;
+    }
+
+    List<Id.Stream> streamIds = Lists.newArrayListWithCapacity(subscribers.size());
+    for (StreamSubscriber subscriber : subscribers) {
+      streamIds.add(subscriber.getStreamId());
+    }
+    Map<Id.Stream, Long> streamSizes = queryStreamEventsSizes(metricStore, streamIds);
+    long now = System.currentTimeMillis();
+    for (StreamSubscriber subscriber : subscribers) {
+      long size = streamSizes.get(subscriber.getStreamId());
+      StreamSize streamSize = subscriber.updatePollingInfo(new StreamSize(size, now));
+      subscriber.sendPollingInfoToActiveTasks(streamSize);
+    }
+  }
+
+  /**
+   * Query the metrics system to get the size of events ingested by the given streams, with one query grouped
+   * by stream.
+   *
+   * @return map from each of the given streams to the size of events ingested by the stream so far. It is {@code 0}
+   *         for a stream without metric, since it means that no data has been ingested by the stream yet.
+   */
+  @VisibleForTesting
+  static Map<Id.Stream, Long> queryStreamEventsSizes(MetricStore metricStore,
+                                                     Collection<Id.Stream> streamIds) throws IOException {
+    MetricDataQuery metricDataQuery = new MetricDataQuery(
+      0L, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()),
+      Integer.MAX_VALUE, "system.collect.bytes",
+      AggregationFunction.SUM,
+      ImmutableMap.<String, String>of(),
+      ImmutableList.of(Constants.Metrics.Tag.NAMESPACE, Constants.Metrics.Tag.STREAM)
+    );
+
+    try {
+      Map<Id.Stream, Long> streamSizes = Maps.newHashMap();
+      for (Id.Stream streamId : streamIds) {
+        streamSizes.put(streamId, 0L);
+      }
+      Collection<MetricTimeSeries> metrics = metricStore.query(metricDataQuery);
+      if (metrics == null) {
+        return streamSizes;
+      }
+      for (MetricTimeSeries metric : metrics) {
+        String namespace = metric.getTagValues().get(Constants.Metrics.Tag.NAMESPACE);
+        String stream = metric.getTagValues().get(Constants.Metrics.Tag.STREAM);
+        if (namespace == null || stream == null) {
+          continue;
+        }
+        Id.Stream streamId = Id.Stream.from(namespace, stream);
+        if (streamSizes.containsKey(streamId)) {
+          streamSizes.put(streamId, getTotalValue(metric));
+        }
+      }
+      return streamSizes;
+    } catch (Exception e) {
+      Throwables.propagateIfInstanceOf(e, IOException.class);
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Returns the value of a {@link MetricTimeSeries} queried with {@link Integer#MAX_VALUE} resolution.
+   */
+  private static long getTotalValue(MetricTimeSeries metric) throws IOException {
+    List<TimeValue> timeValues = metric.getTimeValues();
+    if (timeValues == null || timeValues.size() != 1) {
+      throw new IOException("Should collect exactly one time value");
+    }
+    // The metric store gives us 0 as the timestamp, hence we cannot use it
+    return timeValues.get(0).getValue();
+  }
+
+  /**
+   * Computes the delay before polling a stream again, which is half of the estimated time it takes for the stream
+   * to ingest the given number of bytes, based on the ingestion rate observed between the last two polls.
+   * If no ingestion was observed, e.g. because the stream was truncated, the maximum delay is returned.
+   *
+   * @param bytesToTrigger number of bytes the stream still needs to ingest to reach a data trigger
+   * @param elapsed time in milliseconds between the last two polls
+   * @param ingested number of bytes ingested between the last two polls
+   * @param minPollingDelay minimum delay in milliseconds to return
+   * @param maxPollingDelay maximum delay in milliseconds to return
+   */
+  @VisibleForTesting
+  static long computePollingDelay(long bytesToTrigger, long elapsed, long ingested,
+                                  long minPollingDelay, long maxPollingDelay) {
+    if (elapsed <= 0 || ingested <= 0) {
+      return maxPollingDelay;
+    }
+    long estimate = (long) ((double) bytesToTrigger * elapsed / ingested / 2);
+    return Math.max(minPollingDelay, Math.min(maxPollingDelay, estimate));
+  }
+
   private static long toBytes(int mb) {
     return ((long) mb) * 1024 * 1024;
   }
 
+  /**
+   * Periodically polls the streams whose {@link StreamSubscriber} is due for polling, with one metrics query for
+   * all of them.
+   */
+  private final class StreamSizePoller implements Runnable {
+
+    @Override
+    public void run() {
+      long now = System.currentTimeMillis();
+      List<StreamSubscriber> subscribers = Lists.newArrayList();
+      for (StreamSubscriber subscriber : streamSubscribers.values()) {
+        if (subscriber.getActiveTasksCount() > 0 && subscriber.getNextPollTime() <= now) {
+          subscribers.add(subscriber);
+        }
+      }
+
+      try {
+        pollStreams(subscribers);
+      } catch (IOException e) {
+        LOG.error("Could not poll {} streams", subscribers.size(), e);
+      } catch (Throwable t) {
+        LOG.error("Error in scheduled polling for {} streams", subscribers.size(), t);
+      }
+    }
+  }
+
   /**
    * One instance of this class contains a list of {@link StreamSizeSchedule}s, which are all interested
    * in the same stream. This instance subscribes to the size notification of the stream, and polls the
-   * stream for its size whenever the schedules it references need the information.
+   * stream for its size whenever the schedules it references need the information. Regular polling is done
+   * by the {@link StreamSizePoller}, at the time given by {@link #getNextPollTime()}.
    * The {@link StreamSizeScheduler} communicates with this class, which in turn communicates to the schedules
    * it contains to perform operations on the schedules - suspend, resume, etc.
    */
-  private final class StreamSubscriber extends AbstractScheduledService
+  private final class StreamSubscriber extends AbstractIdleService
     implements NotificationHandler<StreamSizeNotification> {
     // Key is the schedule ID
     private final ConcurrentMap<String, StreamSizeScheduleTask> scheduleTasks;
@@ -469,6 +604,7 @@ public class StreamSizeScheduler implements Scheduler {
     private Cancellable notificationSubscription;
     private StreamSizeNotification lastNotification;
     private StreamSize lastPollingInfo;
+    private volatile long nextPollTime;
 
     // delta represents the gap between notifications for the stream and the stream size metric
     private Long delta;
@@ -479,6 +615,7 @@ public class StreamSizeScheduler implements Scheduler {
       this.activeTasks = new AtomicInteger(0);
       this.delta = null;
       this.deltaLock = new Object();
+      this.nextPollTime = System.currentTimeMillis() + pollingDelay;
     }
 
     @Override
@@ -493,32 +630,6 @@ public class StreamSizeScheduler implements Scheduler {
       }
     }
 
-    @Override
-    protected void runOneIteration() throws Exception {
-      if (activeTasks.get() == 0) {
-        return;
-      }
-
-      try {
-        StreamSize streamSize = pollOnce();
-        sendPollingInfoToActiveTasks(streamSize);
-      } catch (IOException e) {
-        LOG.error("Could not poll stream {}", streamId.getId(), e);
-      } catch (Throwable t) {
-        LOG.error("Error in scheduled polling for stream {}", streamId.getId(), t);
-      }
-    }
-
-    @Override
-    protected Scheduler scheduler() {
-      return Scheduler.newFixedRateSchedule(pollingDelay, pollingDelay, TimeUnit.MILLISECONDS);
-    }
-
-    @Override
-    protected ScheduledExecutorService executor() {
-      return streamPollingExecutor;
-    }
-
     @Override
     public Type getNotificationType() {
       return StreamSizeNotification.class;
@@ -806,21 +917,56 @@ public class StreamSizeScheduler implements Scheduler {
       return streamId;
     }
 
+    /**
+     * @return time, in milliseconds, after which the stream should be polled again
+     */
+    public long getNextPollTime() {
+      return nextPollTime;
+    }
+
     /**
      * Poll the stream size using metrics.
      */
     private synchronized StreamSize pollOnce() throws IOException {
-      StreamSize streamSize = queryStreamEventsSize();
+      return updatePollingInfo(queryStreamEventsSize());
+    }
+
+    /**
+     * Records the stream size obtained by polling, and computes the time of the next poll.
+     *
+     * @return the given {@link StreamSize}
+     */
+    private synchronized StreamSize updatePollingInfo(StreamSize streamSize) {
       if (lastPollingInfo != null && streamSize.getSize() < lastPollingInfo.getSize()) {
         delta = null;
         for (StreamSizeScheduleTask streamSizeScheduleTask : scheduleTasks.values()) {
           streamSizeScheduleTask.reset(streamSize.getTimestamp());
         }
       }
+      nextPollTime = streamSize.getTimestamp() + computePollingDelay(lastPollingInfo, streamSize);
       lastPollingInfo = streamSize;
       return streamSize;
     }
 
+    /**
+     * Computes the delay before polling the stream again. Using the ingestion rate observed between the last two
+     * polls, the stream is polled again at half of the estimated time it takes for the closest active task to
+     * reach its data trigger, bounded by the minimum and maximum polling delays.
+     */
+    private long computePollingDelay(@Nullable StreamSize previous, StreamSize current) {
+      long bytesToTrigger = Long.MAX_VALUE;
+      for (StreamSizeScheduleTask task : scheduleTasks.values()) {
+        if (task.isActive()) {
+          bytesToTrigger = Math.min(bytesToTrigger, task.getBytesToTrigger(current.getSize()));
+        }
+      }
+      if (previous == null || bytesToTrigger == Long.MAX_VALUE) {
+        return pollingDelay;
+      }
+      return computePollingDelay(bytesToTrigger, current.getTimestamp() - previous.getTimestamp(),
+                                 current.getSize() - previous.getSize(), minPollingDelay, pollingDelay);
+    }
+
     /**
      * Send a {@link StreamSize} built using information from the stream metrics to all the active
      * {@link StreamSizeSchedule} referenced by this object.
@@ -868,15 +1014,7 @@ public class StreamSizeScheduler implements Scheduler {
           // Data is not yet available, which means no data has been ingested by the stream yet
           return new StreamSize(0L, System.currentTimeMillis());
         }
-
-        MetricTimeSeries metric = metrics.iterator().next();
-        List<TimeValue> timeValues = metric.getTimeValues();
-        if (timeValues == null || timeValues.size() != 1) {
-          throw new IOException("Should collect exactly one time value");
-        }
-        TimeValue timeValue = timeValues.get(0);
-        // The metric store gives us 0 as the timestamp, hence we cannot use it here
-        return new StreamSize(timeValue.getValue(), System.currentTimeMillis());
+        return new StreamSize(getTotalValue(metrics.iterator().next()), System.currentTimeMillis());
       } catch (Exception e) {
         Throwables.propagateIfInstanceOf(e, IOException.class);
         throw new IOException(e);
@@ -1102,6 +1240,18 @@ public class StreamSizeScheduler implements Scheduler {
       return active.get() && newEstimateSize >= basePollSize + toBytes(streamSizeSchedule.getDataTriggerMB());
     }
 
+    /**
+     * Returns the number of bytes the stream needs to ingest, from the given size, for this task to trigger the
+     * execution of the program. If the given size already triggers the program, the count is from that size.
+     *
+     * @param size size of the stream, in bytes
+     */
+    public long getBytesToTrigger(long size) {
+      long triggerBytes = toBytes(streamSizeSchedule.getDataTriggerMB());
+      long remaining = basePollSize + triggerBytes - size;
+      return remaining > 0 ? remaining : triggerBytes;
+    }
+
     /**
      * Reset the base polling counters - it happens when polling the stream using metrics shows less data than
      * the previous poll. This can only be due to metrics deletion or metric TTL.
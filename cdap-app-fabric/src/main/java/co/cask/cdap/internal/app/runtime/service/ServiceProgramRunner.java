@@ -25,6 +25,7 @@ import co.cask.cdap.app.runtime.ProgramOptions;
 import co.cask.cdap.app.runtime.ProgramRunner;
 import co.cask.cdap.common.app.RunIds;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.data2.metadata.writer.ProgramContextAware;
 import co.cask.cdap.internal.app.runtime.AbstractProgramRunnerWithPlugin;
@@ -51,6 +52,7 @@ import org.apache.twill.internal.ServiceListenerAdapter;
  */
 public class ServiceProgramRunner extends AbstractProgramRunnerWithPlugin {
 
+  private final CConfiguration cConf;
   private final MetricsCollectionService metricsCollectionService;
   private final DatasetFramework datasetFramework;
   private final DiscoveryServiceClient discoveryServiceClient;
@@ -64,6 +66,7 @@ public class ServiceProgramRunner extends AbstractProgramRunnerWithPlugin {
                               TransactionSystemClient txClient, ServiceAnnouncer serviceAnnouncer,
                               DataFabricFacadeFactory dataFabricFacadeFactory) {
     super(cConf);
+    this.cConf = cConf;
     this.metricsCollectionService = metricsCollectionService;
     this.datasetFramework = datasetFramework;
     this.discoveryServiceClient = discoveryServiceClient;
@@ -102,13 +105,14 @@ public class ServiceProgramRunner extends AbstractProgramRunnerWithPlugin {
       ((ProgramContextAware) datasetFramework).initContext(new Id.Run(programId, runId.getId()));
     }
 
+    long readOnlyTxMaxAgeMillis = cConf.getLong(Constants.AppFabric.SERVICE_READ_ONLY_TX_MAX_AGE_MS);
     final PluginInstantiator pluginInstantiator = createPluginInstantiator(options, program.getClassLoader());
     try {
       ServiceHttpServer component = new ServiceHttpServer(host, program, spec, runId, options.getUserArguments(),
                                                           instanceId, instanceCount, serviceAnnouncer,
                                                           metricsCollectionService, datasetFramework,
                                                           dataFabricFacadeFactory, txClient, discoveryServiceClient,
-                                                          pluginInstantiator);
+                                                          pluginInstantiator, readOnlyTxMaxAgeMillis);
 
       // Add a service listener to make sure the plugin instantiator is closed when the worker driver finished.
       component.addListener(new ServiceListenerAdapter() {
@@ -31,6 +31,9 @@ import com.google.common.base.Preconditions;
 import org.apache.twill.common.Cancellable;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * An abstract base class for all {@link HttpHandler} generated through the {@link HttpHandlerGenerator}.
  *
@@ -39,11 +42,13 @@ import org.jboss.netty.handler.codec.http.HttpRequest;
 public abstract class AbstractHttpHandlerDelegator<T extends HttpServiceHandler> implements HttpHandler {
 
   private final DelegatorContext<T> context;
+  private final ConcurrentMap<String, MetricsContext> methodMetricsContexts;
   private MetricsContext metricsContext;
 
   protected AbstractHttpHandlerDelegator(DelegatorContext<T> context, MetricsContext metricsContext) {
     this.context = context;
     this.metricsContext = metricsContext;
+    this.methodMetricsContexts = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -73,6 +78,18 @@ public abstract class AbstractHttpHandlerDelegator<T extends HttpServiceHandler>
     return ((TransactionalHttpServiceContext) serviceContext).newTransactionContext();
   }
 
+  /**
+   * Returns a {@link TransactionContext} instance to be used for creating read-only transaction.
+   * This method is called from handler class generated by {@link HttpHandlerGenerator}.
+   */
+  @SuppressWarnings("unused")
+  protected final TransactionContext getReadOnlyTransactionContext() {
+    HttpServiceContext serviceContext = context.getServiceContext();
+    Preconditions.checkState(serviceContext instanceof TransactionalHttpServiceContext,
+                             "This instance of HttpServiceContext does not support transactions.");
+    return ((TransactionalHttpServiceContext) serviceContext).newReadOnlyTransactionContext();
+  }
+
   /**
    * Dismiss the current transaction context.
    * This method is called by the generated sub-class handler method.
@@ -92,15 +109,22 @@ public abstract class AbstractHttpHandlerDelegator<T extends HttpServiceHandler>
 
   /**
    * Returns a new instance of {@link DelayedHttpServiceResponder} that wraps around the given {@link HttpResponder}
-   * object. This method is called from handler class generated by {@link HttpHandlerGenerator}.
+   * object. Metrics emitted by the responder are tagged with the given handler method name.
+   * This method is called from handler class generated by {@link HttpHandlerGenerator}.
    */
   @SuppressWarnings("unused")
-  protected final DelayedHttpServiceResponder wrapResponder(HttpResponder responder) {
-    MetricsContext collector = this.metricsContext;
-    HttpServiceContext serviceContext = context.getServiceContext();
-    if (serviceContext != null && serviceContext.getSpecification() != null) {
-      collector = metricsContext.childContext(Constants.Metrics.Tag.HANDLER,
-                                              serviceContext.getSpecification().getName());
+  protected final DelayedHttpServiceResponder wrapResponder(HttpResponder responder, String methodName) {
+    MetricsContext collector = methodMetricsContexts.get(methodName);
+    if (collector == null) {
+      collector = this.metricsContext;
+      HttpServiceContext serviceContext = context.getServiceContext();
+      if (serviceContext != null && serviceContext.getSpecification() != null) {
+        collector = metricsContext.childContext(Constants.Metrics.Tag.HANDLER,
+                                                serviceContext.getSpecification().getName());
+      }
+      collector = collector.childContext(Constants.Metrics.Tag.METHOD, methodName);
+      MetricsContext existing = methodMetricsContexts.putIfAbsent(methodName, collector);
+      collector = existing == null ? collector : existing;
     }
     return new DelayedHttpServiceResponder(responder, collector);
   }
@@ -26,6 +26,7 @@ import co.cask.cdap.app.program.Program;
 import co.cask.cdap.app.runtime.Arguments;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
+import co.cask.cdap.data2.transaction.ReadOnlyTransactionProvider;
 import co.cask.cdap.internal.app.runtime.AbstractContext;
 import co.cask.cdap.internal.app.runtime.plugin.PluginInstantiator;
 import co.cask.tephra.TransactionContext;
@@ -49,6 +50,7 @@ public class BasicHttpServiceContext extends AbstractContext implements Transact
   private final int instanceId;
   private final AtomicInteger instanceCount;
   private final Map<String, Plugin> plugins;
+  private final ReadOnlyTransactionProvider readOnlyTxProvider;
 
   /**
    * Creates a BasicHttpServiceContext for the given HttpServiceHandlerSpecification.
@@ -63,12 +65,15 @@ public class BasicHttpServiceContext extends AbstractContext implements Transact
    * @param discoveryServiceClient discoveryServiceClient used to do service discovery.
    * @param txClient txClient to do transaction operations.
    * @param pluginInstantiator {@link PluginInstantiator}
+   * @param readOnlyTxProvider provider of transactions for read-only handler methods. If it is {@code null},
+   *                           read-only handler methods run with regular transactions.
    */
   public BasicHttpServiceContext(HttpServiceHandlerSpecification spec,
                                  Program program, RunId runId, int instanceId, AtomicInteger instanceCount,
                                  Arguments runtimeArgs, MetricsCollectionService metricsCollectionService,
                                  DatasetFramework dsFramework, DiscoveryServiceClient discoveryServiceClient,
-                                 TransactionSystemClient txClient, @Nullable PluginInstantiator pluginInstantiator) {
+                                 TransactionSystemClient txClient, @Nullable PluginInstantiator pluginInstantiator,
+                                 @Nullable ReadOnlyTransactionProvider readOnlyTxProvider) {
     super(program, runId, runtimeArgs, spec.getDatasets(),
           getMetricCollector(metricsCollectionService, program, spec.getName(), runId.getId(), instanceId),
           dsFramework, txClient, discoveryServiceClient, false, pluginInstantiator);
@@ -79,6 +84,7 @@ public class BasicHttpServiceContext extends AbstractContext implements Transact
       new ProgramUserMetrics(getMetricCollector(metricsCollectionService, program,
                                                 spec.getName(), runId.getId(), instanceId));
     this.plugins = Maps.newHashMap(program.getApplicationSpecification().getPlugins());
+    this.readOnlyTxProvider = readOnlyTxProvider;
   }
 
   /**
@@ -109,6 +115,14 @@ public class BasicHttpServiceContext extends AbstractContext implements Transact
     return getDatasetCache().newTransactionContext();
   }
 
+  @Override
+  public TransactionContext newReadOnlyTransactionContext() {
+    if (readOnlyTxProvider == null) {
+      return newTransactionContext();
+    }
+    return getDatasetCache().newReadOnlyTransactionContext(readOnlyTxProvider);
+  }
+
   @Override
   public void dismissTransactionContext() {
     getDatasetCache().dismissTransactionContext();
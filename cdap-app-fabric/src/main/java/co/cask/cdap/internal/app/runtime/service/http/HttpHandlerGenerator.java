@@ -16,6 +16,7 @@
 
 package co.cask.cdap.internal.app.runtime.service.http;
 
+import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.api.service.http.HttpContentConsumer;
 import co.cask.cdap.api.service.http.HttpServiceHandler;
@@ -440,11 +441,34 @@ final class HttpHandlerGenerator {
       }
 
       // Each request method is wrapped by a transaction lifecycle.
-      generateTransactionalDelegateBody(mg, new Method(name, desc));
+      generateTransactionalDelegateBody(mg, new Method(name, desc), isReadOnly());
 
       super.visitEnd();
     }
 
+    /**
+     * Returns {@code true} if the handler method is read-only, based on the {@link ReadOnly} annotation on the
+     * method or on the handler class.
+     */
+    private boolean isReadOnly() {
+      Type readOnlyType = Type.getType(ReadOnly.class);
+      for (AnnotationNode annotation : annotations) {
+        if (!readOnlyType.equals(Type.getType(annotation.desc))) {
+          continue;
+        }
+        // The values list is alternating between name and value. It is null if using the default value.
+        if (annotation.values != null) {
+          int idx = annotation.values.indexOf("value");
+          if (idx >= 0) {
+            return (Boolean) annotation.values.get(idx + 1);
+          }
+        }
+        return true;
+      }
+      ReadOnly readOnly = delegateType.getRawType().getAnnotation(ReadOnly.class);
+      return readOnly != null && readOnly.value();
+    }
+
     /**
      * Preserves method parameter classes for class loading. The first two parameters are always
      * {@link HttpServiceRequest} and {@link HttpServiceResponder}, which don't need to be preserved since
@@ -508,15 +532,16 @@ final class HttpHandlerGenerator {
     /**
      * Wrap the user written Handler method in a transaction.
      * The transaction begins before calling the user method, and commit after the user method returns.
-     * On errors the transaction is aborted and rolledback.
+     * On errors the transaction is aborted and rolledback. For read-only handler method, the transaction context
+     * is acquired by {@code getReadOnlyTransactionContext()}, which never commits.
      *
      * The generated handler method body has the form:
      *
      * <pre>{@code
      *   public void|BodyConsumer handle(HttpRequest request, HttpResponder responder, ...) {
      *     T handler = getHandler();
-     *     TransactionContext txContext = getTransactionContext();
-     *     DelayedHttpServiceResponder wrappedResponder = wrapResponder(responder);
+     *     TransactionContext txContext = getTransactionContext(); // or getReadOnlyTransactionContext()
+     *     DelayedHttpServiceResponder wrappedResponder = wrapResponder(responder, "handle");
      *     HttpContentConsumer contentConsumer = null;
      *     try {
      *       txContext.start();
@@ -551,7 +576,7 @@ final class HttpHandlerGenerator {
      * }
      * </pre>
      */
-    private void generateTransactionalDelegateBody(GeneratorAdapter mg, Method method) {
+    private void generateTransactionalDelegateBody(GeneratorAdapter mg, Method method, boolean readOnly) {
       Type handlerType = Type.getType(delegateType.getRawType());
       Type txContextType = Type.getType(TransactionContext.class);
       Type txFailureExceptionType = Type.getType(TransactionFailureException.class);
@@ -582,18 +607,23 @@ final class HttpHandlerGenerator {
       mg.storeLocal(handler, handlerType);
 
       // TransactionContext txContext = getTransactionContext();
+      // or for read-only method
+      // TransactionContext txContext = getReadOnlyTransactionContext();
       int txContext = mg.newLocal(txContextType);
       mg.loadThis();
       mg.invokeVirtual(classType,
-                       Methods.getMethod(TransactionContext.class, "getTransactionContext"));
+                       Methods.getMethod(TransactionContext.class,
+                                         readOnly ? "getReadOnlyTransactionContext" : "getTransactionContext"));
       mg.storeLocal(txContext, txContextType);
 
-      // DelayedHttpServiceResponder wrappedResponder = wrapResponder(responder);
+      // DelayedHttpServiceResponder wrappedResponder = wrapResponder(responder, methodName);
       int wrappedResponder = mg.newLocal(delayedHttpServiceResponderType);
       mg.loadThis();
       mg.loadArg(1);
+      mg.visitLdcInsn(method.getName());
       mg.invokeVirtual(classType,
-                       Methods.getMethod(DelayedHttpServiceResponder.class, "wrapResponder", HttpResponder.class));
+                       Methods.getMethod(DelayedHttpServiceResponder.class, "wrapResponder",
+                                         HttpResponder.class, String.class));
       mg.storeLocal(wrappedResponder, delayedHttpServiceResponderType);
 
       // HttpContentConsumer contentConsumer = null;
@@ -30,6 +30,13 @@ public interface TransactionalHttpServiceContext extends HttpServiceContext {
    */
   TransactionContext newTransactionContext();
 
+  /**
+   * Get a {@link TransactionContext} for a read-only HttpServiceHandler method. Transactions started
+   * with the returned context are never committed.
+   * @return a new transaction context
+   */
+  TransactionContext newReadOnlyTransactionContext();
+
   /**
    * Dismiss the {@link TransactionContext} for the HttpServiceHandler.
    */
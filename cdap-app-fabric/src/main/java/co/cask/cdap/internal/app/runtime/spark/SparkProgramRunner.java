@@ -54,6 +54,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.twill.api.RunId;
 import org.apache.twill.common.Threads;
 import org.apache.twill.discovery.DiscoveryServiceClient;
+import org.apache.twill.filesystem.LocationFactory;
 import org.apache.twill.internal.ServiceListenerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,11 +82,13 @@ public class SparkProgramRunner extends AbstractProgramRunnerWithPlugin {
   private final DiscoveryServiceClient discoveryServiceClient;
   private final StreamAdmin streamAdmin;
   private final Store store;
+  private final LocationFactory locationFactory;
 
   @Inject
   public SparkProgramRunner(CConfiguration cConf, Configuration hConf, TransactionSystemClient txSystemClient,
                             DatasetFramework datasetFramework, MetricsCollectionService metricsCollectionService,
-                            DiscoveryServiceClient discoveryServiceClient, StreamAdmin streamAdmin, Store store) {
+                            DiscoveryServiceClient discoveryServiceClient, StreamAdmin streamAdmin, Store store,
+                            LocationFactory locationFactory) {
     super(cConf);
     this.hConf = hConf;
     this.datasetFramework = datasetFramework;
@@ -95,6 +98,7 @@ public class SparkProgramRunner extends AbstractProgramRunnerWithPlugin {
     this.discoveryServiceClient = discoveryServiceClient;
     this.streamAdmin = streamAdmin;
     this.store = store;
+    this.locationFactory = locationFactory;
   }
 
   @Override
@@ -160,7 +164,7 @@ public class SparkProgramRunner extends AbstractProgramRunnerWithPlugin {
         : new DistributedSparkSubmitter();
       Service sparkRuntimeService = new SparkRuntimeService(
         cConf, hConf, spark, new SparkContextFactory(hConf, context, datasetFramework, txSystemClient, streamAdmin),
-        submitter, program.getJarLocation(), txSystemClient
+        submitter, program.getJarLocation(), locationFactory, txSystemClient
       );
 
       sparkRuntimeService.addListener(
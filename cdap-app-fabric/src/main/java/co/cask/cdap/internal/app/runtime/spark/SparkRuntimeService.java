@@ -15,6 +15,7 @@
  */
 package co.cask.cdap.internal.app.runtime.spark;
 
+import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.api.spark.Spark;
 import co.cask.cdap.api.spark.SparkContext;
 import co.cask.cdap.common.conf.CConfiguration;
@@ -28,6 +29,7 @@ import co.cask.cdap.common.twill.LocalLocationFactory;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.data2.transaction.Transactions;
 import co.cask.cdap.data2.util.hbase.HBaseTableUtilFactory;
+import co.cask.cdap.internal.app.runtime.JobJarCache;
 import co.cask.cdap.internal.app.runtime.LocalizationUtils;
 import co.cask.cdap.internal.app.runtime.distributed.LocalizeResource;
 import co.cask.cdap.internal.app.runtime.spark.metrics.SparkMetricsSink;
@@ -40,6 +42,7 @@ import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
@@ -49,6 +52,7 @@ import org.apache.spark.deploy.SparkSubmit;
 import org.apache.twill.api.ClassAcceptor;
 import org.apache.twill.api.RunId;
 import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
 import org.apache.twill.internal.ApplicationBundler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -88,6 +92,7 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
   private final Configuration hConf;
   private final Spark spark;
   private final Location programJarLocation;
+  private final LocationFactory locationFactory;
   private final SparkContextFactory sparkContextFactory;
   private final SparkSubmitter sparkSubmitter;
   private final TransactionSystemClient txClient;
@@ -97,11 +102,13 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
 
   SparkRuntimeService(CConfiguration cConf, Configuration hConf, Spark spark,
                       SparkContextFactory sparkContextFactory, SparkSubmitter sparkSubmitter,
-                      Location programJarLocation, TransactionSystemClient txClient) {
+                      Location programJarLocation, LocationFactory locationFactory,
+                      TransactionSystemClient txClient) {
     this.cConf = cConf;
     this.hConf = hConf;
     this.spark = spark;
     this.programJarLocation = programJarLocation;
+    this.locationFactory = locationFactory;
     this.sparkContextFactory = sparkContextFactory;
     this.sparkSubmitter = sparkSubmitter;
     this.txClient = txClient;
@@ -134,7 +141,7 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
 
       if (!contextConfig.isLocal()) {
         localizeResources.add(new LocalizeResource(copyProgramJar(programJarLocation, tempDir), true));
-        localizeResources.add(new LocalizeResource(buildDependencyJar(tempDir), true));
+        localizeResources.add(buildDependencyJar(tempDir, clientContext.getMetricsContext()));
         localizeResources.add(new LocalizeResource(saveCConf(cConf, tempDir)));
         if (pluginJar != null) {
           localizeResources.add(new LocalizeResource(pluginJar, true));
@@ -337,31 +344,56 @@ final class SparkRuntimeService extends AbstractExecutionThreadService {
 
   /**
    * Packages all the dependencies of the Spark job. It contains all CDAP classes that are needed to run the
-   * user spark program.
+   * user spark program. The jar only depends on the CDAP class path, hence it is taken from the {@link JobJarCache}
+   * if it was built before by another run.
    *
-   * @param targetDir directory for the file to be created in
-   * @return {@link File} of the dependency jar in the given target directory
+   * @param targetDir directory for the file to be created in if the jar is not cached
+   * @param metricsContext {@link MetricsContext} for emitting the jar cache metrics
+   * @return {@link LocalizeResource} of the dependency jar, which is localized as {@link #CDAP_SPARK_JAR}
    * @throws IOException if failed to package the jar
    */
-  private File buildDependencyJar(File targetDir) throws IOException {
-    Location tempLocation = new LocalLocationFactory(targetDir).create(CDAP_SPARK_JAR);
-
-    final HadoopClassExcluder hadoopClassExcluder = new HadoopClassExcluder();
-    ApplicationBundler appBundler = new ApplicationBundler(new ClassAcceptor() {
-
+  private LocalizeResource buildDependencyJar(File targetDir, MetricsContext metricsContext) throws IOException {
+    final Class<?> hbaseTableUtilClass = HBaseTableUtilFactory.getHBaseTableUtilClass();
+    JobJarCache.JarBuilder jarBuilder = new JobJarCache.JarBuilder() {
       @Override
-      public boolean accept(String className, URL classUrl, URL classPathUrl) {
-        // Exclude the spark-assembly and scala
-        if (className.startsWith("org.apache.spark")
-          || className.startsWith("scala")
-          || classPathUrl.toString().contains("spark-assembly")) {
-          return false;
-        }
-        return hadoopClassExcluder.accept(className, classUrl, classPathUrl);
+      public void build(Location target) throws IOException {
+        final HadoopClassExcluder hadoopClassExcluder = new HadoopClassExcluder();
+        ApplicationBundler appBundler = new ApplicationBundler(new ClassAcceptor() {
+
+          @Override
+          public boolean accept(String className, URL classUrl, URL classPathUrl) {
+            // Exclude the spark-assembly and scala
+            if (className.startsWith("org.apache.spark")
+              || className.startsWith("scala")
+              || classPathUrl.toString().contains("spark-assembly")) {
+              return false;
+            }
+            return hadoopClassExcluder.accept(className, classUrl, classPathUrl);
+          }
+        });
+        appBundler.createBundle(target, SparkProgramWrapper.class, hbaseTableUtilClass);
       }
-    });
-    appBundler.createBundle(tempLocation, SparkProgramWrapper.class, HBaseTableUtilFactory.getHBaseTableUtilClass());
-    return new File(Locations.toURI(tempLocation));
+    };
+
+    JobJarCache jarCache = JobJarCache.create(cConf, locationFactory, metricsContext);
+    if (jarCache == null) {
+      Location tempLocation = new LocalLocationFactory(targetDir).create(CDAP_SPARK_JAR);
+      jarBuilder.build(tempLocation);
+      return new LocalizeResource(new File(Locations.toURI(tempLocation)), true);
+    }
+
+    HashCode key = JobJarCache.putClassPath(JobJarCache.newKeyHasher("spark"), getClass().getClassLoader())
+      .putString(hbaseTableUtilClass.getName(), Charsets.UTF_8)
+      .hash();
+    URI jarURI = Locations.toURI(jarCache.getRemote("cdap-spark", key, jarBuilder));
+    try {
+      // The cached jar has the key in its name, localize it with the name expected in the executor class path
+      return new LocalizeResource(new URI(jarURI.getScheme(), jarURI.getAuthority(), jarURI.getPath(),
+                                          jarURI.getQuery(), CDAP_SPARK_JAR), true);
+    } catch (URISyntaxException e) {
+      // It should not happen as the URI is constructed from a valid URI
+      throw Throwables.propagate(e);
+    }
   }
 
   /**
@@ -31,6 +31,7 @@ import co.cask.cdap.common.lang.InstantiatorFactory;
 import co.cask.cdap.common.lang.PropertyFieldSetter;
 import co.cask.cdap.common.logging.LoggingContextAccessor;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
+import co.cask.cdap.data2.transaction.ReadOnlyTransactionProvider;
 import co.cask.cdap.internal.app.runtime.AbstractContext;
 import co.cask.cdap.internal.app.runtime.DataFabricFacade;
 import co.cask.cdap.internal.app.runtime.DataFabricFacadeFactory;
@@ -106,6 +107,7 @@ public class ServiceHttpServer extends AbstractIdleService {
   private final List<HandlerDelegatorContext> handlerContexts;
   private final NettyHttpService service;
   private final MetricsContext metricsContext;
+  private final ReadOnlyTransactionProvider readOnlyTxProvider;
 
   private Cancellable cancelDiscovery;
   private Timer timer;
@@ -115,7 +117,7 @@ public class ServiceHttpServer extends AbstractIdleService {
                            MetricsCollectionService metricsCollectionService, DatasetFramework datasetFramework,
                            DataFabricFacadeFactory dataFabricFacadeFactory, TransactionSystemClient txClient,
                            DiscoveryServiceClient discoveryServiceClient,
-                           @Nullable PluginInstantiator pluginInstantiator) {
+                           @Nullable PluginInstantiator pluginInstantiator, long readOnlyTxMaxAgeMillis) {
     this.program = program;
     this.runId = runId;
     this.instanceId = instanceId;
@@ -123,10 +125,13 @@ public class ServiceHttpServer extends AbstractIdleService {
     this.serviceAnnouncer = serviceAnnouncer;
     this.dataFabricFacadeFactory = dataFabricFacadeFactory;
     this.metricsContext = getMetricCollector(metricsCollectionService, program, runId.getId());
+    // Transactions for read-only handler methods are shared by all handlers of the service
+    this.readOnlyTxProvider = new ReadOnlyTransactionProvider(txClient, readOnlyTxMaxAgeMillis);
     BasicHttpServiceContextFactory contextFactory = createContextFactory(program, runId, instanceId, this.instanceCount,
                                                                          runtimeArgs, metricsCollectionService,
                                                                          datasetFramework, discoveryServiceClient,
-                                                                         txClient, pluginInstantiator);
+                                                                         txClient, pluginInstantiator,
+                                                                         readOnlyTxProvider);
     this.handlerContexts = createHandlerDelegatorContexts(program, spec, contextFactory);
     this.service = createNettyHttpService(program, host, handlerContexts, metricsContext);
   }
@@ -204,13 +209,15 @@ public class ServiceHttpServer extends AbstractIdleService {
                                                               final DatasetFramework datasetFramework,
                                                               final DiscoveryServiceClient discoveryServiceClient,
                                                               final TransactionSystemClient txClient,
-                                                              @Nullable final PluginInstantiator pluginInstantiator) {
+                                                              @Nullable final PluginInstantiator pluginInstantiator,
+                                                              final ReadOnlyTransactionProvider readOnlyTxProvider) {
     return new BasicHttpServiceContextFactory() {
       @Override
       public BasicHttpServiceContext create(HttpServiceHandlerSpecification spec) {
         return new BasicHttpServiceContext(spec, program, runId, instanceId, instanceCount,
                                            runtimeArgs, metricsCollectionService,
-                                           datasetFramework, discoveryServiceClient, txClient, pluginInstantiator);
+                                           datasetFramework, discoveryServiceClient, txClient, pluginInstantiator,
+                                           readOnlyTxProvider);
       }
     };
   }
@@ -262,6 +269,7 @@ public class ServiceHttpServer extends AbstractIdleService {
       for (HandlerDelegatorContext context : handlerContexts) {
         context.shutdown();
       }
+      readOnlyTxProvider.close();
     }
   }
 
@@ -94,6 +94,8 @@ public class AppMetadataStore extends MetadataStoreDataset {
   public AppMetadataStore(Table table, CConfiguration cConf) {
     super(table);
     this.cConf = cConf;
+    // Run records are scanned a lot when querying run history, hence use the binary encoding for them
+    addCodec(RunRecordMeta.class, new RunRecordMetaCodec());
   }
 
   @Override
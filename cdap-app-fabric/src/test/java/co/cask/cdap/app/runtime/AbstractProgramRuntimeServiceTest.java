@@ -28,6 +28,8 @@ import co.cask.cdap.internal.app.runtime.artifact.ArtifactRepository;
 import co.cask.cdap.proto.Id;
 import co.cask.cdap.proto.ProgramLiveInfo;
 import co.cask.cdap.proto.ProgramType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Service;
@@ -108,6 +110,53 @@ public class AbstractProgramRuntimeServiceTest {
     runtimeService.stopAndWait();
   }
 
+  @Test (timeout = 5000L)
+  public void testListPrograms() throws Exception {
+    final Id.Program programId1 = Id.Program.from(Id.Namespace.DEFAULT, "dummyApp", ProgramType.WORKER, "dummy1");
+    Id.Program programId2 = Id.Program.from(Id.Namespace.DEFAULT, "dummyApp", ProgramType.WORKER, "dummy2");
+    Id.Program programId3 = Id.Program.from(Id.Namespace.DEFAULT, "dummyApp", ProgramType.SERVICE, "dummy3");
+    RunId runId1 = RunIds.generate();
+    RunId runId2 = RunIds.generate();
+    Service service1 = new TestService();
+    Service service2 = new TestService();
+    ProgramRuntimeService.RuntimeInfo info1 = createRuntimeInfo(service1, programId1, runId1);
+    ProgramRuntimeService.RuntimeInfo info2 = createRuntimeInfo(service2, programId2, runId2);
+    service1.startAndWait();
+    service2.startAndWait();
+
+    final TestProgramRuntimeService runtimeService =
+      new TestProgramRuntimeService(CConfiguration.create(), createProgramRunnerFactory(), null, null);
+    runtimeService.startAndWait();
+    try {
+      Assert.assertSame(info1, runtimeService.updateRuntimeInfo(ProgramType.WORKER, runId1, info1));
+      Assert.assertSame(info2, runtimeService.updateRuntimeInfo(ProgramType.WORKER, runId2, info2));
+      // Adding another RuntimeInfo for the same run keeps the existing one
+      Assert.assertSame(info1, runtimeService.updateRuntimeInfo(ProgramType.WORKER, runId1,
+                                                                createRuntimeInfo(service1, programId1, runId1)));
+
+      Assert.assertEquals(2, runtimeService.list(ProgramType.WORKER).size());
+      Assert.assertEquals(ImmutableMap.of(runId1, info1), runtimeService.list(programId1));
+      Assert.assertEquals(ImmutableMap.of(programId1, ImmutableMap.of(runId1, info1),
+                                          programId2, ImmutableMap.of(runId2, info2)),
+                          runtimeService.list(ImmutableList.of(programId1, programId2, programId3)));
+
+      // Completed runs are removed
+      service1.stopAndWait();
+      Tasks.waitFor(true, new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          return runtimeService.list(programId1).isEmpty();
+        }
+      }, 5, TimeUnit.SECONDS, 100, TimeUnit.MILLISECONDS);
+      Assert.assertEquals(ImmutableMap.of(programId2, ImmutableMap.of(runId2, info2)),
+                          runtimeService.list(ImmutableList.of(programId1, programId2, programId3)));
+      Assert.assertEquals(ImmutableMap.of(runId2, info2), runtimeService.list(ProgramType.WORKER));
+    } finally {
+      service2.stopAndWait();
+      runtimeService.stopAndWait();
+    }
+  }
+
   private ProgramRunnerFactory createProgramRunnerFactory() {
     return new ProgramRunnerFactory() {
       @Override
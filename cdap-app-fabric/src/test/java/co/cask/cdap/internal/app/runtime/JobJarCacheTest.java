@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime;
+
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.common.io.Locations;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link JobJarCache}.
+ */
+public class JobJarCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static final long MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
+  @Test
+  public void testLocalCache() throws Exception {
+    CountingMetricsContext metrics = new CountingMetricsContext();
+    JobJarCache cache = new JobJarCache(Locations.toLocation(TEMP_FOLDER.newFolder()), null, MAX_AGE, metrics);
+    CountingJarBuilder builder = new CountingJarBuilder("content");
+
+    HashCode key = JobJarCache.newKeyHasher("test").putString("key", Charsets.UTF_8).hash();
+    File jar = cache.getLocal("test", key, builder);
+    Assert.assertEquals("content", read(Locations.toLocation(jar)));
+    Assert.assertEquals(jar, cache.getLocal("test", key, builder));
+    Assert.assertEquals(1, builder.getBuildCount());
+    Assert.assertEquals(1L, metrics.get(JobJarCache.METRIC_MISSES));
+    Assert.assertEquals(1L, metrics.get(JobJarCache.METRIC_HITS));
+
+    // A different key or name gives a different jar
+    HashCode otherKey = JobJarCache.newKeyHasher("test").putString("otherKey", Charsets.UTF_8).hash();
+    Assert.assertNotEquals(jar, cache.getLocal("test", otherKey, builder));
+    Assert.assertNotEquals(jar, cache.getLocal("other", key, builder));
+    Assert.assertEquals(3, builder.getBuildCount());
+
+    // No temporary file should be left behind
+    File[] files = jar.getParentFile().listFiles();
+    Assert.assertNotNull(files);
+    for (File file : files) {
+      Assert.assertFalse(file.getName(), file.getName().endsWith(".tmp"));
+    }
+  }
+
+  @Test
+  public void testSharedCache() throws Exception {
+    Location remoteDir = Locations.toLocation(TEMP_FOLDER.newFolder());
+    CountingMetricsContext metrics = new CountingMetricsContext();
+    JobJarCache cache1 = new JobJarCache(Locations.toLocation(TEMP_FOLDER.newFolder()), remoteDir, MAX_AGE, metrics);
+    JobJarCache cache2 = new JobJarCache(Locations.toLocation(TEMP_FOLDER.newFolder()), remoteDir, MAX_AGE, metrics);
+    CountingJarBuilder builder = new CountingJarBuilder("content");
+
+    HashCode key = JobJarCache.newKeyHasher("test").putString("key", Charsets.UTF_8).hash();
+    Location remoteJar = cache1.getRemote("test", key, builder);
+    Assert.assertEquals("content", read(remoteJar));
+
+    // The second cache has an empty local cache, but it should get the jar from the shared cache
+    File localJar = cache2.getLocal("test", key, builder);
+    Assert.assertEquals("content", read(Locations.toLocation(localJar)));
+    Assert.assertEquals(Locations.toURI(remoteJar), Locations.toURI(cache2.getRemote("test", key, builder)));
+    Assert.assertEquals(1, builder.getBuildCount());
+    Assert.assertEquals(1L, metrics.get(JobJarCache.METRIC_MISSES));
+    Assert.assertEquals(2L, metrics.get(JobJarCache.METRIC_HITS));
+  }
+
+  @Test
+  public void testConcurrentCreation() throws Exception {
+    int threads = 8;
+    final Location remoteDir = Locations.toLocation(TEMP_FOLDER.newFolder());
+    final HashCode key = JobJarCache.newKeyHasher("test").putString("key", Charsets.UTF_8).hash();
+    final CountDownLatch startLatch = new CountDownLatch(1);
+
+    ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(threads));
+    try {
+      List<ListenableFuture<Location>> futures = Lists.newArrayList();
+      for (int i = 0; i < threads; i++) {
+        // Each thread has its own local cache, like program runners on different hosts
+        final JobJarCache cache = new JobJarCache(Locations.toLocation(TEMP_FOLDER.newFolder()), remoteDir,
+                                                  MAX_AGE, new CountingMetricsContext());
+        futures.add(executor.submit(new Callable<Location>() {
+          @Override
+          public Location call() throws Exception {
+            startLatch.await();
+            return cache.getRemote("test", key, new CountingJarBuilder("content"));
+          }
+        }));
+      }
+      startLatch.countDown();
+
+      for (Location location : Futures.allAsList(futures).get(10, TimeUnit.SECONDS)) {
+        Assert.assertEquals("content", read(location));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testClassPathKey() throws Exception {
+    File jar1 = new File(TEMP_FOLDER.newFolder(), "lib.jar");
+    File jar2 = new File(TEMP_FOLDER.newFolder(), "lib.jar");
+    Files.write("content1", jar1, Charsets.UTF_8);
+    Files.write("content1", jar2, Charsets.UTF_8);
+
+    // The same class path entry in a different directory gives the same key
+    HashCode key1 = getClassPathKey(jar1);
+    Assert.assertEquals(key1, getClassPathKey(jar2));
+
+    // A class path entry with a different content of the same size gives a different key
+    Files.write("content2", jar2, Charsets.UTF_8);
+    Assert.assertTrue(jar2.setLastModified(jar1.lastModified() + 10000L));
+    Assert.assertNotEquals(key1, getClassPathKey(jar2));
+
+    // Class path directories are hashed by the files they contain
+    File dir = TEMP_FOLDER.newFolder();
+    File file = new File(dir, "conf.xml");
+    Files.write("content1", file, Charsets.UTF_8);
+    HashCode dirKey = getClassPathKey(dir);
+    Files.write("content2", file, Charsets.UTF_8);
+    Assert.assertTrue(file.setLastModified(file.lastModified() + 10000L));
+    Assert.assertNotEquals(dirKey, getClassPathKey(dir));
+  }
+
+  @Test
+  public void testCleanup() throws Exception {
+    File localDir = TEMP_FOLDER.newFolder();
+    File remoteDir = TEMP_FOLDER.newFolder();
+    long maxAge = TimeUnit.SECONDS.toMillis(100);
+    JobJarCache cache = new JobJarCache(Locations.toLocation(localDir), Locations.toLocation(remoteDir),
+                                        maxAge, new CountingMetricsContext());
+    CountingJarBuilder builder = new CountingJarBuilder("content");
+
+    HashCode key = JobJarCache.newKeyHasher("test").putString("key", Charsets.UTF_8).hash();
+    File jar = cache.getLocal("test", key, builder);
+    File tempFile = new File(localDir, "leftover.jar.tmp");
+    Files.write("leftover", tempFile, Charsets.UTF_8);
+    Assert.assertEquals(3, listFiles(localDir).length);
+    Assert.assertEquals(2, listFiles(remoteDir).length);
+
+    // Nothing is deleted before the maximum age
+    long now = System.currentTimeMillis();
+    cache.cleanup(now + maxAge / 2);
+    Assert.assertEquals(3, listFiles(localDir).length);
+    Assert.assertEquals(2, listFiles(remoteDir).length);
+
+    // A jar that is used again is kept
+    for (File file : listFiles(localDir)) {
+      Assert.assertTrue(file.setLastModified(now - maxAge));
+    }
+    Assert.assertEquals(jar, cache.getLocal("test", key, builder));
+    cache.cleanup(now + maxAge / 2);
+    Assert.assertTrue(jar.isFile());
+    Assert.assertFalse(tempFile.exists());
+
+    // Jars that are not used are deleted together with their build time, from both directories
+    cache.cleanup(now + maxAge * 2);
+    Assert.assertEquals(0, listFiles(localDir).length);
+    Assert.assertEquals(0, listFiles(remoteDir).length);
+
+    // A deleted jar is built again
+    Assert.assertEquals("content", read(Locations.toLocation(cache.getLocal("test", key, builder))));
+    Assert.assertEquals(2, builder.getBuildCount());
+  }
+
+  private HashCode getClassPathKey(File classPathEntry) throws IOException {
+    ClassLoader classLoader = new URLClassLoader(new URL[] { classPathEntry.toURI().toURL() }, null);
+    return JobJarCache.putClassPath(JobJarCache.newKeyHasher("test"), classLoader).hash();
+  }
+
+  private File[] listFiles(File dir) {
+    File[] files = dir.listFiles();
+    Assert.assertNotNull(files);
+    return files;
+  }
+
+  private String read(Location location) throws IOException {
+    try (InputStreamReader reader = new InputStreamReader(location.getInputStream(), Charsets.UTF_8)) {
+      return CharStreams.toString(reader);
+    }
+  }
+
+  /**
+   * A {@link JobJarCache.JarBuilder} that writes a fixed content and counts the number of builds.
+   */
+  private static final class CountingJarBuilder implements JobJarCache.JarBuilder {
+
+    private final String content;
+    private final AtomicInteger buildCount = new AtomicInteger();
+
+    CountingJarBuilder(String content) {
+      this.content = content;
+    }
+
+    @Override
+    public void build(Location target) throws IOException {
+      buildCount.incrementAndGet();
+      try (OutputStream os = target.getOutputStream()) {
+        os.write(content.getBytes(Charsets.UTF_8));
+      }
+    }
+
+    int getBuildCount() {
+      return buildCount.get();
+    }
+  }
+
+  /**
+   * A {@link MetricsContext} that sums up the increments of each metric.
+   */
+  private static final class CountingMetricsContext implements MetricsContext {
+
+    private final Map<String, AtomicLong> counts = Maps.newConcurrentMap();
+
+    long get(String metricName) {
+      AtomicLong count = counts.get(metricName);
+      return count == null ? 0L : count.get();
+    }
+
+    @Override
+    public MetricsContext childContext(Map<String, String> tags) {
+      return this;
+    }
+
+    @Override
+    public MetricsContext childContext(String tagName, String tagValue) {
+      return this;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+      return ImmutableMap.of();
+    }
+
+    @Override
+    public synchronized void increment(String metricName, long value) {
+      AtomicLong count = counts.get(metricName);
+      if (count == null) {
+        count = new AtomicLong();
+        counts.put(metricName, count);
+      }
+      count.addAndGet(value);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+}
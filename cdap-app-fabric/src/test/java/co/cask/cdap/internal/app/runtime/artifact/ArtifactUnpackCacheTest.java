@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.artifact;
+
+import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.lang.jar.BundleJarUtil;
+import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.test.SlowTests;
+import com.google.common.base.Charsets;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests for {@link ArtifactUnpackCache}.
+ */
+public class ArtifactUnpackCacheTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ArtifactUnpackCacheTest.class);
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testSharedUnpack() throws Exception {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), Long.MAX_VALUE);
+    Location jar = createJar("content", 10, 100);
+
+    // A copy of the same artifact at a different location shares the same directory
+    File copy = new File(TEMP_FOLDER.newFolder(), "copy.jar");
+    Files.copy(new File(jar.toURI()), copy);
+
+    ArtifactUnpackCache.UnpackedArtifact unpacked1 = cache.unpack(jar);
+    ArtifactUnpackCache.UnpackedArtifact unpacked2 = cache.unpack(Locations.toLocation(copy));
+    File dir = unpacked1.getDirectory();
+    Assert.assertEquals(dir, unpacked2.getDirectory());
+    Assert.assertEquals("content", Files.toString(new File(dir, "entry0"), Charsets.UTF_8).substring(0, 7));
+    Assert.assertEquals(0L, cache.getUnusedBytes());
+
+    // The directory is kept for reuse after all references are released
+    unpacked1.close();
+    unpacked2.close();
+    Assert.assertTrue(dir.isDirectory());
+    Assert.assertTrue(cache.getUnusedBytes() > 0);
+
+    ArtifactUnpackCache.UnpackedArtifact unpacked3 = cache.unpack(jar);
+    Assert.assertEquals(dir, unpacked3.getDirectory());
+    Assert.assertEquals(0L, cache.getUnusedBytes());
+    unpacked3.close();
+
+    // A different artifact is unpacked to a different directory
+    ArtifactUnpackCache.UnpackedArtifact other = cache.unpack(createJar("other", 10, 100));
+    Assert.assertNotEquals(dir, other.getDirectory());
+    other.close();
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    Location jar1 = createJar("jar1", 10, 1000);
+    Location jar2 = createJar("jar2", 10, 1000);
+
+    // Only keep the unpacked directory of one artifact when not used
+    File unpackDir = TEMP_FOLDER.newFolder();
+    long size = getSize(BundleJarUtil.unJar(jar1, TEMP_FOLDER.newFolder()));
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(unpackDir, size);
+
+    ArtifactUnpackCache.UnpackedArtifact unpacked1 = cache.unpack(jar1);
+    ArtifactUnpackCache.UnpackedArtifact unpacked2 = cache.unpack(jar2);
+    File dir1 = unpacked1.getDirectory();
+    File dir2 = unpacked2.getDirectory();
+
+    // Directories in use are never deleted
+    unpacked1.close();
+    Assert.assertTrue(dir1.isDirectory());
+    Assert.assertEquals(size, cache.getUnusedBytes());
+
+    // Releasing the second one goes over the budget, hence the least recently used one is deleted
+    unpacked2.close();
+    Assert.assertFalse(dir1.exists());
+    Assert.assertTrue(dir2.isDirectory());
+    Assert.assertEquals(size, cache.getUnusedBytes());
+
+    // Closing again has no effect
+    unpacked1.close();
+    Assert.assertTrue(dir2.isDirectory());
+
+    // The evicted artifact is unpacked again when needed
+    ArtifactUnpackCache.UnpackedArtifact unpacked3 = cache.unpack(jar1);
+    Assert.assertTrue(new File(unpacked3.getDirectory(), "entry0").isFile());
+    unpacked3.close();
+    Assert.assertFalse(dir2.exists());
+  }
+
+  @Test
+  public void testDeletedDirectory() throws Exception {
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), Long.MAX_VALUE);
+    Location jar = createJar("content", 10, 100);
+
+    ArtifactUnpackCache.UnpackedArtifact unpacked = cache.unpack(jar);
+    File dir = unpacked.getDirectory();
+    unpacked.close();
+
+    // A directory deleted from outside of the cache is unpacked again
+    DirUtils.deleteDirectoryContents(dir);
+    unpacked = cache.unpack(jar);
+    Assert.assertTrue(new File(unpacked.getDirectory(), "entry0").isFile());
+    unpacked.close();
+  }
+
+  @Test
+  public void testConcurrentUnpack() throws Exception {
+    int threads = 8;
+    final ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), Long.MAX_VALUE);
+    final Location jar = createJar("content", 100, 1000);
+    final CountDownLatch startLatch = new CountDownLatch(1);
+
+    ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(threads));
+    try {
+      List<ListenableFuture<ArtifactUnpackCache.UnpackedArtifact>> futures = Lists.newArrayList();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<ArtifactUnpackCache.UnpackedArtifact>() {
+          @Override
+          public ArtifactUnpackCache.UnpackedArtifact call() throws Exception {
+            startLatch.await();
+            return cache.unpack(jar);
+          }
+        }));
+      }
+      startLatch.countDown();
+
+      // All threads get the same fully unpacked directory
+      List<ArtifactUnpackCache.UnpackedArtifact> unpackedArtifacts =
+        Futures.allAsList(futures).get(10, TimeUnit.SECONDS);
+      File dir = unpackedArtifacts.get(0).getDirectory();
+      Assert.assertEquals(100, DirUtils.listFiles(dir).size());
+      for (ArtifactUnpackCache.UnpackedArtifact unpacked : unpackedArtifacts) {
+        Assert.assertEquals(dir, unpacked.getDirectory());
+        unpacked.close();
+      }
+      Assert.assertTrue(cache.getUnusedBytes() > 0);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testUnpackLatency() throws Exception {
+    int iterations = 20;
+    Location jar = createJar("content", 2000, 10000);
+
+    // Unpacking for every class loader, as it was done without the cache
+    Stopwatch stopwatch = new Stopwatch().start();
+    for (int i = 0; i < iterations; i++) {
+      File dir = TEMP_FOLDER.newFolder();
+      BundleJarUtil.unJar(jar, dir);
+      DirUtils.deleteDirectoryContents(dir);
+    }
+    long uncachedMs = stopwatch.elapsedMillis();
+
+    ArtifactUnpackCache cache = new ArtifactUnpackCache(TEMP_FOLDER.newFolder(), Long.MAX_VALUE);
+    stopwatch.reset().start();
+    for (int i = 0; i < iterations; i++) {
+      cache.unpack(jar).close();
+    }
+    long cachedMs = stopwatch.elapsedMillis();
+
+    LOG.info("Unpacking artifact {} times took {} ms without cache and {} ms with cache",
+             iterations, uncachedMs, cachedMs);
+    Assert.assertTrue(cachedMs <= uncachedMs);
+  }
+
+  /**
+   * Creates a jar with the given number of entries, each filled with the given content up to the given size.
+   */
+  private Location createJar(String content, int entries, int entrySize) throws IOException {
+    StringBuilder builder = new StringBuilder(entrySize);
+    while (builder.length() < entrySize) {
+      builder.append(content);
+    }
+    byte[] bytes = builder.toString().getBytes(Charsets.UTF_8);
+
+    File jarFile = new File(TEMP_FOLDER.newFolder(), "artifact.jar");
+    try (JarOutputStream os = new JarOutputStream(new FileOutputStream(jarFile))) {
+      for (int i = 0; i < entries; i++) {
+        os.putNextEntry(new JarEntry("entry" + i));
+        os.write(bytes);
+        os.closeEntry();
+      }
+    }
+    return Locations.toLocation(jarFile);
+  }
+
+  private long getSize(File dir) {
+    long size = 0L;
+    for (File file : DirUtils.listFiles(dir)) {
+      size += file.length();
+    }
+    return size;
+  }
+}
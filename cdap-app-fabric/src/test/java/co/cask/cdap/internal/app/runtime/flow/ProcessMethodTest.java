@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.flow;
+
+import co.cask.cdap.api.annotation.Batch;
+import co.cask.cdap.api.flow.flowlet.AbstractFlowlet;
+import co.cask.cdap.api.flow.flowlet.InputContext;
+import co.cask.cdap.app.queue.InputDatum;
+import co.cask.cdap.common.queue.QueueName;
+import co.cask.cdap.test.SlowTests;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tests for {@link GeneratedProcessMethod} and {@link ReflectionProcessMethod}.
+ */
+public class ProcessMethodTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessMethodTest.class);
+
+  @Test
+  public void testInvoke() throws Exception {
+    for (boolean generated : new boolean[] { true, false }) {
+      TestFlowlet flowlet = new TestFlowlet();
+
+      ProcessMethod<String> process = createProcessMethod(flowlet, "process", generated, String.class);
+      Assert.assertTrue(process.needsInput());
+      Assert.assertTrue(process.invoke(new TestInputDatum<>(ImmutableList.of("a", "b"))).isSuccess());
+      Assert.assertEquals(ImmutableList.of("a", "b"), flowlet.received);
+
+      ProcessMethod<String> processWithContext = createProcessMethod(flowlet, "processWithContext", generated,
+                                                                     String.class, InputContext.class);
+      Assert.assertTrue(processWithContext.invoke(new TestInputDatum<>(ImmutableList.of("c"))).isSuccess());
+      Assert.assertEquals(ImmutableList.of("a", "b", "c:origin"), flowlet.received);
+
+      ProcessMethod<Integer> processInt = createProcessMethod(flowlet, "processInt", generated, int.class);
+      Assert.assertTrue(processInt.invoke(new TestInputDatum<>(ImmutableList.of(1, 2))).isSuccess());
+      Assert.assertEquals(3L, flowlet.sum);
+
+      ProcessMethod<Long> processBatch = createProcessMethod(flowlet, "processBatch", generated, Iterator.class);
+      ProcessMethod.ProcessResult<Long> batchResult = processBatch.invoke(
+        new TestInputDatum<>(ImmutableList.of(10L, 20L)));
+      Assert.assertTrue(batchResult.isSuccess());
+      Assert.assertEquals(33L, flowlet.sum);
+
+      ProcessMethod<Object> tick = createProcessMethod(flowlet, "tick", generated);
+      Assert.assertFalse(tick.needsInput());
+      Assert.assertTrue(tick.invoke(new TestInputDatum<>(ImmutableList.of())).isSuccess());
+      Assert.assertEquals(1, flowlet.ticks);
+
+      // Exceptions thrown from the process method should be reported as is
+      ProcessMethod<String> fail = createProcessMethod(flowlet, "fail", generated, String.class);
+      ProcessMethod.ProcessResult<String> result = fail.invoke(new TestInputDatum<>(ImmutableList.of("x")));
+      Assert.assertFalse(result.isSuccess());
+      Assert.assertEquals("x", result.getEvent());
+      Assert.assertTrue(result.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void testSupported() throws Exception {
+    Assert.assertTrue(GeneratedProcessMethod.isSupported(TestFlowlet.class.getMethod("process", String.class)));
+    Assert.assertFalse(GeneratedProcessMethod.isSupported(
+      TestFlowlet.class.getDeclaredMethod("privateProcess", String.class)));
+    Assert.assertFalse(GeneratedProcessMethod.isSupported(
+      PackageFlowlet.class.getDeclaredMethod("process", String.class)));
+  }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testDispatchCost() throws Exception {
+    int events = 100000;
+    int rounds = 20;
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (int i = 0; i < events; i++) {
+      builder.add("event" + i);
+    }
+    TestInputDatum<String> input = new TestInputDatum<>(builder.build());
+
+    for (boolean generated : new boolean[] { false, true, false, true }) {
+      TestFlowlet flowlet = new TestFlowlet();
+      ProcessMethod<String> processMethod = createProcessMethod(flowlet, "count", generated, String.class);
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < rounds; i++) {
+        Assert.assertTrue(processMethod.invoke(input).isSuccess());
+      }
+      long elapsed = System.nanoTime() - startTime;
+
+      Assert.assertEquals((long) events * rounds, flowlet.sum);
+      LOG.info("{} dispatch: {} ns per event", generated ? "Generated" : "Reflection",
+               (double) elapsed / ((long) events * rounds));
+    }
+  }
+
+  private <T> ProcessMethod<T> createProcessMethod(TestFlowlet flowlet, String name,
+                                                   boolean generated, Class<?>...paramTypes) throws Exception {
+    Method method = TestFlowlet.class.getMethod(name, paramTypes);
+    if (generated) {
+      return GeneratedProcessMethod.create(flowlet, method, 0);
+    }
+    return ReflectionProcessMethod.create(flowlet, method, 0);
+  }
+
+  /**
+   * Flowlet with different kinds of process methods.
+   */
+  public static final class TestFlowlet extends AbstractFlowlet {
+
+    private final List<String> received = Lists.newArrayList();
+    private long sum;
+    private int ticks;
+
+    public void process(String event) {
+      received.add(event);
+    }
+
+    public void processWithContext(String event, InputContext context) {
+      received.add(event + ":" + context.getOrigin());
+    }
+
+    public long processInt(int value) {
+      sum += value;
+      return sum;
+    }
+
+    @Batch(10)
+    public void processBatch(Iterator<Long> events) {
+      while (events.hasNext()) {
+        sum += events.next();
+      }
+    }
+
+    public void tick() {
+      ticks++;
+    }
+
+    public void fail(String event) {
+      throw new IllegalStateException("Failed on " + event);
+    }
+
+    public void count(String event) {
+      sum++;
+    }
+
+    private void privateProcess(String event) {
+      received.add(event);
+    }
+  }
+
+  /**
+   * Flowlet that is not public.
+   */
+  static final class PackageFlowlet extends AbstractFlowlet {
+
+    public void process(String event) {
+      // No-op
+    }
+  }
+
+  /**
+   * A {@link InputDatum} that contains a fixed list of events.
+   */
+  private static final class TestInputDatum<T> implements InputDatum<T> {
+
+    private final List<T> events;
+
+    TestInputDatum(List<T> events) {
+      this.events = events;
+    }
+
+    @Override
+    public boolean needProcess() {
+      return !events.isEmpty();
+    }
+
+    @Override
+    public void incrementRetry() {
+      // No-op
+    }
+
+    @Override
+    public int getRetry() {
+      return 0;
+    }
+
+    @Override
+    public InputContext getInputContext() {
+      return new InputContext() {
+        @Override
+        public String getOrigin() {
+          return "origin";
+        }
+
+        @Override
+        public int getRetryCount() {
+          return 0;
+        }
+      };
+    }
+
+    @Override
+    public QueueName getQueueName() {
+      return null;
+    }
+
+    @Override
+    public void reclaim() {
+      // No-op
+    }
+
+    @Override
+    public int size() {
+      return events.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return events.iterator();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.runtime.schedule;
+
+import co.cask.cdap.api.dataset.lib.cube.TimeValue;
+import co.cask.cdap.api.metrics.MetricDataQuery;
+import co.cask.cdap.api.metrics.MetricDeleteQuery;
+import co.cask.cdap.api.metrics.MetricSearchQuery;
+import co.cask.cdap.api.metrics.MetricStore;
+import co.cask.cdap.api.metrics.MetricTimeSeries;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.proto.Id;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the stream size polling done by {@link StreamSizeScheduler}.
+ */
+public class StreamSizeSchedulerPollingInfoTest {
+
+  private static final long MIN_DELAY = 1000L;
+  private static final long MAX_DELAY = 60000L;
+
+  @Test
+  public void testQueryStreamEventsSizes() throws Exception {
+    Id.Stream stream1 = Id.Stream.from("ns1", "s1");
+    Id.Stream stream2 = Id.Stream.from("ns1", "s2");
+    Id.Stream stream3 = Id.Stream.from("ns2", "s1");
+    Id.Stream other = Id.Stream.from("ns2", "other");
+
+    MockMetricStore metricStore = new MockMetricStore(ImmutableList.of(
+      createTimeSeries(stream1, 100L), createTimeSeries(stream3, 300L), createTimeSeries(other, 1000L)));
+
+    // All streams are polled with one query grouped by stream
+    Map<Id.Stream, Long> sizes =
+      StreamSizeScheduler.queryStreamEventsSizes(metricStore, ImmutableList.of(stream1, stream2, stream3));
+    Assert.assertEquals(1, metricStore.getQueries().size());
+    MetricDataQuery query = metricStore.getQueries().get(0);
+    Assert.assertTrue(query.getSliceByTags().isEmpty());
+    Assert.assertEquals(ImmutableList.of(Constants.Metrics.Tag.NAMESPACE, Constants.Metrics.Tag.STREAM),
+                        query.getGroupByTags());
+
+    // A stream without metric has not ingested any data yet, and streams that are not polled are ignored
+    Assert.assertEquals(ImmutableMap.of(stream1, 100L, stream2, 0L, stream3, 300L), sizes);
+  }
+
+  @Test
+  public void testQueryStreamEventsSizesNoMetrics() throws Exception {
+    Id.Stream stream1 = Id.Stream.from("ns1", "s1");
+    Id.Stream stream2 = Id.Stream.from("ns1", "s2");
+
+    MockMetricStore metricStore = new MockMetricStore(null);
+    Map<Id.Stream, Long> sizes =
+      StreamSizeScheduler.queryStreamEventsSizes(metricStore, ImmutableList.of(stream1, stream2));
+    Assert.assertEquals(ImmutableMap.of(stream1, 0L, stream2, 0L), sizes);
+  }
+
+  @Test
+  public void testComputePollingDelay() {
+    // 1000 bytes ingested in 10 seconds, 3000 bytes to go: triggers in 30 seconds, hence poll again in 15 seconds
+    Assert.assertEquals(15000L, StreamSizeScheduler.computePollingDelay(3000L, 10000L, 1000L, MIN_DELAY, MAX_DELAY));
+
+    // The delay is bounded by the minimum polling delay for fast streams
+    Assert.assertEquals(MIN_DELAY, StreamSizeScheduler.computePollingDelay(10L, 10000L, 1000L, MIN_DELAY, MAX_DELAY));
+    Assert.assertEquals(MIN_DELAY, StreamSizeScheduler.computePollingDelay(0L, 10000L, 1000L, MIN_DELAY, MAX_DELAY));
+
+    // The delay is bounded by the maximum polling delay for slow streams
+    Assert.assertEquals(MAX_DELAY, StreamSizeScheduler.computePollingDelay(1000000L, 10000L, 1000L,
+                                                                           MIN_DELAY, MAX_DELAY));
+    Assert.assertEquals(MAX_DELAY, StreamSizeScheduler.computePollingDelay(Long.MAX_VALUE - 1, 10000L, 1L,
+                                                                           MIN_DELAY, MAX_DELAY));
+  }
+
+  @Test
+  public void testComputePollingDelayNoIngestion() {
+    // Without any ingestion or time elapsed, there is no rate to estimate from
+    Assert.assertEquals(MAX_DELAY, StreamSizeScheduler.computePollingDelay(3000L, 10000L, 0L, MIN_DELAY, MAX_DELAY));
+    Assert.assertEquals(MAX_DELAY, StreamSizeScheduler.computePollingDelay(3000L, 0L, 1000L, MIN_DELAY, MAX_DELAY));
+    Assert.assertEquals(MAX_DELAY, StreamSizeScheduler.computePollingDelay(3000L, -10L, 1000L, MIN_DELAY, MAX_DELAY));
+  }
+
+  @Test
+  public void testComputePollingDelaySizeDecrease() {
+    // A stream truncated between two polls has a negative ingestion, which falls back to the maximum delay
+    long[] sizes = { 5000L, 100L, 1100L };
+    long[] timestamps = { 0L, 10000L, 20000L };
+    Assert.assertEquals(MAX_DELAY, StreamSizeScheduler.computePollingDelay(3000L, timestamps[1] - timestamps[0],
+                                                                           sizes[1] - sizes[0], MIN_DELAY, MAX_DELAY));
+
+    // The rate is then estimated from the size after the truncation
+    Assert.assertEquals(15000L, StreamSizeScheduler.computePollingDelay(3000L, timestamps[2] - timestamps[1],
+                                                                        sizes[2] - sizes[1], MIN_DELAY, MAX_DELAY));
+  }
+
+  private MetricTimeSeries createTimeSeries(Id.Stream streamId, long size) {
+    return new MetricTimeSeries("system.collect.bytes",
+                                ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, streamId.getNamespaceId(),
+                                                Constants.Metrics.Tag.STREAM, streamId.getId()),
+                                ImmutableList.of(new TimeValue(0L, size)));
+  }
+
+  /**
+   * A {@link MetricStore} that records the queries and returns the given time series for every query.
+   */
+  private static final class MockMetricStore implements MetricStore {
+
+    private final Collection<MetricTimeSeries> timeSeries;
+    private final List<MetricDataQuery> queries = Lists.newArrayList();
+
+    MockMetricStore(Collection<MetricTimeSeries> timeSeries) {
+      this.timeSeries = timeSeries;
+    }
+
+    List<MetricDataQuery> getQueries() {
+      return queries;
+    }
+
+    @Override
+    public void setMetricsContext(MetricsContext metricsContext) {
+      // no-op
+    }
+
+    @Override
+    public void add(MetricValues metricValues) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(Collection<? extends MetricValues> metricValues) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+      queries.add(query);
+      return timeSeries;
+    }
+
+    @Override
+    public void deleteBefore(long timestamp) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(MetricDeleteQuery query) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAll() throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<String> findMetricNames(MetricSearchQuery query) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package co.cask.cdap.internal.app.runtime.service.http;
 
 import co.cask.cdap.api.Transactional;
+import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.app.ApplicationSpecification;
 import co.cask.cdap.api.data.DatasetInstantiationException;
 import co.cask.cdap.api.dataset.Dataset;
@@ -67,6 +68,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -81,6 +83,9 @@ public class HttpHandlerGeneratorTest {
   @ClassRule
   public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
+  // Number of transactions started through read-only transaction contexts
+  private static final AtomicInteger READ_ONLY_TX_COUNT = new AtomicInteger();
+
   @Path("/p1")
   public abstract static class BaseHttpHandler extends AbstractHttpServiceHandler {
 
@@ -141,6 +146,45 @@ public class HttpHandlerGeneratorTest {
     }
   }
 
+  /**
+   * A testing handler with read-only handler methods by default.
+   */
+  @ReadOnly
+  public static final class ReadOnlyHandler extends AbstractHttpServiceHandler {
+
+    @Path("/read")
+    @GET
+    public void read(HttpServiceRequest request, HttpServiceResponder responder) {
+      responder.sendString("read");
+    }
+
+    @ReadOnly(false)
+    @Path("/write")
+    @POST
+    public void write(HttpServiceRequest request, HttpServiceResponder responder) {
+      responder.sendString("write");
+    }
+  }
+
+  /**
+   * A testing handler with one read-only handler method.
+   */
+  public static final class ReadOnlyMethodHandler extends AbstractHttpServiceHandler {
+
+    @ReadOnly
+    @Path("/lookup")
+    @GET
+    public void lookup(HttpServiceRequest request, HttpServiceResponder responder) {
+      responder.sendString("lookup");
+    }
+
+    @Path("/update")
+    @PUT
+    public void update(HttpServiceRequest request, HttpServiceResponder responder) {
+      responder.sendString("update");
+    }
+  }
+
   /**
    * A testing handler for testing file upload through usage of {@link HttpContentConsumer}.
    */
@@ -354,6 +398,68 @@ public class HttpHandlerGeneratorTest {
     }
   }
 
+  @Test
+  public void testReadOnly() throws Exception {
+    MetricsContext noOpsMetricsContext =
+      new NoOpMetricsCollectionService().getContext(new HashMap<String, String>());
+    HttpHandlerFactory factory = new HttpHandlerFactory("/prefix", noOpsMetricsContext);
+
+    HttpHandler readOnlyHandler = factory.createHttpHandler(
+      TypeToken.of(ReadOnlyHandler.class), new AbstractDelegatorContext<ReadOnlyHandler>() {
+        @Override
+        protected ReadOnlyHandler createHandler() {
+          return new ReadOnlyHandler();
+        }
+      });
+    HttpHandler readOnlyMethodHandler = factory.createHttpHandler(
+      TypeToken.of(ReadOnlyMethodHandler.class), new AbstractDelegatorContext<ReadOnlyMethodHandler>() {
+        @Override
+        protected ReadOnlyMethodHandler createHandler() {
+          return new ReadOnlyMethodHandler();
+        }
+      });
+
+    NettyHttpService service = NettyHttpService.builder()
+      .addHttpHandlers(ImmutableList.of(readOnlyHandler, readOnlyMethodHandler))
+      .build();
+
+    service.startAndWait();
+    try {
+      InetSocketAddress bindAddress = service.getBindAddress();
+      READ_ONLY_TX_COUNT.set(0);
+
+      // Methods of a read-only handler class are read-only by default
+      Assert.assertEquals("read", call(bindAddress, "GET", "/prefix/read"));
+      Assert.assertEquals(1, READ_ONLY_TX_COUNT.get());
+
+      // Unless overridden by the method
+      Assert.assertEquals("write", call(bindAddress, "POST", "/prefix/write"));
+      Assert.assertEquals(1, READ_ONLY_TX_COUNT.get());
+
+      // Read-only method in a handler class without the annotation
+      Assert.assertEquals("lookup", call(bindAddress, "GET", "/prefix/lookup"));
+      Assert.assertEquals(2, READ_ONLY_TX_COUNT.get());
+
+      Assert.assertEquals("update", call(bindAddress, "PUT", "/prefix/update"));
+      Assert.assertEquals(2, READ_ONLY_TX_COUNT.get());
+    } finally {
+      service.stopAndWait();
+    }
+  }
+
+  private String call(InetSocketAddress bindAddress, String method, String path) throws IOException {
+    HttpURLConnection urlConn = (HttpURLConnection) new URL(
+      String.format("http://%s:%d%s", bindAddress.getHostName(), bindAddress.getPort(), path)).openConnection();
+    urlConn.setReadTimeout(2000);
+    urlConn.setRequestMethod(method);
+    try {
+      Assert.assertEquals(200, urlConn.getResponseCode());
+      return new String(ByteStreams.toByteArray(urlConn.getInputStream()), Charsets.UTF_8);
+    } finally {
+      urlConn.disconnect();
+    }
+  }
+
   private abstract static class AbstractDelegatorContext<T extends HttpServiceHandler> implements DelegatorContext<T> {
 
     private final ThreadLocal<T> threadLocal = new ThreadLocal<T>() {
@@ -446,27 +552,15 @@ public class HttpHandlerGeneratorTest {
 
     @Override
     public TransactionContext newTransactionContext() {
-      return new TransactionContext(null, ImmutableList.<TransactionAware>of()) {
-
-        @Override
-        public boolean addTransactionAware(TransactionAware txAware) {
-          return false;
-        }
+      return new NoOpTransactionContext();
+    }
 
+    @Override
+    public TransactionContext newReadOnlyTransactionContext() {
+      return new NoOpTransactionContext() {
         @Override
         public void start() throws TransactionFailureException {
-        }
-
-        @Override
-        public void finish() throws TransactionFailureException {
-        }
-
-        @Override
-        public void abort() throws TransactionFailureException {
-        }
-
-        @Override
-        public void abort(TransactionFailureException cause) throws TransactionFailureException {
+          READ_ONLY_TX_COUNT.incrementAndGet();
         }
       };
     }
@@ -501,4 +595,35 @@ public class HttpHandlerGeneratorTest {
       return null;
     }
   }
+
+  /**
+   * A no-op implementation of {@link TransactionContext}.
+   */
+  private static class NoOpTransactionContext extends TransactionContext {
+
+    NoOpTransactionContext() {
+      super(null, ImmutableList.<TransactionAware>of());
+    }
+
+    @Override
+    public boolean addTransactionAware(TransactionAware txAware) {
+      return false;
+    }
+
+    @Override
+    public void start() throws TransactionFailureException {
+    }
+
+    @Override
+    public void finish() throws TransactionFailureException {
+    }
+
+    @Override
+    public void abort() throws TransactionFailureException {
+    }
+
+    @Override
+    public void abort(TransactionFailureException cause) throws TransactionFailureException {
+    }
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.common;
+
+import co.cask.cdap.etl.api.StageMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link StageMetrics} that can hold back counts until they are either flushed to or discarded without reaching
+ * the underlying {@link StageMetrics}. Gauges are always emitted immediately.
+ */
+final class BufferedStageMetrics implements StageMetrics {
+
+  private final StageMetrics delegate;
+  private final Map<String, Integer> stageCounts = new HashMap<>();
+  private final Map<String, Integer> pipelineCounts = new HashMap<>();
+  private boolean buffering;
+
+  BufferedStageMetrics(StageMetrics delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Starts holding back counts until the next call to {@link #flush()} or {@link #discard()}.
+   */
+  void startBuffering() {
+    buffering = true;
+  }
+
+  /**
+   * Emits all counts held back since {@link #startBuffering()} and stops buffering.
+   */
+  void flush() {
+    buffering = false;
+    for (Map.Entry<String, Integer> entry : stageCounts.entrySet()) {
+      delegate.count(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, Integer> entry : pipelineCounts.entrySet()) {
+      delegate.pipelineCount(entry.getKey(), entry.getValue());
+    }
+    stageCounts.clear();
+    pipelineCounts.clear();
+  }
+
+  /**
+   * Drops all counts held back since {@link #startBuffering()} and stops buffering.
+   */
+  void discard() {
+    buffering = false;
+    stageCounts.clear();
+    pipelineCounts.clear();
+  }
+
+  @Override
+  public void count(String metricName, int delta) {
+    if (buffering) {
+      add(stageCounts, metricName, delta);
+    } else {
+      delegate.count(metricName, delta);
+    }
+  }
+
+  @Override
+  public void gauge(String metricName, long value) {
+    delegate.gauge(metricName, value);
+  }
+
+  @Override
+  public void pipelineCount(String metricName, int delta) {
+    if (buffering) {
+      add(pipelineCounts, metricName, delta);
+    } else {
+      delegate.pipelineCount(metricName, delta);
+    }
+  }
+
+  @Override
+  public void pipelineGauge(String metricName, long value) {
+    delegate.pipelineGauge(metricName, value);
+  }
+
+  private void add(Map<String, Integer> counts, String metricName, int delta) {
+    Integer count = counts.get(metricName);
+    counts.put(metricName, count == null ? delta : count + delta);
+  }
+}
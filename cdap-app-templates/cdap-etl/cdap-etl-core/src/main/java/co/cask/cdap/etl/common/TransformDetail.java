@@ -32,11 +32,13 @@ public class TransformDetail implements Emitter<Object> {
   private final Transformation transformation;
   private final List<String> nextStages;
   private final DefaultEmitter defaultEmitter;
+  private final BufferedStageMetrics metrics;
 
   public TransformDetail(Transformation transformation, StageMetrics metrics, List<String> nextStages) {
-    this.transformation = new TrackedTransform<>(transformation, metrics);
+    this.metrics = new BufferedStageMetrics(metrics);
+    this.transformation = new TrackedTransform<>(transformation, this.metrics);
     this.nextStages = nextStages;
-    this.defaultEmitter = new DefaultEmitter<>(metrics);
+    this.defaultEmitter = new DefaultEmitter<>(this.metrics);
   }
 
   @Override
@@ -61,6 +63,21 @@ public class TransformDetail implements Emitter<Object> {
     defaultEmitter.reset();
   }
 
+  /**
+   * Holds back the metrics of this stage until {@link #flushMetrics()} or {@link #discardMetrics()} is called.
+   */
+  void bufferMetrics() {
+    metrics.startBuffering();
+  }
+
+  void flushMetrics() {
+    metrics.flush();
+  }
+
+  void discardMetrics() {
+    metrics.discard();
+  }
+
   public void destroy() {
     if (transformation instanceof Destroyable) {
       Destroyables.destroyQuietly((Destroyable) transformation);
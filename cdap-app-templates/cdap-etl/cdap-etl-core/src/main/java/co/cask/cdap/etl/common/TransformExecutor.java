@@ -29,7 +29,8 @@ import java.util.Map;
 
 /**
  * Executes Transforms one iteration at a time, tracking how many records were input into and output from
- * each transform.
+ * each transform. Records can also be executed in batches through {@link #runBatch(Collection)}, in which case
+ * each stage transforms the whole batch before its output is passed on to the next stages.
  *
  * @param <IN> the type of input object to the first transform
  *
@@ -38,29 +39,68 @@ public class TransformExecutor<IN> implements Destroyable {
 
   private final List<String> startingPoints;
   private final Map<String, TransformDetail> transformDetailMap;
+  private final List<String> terminalStages;
 
   public TransformExecutor(Map<String, TransformDetail> transformDetailMap, List<String> startingPoints) {
     this.transformDetailMap = transformDetailMap;
     this.startingPoints = startingPoints;
+
+    ImmutableList.Builder<String> terminalStages = ImmutableList.builder();
+    for (Map.Entry<String, TransformDetail> transformDetailEntry : transformDetailMap.entrySet()) {
+      if (transformDetailEntry.getValue().getNextStages().isEmpty()) {
+        terminalStages.add(transformDetailEntry.getKey());
+      }
+    }
+    this.terminalStages = terminalStages.build();
   }
 
   public TransformResponse runOneIteration(IN input) throws Exception {
+    return execute(ImmutableList.of(input));
+  }
+
+  /**
+   * Executes the transforms on a batch of input records. Each stage transforms all records of the batch before
+   * passing its output to the next stages. Outputs of the terminal stages and errors accumulate across calls
+   * until {@link #resetEmitter()} is called. Stage metrics are only emitted if the whole batch succeeds, so that
+   * the records of a failed batch can be processed again without being counted twice.
+   *
+   * @param inputs the input records. It is only read during this call.
+   * @return a {@link TransformResponse} containing the outputs of the terminal stages and the errors of all stages
+   */
+  public TransformResponse runBatch(Collection<? extends IN> inputs) throws Exception {
+    for (TransformDetail transformDetail : transformDetailMap.values()) {
+      transformDetail.bufferMetrics();
+    }
+    TransformResponse response;
+    try {
+      response = execute(inputs);
+    } catch (Exception e) {
+      for (TransformDetail transformDetail : transformDetailMap.values()) {
+        transformDetail.discardMetrics();
+      }
+      throw e;
+    }
+    for (TransformDetail transformDetail : transformDetailMap.values()) {
+      transformDetail.flushMetrics();
+    }
+    return response;
+  }
+
+  private TransformResponse execute(Collection<? extends IN> inputs) throws Exception {
     for (String stageName : startingPoints) {
-      executeTransformation(stageName, ImmutableList.of(input));
+      executeTransformation(stageName, inputs);
     }
 
     Map<String, Collection<Object>> terminalNodeEntriesMap = new HashMap<>();
     Map<String, Collection<InvalidEntry<Object>>> errors = new HashMap<>();
 
-    for (Map.Entry<String, TransformDetail> transformDetailEntry : transformDetailMap.entrySet()) {
-      if (transformDetailEntry.getValue().getNextStages().isEmpty()) {
-        // terminal node
-        Collection<Object> entries = transformDetailEntry.getValue().getEntries();
-        if (entries != null) {
-          terminalNodeEntriesMap.put(transformDetailEntry.getKey(), entries);
-        }
+    for (String stageName : terminalStages) {
+      Collection<Object> entries = transformDetailMap.get(stageName).getEntries();
+      if (entries != null) {
+        terminalNodeEntriesMap.put(stageName, entries);
       }
-
+    }
+    for (Map.Entry<String, TransformDetail> transformDetailEntry : transformDetailMap.entrySet()) {
       if (!transformDetailEntry.getValue().getErrors().isEmpty()) {
         errors.put(transformDetailEntry.getKey(), transformDetailEntry.getValue().getErrors());
       }
@@ -68,7 +108,7 @@ public class TransformExecutor<IN> implements Destroyable {
     return new TransformResponse(terminalNodeEntriesMap, errors);
   }
 
-  private <T> void executeTransformation(final String stageName, Collection<T> input) throws Exception {
+  private <T> void executeTransformation(final String stageName, Collection<? extends T> input) throws Exception {
     TransformDetail transformDetail = transformDetailMap.get(stageName);
     Transformation<T, Object> transformation = transformDetail.getTransformation();
 
@@ -129,6 +129,93 @@ public class TransformExecutorTest {
     mockMetrics.clearMetrics();
   }
 
+  @Test
+  public void testRunBatch() throws Exception {
+    MockMetrics mockMetrics = new MockMetrics();
+    Map<String, TransformDetail> transformationMap = new HashMap<>();
+
+    transformationMap.put("transform1",
+                          new TransformDetail(new IntToDouble(), new DefaultStageMetrics(mockMetrics, "transform1"),
+                                              ImmutableList.of("transform2", "sink1")));
+
+    transformationMap.put("transform2", new TransformDetail(new Filter(100d, Threshold.LOWER),
+                                                            new DefaultStageMetrics(mockMetrics, "transform2"),
+                                                            ImmutableList.of("sink2")));
+
+    transformationMap.put("sink1", new TransformDetail(new DoubleToString(),
+                                                       new DefaultStageMetrics(mockMetrics, "sink1"),
+                                                       ImmutableList.<String>of()));
+
+    transformationMap.put("sink2", new TransformDetail(new DoubleToString(),
+                                                       new DefaultStageMetrics(mockMetrics, "sink2"),
+                                                       ImmutableList.<String>of()));
+
+    TransformExecutor<Integer> executor = new TransformExecutor<>(transformationMap, ImmutableList.of("transform1"));
+
+    // Running a batch should give the same result as running each of the records in one iteration
+    TransformResponse transformResponse = executor.runBatch(ImmutableList.of(1, 10, 100, 2000));
+
+    assertResults(transformResponse.getSinksResults(), ImmutableMap.of("sink1", 12, "sink2", 6));
+    assertResults(transformResponse.getMapTransformIdToErrorEmitter(), ImmutableMap.of("transform2", 6));
+
+    Assert.assertEquals(4, mockMetrics.getCount("transform1.records.in"));
+    Assert.assertEquals(12, mockMetrics.getCount("transform1.records.out"));
+    Assert.assertEquals(12, mockMetrics.getCount("transform2.records.in"));
+    Assert.assertEquals(6, mockMetrics.getCount("transform2.records.out"));
+    Assert.assertEquals(12, mockMetrics.getCount("sink1.records.out"));
+    Assert.assertEquals(6, mockMetrics.getCount("sink2.records.out"));
+    executor.resetEmitter();
+    mockMetrics.clearMetrics();
+
+    // An empty batch produces empty results for the sinks and no errors
+    transformResponse = executor.runBatch(ImmutableList.<Integer>of());
+    assertResults(transformResponse.getSinksResults(), ImmutableMap.of("sink1", 0, "sink2", 0));
+    assertResults(transformResponse.getMapTransformIdToErrorEmitter(), new HashMap<String, Integer>());
+    executor.resetEmitter();
+  }
+
+  @Test
+  public void testRunBatchFailure() throws Exception {
+    MockMetrics mockMetrics = new MockMetrics();
+    Map<String, TransformDetail> transformationMap = new HashMap<>();
+
+    transformationMap.put("transform1",
+                          new TransformDetail(new IntToDouble(), new DefaultStageMetrics(mockMetrics, "transform1"),
+                                              ImmutableList.of("sink1")));
+
+    transformationMap.put("sink1", new TransformDetail(new FailingDoubleToString(1000d),
+                                                       new DefaultStageMetrics(mockMetrics, "sink1"),
+                                                       ImmutableList.<String>of()));
+
+    TransformExecutor<Integer> executor = new TransformExecutor<>(transformationMap, ImmutableList.of("transform1"));
+
+    // A failed batch does not emit any metrics
+    try {
+      executor.runBatch(ImmutableList.of(1, 10, 2));
+      Assert.fail("Expected the batch to fail");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    Assert.assertEquals(0, mockMetrics.getCount("transform1.records.in"));
+    Assert.assertEquals(0, mockMetrics.getCount("transform1.records.out"));
+    Assert.assertEquals(0, mockMetrics.getCount("sink1.records.out"));
+    executor.resetEmitter();
+
+    // Processing the records one by one afterwards counts each of them only once
+    for (int input : ImmutableList.of(1, 10, 2)) {
+      try {
+        executor.runOneIteration(input);
+      } catch (IllegalArgumentException e) {
+        // expected for the record that produces 1000
+      }
+    }
+    Assert.assertEquals(3, mockMetrics.getCount("transform1.records.in"));
+    Assert.assertEquals(9, mockMetrics.getCount("transform1.records.out"));
+    Assert.assertEquals(9, mockMetrics.getCount("sink1.records.in"));
+    Assert.assertEquals(8, mockMetrics.getCount("sink1.records.out"));
+    executor.resetEmitter();
+  }
+
   @Test
   public void testTransformsWithMerge() throws Exception {
     MockMetrics mockMetrics = new MockMetrics();
@@ -299,4 +386,20 @@ public class TransformExecutorTest {
       emitter.emit(String.valueOf(input));
     }
   }
+
+  private static class FailingDoubleToString extends Transform<Double, String> {
+    private final Double failValue;
+
+    public FailingDoubleToString(Double failValue) {
+      this.failValue = failValue;
+    }
+
+    @Override
+    public void transform(Double input, Emitter<String> emitter) throws Exception {
+      if (failValue.equals(input)) {
+        throw new IllegalArgumentException("Failed to transform " + input);
+      }
+      emitter.emit(String.valueOf(input));
+    }
+  }
 }
@@ -27,5 +27,20 @@ public class ScriptConstants {
     HELPER_NAME + ".mapToJSObject = function(map) { " +
     "var result = {}; var it = map.entrySet().iterator(); " +
     "while (it.hasNext()) { var entry = it.next(); result[entry.getKey()] = entry.getValue(); } " +
-    "return result; }";
+    "return result; };" +
+    // Recursively converts Java Map, List, String, Number and Boolean into native JavaScript values
+    HELPER_NAME + ".toJSObject = function(value) { " +
+    "if (value instanceof java.util.Map) { " +
+    "var result = {}; var it = value.entrySet().iterator(); " +
+    "while (it.hasNext()) { var entry = it.next(); " +
+    "result[entry.getKey()] = " + HELPER_NAME + ".toJSObject(entry.getValue()); } " +
+    "return result; } " +
+    "if (value instanceof java.util.List) { " +
+    "var arr = []; var size = value.size(); " +
+    "for (var i = 0; i < size; i++) { arr.push(" + HELPER_NAME + ".toJSObject(value.get(i))); } " +
+    "return arr; } " +
+    "if (value instanceof java.lang.String) { return String(value); } " +
+    "if (value instanceof java.lang.Number) { return Number(value); } " +
+    "if (value instanceof java.lang.Boolean) { return String(value) === 'true'; } " +
+    "return value; }";
 }
@@ -32,4 +32,13 @@ public interface JavaTypeConverters {
    * @return the JavaScript object
    */
   Object mapToJSObject(Map<?, ?> map);
+
+  /**
+   * Recursively converts Java {@link Map}, {@link java.util.List}, {@link String}, {@link Number} and
+   * {@link Boolean} into native JavaScript objects and values.
+   *
+   * @param value the Java object
+   * @return the JavaScript object or value
+   */
+  Object toJSObject(Object value);
 }
@@ -29,11 +29,9 @@ import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
-import co.cask.cdap.etl.common.StructuredRecordSerializer;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,9 +61,7 @@ public class ScriptFilterTransform extends Transform<StructuredRecord, Structure
       "return input.count > 100;\n" +
     "}\n' " +
     "will filter out any records whose 'count' field is greater than 100.";
-  private static final Gson GSON = new GsonBuilder()
-    .registerTypeAdapter(StructuredRecord.class, new StructuredRecordSerializer())
-    .create();
+  private static final Gson GSON = new Gson();
   private static final String FUNCTION_NAME = "dont_name_your_function_this";
   private static final String VARIABLE_NAME = "dont_name_your_variable_this";
   private static final String CONTEXT_NAME = "dont_name_your_context_this";
@@ -102,8 +98,7 @@ public class ScriptFilterTransform extends Transform<StructuredRecord, Structure
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
     try {
-      engine.eval(String.format("var %s = %s;", VARIABLE_NAME, GSON.toJson(input)));
-      Boolean shouldFilter = (Boolean) invocable.invokeFunction(FUNCTION_NAME);
+      Boolean shouldFilter = (Boolean) invocable.invokeFunction(FUNCTION_NAME, ScriptRecordConverter.convert(input));
       if (!shouldFilter) {
         emitter.emit(input);
       } else {
@@ -138,13 +133,10 @@ public class ScriptFilterTransform extends Transform<StructuredRecord, Structure
     engine.put(CONTEXT_NAME, new ScriptContext(
       logger, metrics, lookupProvider, lookupConfig, js));
 
-    // this is pretty ugly, but doing this so that we can pass the 'input' json into the shouldFilter function.
-    // that is, we want people to implement
-    // function shouldFilter(input) { ... }
-    // rather than function shouldFilter() { ... } and have them access a global variable in the function
     try {
-      String script = String.format("function %s() { return shouldFilter(%s, %s); }\n%s",
-        FUNCTION_NAME, VARIABLE_NAME, CONTEXT_NAME, scriptFilterConfig.script);
+      String script = ScriptRecordConverter.createWrapperFunction(FUNCTION_NAME, "shouldFilter",
+                                                                  VARIABLE_NAME, CONTEXT_NAME)
+        + scriptFilterConfig.script;
       engine.eval(script);
     } catch (ScriptException e) {
       throw new IllegalArgumentException("Invalid script: " + e.getMessage(), e);
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.transform;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.etl.ScriptConstants;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Converts a {@link StructuredRecord} into a tree of Java {@link Map}, {@link List}, {@link String}, {@link Boolean}
+ * and {@link Number} that can be turned into a JavaScript object by the {@code toJSObject} function defined in
+ * {@link ScriptConstants#HELPER_DEFINITION}. The values are the same as serializing the record to JSON with
+ * {@link co.cask.cdap.etl.common.StructuredRecordSerializer} and parsing it in JavaScript, without the cost of
+ * generating and parsing the JSON string for every record.
+ */
+final class ScriptRecordConverter {
+
+  /**
+   * Returns the script of a wrapper function that calls a user function with a record converted by this class.
+   * The wrapper function is compiled once and called for every record without evaluating any script.
+   * It turns the record into a native JavaScript object and calls the user function with it and the context.
+   *
+   * @param functionName name of the wrapper function
+   * @param userFunctionName name of the user function to call
+   * @param variableName name of the wrapper function parameter for the converted record
+   * @param contextName name of the variable of the context passed to the user function
+   */
+  static String createWrapperFunction(String functionName, String userFunctionName,
+                                      String variableName, String contextName) {
+    return String.format("function %s(%s) { return %s(%s.toJSObject(%s), %s); }\n",
+                         functionName, variableName, userFunctionName, ScriptConstants.HELPER_NAME,
+                         variableName, contextName);
+  }
+
+  /**
+   * Converts the given record.
+   */
+  static Map<String, Object> convert(StructuredRecord record) {
+    Map<String, Object> result = Maps.newLinkedHashMap();
+    for (Schema.Field field : record.getSchema().getFields()) {
+      result.put(field.getName(), convertValue(record.get(field.getName())));
+    }
+    return result;
+  }
+
+  @Nullable
+  private static Object convertValue(@Nullable Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof Integer || value instanceof Double) {
+      return value;
+    }
+    if (value instanceof Short || value instanceof Byte) {
+      return ((Number) value).intValue();
+    }
+    if (value instanceof Float) {
+      // Same as the float value written as JSON and parsed as a JavaScript number
+      return Double.parseDouble(value.toString());
+    }
+    if (value instanceof Number) {
+      // JavaScript numbers are always double
+      return ((Number) value).doubleValue();
+    }
+    if (value instanceof StructuredRecord) {
+      return convert((StructuredRecord) value);
+    }
+    if (value instanceof Map) {
+      Map<String, Object> result = Maps.newLinkedHashMap();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        result.put(String.valueOf(entry.getKey()), convertValue(entry.getValue()));
+      }
+      return result;
+    }
+    if (value instanceof Collection) {
+      List<Object> result = Lists.newArrayListWithCapacity(((Collection<?>) value).size());
+      for (Object element : (Collection<?>) value) {
+        result.add(convertValue(element));
+      }
+      return result;
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      List<Object> result = Lists.newArrayListWithCapacity(buffer.remaining());
+      while (buffer.hasRemaining()) {
+        result.add((int) buffer.get());
+      }
+      return result;
+    }
+    if (value.getClass().isArray()) {
+      int length = Array.getLength(value);
+      List<Object> result = Lists.newArrayListWithCapacity(length);
+      for (int i = 0; i < length; i++) {
+        result.add(convertValue(Array.get(value, i)));
+      }
+      return result;
+    }
+    if (value instanceof Enum) {
+      return ((Enum<?>) value).name();
+    }
+    return value.toString();
+  }
+
+  private ScriptRecordConverter() {
+    // no-op
+  }
+}
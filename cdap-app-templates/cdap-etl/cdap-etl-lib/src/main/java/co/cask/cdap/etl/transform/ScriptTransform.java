@@ -30,11 +30,9 @@ import co.cask.cdap.etl.api.PipelineConfigurer;
 import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
-import co.cask.cdap.etl.common.StructuredRecordSerializer;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,9 +55,7 @@ import javax.script.ScriptException;
 @Name("Script")
 @Description("Executes user-provided Javascript that transforms one record into another.")
 public class ScriptTransform extends Transform<StructuredRecord, StructuredRecord> {
-  private static final Gson GSON = new GsonBuilder()
-    .registerTypeAdapter(StructuredRecord.class, new StructuredRecordSerializer())
-    .create();
+  private static final Gson GSON = new Gson();
   private static final String FUNCTION_NAME = "dont_name_your_function_this";
   private static final String VARIABLE_NAME = "dont_name_your_variable_this";
   private static final String CONTEXT_NAME = "dont_name_your_context_this";
@@ -146,8 +142,7 @@ public class ScriptTransform extends Transform<StructuredRecord, StructuredRecor
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
     try {
-      engine.eval(String.format("var %s = %s;", VARIABLE_NAME, GSON.toJson(input)));
-      Map scriptOutput = (Map) invocable.invokeFunction(FUNCTION_NAME);
+      Map scriptOutput = (Map) invocable.invokeFunction(FUNCTION_NAME, ScriptRecordConverter.convert(input));
       StructuredRecord output = decodeRecord(scriptOutput, schema == null ? input.getSchema() : schema);
       emitter.emit(output);
     } catch (Exception e) {
@@ -294,13 +289,8 @@ public class ScriptTransform extends Transform<StructuredRecord, StructuredRecor
       logger, metrics, lookup, lookupConfig, js));
 
     try {
-      // this is pretty ugly, but doing this so that we can pass the 'input' json into the transform function.
-      // that is, we want people to implement
-      // function transform(input) { ... }
-      // rather than function transform() { ... } and have them access a global variable in the function
-
-      String script = String.format("function %s() { return transform(%s, %s); }\n%s",
-        FUNCTION_NAME, VARIABLE_NAME, CONTEXT_NAME, config.script);
+      String script = ScriptRecordConverter.createWrapperFunction(FUNCTION_NAME, "transform",
+                                                                  VARIABLE_NAME, CONTEXT_NAME) + config.script;
       engine.eval(script);
     } catch (ScriptException e) {
       throw new IllegalArgumentException("Invalid script: " + e.getMessage(), e);
@@ -32,12 +32,10 @@ import co.cask.cdap.etl.api.StageMetrics;
 import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.api.TransformContext;
 import co.cask.cdap.etl.api.Validator;
-import co.cask.cdap.etl.common.StructuredRecordSerializer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -92,9 +90,7 @@ public class ValidatorTransform extends Transform<StructuredRecord, StructuredRe
     "   };" +
     "The isValid function in this Javascript example uses CoreValidator functions.";
 
-  private static final Gson GSON = new GsonBuilder()
-    .registerTypeAdapter(StructuredRecord.class, new StructuredRecordSerializer())
-    .create();
+  private static final Gson GSON = new Gson();
   private static final Logger LOG = LoggerFactory.getLogger(ValidatorTransform.class);
   private static final String VARIABLE_NAME = "dont_name_your_variable_this";
   private static final String FUNCTION_NAME = "dont_name_your_function_this";
@@ -151,8 +147,7 @@ public class ValidatorTransform extends Transform<StructuredRecord, StructuredRe
   @Override
   public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) throws Exception {
     try {
-      engine.eval(String.format("var %s = %s;", VARIABLE_NAME, GSON.toJson(input)));
-      Map result = (Map) invocable.invokeFunction(FUNCTION_NAME);
+      Map result = (Map) invocable.invokeFunction(FUNCTION_NAME, ScriptRecordConverter.convert(input));
 
       Preconditions.checkState(result.containsKey("isValid"),
                                "Result map returned by isValid function did not contain an entry for 'isValid'");
@@ -225,13 +220,8 @@ public class ValidatorTransform extends Transform<StructuredRecord, StructuredRe
     engine.put(CONTEXT_NAME, new ValidatorScriptContext(
       logger, metrics, lookup, lookupConfig, js, validatorMap));
 
-    // this is pretty ugly, but doing this so that we can pass the 'input' json into the isValid function.
-    // that is, we want people to implement
-    // function isValid(input) { ... }
-    // rather than function isValid() { ... } with the input record assigned to the global variable
-    // and have them access the global variable in the function
-    String script = String.format("function %s() { return isValid(%s, %s); }\n%s",
-      FUNCTION_NAME, VARIABLE_NAME, CONTEXT_NAME, config.validationScript);
+    String script = ScriptRecordConverter.createWrapperFunction(FUNCTION_NAME, "isValid",
+                                                                VARIABLE_NAME, CONTEXT_NAME) + config.validationScript;
     engine.eval(script);
     invocable = (Invocable) engine;
   }
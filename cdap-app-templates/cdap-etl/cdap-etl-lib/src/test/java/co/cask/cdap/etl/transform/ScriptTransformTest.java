@@ -26,6 +26,7 @@ import co.cask.cdap.etl.api.Transform;
 import co.cask.cdap.etl.common.MockEmitter;
 import co.cask.cdap.etl.common.MockLookupProvider;
 import co.cask.cdap.etl.common.MockMetrics;
+import co.cask.cdap.test.SlowTests;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -33,17 +34,22 @@ import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import org.junit.Assert;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test case for {@link ScriptTransform}.
  */
 public class ScriptTransformTest {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ScriptTransformTest.class);
   private static final Gson GSON = new Gson();
   private static final Lookup<String> TEST_LOOKUP = new Lookup<String>() {
     @Override
@@ -293,4 +299,62 @@ public class ScriptTransformTest {
     Assert.assertEquals(1, mockMetrics.getCount("script.transform.count"));
     Assert.assertEquals(1, mockMetrics.getCount("transform.1.script.transform.count"));
   }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testThroughput() throws Exception {
+    // A record with 20 fields of common types
+    List<Schema.Field> fields = Lists.newArrayList();
+    for (int i = 0; i < 5; i++) {
+      fields.add(Schema.Field.of("int" + i, Schema.of(Schema.Type.INT)));
+      fields.add(Schema.Field.of("long" + i, Schema.of(Schema.Type.LONG)));
+      fields.add(Schema.Field.of("double" + i, Schema.of(Schema.Type.DOUBLE)));
+      fields.add(Schema.Field.of("string" + i, Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    }
+    Schema schema = Schema.recordOf("wide", fields);
+
+    ScriptTransform.Config config = new ScriptTransform.Config(
+      "function transform(input, context) {\n" +
+      "  input.int0 = input.int0 * 2;\n" +
+      "  input.long1 = input.long1 + input.int1;\n" +
+      "  input.double2 = input.double2 / 2;\n" +
+      "  input.string3 = input.string3 ? input.string3.toUpperCase() : null;\n" +
+      "  return input;\n" +
+      "}", null, null);
+    Transform<StructuredRecord, StructuredRecord> transform = new ScriptTransform(config);
+    transform.initialize(new MockTransformContext());
+
+    int numRecords = 20000;
+    List<StructuredRecord> records = Lists.newArrayListWithCapacity(numRecords);
+    for (int i = 0; i < numRecords; i++) {
+      StructuredRecord.Builder builder = StructuredRecord.builder(schema);
+      for (int j = 0; j < 5; j++) {
+        builder.set("int" + j, i + j)
+          .set("long" + j, (long) i * j)
+          .set("double" + j, i + j / 10d)
+          .set("string" + j, "value" + i + "_" + j);
+      }
+      records.add(builder.build());
+    }
+
+    MockEmitter<StructuredRecord> emitter = new MockEmitter<>();
+    long startTime = System.nanoTime();
+    for (StructuredRecord record : records) {
+      transform.transform(record, emitter);
+    }
+    long elapsed = System.nanoTime() - startTime;
+    LOG.info("Transformed {} records of {} fields in {} ms", numRecords, fields.size(),
+             TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+    List<StructuredRecord> emitted = emitter.getEmitted();
+    Assert.assertEquals(numRecords, emitted.size());
+    for (int i = 0; i < numRecords; i++) {
+      StructuredRecord output = emitted.get(i);
+      Assert.assertEquals(i * 2, output.get("int0"));
+      Assert.assertEquals((long) i + i + 1, output.get("long1"));
+      Assert.assertEquals((i + 0.2d) / 2, (Double) output.get("double2"), 0.000001);
+      Assert.assertEquals("VALUE" + i + "_3", output.get("string3"));
+      Assert.assertEquals("value" + i + "_4", output.get("string4"));
+    }
+  }
 }
@@ -65,7 +65,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -301,47 +300,28 @@ public class ETLWorker extends AbstractWorker {
         continue;
       }
 
-      // For each object emitted by the source, invoke the transformExecutor and collect all the data
+      // Run all objects emitted by the source through the transformExecutor as one batch and collect all the data
       // to be persisted in the sink.
-      for (Object sourceData : sourceEmitter.getEntries()) {
+      Collection<Object> sourceEntries = sourceEmitter.getEntries();
+      if (!sourceEntries.isEmpty()) {
         try {
-          TransformResponse transformResponse = transformExecutor.runOneIteration(sourceData);
-
-          for (Map.Entry<String, Collection<Object>> transformedValues :
-            transformResponse.getSinksResults().entrySet()) {
-            dataToSink.put(transformedValues.getKey(), new ArrayList<>());
-            Iterator emitterIterator = transformedValues.getValue().iterator();
-            while (emitterIterator.hasNext()) {
-              if (!hasData) {
-                hasData = true;
-              }
-              dataToSink.get(transformedValues.getKey()).add(emitterIterator.next());
-            }
-          }
-
-          for (Map.Entry<String, Collection<InvalidEntry<Object>>> transformErrorsEntry :
-            transformResponse.getMapTransformIdToErrorEmitter().entrySet()) {
-
-            if (!transformErrorsWithoutDataset.contains(transformErrorsEntry.getKey())) {
-
-              if (!tranformIdToDatasetName.containsKey(transformErrorsEntry.getKey())
-                && !transformErrorsEntry.getValue().isEmpty()) {
-                transformErrorsWithoutDataset.add(transformErrorsEntry.getKey());
-                LOG.warn("Error records were emitted in transform {}, " +
-                           "but error dataset is not configured for this transform", transformErrorsEntry.getKey());
-              }
-              if (tranformIdToDatasetName.containsKey(transformErrorsEntry.getKey())
-                && !transformErrorsEntry.getValue().isEmpty()) {
-                // add the errors
-                if (!hasData && transformErrorsEntry.getValue().size() > 0) {
-                  hasData = true;
-                }
-                transformIdToErrorRecords.get(transformErrorsEntry.getKey()).addAll(transformErrorsEntry.getValue());
-              }
+          TransformResponse transformResponse = transformExecutor.runBatch(sourceEntries);
+          hasData = collectResponse(transformResponse, dataToSink, transformIdToErrorRecords,
+                                    transformErrorsWithoutDataset);
+        } catch (Exception e) {
+          // Process the objects one by one, so that only the ones that fail are skipped.
+          LOG.warn("Exception thrown while processing a batch of {} records. Processing them one by one.",
+                   sourceEntries.size(), e);
+          transformExecutor.resetEmitter();
+          for (Object sourceData : sourceEntries) {
+            try {
+              TransformResponse transformResponse = transformExecutor.runOneIteration(sourceData);
+              hasData = collectResponse(transformResponse, dataToSink, transformIdToErrorRecords,
+                                        transformErrorsWithoutDataset);
+            } catch (Exception ex) {
+              LOG.warn("Exception thrown while processing data {}", sourceData, ex);
             }
           }
-        } catch (Exception e) {
-          LOG.warn("Exception thrown while processing data {}", sourceData, e);
         }
       }
       sourceEmitter.reset();
@@ -405,6 +385,45 @@ public class ETLWorker extends AbstractWorker {
     }
   }
 
+  /**
+   * Collects the sink data and error records from the given {@link TransformResponse}. Since the response contains
+   * everything emitted since the emitters were last reset, the collected data replaces what was collected before.
+   *
+   * @return {@code true} if there is any data to persist
+   */
+  private boolean collectResponse(TransformResponse transformResponse, Map<String, List<Object>> dataToSink,
+                                  Map<String, List<InvalidEntry>> transformIdToErrorRecords,
+                                  Set<String> transformErrorsWithoutDataset) {
+    boolean hasData = false;
+    for (Map.Entry<String, Collection<Object>> transformedValues : transformResponse.getSinksResults().entrySet()) {
+      dataToSink.put(transformedValues.getKey(), new ArrayList<>(transformedValues.getValue()));
+      hasData = hasData || !transformedValues.getValue().isEmpty();
+    }
+
+    for (Map.Entry<String, Collection<InvalidEntry<Object>>> transformErrorsEntry :
+      transformResponse.getMapTransformIdToErrorEmitter().entrySet()) {
+
+      if (!transformErrorsWithoutDataset.contains(transformErrorsEntry.getKey())) {
+
+        if (!tranformIdToDatasetName.containsKey(transformErrorsEntry.getKey())
+          && !transformErrorsEntry.getValue().isEmpty()) {
+          transformErrorsWithoutDataset.add(transformErrorsEntry.getKey());
+          LOG.warn("Error records were emitted in transform {}, " +
+                     "but error dataset is not configured for this transform", transformErrorsEntry.getKey());
+        }
+        if (tranformIdToDatasetName.containsKey(transformErrorsEntry.getKey())
+          && !transformErrorsEntry.getValue().isEmpty()) {
+          // add the errors
+          hasData = true;
+          List<InvalidEntry> errorRecords = transformIdToErrorRecords.get(transformErrorsEntry.getKey());
+          errorRecords.clear();
+          errorRecords.addAll(transformErrorsEntry.getValue());
+        }
+      }
+    }
+    return hasData;
+  }
+
   private Map<String, List<InvalidEntry>> intializeTransformIdToErrorsList() {
     Map<String, List<InvalidEntry>> transformIdToErrorListMap = new HashMap<>();
     for (String transformId : tranformIdToDatasetName.keySet()) {
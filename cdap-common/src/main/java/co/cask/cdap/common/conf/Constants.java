@@ -95,8 +95,14 @@ public final class Constants {
     public static final String MAPREDUCE_JOB_CLIENT_CONNECT_MAX_RETRIES = "mapreduce.jobclient.connect.max.retries";
     public static final String MAPREDUCE_INCLUDE_CUSTOM_CLASSES = "mapreduce.include.custom.format.classes";
     public static final String PROGRAM_RUNID_CORRECTOR_INTERVAL_SECONDS = "app.program.runid.corrector.interval";
+    public static final String PROGRAM_RUNTIME_SYNC_INTERVAL_SECONDS = "app.program.runtime.sync.interval";
     public static final String SYSTEM_ARTIFACTS_DIR = "app.artifact.dir";
+    public static final String ARTIFACT_UNPACK_CACHE_SIZE_MB = "app.artifact.unpack.cache.size.mb";
     public static final String PROGRAM_EXTRA_CLASSPATH = "app.program.extra.classpath";
+    public static final String SERVICE_READ_ONLY_TX_MAX_AGE_MS = "app.program.service.readonly.tx.max.age.ms";
+    public static final String JOB_JAR_CACHE_ENABLED = "app.program.jar.cache.enabled";
+    public static final String JOB_JAR_CACHE_DIR = "app.program.jar.cache.dir";
+    public static final String JOB_JAR_CACHE_MAX_AGE_SECONDS = "app.program.jar.cache.max.age.seconds";
 
     /**
      * Guice named bindings.
@@ -209,6 +215,10 @@ public final class Constants {
     // tables. Constant could be moved to Table after that is changed. See CDAP-1193 for more info
     public static final String TABLE_TX_DISABLED = "dataset.table.tx.disabled";
 
+    // Table dataset property that defines the type of in-memory buffer for writes of a transaction.
+    // Value must be one of the TableWriteBuffer.Type names. Defaults to the sorted map buffer if not set.
+    public static final String TABLE_WRITE_BUFFER = "dataset.table.write.buffer";
+
     public static final String DATA_DIR = "dataset.data.dir";
     public static final String DEFAULT_DATA_DIR = "data";
 
@@ -305,9 +315,11 @@ public final class Constants {
     public static final String FILE_PREFIX = "stream.file.prefix";
     public static final String INSTANCE_FILE_PREFIX = "stream.instance.file.prefix";
     public static final String CONSUMER_TABLE_PRESPLITS = "stream.consumer.table.presplits";
+    public static final String CONSUMER_PARTITIONED_READ = "stream.consumer.partitioned.read";
     public static final String FILE_CLEANUP_PERIOD = "stream.file.cleanup.period";
     public static final String BATCH_BUFFER_THRESHOLD = "stream.batch.buffer.threshold";
     public static final String NOTIFICATION_THRESHOLD = "stream.notification.threshold";
+    public static final String COMPRESSION = "stream.compression";
 
     // Stream http service configurations.
     public static final String STREAM_HANDLER = "stream.handler";
@@ -315,6 +327,8 @@ public final class Constants {
     public static final String WORKER_THREADS = "stream.worker.threads";
     public static final String ASYNC_WORKER_THREADS = "stream.async.worker.threads";
     public static final String ASYNC_QUEUE_SIZE = "stream.async.queue.size";
+    public static final String WRITER_GROUP_COMMIT_WINDOW_MICROS = "stream.writer.group.commit.window.micros";
+    public static final String WRITER_MAX_QUEUED_BYTES = "stream.writer.max.queued.bytes";
 
     // YARN container configurations.
     public static final String CONTAINER_VIRTUAL_CORES = "stream.container.num.cores";
@@ -435,6 +449,9 @@ public final class Constants {
 
     public static final String SERVER_ADDRESS = "metrics.query.bind.address";
     public static final String SERVER_PORT = "metrics.query.bind.port";
+    public static final String QUERY_CACHE_SIZE_BYTES = "metrics.query.cache.size.bytes";
+    public static final String QUERY_CACHE_CLOSED_DELAY_SECONDS = "metrics.query.cache.closed.delay.seconds";
+    public static final String QUERY_CACHE_EXPIRE_SECONDS = "metrics.query.cache.expire.seconds";
 
     public static final String KAFKA_TOPIC_PREFIX = "metrics.kafka.topic.prefix";
     public static final String KAFKA_PARTITION_SIZE = "metrics.kafka.partition.size";
@@ -452,6 +469,9 @@ public final class Constants {
 
     public static final int DEFAULT_KAFKA_CONSUMER_PERSIST_THRESHOLD = 100;
     public static final int DEFAULT_KAFKA_PARTITION_SIZE = 1;
+    public static final long DEFAULT_QUERY_CACHE_SIZE_BYTES = 64 * 1024 * 1024;
+    public static final long DEFAULT_QUERY_CACHE_CLOSED_DELAY_SECONDS = 60;
+    public static final long DEFAULT_QUERY_CACHE_EXPIRE_SECONDS = 300;
 
     /**
      * Metric's dataset related constants.
@@ -541,6 +561,7 @@ public final class Constants {
         public static final String OP_COUNT = "dataset.store.ops";
         public static final String WRITE_COUNT = "dataset.store.writes";
         public static final String WRITE_BYTES = "dataset.store.bytes";
+        public static final String BUFFER_BYTES = "dataset.buffer.bytes";
       }
 
       /**
@@ -650,6 +671,8 @@ public final class Constants {
     public static final String TOKEN_EXPIRATION = "security.server.token.expiration.ms";
     /** Long lasting Access token expiration time in milliseconds. */
     public static final String EXTENDED_TOKEN_EXPIRATION = "security.server.extended.token.expiration.ms";
+    /** Maximum number of validated access tokens cached by the token validator. */
+    public static final String TOKEN_VALIDATION_CACHE_SIZE = "security.token.validation.cache.size";
     public static final String CFG_FILE_BASED_KEYFILE_PATH = "security.data.keyfile.path";
     /** Configuration for security realm. */
     public static final String CFG_REALM = "security.realm";
@@ -796,6 +819,7 @@ public final class Constants {
       public static final String STREAM_INTERNAL_FEED_CATEGORY = "streamInternal";
       public static final String STREAM_HEARTBEAT_FEED_NAME = "heartbeat";
       public static final String STREAM_SIZE_SCHEDULE_POLLING_DELAY = "stream.size.schedule.polling.delay";
+      public static final String STREAM_SIZE_SCHEDULE_MIN_POLLING_DELAY = "stream.size.schedule.min.polling.delay";
     }
   }
 
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package co.cask.cdap.internal.app.store;
+
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Codec;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.proto.ProgramRunStatus;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.Maps;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A binary {@link Codec} for {@link RunRecordMeta}, which is faster to decode than JSON.
+ *
+ * The format is:
+ * <pre>
+ *   int      format version
+ *   string   run id
+ *   long     start time
+ *   boolean  whether there is a stop time, followed by the stop time as long if there is one
+ *   string   name of the {@link ProgramRunStatus}
+ *   boolean  whether there is a twill run id, followed by the twill run id as string if there is one
+ *   bytes    encoded properties map
+ *   boolean  whether there are system arguments, followed by the encoded system arguments map as bytes
+ * </pre>
+ * A map is encoded as an int for the number of entries, followed by the key and value strings of each entry.
+ *
+ * The maps are only decoded when they are accessed, since run records are mostly filtered on the other fields.
+ */
+public final class RunRecordMetaCodec implements Codec<RunRecordMeta> {
+
+  private static final int VERSION = 1;
+
+  @Override
+  public byte[] encode(RunRecordMeta record) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(VERSION);
+    encoder.writeString(record.getPid());
+    encoder.writeLong(record.getStartTs());
+    writeNullableLong(encoder, record.getStopTs());
+    encoder.writeString(record.getStatus().name());
+    writeNullableString(encoder, record.getTwillRunId());
+    encoder.writeBytes(encodeMap(record.getProperties()));
+    Map<String, String> systemArgs = record.getSystemArgs();
+    encoder.writeBool(systemArgs != null);
+    if (systemArgs != null) {
+      encoder.writeBytes(encodeMap(systemArgs));
+    }
+    return os.toByteArray();
+  }
+
+  @Override
+  public RunRecordMeta decode(byte[] data) throws IOException {
+    Decoder decoder = new BinaryDecoder(new ByteArrayInputStream(data));
+    int version = decoder.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported run record format version " + version);
+    }
+    String pid = decoder.readString();
+    long startTs = decoder.readLong();
+    Long stopTs = decoder.readBool() ? decoder.readLong() : null;
+    ProgramRunStatus status = ProgramRunStatus.valueOf(decoder.readString());
+    String twillRunId = decoder.readBool() ? decoder.readString() : null;
+    Map<String, String> properties = new LazyDecodedMap(readBytes(decoder));
+    Map<String, String> systemArgs = decoder.readBool() ? new LazyDecodedMap(readBytes(decoder)) : null;
+    return new RunRecordMeta(pid, startTs, stopTs, status, properties, systemArgs, twillRunId);
+  }
+
+  private static void writeNullableLong(Encoder encoder, @Nullable Long value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeLong(value);
+    }
+  }
+
+  private static void writeNullableString(Encoder encoder, @Nullable String value) throws IOException {
+    encoder.writeBool(value != null);
+    if (value != null) {
+      encoder.writeString(value);
+    }
+  }
+
+  private static byte[] readBytes(Decoder decoder) throws IOException {
+    return decoder.readBytes().array();
+  }
+
+  private static byte[] encodeMap(Map<String, String> map) throws IOException {
+    // Maps that were never accessed since they were decoded are written back as is
+    if (map instanceof LazyDecodedMap) {
+      byte[] encoded = ((LazyDecodedMap) map).getEncoded();
+      if (encoded != null) {
+        return encoded;
+      }
+    }
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      encoder.writeString(entry.getKey());
+      encoder.writeString(entry.getValue());
+    }
+    return os.toByteArray();
+  }
+
+  private static Map<String, String> decodeMap(byte[] encoded) throws IOException {
+    Decoder decoder = new BinaryDecoder(new ByteArrayInputStream(encoded));
+    int size = decoder.readInt();
+    if (size < 0) {
+      throw new IOException("Invalid map size " + size);
+    }
+    Map<String, String> map = Maps.newHashMapWithExpectedSize(size);
+    for (int i = 0; i < size; i++) {
+      map.put(decoder.readString(), decoder.readString());
+    }
+    return map;
+  }
+
+  /**
+   * A {@link Map} that is decoded on first access.
+   */
+  private static final class LazyDecodedMap extends ForwardingMap<String, String> {
+
+    private byte[] encoded;
+    private Map<String, String> delegate;
+
+    LazyDecodedMap(byte[] encoded) {
+      this.encoded = encoded;
+    }
+
+    /**
+     * Returns the encoded map, or {@code null} if the map was already decoded and may have been modified.
+     */
+    @Nullable
+    synchronized byte[] getEncoded() {
+      return encoded;
+    }
+
+    @Override
+    protected synchronized Map<String, String> delegate() {
+      if (delegate == null) {
+        try {
+          delegate = decodeMap(encoded);
+          encoded = null;
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+      return delegate;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.io;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.lang.InstantiatorFactory;
+import co.cask.cdap.internal.asm.ByteCodeClassLoader;
+import co.cask.cdap.internal.asm.ClassDefinition;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+import com.google.common.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import javax.inject.Inject;
+
+/**
+ * A factory class for creating {@link DatumReader} instance for different data type and schema.
+ * It serves as an in memory cache for generated {@link DatumReader} {@link Class} using ASM.
+ * The {@link DatumReader} created decodes data written with the same schema using the generated class, and
+ * decodes data written with a different schema using {@link ReflectionDatumReader}, which does schema resolution.
+ * If a {@link DatumReader} class cannot be generated for a given type and schema, the {@link ReflectionDatumReader}
+ * will be used for all data.
+ */
+public final class ASMDatumReaderFactory implements DatumReaderFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ASMDatumReaderFactory.class);
+
+  private final LoadingCache<CacheKey, Optional<Class<DatumReader<?>>>> datumReaderClasses;
+  private final FieldAccessorFactory fieldAccessorFactory;
+  private final InstantiatorFactory instantiatorFactory;
+
+  @Inject
+  public ASMDatumReaderFactory(FieldAccessorFactory fieldAccessorFactory) {
+    this.fieldAccessorFactory = fieldAccessorFactory;
+    this.instantiatorFactory = new InstantiatorFactory(true);
+    this.datumReaderClasses = CacheBuilder.newBuilder().build(new ASMCacheLoader());
+  }
+
+  /**
+   * Creates a {@link DatumReader} that is able to decode given data type with the given {@link Schema}.
+   * The instance created is thread safe and reusable.
+   *
+   * @param type Type information of the data type to be decoded.
+   * @param schema Schema of the data type.
+   * @param <T> Type of the data type.
+   * @return A {@link DatumReader} instance.
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> DatumReader<T> create(TypeToken<T> type, Schema schema) {
+    Optional<Class<DatumReader<?>>> readerClass = datumReaderClasses.getUnchecked(new CacheKey(schema, type));
+    if (!readerClass.isPresent()) {
+      return new ReflectionDatumReader<>(schema, type);
+    }
+
+    try {
+      return (DatumReader<T>) readerClass.get()
+        .getConstructor(Schema.class, FieldAccessorFactory.class, InstantiatorFactory.class, DatumReader.class)
+        .newInstance(schema, fieldAccessorFactory, instantiatorFactory, new LazyReflectionDatumReader<>(schema, type));
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * A {@link DatumReader} that creates the {@link ReflectionDatumReader} on first use. It is the fallback of the
+   * generated {@link DatumReader}, which is only needed for data written with a different schema.
+   *
+   * @param <T> Type of the data type.
+   */
+  private static final class LazyReflectionDatumReader<T> implements DatumReader<T> {
+
+    private final Schema schema;
+    private final TypeToken<T> type;
+    private volatile DatumReader<T> delegate;
+
+    private LazyReflectionDatumReader(Schema schema, TypeToken<T> type) {
+      this.schema = schema;
+      this.type = type;
+    }
+
+    @Override
+    public T read(Decoder decoder, Schema sourceSchema) throws IOException {
+      DatumReader<T> reader = delegate;
+      if (reader == null) {
+        // Concurrent first reads may create more than one instance, which is harmless
+        reader = new ReflectionDatumReader<>(schema, type);
+        delegate = reader;
+      }
+      return reader.read(decoder, sourceSchema);
+    }
+  }
+
+  /**
+   * A private {@link CacheLoader} for generating different {@link DatumReader} {@link Class}.
+   */
+  private static final class ASMCacheLoader extends CacheLoader<CacheKey, Optional<Class<DatumReader<?>>>> {
+
+    private final Map<TypeToken<?>, ByteCodeClassLoader> classloaders = Maps.newIdentityHashMap();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Optional<Class<DatumReader<?>>> load(CacheKey key) throws Exception {
+      try {
+        ClassDefinition classDef = new DatumReaderGenerator().generate(key.getType(), key.getSchema());
+
+        ByteCodeClassLoader classloader = classloaders.get(key.getType());
+        if (classloader == null) {
+          // The ClassLoader of the generated DatumReader has CDAP system ClassLoader as parent.
+          // The ClassDefinition contains list of classes that should not be loaded by the generated class ClassLoader
+          classloader = new ByteCodeClassLoader(ASMDatumReaderFactory.class.getClassLoader());
+          classloaders.put(key.getType(), classloader);
+        }
+
+        return Optional.of((Class<DatumReader<?>>) classloader.addClass(classDef).loadClass(classDef.getClassName()));
+      } catch (Exception | LinkageError e) {
+        // Not all type and schema combinations supported by ReflectionDatumReader can be generated.
+        LOG.debug("Failed to generate DatumReader for type {} with schema {}. Using reflection based DatumReader.",
+                  key.getType(), key.getSchema(), e);
+        return Optional.absent();
+      }
+    }
+  }
+
+  private static final class CacheKey {
+    private final Schema schema;
+    private final TypeToken<?> type;
+
+    private CacheKey(Schema schema, TypeToken<?> type) {
+      this.schema = schema;
+      this.type = type;
+    }
+
+    public Schema getSchema() {
+      return schema;
+    }
+
+    public TypeToken<?> getType() {
+      return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      CacheKey cacheKey = (CacheKey) o;
+      return schema.equals(cacheKey.schema) && type.equals(cacheKey.type);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(schema, type);
+    }
+  }
+}
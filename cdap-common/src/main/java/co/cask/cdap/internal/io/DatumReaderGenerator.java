@@ -0,0 +1,1172 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.io;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.lang.Instantiator;
+import co.cask.cdap.common.lang.InstantiatorFactory;
+import co.cask.cdap.internal.asm.ClassDefinition;
+import co.cask.cdap.internal.asm.Methods;
+import co.cask.cdap.internal.asm.Signatures;
+import co.cask.cdap.internal.lang.Fields;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import com.google.common.primitives.Primitives;
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Class for generating {@link DatumReader} bytecodes using ASM. The class generated is specialized for decoding
+ * data written with the same schema as the one it is generated for. Data written with a different schema
+ * is decoded by a fallback {@link DatumReader}, which is expected to do schema resolution. The class generated
+ * will have a skeleton looks like the following:
+ * <pre>
+ * {@code
+ *
+ *  public final class generatedClassName implements DatumReader<InputType> {
+ *    private static final String SCHEMA_HASH = "schema_hash_as_hex_string";
+ *    private final Schema schema;
+ *    private final DatumReader fallback;
+ *
+ *    public generatedClassName(Schema schema, FieldAccessorFactory accessorFactory,
+ *                              InstantiatorFactory instantiatorFactory, DatumReader fallback) {
+ *      if (!SCHEMA_HASH.equals(schema.getSchemaHash().toString())) {
+ *        throw new IllegalArgumentException("Schema not match.");
+ *      }
+ *      this.schema = schema;
+ *      this.fallback = fallback;
+ *      // Initialize FieldAccessor, Instantiator and Class fields needed by the generated read methods
+ *    }
+ *
+ *    @Override
+ *    public Object read(Decoder decoder, Schema sourceSchema) throws IOException {
+ *      if (!schema.equals(sourceSchema)) {
+ *        return fallback.read(decoder, sourceSchema);
+ *      }
+ *      return generatedReadMethod(decoder, schema);
+ *    }
+ *
+ *    private Object generatedReadMethod(Decoder decoder, Schema schema) throws IOException {
+ *      // Do actual decoding by calling methods on decoder based on the type.
+ *    }
+ *
+ *    // Could have more generatedReadMethods...
+ *  }
+ * }
+ * </pre>
+ *
+ * For example, to decode type int[], a generated {@link DatumReader} will looks like this after decompile.
+ * <pre>
+ * {@code
+ *
+ *   public final class Array1intDatumReader07D4F780E3528DB8C539EE5C21FDDEAE implements DatumReader<int[]> {
+ *     ...
+ *
+ *     private Object readArray1int07D4F780E3528DB8C539EE5C21FDDEAE(Decoder paramDecoder, Schema paramSchema)
+ *                                                                  throws IOException {
+ *       int i = paramDecoder.readInt();
+ *       Schema localSchema = paramSchema.getComponentSchema();
+ *       int[] arrayOfInt = new int[i];
+ *       int j = 0;
+ *       while (i != 0) {
+ *         if (j + i > arrayOfInt.length) {
+ *           arrayOfInt = Arrays.copyOf(arrayOfInt, j + i);
+ *         }
+ *         for (int k = 0; k < i; k++) {
+ *           arrayOfInt[j++] = readint9E688C58A5487B8EAF69C9E1005AD0BF(paramDecoder, localSchema);
+ *         }
+ *         i = paramDecoder.readInt();
+ *       }
+ *       return arrayOfInt;
+ *     }
+ *
+ *     private int readint9E688C58A5487B8EAF69C9E1005AD0BF(Decoder paramDecoder, Schema paramSchema)
+ *                                                         throws IOException {
+ *       return paramDecoder.readInt();
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * Record types are created with {@link Instantiator} and populated with {@link FieldAccessor}, hence the generated
+ * class never refers to the record class directly and works with private classes as well.
+ */
+@NotThreadSafe
+final class DatumReaderGenerator {
+
+  private final Map<String, Method> readMethods = Maps.newHashMap();
+  private final Multimap<TypeToken<?>, String> fieldAccessorRequests = LinkedHashMultimap.create();
+  private final Set<Class<?>> instantiatorRequests = Sets.newLinkedHashSet();
+  private final Set<Class<?>> classRequests = Sets.newLinkedHashSet();
+  private ClassWriter classWriter;
+  private Type classType;
+  private List<Class<?>> preservedClasses;
+
+  /**
+   * Generates a {@link DatumReader} class for decoding data of the given input type with the given schema.
+   *
+   * @param inputType Type information of the input data type.
+   * @param schema Schema of the input data type.
+   * @return A {@link ClassDefinition} that contains generated class information.
+   * @throws IllegalArgumentException if the given type and schema combination is not supported by the generator
+   */
+  ClassDefinition generate(TypeToken<?> inputType, Schema schema) {
+    classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    preservedClasses = Lists.newArrayList();
+
+    TypeToken<?> interfaceType = getInterfaceType(inputType);
+
+    // Generate the class
+    String className = getClassName(interfaceType, schema);
+    classType = Type.getObjectType(className);
+    classWriter.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC + Opcodes.ACC_FINAL,
+                      className, Signatures.getClassSignature(interfaceType),
+                      Type.getInternalName(Object.class),
+                      new String[]{Type.getInternalName(interfaceType.getRawType())});
+
+    // Static schema hash field, for verification
+    classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_STATIC + Opcodes.ACC_FINAL, "SCHEMA_HASH",
+                           Type.getDescriptor(String.class), null, schema.getSchemaHash().toString()).visitEnd();
+
+    // Schema field
+    classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, "schema",
+                           Type.getDescriptor(Schema.class), null, null).visitEnd();
+
+    // Fallback DatumReader field
+    classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL, "fallback",
+                           Type.getDescriptor(DatumReader.class), null, null).visitEnd();
+
+    // Read method
+    generateRead(inputType, schema);
+
+    // Constructor
+    generateConstructor();
+
+    ClassDefinition classDefinition = new ClassDefinition(classWriter.toByteArray(), className, preservedClasses);
+    // DEBUG block. Uncomment for debug
+//    co.cask.cdap.internal.asm.Debugs.debugByteCode(classDefinition, new java.io.PrintWriter(System.out));
+    // End DEBUG block
+    return classDefinition;
+  }
+
+  /**
+   * Generates the constructor. The constructor generated has signature
+   * {@code (Schema, FieldAccessorFactory, InstantiatorFactory, DatumReader)}.
+   */
+  private void generateConstructor() {
+    Method constructor = getMethod(void.class, "<init>", Schema.class, FieldAccessorFactory.class,
+                                   InstantiatorFactory.class, DatumReader.class);
+
+    // Constructor(Schema schema, FieldAccessorFactory accessorFactory,
+    //             InstantiatorFactory instantiatorFactory, DatumReader fallback)
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, constructor, null, null, classWriter);
+
+    // super(); // Calling Object constructor
+    mg.loadThis();
+    mg.invokeConstructor(Type.getType(Object.class), getMethod(void.class, "<init>"));
+
+    // if (!SCHEMA_HASH.equals(schema.getSchemaHash().toString())) { throw IllegalArgumentException }
+    mg.getStatic(classType, "SCHEMA_HASH", Type.getType(String.class));
+    mg.loadArg(0);
+    mg.invokeVirtual(Type.getType(Schema.class), getMethod(SchemaHash.class, "getSchemaHash"));
+    mg.invokeVirtual(Type.getType(SchemaHash.class), getMethod(String.class, "toString"));
+    mg.invokeVirtual(Type.getType(String.class), getMethod(boolean.class, "equals", Object.class));
+    Label hashEquals = mg.newLabel();
+    mg.ifZCmp(GeneratorAdapter.NE, hashEquals);
+    mg.throwException(Type.getType(IllegalArgumentException.class), "Schema not match.");
+    mg.mark(hashEquals);
+
+    // this.schema = schema;
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.putField(classType, "schema", Type.getType(Schema.class));
+
+    // this.fallback = fallback;
+    mg.loadThis();
+    mg.loadArg(3);
+    mg.putField(classType, "fallback", Type.getType(DatumReader.class));
+
+    // For each record field that needs an accessor, get the accessor and store it in field.
+    for (Map.Entry<TypeToken<?>, String> entry : fieldAccessorRequests.entries()) {
+      String fieldAccessorName = getFieldAccessorName(entry.getKey(), entry.getValue());
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL,
+                             fieldAccessorName,
+                             Type.getDescriptor(FieldAccessor.class), null, null);
+      // this.fieldAccessorName
+      //  = accessorFactory.getFieldAccessor(TypeToken.of(Class.forName("className")), "fieldName");
+      mg.loadThis();
+      mg.loadArg(1);
+      mg.push(entry.getKey().getRawType().getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.push(entry.getValue());
+      mg.invokeInterface(Type.getType(FieldAccessorFactory.class),
+                         getMethod(FieldAccessor.class, "getFieldAccessor", TypeToken.class, String.class));
+      mg.putField(classType, fieldAccessorName, Type.getType(FieldAccessor.class));
+    }
+
+    // For each type that needs to be instantiated, get the instantiator and store it in field.
+    for (Class<?> cls : instantiatorRequests) {
+      String instantiatorName = getInstantiatorName(cls);
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL,
+                             instantiatorName, Type.getDescriptor(Instantiator.class), null, null);
+      // this.instantiatorName = instantiatorFactory.get(TypeToken.of(Class.forName("className")));
+      mg.loadThis();
+      mg.loadArg(2);
+      mg.push(cls.getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+      mg.invokeStatic(Type.getType(TypeToken.class), getMethod(TypeToken.class, "of", Class.class));
+      mg.invokeVirtual(Type.getType(InstantiatorFactory.class),
+                       getMethod(Instantiator.class, "get", TypeToken.class));
+      mg.putField(classType, instantiatorName, Type.getType(Instantiator.class));
+    }
+
+    // For each class needed by the read methods, load it and store it in field.
+    for (Class<?> cls : classRequests) {
+      String classFieldName = getClassFieldName(cls);
+
+      classWriter.visitField(Opcodes.ACC_PRIVATE + Opcodes.ACC_FINAL,
+                             classFieldName, Type.getDescriptor(Class.class), null, null);
+      // this.classFieldName = Class.forName("className");
+      mg.loadThis();
+      mg.push(cls.getName());
+      mg.invokeStatic(Type.getType(Class.class), getMethod(Class.class, "forName", String.class));
+      mg.putField(classType, classFieldName, Type.getType(Class.class));
+    }
+
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Generates the {@link DatumReader#read(Decoder, Schema)} method.
+   *
+   * @param inputType Type information of the data type for input
+   * @param schema Schema to use for input.
+   */
+  private void generateRead(TypeToken<?> inputType, Schema schema) {
+    Method readMethod = getMethod(Object.class, "read", Decoder.class, Schema.class);
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, readMethod, null,
+                                               new Type[] {Type.getType(IOException.class)}, classWriter);
+
+    // if (!this.schema.equals(sourceSchema)) { return this.fallback.read(decoder, sourceSchema); }
+    Label sameSchema = mg.newLabel();
+    mg.loadThis();
+    mg.getField(classType, "schema", Type.getType(Schema.class));
+    mg.loadArg(1);
+    mg.invokeVirtual(Type.getType(Schema.class), getMethod(boolean.class, "equals", Object.class));
+    mg.ifZCmp(GeneratorAdapter.NE, sameSchema);
+    mg.loadThis();
+    mg.getField(classType, "fallback", Type.getType(DatumReader.class));
+    mg.loadArg(0);
+    mg.loadArg(1);
+    mg.invokeInterface(Type.getType(DatumReader.class), readMethod);
+    mg.returnValue();
+
+    // return readMethod(decoder, this.schema);
+    mg.mark(sameSchema);
+    mg.loadThis();
+    mg.loadArg(0);
+    mg.loadThis();
+    mg.getField(classType, "schema", Type.getType(Schema.class));
+    Method method = getReadMethod(inputType, schema);
+    mg.invokeVirtual(classType, method);
+    mg.valueOf(method.getReturnType());
+    mg.returnValue();
+    mg.endMethod();
+  }
+
+  /**
+   * Returns the read method for the given type and schema. The same method will be returned if the same
+   * type and schema has been passed to the method before.
+   *
+   * @param inputType Type information of the data type for input
+   * @param schema Schema to use for input.
+   * @return A method for decoding the given input type and schema.
+   */
+  private Method getReadMethod(TypeToken<?> inputType, Schema schema) {
+    String key = String.format("%s%s", normalizeTypeName(inputType), schema.getSchemaHash());
+
+    Method method = readMethods.get(key);
+    if (method != null) {
+      return method;
+    }
+
+    // Generate the read method (decoder, schema)
+    String methodName = String.format("read%s", key);
+    method = new Method(methodName, getReturnType(inputType, schema),
+                        new Type[] {Type.getType(Decoder.class), Type.getType(Schema.class)});
+
+    // Put the method into map first before generating the body in order to support recursive data type.
+    readMethods.put(key, method);
+
+    GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PRIVATE, method, null,
+                                               new Type[]{Type.getType(IOException.class)}, classWriter);
+
+    generateReadBody(mg, schema, inputType, 0, 1);
+    mg.returnValue();
+    mg.endMethod();
+
+    return method;
+  }
+
+  /**
+   * Generates the read method body, which leaves the decoded value on the stack.
+   *
+   * @param mg Method generator for generating method code body
+   * @param schema Schema of the data to be decoded.
+   * @param inputType Type of the data to be decoded.
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the schema
+   */
+  private void generateReadBody(GeneratorAdapter mg, Schema schema, TypeToken<?> inputType,
+                                int decoder, int schemaLocal) {
+    Schema.Type schemaType = schema.getType();
+
+    switch (schemaType) {
+      case NULL:
+        mg.loadArg(decoder);
+        mg.invokeInterface(Type.getType(Decoder.class), getMethod(Object.class, "readNull"));
+        break;
+      case BOOLEAN:
+        decodeSimple(mg, inputType, "readBool", boolean.class, decoder);
+        break;
+      case INT:
+        decodeSimple(mg, inputType, "readInt", int.class, decoder);
+        break;
+      case LONG:
+        decodeSimple(mg, inputType, "readLong", long.class, decoder);
+        break;
+      case FLOAT:
+        decodeSimple(mg, inputType, "readFloat", float.class, decoder);
+        break;
+      case DOUBLE:
+        decodeSimple(mg, inputType, "readDouble", double.class, decoder);
+        break;
+      case STRING:
+        decodeString(mg, inputType, decoder);
+        break;
+      case BYTES:
+        decodeBytes(mg, inputType, decoder);
+        break;
+      case ENUM:
+        decodeEnum(mg, inputType, decoder, schemaLocal);
+        break;
+      case ARRAY:
+        if (Collection.class.isAssignableFrom(inputType.getRawType())) {
+          Preconditions.checkArgument(inputType.getType() instanceof ParameterizedType,
+                                      "Only support parameterized collection type.");
+          TypeToken<?> componentType = TypeToken.of(((ParameterizedType) inputType.getType())
+                                                      .getActualTypeArguments()[0]);
+          decodeCollection(mg, inputType, componentType, schema.getComponentSchema(), decoder, schemaLocal);
+        } else if (inputType.isArray()) {
+          decodeArray(mg, inputType.getComponentType(), schema.getComponentSchema(), decoder, schemaLocal);
+        } else {
+          throw new IllegalArgumentException("Only array or collection type is support for array value.");
+        }
+        break;
+      case MAP:
+        Preconditions.checkArgument(Map.class.isAssignableFrom(inputType.getRawType()),
+                                    "Only %s type is supported.", Map.class.getName());
+        Preconditions.checkArgument(inputType.getType() instanceof ParameterizedType,
+                                    "Only support parameterized map type.");
+        java.lang.reflect.Type[] mapArgs = ((ParameterizedType) inputType.getType()).getActualTypeArguments();
+        Map.Entry<Schema, Schema> mapSchema = schema.getMapSchema();
+        decodeMap(mg, inputType, TypeToken.of(mapArgs[0]), TypeToken.of(mapArgs[1]),
+                  mapSchema.getKey(), mapSchema.getValue(), decoder, schemaLocal);
+        break;
+      case RECORD:
+        decodeRecord(mg, schema, inputType, decoder, schemaLocal);
+        break;
+      case UNION:
+        decodeUnion(mg, inputType, schema, decoder, schemaLocal);
+        break;
+    }
+  }
+
+  /**
+   * Generates method body for decoding simple schema type by calling corresponding read method in Decoder.
+   * The decoded value is converted to the input type the same way as {@link ReflectionDatumReader} does.
+   *
+   * @param mg Method body generator
+   * @param inputType Data type to decode to
+   * @param readMethod Name of the read method to invoke on the given decoder.
+   * @param readType The primitive type returned by the read method
+   * @param decoder Method argument index of the decoder
+   */
+  private void decodeSimple(GeneratorAdapter mg, TypeToken<?> inputType, String readMethod,
+                            Class<?> readType, int decoder) {
+    // decoder.readXXX();
+    mg.loadArg(decoder);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(readType, readMethod));
+
+    Class<?> rawType = inputType.getRawType();
+    Class<?> targetType = rawType.isPrimitive() ? rawType : Primitives.unwrap(rawType);
+    if (!targetType.isPrimitive()) {
+      // For non primitive type, the value is boxed as is.
+      mg.valueOf(Type.getType(readType));
+      return;
+    }
+
+    Preconditions.checkArgument((readType == boolean.class) == (targetType == boolean.class),
+                                "Cannot decode %s to %s", readType, inputType);
+    if (readType != targetType) {
+      // A special case since INT type represents (byte, char, short and int).
+      mg.cast(Type.getType(readType), Type.getType(targetType));
+    }
+    if (!rawType.isPrimitive()) {
+      mg.valueOf(Type.getType(targetType));
+    }
+  }
+
+  /**
+   * Generates method body for decoding string value. It also handles {@link URI} and {@link URL}, which
+   * are encoded as string.
+   *
+   * @param mg Method body generator
+   * @param inputType Data type to decode to
+   * @param decoder Method argument index of the decoder
+   */
+  private void decodeString(GeneratorAdapter mg, TypeToken<?> inputType, int decoder) {
+    Class<?> rawType = inputType.getRawType();
+
+    if (URL.class.equals(rawType)) {
+      // new URL(decoder.readString());
+      mg.newInstance(Type.getType(URL.class));
+      mg.dup();
+      mg.loadArg(decoder);
+      mg.invokeInterface(Type.getType(Decoder.class), getMethod(String.class, "readString"));
+      mg.invokeConstructor(Type.getType(URL.class), getMethod(void.class, "<init>", String.class));
+      return;
+    }
+
+    // decoder.readString();
+    mg.loadArg(decoder);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(String.class, "readString"));
+    if (URI.class.equals(rawType)) {
+      // URI.create(decoder.readString());
+      mg.invokeStatic(Type.getType(URI.class), getMethod(URI.class, "create", String.class));
+    }
+  }
+
+  /**
+   * Generates method body for decoding bytes value. The result is converted to {@code byte[]} or
+   * {@link UUID} based on the input type, otherwise it is left as {@link ByteBuffer}.
+   *
+   * @param mg Method body generator
+   * @param inputType Data type to decode to
+   * @param decoder Method argument index of the decoder
+   */
+  private void decodeBytes(GeneratorAdapter mg, TypeToken<?> inputType, int decoder) {
+    Class<?> rawType = inputType.getRawType();
+    Type byteBufferType = Type.getType(ByteBuffer.class);
+
+    // decoder.readBytes();
+    mg.loadArg(decoder);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(ByteBuffer.class, "readBytes"));
+
+    if (byte[].class.equals(rawType)) {
+      // Bytes.toBytes(decoder.readBytes());
+      mg.invokeStatic(Type.getType(Bytes.class),
+                      new Method("toBytes", Type.getType(byte[].class), new Type[] {Type.getType(ByteBuffer.class)}));
+      return;
+    }
+
+    if (UUID.class.equals(rawType)) {
+      // Special case UUID, which is encoded as 16 bytes
+      //
+      // ByteBuffer buffer = decoder.readBytes();
+      // if (buffer.remaining() == Longs.BYTES * 2) {
+      //   return new UUID(buffer.getLong(), buffer.getLong());
+      // }
+      // return buffer;
+      int buffer = mg.newLocal(byteBufferType);
+      mg.storeLocal(buffer);
+
+      Label notUUID = mg.newLabel();
+      Label end = mg.newLabel();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(int.class, "remaining"));
+      mg.push(Longs.BYTES * 2);
+      mg.ifICmp(GeneratorAdapter.NE, notUUID);
+
+      mg.newInstance(Type.getType(UUID.class));
+      mg.dup();
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(long.class, "getLong"));
+      mg.loadLocal(buffer);
+      mg.invokeVirtual(byteBufferType, getMethod(long.class, "getLong"));
+      mg.invokeConstructor(Type.getType(UUID.class), getMethod(void.class, "<init>", long.class, long.class));
+      mg.checkCast(Type.getType(Object.class));
+      mg.goTo(end);
+
+      mg.mark(notUUID);
+      mg.loadLocal(buffer);
+      mg.checkCast(Type.getType(Object.class));
+      mg.mark(end);
+    }
+  }
+
+  /**
+   * Generates method body for decoding enum value. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * return Enum.valueOf(this.enumClass, schema.getEnumValue(decoder.readInt()));
+   * }
+   * </pre>
+   *
+   * @param mg Method body generator
+   * @param inputType Enum type to decode to
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the enum schema
+   */
+  private void decodeEnum(GeneratorAdapter mg, TypeToken<?> inputType, int decoder, int schemaLocal) {
+    Class<?> rawType = inputType.getRawType();
+    Preconditions.checkArgument(rawType.isEnum(), "Only enum type is supported for enum value. Type: %s", inputType);
+
+    mg.loadThis();
+    mg.getField(classType, getClassFieldName(requestClass(rawType)), Type.getType(Class.class));
+    mg.loadArg(schemaLocal);
+    mg.loadArg(decoder);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.invokeVirtual(Type.getType(Schema.class), getMethod(String.class, "getEnumValue", int.class));
+    mg.invokeStatic(Type.getType(Enum.class), getMethod(Enum.class, "valueOf", Class.class, String.class));
+  }
+
+  /**
+   * Generates method body for decoding array value into a Collection. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Collection collection = (Collection) this.instantiator.create();
+   * int len = decoder.readInt();
+   * Schema componentSchema = schema.getComponentSchema();
+   * while (len != 0) {
+   *   for (int i = 0; i < len; i++) {
+   *     collection.add(readElement(decoder, componentSchema));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return collection;
+   * }
+   * </pre>
+   *
+   * @param mg Method body generator
+   * @param collectionType Collection type to decode to
+   * @param componentType Element type of the collection
+   * @param componentSchema Schema of the collection elements
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the array schema
+   */
+  private void decodeCollection(GeneratorAdapter mg, TypeToken<?> collectionType, TypeToken<?> componentType,
+                                Schema componentSchema, int decoder, int schemaLocal) {
+    Type collectionAsmType = Type.getType(Collection.class);
+
+    // Create the collection
+    int collection = mg.newLocal(collectionAsmType);
+    createInstance(mg, collectionType.getRawType());
+    mg.checkCast(collectionAsmType);
+    mg.storeLocal(collection);
+
+    int componentSchemaLocal = storeComponentSchema(mg, schemaLocal);
+
+    Method readComponent = getReadMethod(componentType, componentSchema);
+    int length = readBlockLength(mg, decoder);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(length);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // for (int idx = 0; idx < len; idx++)
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(length);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+
+    // collection.add(readComponent(decoder, componentSchema));
+    mg.loadLocal(collection);
+    mg.loadThis();
+    mg.loadArg(decoder);
+    mg.loadLocal(componentSchemaLocal);
+    mg.invokeVirtual(classType, readComponent);
+    mg.valueOf(readComponent.getReturnType());
+    mg.invokeInterface(collectionAsmType, getMethod(boolean.class, "add", Object.class));
+    mg.pop();
+
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    // len = decoder.readInt();
+    readBlockLength(mg, decoder, length);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+
+    mg.loadLocal(collection);
+  }
+
+  /**
+   * Generates method body for decoding array value into a Java array. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * int len = decoder.readInt();
+   * Schema componentSchema = schema.getComponentSchema();
+   * ComponentType[] array = new ComponentType[len];
+   * int size = 0;
+   * while (len != 0) {
+   *   if (size + len > array.length) {
+   *     array = Arrays.copyOf(array, size + len);
+   *   }
+   *   for (int i = 0; i < len; i++) {
+   *     array[size++] = readElement(decoder, componentSchema);
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return array;
+   * }
+   * </pre>
+   *
+   * For non-primitive component type, the array is created by {@link Array#newInstance(Class, int)} and
+   * the generated code only refers to it as {@code Object[]}.
+   *
+   * @param mg Method body generator
+   * @param componentType Component type of the array
+   * @param componentSchema Schema of the array elements
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the array schema
+   */
+  private void decodeArray(GeneratorAdapter mg, TypeToken<?> componentType, Schema componentSchema,
+                           int decoder, int schemaLocal) {
+    Class<?> componentClass = componentType.getRawType();
+    Type elementType = componentClass.isPrimitive() ? Type.getType(componentClass) : Type.getType(Object.class);
+    Type arrayType = Type.getType("[" + elementType.getDescriptor());
+
+    Method readComponent = getReadMethod(componentType, componentSchema);
+    int length = readBlockLength(mg, decoder);
+    int componentSchemaLocal = storeComponentSchema(mg, schemaLocal);
+
+    // Create the array with the length of the first block
+    int array = mg.newLocal(arrayType);
+    if (componentClass.isPrimitive()) {
+      mg.loadLocal(length);
+      mg.newArray(elementType);
+    } else {
+      // (Object[]) Array.newInstance(this.componentClass, len);
+      mg.loadThis();
+      mg.getField(classType, getClassFieldName(requestClass(componentClass)), Type.getType(Class.class));
+      mg.loadLocal(length);
+      mg.invokeStatic(Type.getType(Array.class), getMethod(Object.class, "newInstance", Class.class, int.class));
+      mg.checkCast(arrayType);
+    }
+    mg.storeLocal(array);
+
+    int size = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(size);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(length);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // if (size + len > array.length) { array = Arrays.copyOf(array, size + len); }
+    Label noGrow = mg.newLabel();
+    mg.loadLocal(size);
+    mg.loadLocal(length);
+    mg.math(GeneratorAdapter.ADD, Type.INT_TYPE);
+    mg.loadLocal(array);
+    mg.arrayLength();
+    mg.ifICmp(GeneratorAdapter.LE, noGrow);
+    mg.loadLocal(array);
+    mg.loadLocal(size);
+    mg.loadLocal(length);
+    mg.math(GeneratorAdapter.ADD, Type.INT_TYPE);
+    mg.invokeStatic(Type.getType(Arrays.class), new Method("copyOf", arrayType, new Type[] {arrayType, Type.INT_TYPE}));
+    mg.storeLocal(array);
+    mg.mark(noGrow);
+
+    // for (int idx = 0; idx < len; idx++)
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(length);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+
+    // array[size++] = readComponent(decoder, componentSchema);
+    mg.loadLocal(array);
+    mg.loadLocal(size);
+    mg.loadThis();
+    mg.loadArg(decoder);
+    mg.loadLocal(componentSchemaLocal);
+    mg.invokeVirtual(classType, readComponent);
+    mg.arrayStore(elementType);
+    mg.iinc(size, 1);
+
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    // len = decoder.readInt();
+    readBlockLength(mg, decoder, length);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+
+    mg.loadLocal(array);
+  }
+
+  /**
+   * Generates method body for decoding map value. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Map map = (Map) this.instantiator.create();
+   * int len = decoder.readInt();
+   * Map.Entry<Schema, Schema> mapSchema = schema.getMapSchema();
+   * Schema keySchema = mapSchema.getKey();
+   * Schema valueSchema = mapSchema.getValue();
+   * while (len != 0) {
+   *   for (int i = 0; i < len; i++) {
+   *     map.put(readKey(decoder, keySchema), readValue(decoder, valueSchema));
+   *   }
+   *   len = decoder.readInt();
+   * }
+   * return map;
+   * }
+   * </pre>
+   *
+   * @param mg Method body generator
+   * @param mapType Map type to decode to
+   * @param keyType Type of the map keys
+   * @param valueType Type of the map values
+   * @param keySchema Schema of the map keys
+   * @param valueSchema Schema of the map values
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the map schema
+   */
+  private void decodeMap(GeneratorAdapter mg, TypeToken<?> mapType, TypeToken<?> keyType, TypeToken<?> valueType,
+                         Schema keySchema, Schema valueSchema, int decoder, int schemaLocal) {
+    Type mapAsmType = Type.getType(Map.class);
+
+    // Create the map
+    int map = mg.newLocal(mapAsmType);
+    createInstance(mg, mapType.getRawType());
+    mg.checkCast(mapAsmType);
+    mg.storeLocal(map);
+
+    // Stores the key and value schema
+    mg.loadArg(schemaLocal);
+    mg.invokeVirtual(Type.getType(Schema.class), getMethod(Map.Entry.class, "getMapSchema"));
+    mg.dup();
+
+    int keySchemaLocal = mg.newLocal(Type.getType(Schema.class));
+    mg.invokeInterface(Type.getType(Map.Entry.class), getMethod(Object.class, "getKey"));
+    mg.checkCast(Type.getType(Schema.class));
+    mg.storeLocal(keySchemaLocal);
+
+    int valueSchemaLocal = mg.newLocal(Type.getType(Schema.class));
+    mg.invokeInterface(Type.getType(Map.Entry.class), getMethod(Object.class, "getValue"));
+    mg.checkCast(Type.getType(Schema.class));
+    mg.storeLocal(valueSchemaLocal);
+
+    Method readKey = getReadMethod(keyType, keySchema);
+    Method readValue = getReadMethod(valueType, valueSchema);
+    int length = readBlockLength(mg, decoder);
+
+    // while (len != 0)
+    Label beginWhile = mg.mark();
+    Label endWhile = mg.newLabel();
+    mg.loadLocal(length);
+    mg.ifZCmp(GeneratorAdapter.EQ, endWhile);
+
+    // for (int idx = 0; idx < len; idx++)
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.push(0);
+    mg.storeLocal(idx);
+    Label beginFor = mg.mark();
+    Label endFor = mg.newLabel();
+    mg.loadLocal(idx);
+    mg.loadLocal(length);
+    mg.ifICmp(GeneratorAdapter.GE, endFor);
+
+    // map.put(readKey(decoder, keySchema), readValue(decoder, valueSchema));
+    mg.loadLocal(map);
+    mg.loadThis();
+    mg.loadArg(decoder);
+    mg.loadLocal(keySchemaLocal);
+    mg.invokeVirtual(classType, readKey);
+    mg.valueOf(readKey.getReturnType());
+    mg.loadThis();
+    mg.loadArg(decoder);
+    mg.loadLocal(valueSchemaLocal);
+    mg.invokeVirtual(classType, readValue);
+    mg.valueOf(readValue.getReturnType());
+    mg.invokeInterface(mapAsmType, getMethod(Object.class, "put", Object.class, Object.class));
+    mg.pop();
+
+    mg.iinc(idx, 1);
+    mg.goTo(beginFor);
+    mg.mark(endFor);
+
+    // len = decoder.readInt();
+    readBlockLength(mg, decoder, length);
+    mg.goTo(beginWhile);
+    mg.mark(endWhile);
+
+    mg.loadLocal(map);
+  }
+
+  /**
+   * Generates method body for decoding a record into a java class. The object is created by {@link Instantiator}
+   * and each field is set through {@link FieldAccessor}. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * Object record = this.instantiator.create();
+   * List<Schema.Field> fields = schema.getFields();
+   * this.fieldAccessor0.set(record, readField0(decoder, fields.get(0).getSchema()));
+   * this.fieldAccessor1.setInt(record, readField1(decoder, fields.get(1).getSchema()));
+   * ...
+   * return record;
+   * }
+   * </pre>
+   *
+   * @param mg Method body generator
+   * @param schema Schema of the record
+   * @param inputType Type to decode to
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the record schema
+   */
+  private void decodeRecord(GeneratorAdapter mg, Schema schema, TypeToken<?> inputType,
+                            int decoder, int schemaLocal) {
+    try {
+      Class<?> rawType = inputType.getRawType();
+      Preconditions.checkArgument(!rawType.isInterface() && !rawType.isArray(),
+                                  "Cannot decode record to type %s.", inputType);
+
+      // Create the record object
+      int record = mg.newLocal(Type.getType(Object.class));
+      createInstance(mg, rawType);
+      mg.storeLocal(record);
+
+      // Store the list of schema fields.
+      mg.loadArg(schemaLocal);
+      mg.invokeVirtual(Type.getType(Schema.class), getMethod(List.class, "getFields"));
+      int fieldSchemas = mg.newLocal(Type.getType(List.class));
+      mg.storeLocal(fieldSchemas);
+
+      // For each field, call the read method for the field and set it to the record
+      List<Schema.Field> fields = schema.getFields();
+      for (int i = 0; i < fields.size(); i++) {
+        Schema.Field field = fields.get(i);
+        TypeToken<?> fieldType = inputType.resolveType(Fields.findField(inputType.getType(),
+                                                                        field.getName()).getGenericType());
+        fieldAccessorRequests.put(inputType, field.getName());
+
+        // this.fieldAccessor.setXXX(record, readField(decoder, fieldSchemas.get(i).getSchema()));
+        mg.loadThis();
+        mg.getField(classType, getFieldAccessorName(inputType, field.getName()), Type.getType(FieldAccessor.class));
+        mg.loadLocal(record);
+        mg.loadThis();
+        mg.loadArg(decoder);
+        mg.loadLocal(fieldSchemas);
+        mg.push(i);
+        mg.invokeInterface(Type.getType(List.class), getMethod(Object.class, "get", int.class));
+        mg.checkCast(Type.getType(Schema.Field.class));
+        mg.invokeVirtual(Type.getType(Schema.Field.class), getMethod(Schema.class, "getSchema"));
+        mg.invokeVirtual(classType, getReadMethod(fieldType, field.getSchema()));
+        mg.invokeInterface(Type.getType(FieldAccessor.class), getAccessorMethod(fieldType));
+      }
+
+      mg.loadLocal(record);
+    } catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  /**
+   * Generates method body for decoding union value. The union index is read first and the value is decoded
+   * with the schema at the given index in the union. The logic is like this:
+   *
+   * <pre>
+   * {@code
+   *
+   * int idx = decoder.readInt();
+   * if (idx == 0) {
+   *   return readUnion0(decoder, schema.getUnionSchema(0));
+   * }
+   * if (idx == 1) {
+   *   return readUnion1(decoder, schema.getUnionSchema(1));
+   * }
+   * ...
+   * throw new IOException("Invalid union index.");
+   * }
+   * </pre>
+   *
+   * @param mg Method body generator
+   * @param inputType Type to decode to
+   * @param schema Union schema
+   * @param decoder Method argument index of the decoder
+   * @param schemaLocal Method argument index of the union schema
+   */
+  private void decodeUnion(GeneratorAdapter mg, TypeToken<?> inputType, Schema schema,
+                           int decoder, int schemaLocal) {
+    int idx = mg.newLocal(Type.INT_TYPE);
+    mg.loadArg(decoder);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.storeLocal(idx);
+
+    Label end = mg.newLabel();
+    List<Schema> unionSchemas = schema.getUnionSchemas();
+    for (int i = 0; i < unionSchemas.size(); i++) {
+      Label next = mg.newLabel();
+      mg.loadLocal(idx);
+      mg.push(i);
+      mg.ifICmp(GeneratorAdapter.NE, next);
+
+      Method readMethod = getReadMethod(inputType, unionSchemas.get(i));
+      mg.loadThis();
+      mg.loadArg(decoder);
+      mg.loadArg(schemaLocal);
+      mg.push(i);
+      mg.invokeVirtual(Type.getType(Schema.class), getMethod(Schema.class, "getUnionSchema", int.class));
+      mg.invokeVirtual(classType, readMethod);
+      mg.valueOf(readMethod.getReturnType());
+      mg.goTo(end);
+
+      mg.mark(next);
+    }
+    mg.throwException(Type.getType(IOException.class), "Invalid union index.");
+    mg.mark(end);
+  }
+
+  /**
+   * Generates code to read the length of an array or map block and store it in a new local variable.
+   *
+   * @return the local variable index that stores the length
+   */
+  private int readBlockLength(GeneratorAdapter mg, int decoder) {
+    int length = mg.newLocal(Type.INT_TYPE);
+    readBlockLength(mg, decoder, length);
+    return length;
+  }
+
+  /**
+   * Generates code to read the length of an array or map block and store it in the given local variable.
+   */
+  private void readBlockLength(GeneratorAdapter mg, int decoder, int length) {
+    mg.loadArg(decoder);
+    mg.invokeInterface(Type.getType(Decoder.class), getMethod(int.class, "readInt"));
+    mg.storeLocal(length);
+  }
+
+  /**
+   * Generates code to store the component schema of the array schema in a new local variable.
+   *
+   * @return the local variable index that stores the component schema
+   */
+  private int storeComponentSchema(GeneratorAdapter mg, int schemaLocal) {
+    mg.loadArg(schemaLocal);
+    mg.invokeVirtual(Type.getType(Schema.class), getMethod(Schema.class, "getComponentSchema"));
+    int componentSchemaLocal = mg.newLocal(Type.getType(Schema.class));
+    mg.storeLocal(componentSchemaLocal);
+    return componentSchemaLocal;
+  }
+
+  /**
+   * Generates code to create a new instance of the given type with {@link Instantiator}.
+   * The new instance is left on the stack as {@link Object}.
+   */
+  private void createInstance(GeneratorAdapter mg, Class<?> rawType) {
+    // Type might be defined by the user, hence need to preserve class loading of it
+    preservedClasses.add(rawType);
+    instantiatorRequests.add(rawType);
+
+    // this.instantiator.create();
+    mg.loadThis();
+    mg.getField(classType, getInstantiatorName(rawType), Type.getType(Instantiator.class));
+    mg.invokeInterface(Type.getType(Instantiator.class), getMethod(Object.class, "create"));
+  }
+
+  /**
+   * Records that the generated class needs a field that holds the given {@link Class}.
+   */
+  private Class<?> requestClass(Class<?> cls) {
+    // Type might be defined by the user, hence need to preserve class loading of it
+    Class<?> componentClass = cls;
+    while (componentClass.isArray()) {
+      componentClass = componentClass.getComponentType();
+    }
+    if (!componentClass.isPrimitive()) {
+      preservedClasses.add(componentClass);
+    }
+    classRequests.add(cls);
+    return cls;
+  }
+
+  /**
+   * Returns the return type of the read method for the given type and schema. Primitive types are returned
+   * as is to avoid boxing, while all other types are returned as {@link Object}, so that the generated class
+   * doesn't need to have access to the actual type.
+   */
+  private Type getReturnType(TypeToken<?> inputType, Schema schema) {
+    Class<?> rawType = inputType.getRawType();
+    if (!rawType.isPrimitive()) {
+      return Type.getType(Object.class);
+    }
+
+    switch (schema.getType()) {
+      case BOOLEAN:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return Type.getType(rawType);
+    }
+    throw new IllegalArgumentException(String.format("Cannot decode %s to primitive type %s", schema, rawType));
+  }
+
+  private <T> TypeToken<DatumReader<T>> getInterfaceType(TypeToken<T> type) {
+    return new TypeToken<DatumReader<T>>() {
+    }.where(new TypeParameter<T>() {
+    }, type);
+  }
+
+  private String getClassName(TypeToken<?> interfaceType, Schema schema) {
+    return String.format("%s/%s%s%s",
+                         interfaceType.getRawType().getPackage().getName().replace('.', '/'),
+                         normalizeTypeName(TypeToken.of(((ParameterizedType) interfaceType.getType())
+                                                          .getActualTypeArguments()[0])),
+                         interfaceType.getRawType().getSimpleName(), schema.getSchemaHash());
+  }
+
+  private String normalizeTypeName(TypeToken<?> type) {
+    String typeName = type.toString();
+    int dimension = 0;
+    while (type.isArray()) {
+      type = type.getComponentType();
+      typeName = type.toString();
+      dimension++;
+    }
+
+    typeName = typeName.replace(".", "")
+                        .replace("<", "Of")
+                        .replace(">", "")
+                        .replace(",", "To")
+                        .replace(" ", "")
+                        .replace("$", "");
+    if (dimension > 0) {
+      typeName = "Array" + dimension + typeName;
+    }
+    return typeName;
+  }
+
+  private Method getMethod(Class<?> returnType, String name, Class<?>...args) {
+    return Methods.getMethod(returnType, name, args);
+  }
+
+  /**
+   * Returns the method for setting value through {@link FieldAccessor} based on the data type.
+   *
+   * @param type Data type.
+   * @return A {@link Method} for calling {@link FieldAccessor}.
+   */
+  private Method getAccessorMethod(TypeToken<?> type) {
+    Class<?> rawType = type.getRawType();
+    if (rawType.isPrimitive()) {
+      return getMethod(void.class,
+                       String.format("set%c%s",
+                                     Character.toUpperCase(rawType.getName().charAt(0)),
+                                     rawType.getName().substring(1)),
+                       Object.class, rawType);
+    } else {
+      return getMethod(void.class, "set", Object.class, Object.class);
+    }
+  }
+
+  /**
+   * Generates the name of the class field for storing {@link FieldAccessor} for the given record field.
+   *
+   * @param recordType Type of the record.
+   * @param fieldName name of the field.
+   * @return name of the class field.
+   */
+  private String getFieldAccessorName(TypeToken<?> recordType, String fieldName) {
+    return String.format("%s$%s", normalizeTypeName(recordType), fieldName);
+  }
+
+  /**
+   * Generates the name of the class field for storing {@link Instantiator} for the given type.
+   */
+  private String getInstantiatorName(Class<?> cls) {
+    return String.format("instantiator$%s", normalizeTypeName(TypeToken.of(cls)));
+  }
+
+  /**
+   * Generates the name of the class field for storing the given {@link Class}.
+   */
+  private String getClassFieldName(Class<?> cls) {
+    return String.format("class$%s", normalizeTypeName(TypeToken.of(cls)));
+  }
+}
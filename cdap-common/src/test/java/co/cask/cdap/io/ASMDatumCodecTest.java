@@ -21,8 +21,10 @@ import co.cask.cdap.api.data.schema.UnsupportedTypeException;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.io.BinaryDecoder;
 import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.internal.io.ASMDatumReaderFactory;
 import co.cask.cdap.internal.io.ASMDatumWriterFactory;
 import co.cask.cdap.internal.io.ASMFieldAccessorFactory;
+import co.cask.cdap.internal.io.DatumReader;
 import co.cask.cdap.internal.io.DatumWriter;
 import co.cask.cdap.internal.io.ReflectionDatumReader;
 import co.cask.cdap.internal.io.ReflectionDatumWriter;
@@ -37,6 +39,7 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PipedInputStream;
@@ -55,6 +58,8 @@ public class ASMDatumCodecTest {
 
   private static final ASMDatumWriterFactory DATUM_WRITER_FACTORY
     = new ASMDatumWriterFactory(new ASMFieldAccessorFactory());
+  private static final ASMDatumReaderFactory DATUM_READER_FACTORY
+    = new ASMDatumReaderFactory(new ASMFieldAccessorFactory());
 
   /**
    *
@@ -72,6 +77,17 @@ public class ASMDatumCodecTest {
     return DATUM_WRITER_FACTORY.create(type, schema);
   }
 
+  private <T> DatumReader<T> getReader(TypeToken<T> type) throws UnsupportedTypeException {
+    Schema schema = getSchema(type);
+    return DATUM_READER_FACTORY.create(type, schema);
+  }
+
+  private <T> T readWithASM(TypeToken<T> type, T value) throws UnsupportedTypeException, IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    getWriter(type).encode(value, new BinaryEncoder(os));
+    return getReader(type).read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())), getSchema(type));
+  }
+
   @Test
   public void testShort() throws UnsupportedTypeException, IOException {
     TypeToken<Short> type = new TypeToken<Short>() { };
@@ -447,4 +463,123 @@ public class ASMDatumCodecTest {
     endTime = System.nanoTime();
     System.out.println("Time spent: " + TimeUnit.MILLISECONDS.convert(endTime - startTime, TimeUnit.NANOSECONDS));
   }
+
+  @Test
+  public void testASMReaderSimple() throws UnsupportedTypeException, IOException {
+    Assert.assertEquals((short) 3000, (short) readWithASM(new TypeToken<Short>() { }, (short) 3000));
+    Assert.assertEquals(12234234, (int) readWithASM(new TypeToken<Integer>() { }, 12234234));
+    Assert.assertEquals(3.14d, readWithASM(new TypeToken<Double>() { }, 3.14d), 0.000001d);
+    Assert.assertEquals("Testing message", readWithASM(new TypeToken<String>() { }, "Testing message"));
+    Assert.assertEquals(TestEnum.VALUE3, readWithASM(new TypeToken<TestEnum>() { }, TestEnum.VALUE3));
+
+    UUID uuid = UUID.randomUUID();
+    Assert.assertEquals(uuid, readWithASM(new TypeToken<UUID>() { }, uuid));
+  }
+
+  @Test
+  public void testASMReaderContainers() throws UnsupportedTypeException, IOException {
+    int[] intArray = {1, 2, 3, 4, -5, -6, -7, -8};
+    Assert.assertArrayEquals(intArray, readWithASM(new TypeToken<int[]>() { }, intArray));
+
+    String[] stringArray = new String[] {"1", "2", null, "3"};
+    Assert.assertArrayEquals(stringArray, readWithASM(new TypeToken<String[]>() { }, stringArray));
+
+    List<Long> list = ImmutableList.of(1L, 10L, 100L, 1000L);
+    Assert.assertEquals(list, readWithASM(new TypeToken<List<Long>>() { }, list));
+
+    Map<String, List<String>> map = ImmutableMap.<String, List<String>>of("k1", Lists.newArrayList("v1"),
+                                                                          "k2", Lists.newArrayList("v2", null));
+    Assert.assertEquals(map, readWithASM(new TypeToken<Map<String, List<String>>>() { }, map));
+
+    List<URI> uris = ImmutableList.of(URI.create("http://www.abc.com"));
+    Assert.assertEquals(uris, readWithASM(new TypeToken<List<URI>>() { }, uris));
+  }
+
+  @Test
+  public void testASMReaderRecord() throws UnsupportedTypeException, IOException {
+    Record record = new Record(10, "testing", ImmutableList.of("a", "b", "c"), TestEnum.VALUE2);
+    Assert.assertEquals(record, readWithASM(new TypeToken<Record>() { }, record));
+    Assert.assertEquals(ImmutableList.of(record), readWithASM(new TypeToken<List<Record>>() { },
+                                                              ImmutableList.of(record)));
+
+    Record[][] records = new Record[][] {{ record }};
+    Assert.assertArrayEquals(records, readWithASM(new TypeToken<Record[][]>() { }, records));
+
+    Node root = new Node(1, new Node(2, null, new Node(3, null, null)), new Node(4, new Node(5, null, null), null));
+    Assert.assertEquals(root, readWithASM(new TypeToken<Node>() { }, root));
+
+    StreamEvent event = new StreamEvent(ImmutableMap.of("key", "value"),
+                                        ByteBuffer.wrap("Testing message".getBytes(Charsets.UTF_8)));
+    StreamEvent value = readWithASM(new TypeToken<StreamEvent>() { }, event);
+    Assert.assertEquals(event.getHeaders(), value.getHeaders());
+    Assert.assertEquals(event.getBody(), value.getBody());
+  }
+
+  /**
+   * A record type that has a subset of fields in {@link Record} plus a new field.
+   */
+  private static class ProjectedRecord {
+    private int i;
+    private String s;
+    private long newField;
+  }
+
+  @Test
+  public void testASMReaderSchemaEvolution() throws UnsupportedTypeException, IOException {
+    TypeToken<Record> type = new TypeToken<Record>() { };
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    getWriter(type).encode(new Record(10, "testing", ImmutableList.of("a", "b", "c"), TestEnum.VALUE2),
+                           new BinaryEncoder(os));
+
+    // Data written with a different schema should be decoded with schema resolution
+    TypeToken<ProjectedRecord> projectedType = new TypeToken<ProjectedRecord>() { };
+    DatumReader<ProjectedRecord> reader = getReader(projectedType);
+    ProjectedRecord value = reader.read(new BinaryDecoder(new ByteArrayInputStream(os.toByteArray())),
+                                        getSchema(type));
+    Assert.assertEquals(10, value.i);
+    Assert.assertEquals("testing", value.s);
+    Assert.assertEquals(0L, value.newField);
+  }
+
+  @Ignore
+  @Test
+  public void testReadSpeed() throws UnsupportedTypeException, IOException {
+    // A flat record with a list field
+    testReadSpeed(new TypeToken<Record>() { },
+                  new Record(10, "testing", ImmutableList.of("a", "b", "c", "d", "e"), TestEnum.VALUE2));
+
+    // A recursive record
+    testReadSpeed(new TypeToken<Node>() { }, new Node(1, new Node(2, null, new Node(3, null, null)),
+                                                      new Node(4, new Node(5, null, null), null)));
+  }
+
+  private <T> void testReadSpeed(TypeToken<T> type, T writeValue) throws UnsupportedTypeException, IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream(1024);
+    getWriter(type).encode(writeValue, new BinaryEncoder(os));
+    byte[] data = os.toByteArray();
+    Schema schema = getSchema(type);
+
+    DatumReader<T> asmReader = getReader(type);
+    DatumReader<T> reflectionReader = new ReflectionDatumReader<>(schema, type);
+    System.out.println("Read speed of " + type);
+
+    // Run twice, with the first round for warm up
+    for (int round = 0; round < 2; round++) {
+      long startTime = System.nanoTime();
+      for (int i = 0; i < 100000; i++) {
+        asmReader.read(new BinaryDecoder(new ByteArrayInputStream(data)), schema);
+      }
+      long endTime = System.nanoTime();
+      System.out.println("ASM read time spent: "
+                           + TimeUnit.MILLISECONDS.convert(endTime - startTime, TimeUnit.NANOSECONDS));
+
+      startTime = System.nanoTime();
+      for (int i = 0; i < 100000; i++) {
+        reflectionReader.read(new BinaryDecoder(new ByteArrayInputStream(data)), schema);
+      }
+      endTime = System.nanoTime();
+      System.out.println("Reflection read time spent: "
+                           + TimeUnit.MILLISECONDS.convert(endTime - startTime, TimeUnit.NANOSECONDS));
+    }
+  }
 }
@@ -985,6 +985,129 @@ public abstract class StreamDataFileTestBase {
     reader.close();
   }
 
+  /**
+   * Test for the v3 file format that compresses each data block.
+   */
+  @Test
+  public void testCompression() throws Exception {
+    for (StreamFileCompression compression : StreamFileCompression.values()) {
+      Location dir = StreamFileTestUtils.createTempDir(getLocationFactory());
+      Location eventFile = dir.getTempFile(".dat");
+      Location indexFile = dir.getTempFile(".idx");
+
+      StreamDataFileWriter writer = new StreamDataFileWriter(Locations.newOutputSupplier(eventFile),
+                                                             Locations.newOutputSupplier(indexFile), 10L,
+                                                             ImmutableMap.<String, String>of(), compression);
+
+      // Write 1000 events, 10 events per timestamp. Also write a block of empty events that compress very well.
+      for (int i = 0; i < 100; i++) {
+        for (int j = 0; j < 10; j++) {
+          writer.append(StreamFileTestUtils.createEvent(i, "Compression test " + i));
+        }
+      }
+      for (int i = 0; i < 1000; i++) {
+        writer.append(StreamFileTestUtils.createEvent(100, ""));
+      }
+      writer.close();
+
+      // Read all events back
+      StreamDataFileReader reader = StreamDataFileReader.create(Locations.newInputSupplier(eventFile));
+      List<PositionStreamEvent> events = Lists.newArrayList();
+      Assert.assertEquals(2000, reader.read(events, 2000, 0, TimeUnit.SECONDS));
+      Assert.assertEquals(-1, reader.read(events, 1, 0, TimeUnit.SECONDS));
+      reader.close();
+
+      long lastPosition = -1L;
+      for (int i = 0; i < 2000; i++) {
+        PositionStreamEvent event = events.get(i);
+        String expected = i < 1000 ? "Compression test " + (i / 10) : "";
+        Assert.assertEquals(expected, Charsets.UTF_8.decode(event.getBody()).toString());
+        // Positions must be strictly increasing
+        Assert.assertTrue(event.getStart() > lastPosition);
+        lastPosition = event.getStart();
+      }
+
+      // Reading from the position of an event should start from that event
+      for (PositionStreamEvent event : ImmutableList.of(events.get(1), events.get(555), events.get(1999))) {
+        reader = StreamDataFileReader.createWithOffset(Locations.newInputSupplier(eventFile),
+                                                       Locations.newInputSupplier(indexFile), event.getStart());
+        List<PositionStreamEvent> result = Lists.newArrayList();
+        Assert.assertEquals(1, reader.read(result, 1, 0, TimeUnit.SECONDS));
+        reader.close();
+        Assert.assertEquals(event.getStart(), result.get(0).getStart());
+      }
+
+      // Reading by time should use the index
+      reader = StreamDataFileReader.createByStartTime(Locations.newInputSupplier(eventFile),
+                                                      Locations.newInputSupplier(indexFile), 50L);
+      List<PositionStreamEvent> result = Lists.newArrayList();
+      Assert.assertEquals(1, reader.read(result, 1, 0, TimeUnit.SECONDS));
+      reader.close();
+      Assert.assertEquals(50L, result.get(0).getTimestamp());
+      Assert.assertEquals(events.get(500).getStart(), result.get(0).getStart());
+    }
+  }
+
+  /**
+   * Test for skipping data blocks with {@link ReadFilter#acceptBlock(long)}, which is used for partitioning
+   * stream events among consumer instances.
+   */
+  @Test
+  public void testBlockFilter() throws Exception {
+    for (StreamFileCompression compression : StreamFileCompression.values()) {
+      Location dir = StreamFileTestUtils.createTempDir(getLocationFactory());
+      Location eventFile = dir.getTempFile(".dat");
+      Location indexFile = dir.getTempFile(".idx");
+
+      StreamDataFileWriter writer = new StreamDataFileWriter(Locations.newOutputSupplier(eventFile),
+                                                             Locations.newOutputSupplier(indexFile), 10L,
+                                                             ImmutableMap.<String, String>of(), compression);
+      // Write 100 data blocks of 10 events each, with one timestamp per block.
+      for (int i = 0; i < 100; i++) {
+        for (int j = 0; j < 10; j++) {
+          writer.append(StreamFileTestUtils.createEvent(i, "Block test " + (i * 10 + j)));
+        }
+      }
+      writer.close();
+
+      // Partition the blocks among three readers. Every event should be read by exactly one reader.
+      final int partitions = 3;
+      List<String> bodies = Lists.newArrayList();
+      for (int i = 0; i < partitions; i++) {
+        final int partition = i;
+        final AtomicInteger blocksAccepted = new AtomicInteger();
+        ReadFilter filter = new ReadFilter() {
+          private int blockCount;
+
+          @Override
+          public boolean acceptBlock(long offset) {
+            if (blockCount++ % partitions != partition) {
+              return false;
+            }
+            blocksAccepted.incrementAndGet();
+            return true;
+          }
+        };
+
+        StreamDataFileReader reader = StreamDataFileReader.create(Locations.newInputSupplier(eventFile));
+        List<PositionStreamEvent> events = Lists.newArrayList();
+        while (reader.read(events, 100, 0, TimeUnit.SECONDS, filter) >= 0) {
+          // Read until the end of file
+        }
+        reader.close();
+
+        Assert.assertEquals(blocksAccepted.get() * 10, events.size());
+        for (PositionStreamEvent event : events) {
+          Assert.assertEquals(partition, event.getTimestamp() % partitions);
+          bodies.add(Charsets.UTF_8.decode(event.getBody()).toString());
+        }
+      }
+
+      Assert.assertEquals(1000, bodies.size());
+      Assert.assertEquals(1000, ImmutableSet.copyOf(bodies).size());
+    }
+  }
+
   private FileWriter<StreamEvent> createWriter(StreamConfig config, String prefix) {
     return new TimePartitionedStreamFileWriter(config.getLocation(), config.getPartitionDuration(),
                                                prefix, config.getIndexInterval());
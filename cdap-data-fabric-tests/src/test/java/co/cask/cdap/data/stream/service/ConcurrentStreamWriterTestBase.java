@@ -56,6 +56,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -132,6 +133,97 @@ public abstract class ConcurrentStreamWriterTestBase {
     streamWriter.close();
   }
 
+  @Test
+  public void testGroupCommit() throws Exception {
+    String streamName = "testGroupCommit";
+    String namespace = "namespace";
+    Id.Stream streamId = Id.Stream.from(namespace, streamName);
+    StreamAdmin streamAdmin = new TestStreamAdmin(getNamespacedLocationFactory(), Long.MAX_VALUE, 1000);
+    int threads = Runtime.getRuntime().availableProcessors() * 4;
+
+    StreamFileWriterFactory fileWriterFactory = createStreamFileWriterFactory();
+    TestMetricsCollectorFactory metricsCollectorFactory = new TestMetricsCollectorFactory();
+    ConcurrentStreamWriter streamWriter = createStreamWriter(streamId, streamAdmin, threads, fileWriterFactory,
+                                                             TimeUnit.MILLISECONDS.toMicros(5), 0L,
+                                                             metricsCollectorFactory);
+
+    // Starts n threads to write events one by one through stream writer with group commit enabled
+    int msgPerThread = 200;
+    CountDownLatch startLatch = new CountDownLatch(1);
+    CountDownLatch completion = new CountDownLatch(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    for (int i = 0; i < threads; i++) {
+      executor.execute(createWriterTask(streamId, streamWriter, i, msgPerThread, 1, startLatch, completion));
+    }
+    startLatch.countDown();
+    Assert.assertTrue(completion.await(120, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    // Verify all events are written.
+    Location partitionLocation = streamAdmin.getConfig(streamId).getLocation().list().get(0);
+    Location streamLocation = StreamUtils.createStreamLocation(partitionLocation,
+                                                               fileWriterFactory.getFileNamePrefix(),
+                                                               0, StreamFileType.EVENT);
+    StreamDataFileReader reader = StreamDataFileReader.create(Locations.newInputSupplier(streamLocation));
+    List<StreamEvent> events = Lists.newArrayListWithCapacity(threads * msgPerThread);
+    Assert.assertEquals(threads * msgPerThread, reader.read(events, Integer.MAX_VALUE, 0, TimeUnit.SECONDS));
+    Assert.assertTrue(verifyEvents(threads, msgPerThread, events));
+
+    // Verify requests were coalesced, i.e. there were fewer flushes than write requests
+    Assert.assertEquals(threads * msgPerThread, metricsCollectorFactory.getRequestsFlushed());
+    Assert.assertTrue(metricsCollectorFactory.getFlushes() < threads * msgPerThread);
+
+    reader.close();
+    streamWriter.close();
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    String streamName = "testBackpressure";
+    String namespace = "namespace";
+    Id.Stream streamId = Id.Stream.from(namespace, streamName);
+    StreamAdmin streamAdmin = new TestStreamAdmin(getNamespacedLocationFactory(), Long.MAX_VALUE, 1000);
+
+    StreamFileWriterFactory fileWriterFactory = createStreamFileWriterFactory();
+    ConcurrentStreamWriter streamWriter = createStreamWriter(streamId, streamAdmin, 1, fileWriterFactory, 0L, 10L);
+
+    // Async enqueue with an executor that doesn't run the write, so that the event stays in the queue.
+    // An event larger than the limit is accepted if nothing else is queued.
+    final List<Runnable> pendingWrites = Lists.newArrayList();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        pendingWrites.add(command);
+      }
+    };
+    streamWriter.asyncEnqueue(streamId, ImmutableMap.<String, String>of(),
+                              Charsets.UTF_8.encode("Message 0 from 0"), executor);
+    try {
+      streamWriter.enqueue(streamId, ImmutableMap.<String, String>of(), Charsets.UTF_8.encode("Message 1 from 0"));
+      Assert.fail("Expected StreamBackpressureException");
+    } catch (StreamBackpressureException e) {
+      Assert.assertEquals(streamId, e.getStreamId());
+    }
+
+    // After the queued event is persisted, writes are accepted again
+    for (Runnable write : pendingWrites) {
+      write.run();
+    }
+    streamWriter.enqueue(streamId, ImmutableMap.<String, String>of(), Charsets.UTF_8.encode("Message 1 from 0"));
+
+    Location partitionLocation = streamAdmin.getConfig(streamId).getLocation().list().get(0);
+    Location streamLocation = StreamUtils.createStreamLocation(partitionLocation,
+                                                               fileWriterFactory.getFileNamePrefix(),
+                                                               0, StreamFileType.EVENT);
+    StreamDataFileReader reader = StreamDataFileReader.create(Locations.newInputSupplier(streamLocation));
+    List<StreamEvent> events = Lists.newArrayList();
+    Assert.assertEquals(2, reader.read(events, Integer.MAX_VALUE, 0, TimeUnit.SECONDS));
+    Assert.assertTrue(verifyEvents(1, 2, events));
+
+    reader.close();
+    streamWriter.close();
+  }
+
   @Test
   public void testConcurrentAppendFile() throws Exception {
     final String streamName = "testConcurrentFile";
@@ -204,11 +296,27 @@ public abstract class ConcurrentStreamWriterTestBase {
   private ConcurrentStreamWriter createStreamWriter(Id.Stream streamId, StreamAdmin streamAdmin,
                                                     int threads, StreamFileWriterFactory writerFactory)
     throws Exception {
+    return createStreamWriter(streamId, streamAdmin, threads, writerFactory, 0L, 0L);
+  }
+
+  private ConcurrentStreamWriter createStreamWriter(Id.Stream streamId, StreamAdmin streamAdmin,
+                                                    int threads, StreamFileWriterFactory writerFactory,
+                                                    long groupCommitWindowMicros, long maxQueuedBytes)
+    throws Exception {
+    return createStreamWriter(streamId, streamAdmin, threads, writerFactory, groupCommitWindowMicros, maxQueuedBytes,
+                              new TestMetricsCollectorFactory());
+  }
+
+  private ConcurrentStreamWriter createStreamWriter(Id.Stream streamId, StreamAdmin streamAdmin,
+                                                    int threads, StreamFileWriterFactory writerFactory,
+                                                    long groupCommitWindowMicros, long maxQueuedBytes,
+                                                    StreamMetricsCollectorFactory metricsCollectorFactory)
+    throws Exception {
     StreamConfig streamConfig = streamAdmin.getConfig(streamId);
     streamConfig.getLocation().mkdirs();
 
-    return new ConcurrentStreamWriter(COORDINATOR_CLIENT, streamAdmin,
-                                      writerFactory, threads, new TestMetricsCollectorFactory());
+    return new ConcurrentStreamWriter(COORDINATOR_CLIENT, streamAdmin, writerFactory, threads,
+                                      groupCommitWindowMicros, maxQueuedBytes, metricsCollectorFactory);
   }
 
   private Runnable createWriterTask(final Id.Stream streamId,
@@ -339,7 +447,14 @@ public abstract class ConcurrentStreamWriterTestBase {
     }
   }
 
+  /**
+   * A {@link StreamMetricsCollectorFactory} that counts the flushes and the requests persisted by them.
+   */
   private static final class TestMetricsCollectorFactory implements StreamMetricsCollectorFactory {
+
+    private final AtomicInteger flushes = new AtomicInteger();
+    private final AtomicInteger requestsFlushed = new AtomicInteger();
+
     @Override
     public StreamMetricsCollector createMetricsCollector(Id.Stream streamId) {
       return new StreamMetricsCollector() {
@@ -347,7 +462,21 @@ public abstract class ConcurrentStreamWriterTestBase {
         public void emitMetrics(long bytesWritten, long eventsWritten) {
           // No-op
         }
+
+        @Override
+        public void emitFlushMetrics(long flushLatencyMicros, int requests, long queuedBytes) {
+          flushes.incrementAndGet();
+          requestsFlushed.addAndGet(requests);
+        }
       };
     }
+
+    int getFlushes() {
+      return flushes.get();
+    }
+
+    int getRequestsFlushed() {
+      return requestsFlushed.get();
+    }
   }
 }
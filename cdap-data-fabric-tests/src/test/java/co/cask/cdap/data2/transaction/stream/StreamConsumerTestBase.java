@@ -40,6 +40,8 @@ import com.google.common.primitives.Longs;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -49,12 +51,15 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  *
  */
 public abstract class StreamConsumerTestBase {
 
+  private static final Logger LOG = LoggerFactory.getLogger(StreamConsumerTestBase.class);
+
   protected static CConfiguration cConf = CConfiguration.create();
   protected static final Id.Namespace TEST_NAMESPACE = Id.Namespace.from("streamConsumerTestNamespace");
   protected static final Id.Namespace OTHER_NAMESPACE = Id.Namespace.from("otherNamespace");
@@ -311,6 +316,133 @@ public abstract class StreamConsumerTestBase {
     }
   }
 
+  @Category(SlowTests.class)
+  @Test
+  public void testFIFOThroughput() throws Exception {
+    int eventCount = 20000;
+    for (int groupSize : new int[] { 1, 2, 4, 8 }) {
+      String stream = "testFIFOThroughput" + groupSize;
+      Id.Stream streamId = Id.Stream.from(TEST_NAMESPACE, stream);
+      StreamAdmin streamAdmin = getStreamAdmin();
+      streamAdmin.create(streamId);
+      writeEvents(streamAdmin.getConfig(streamId), "Testing ", eventCount);
+      streamAdmin.configureInstances(streamId, 0L, groupSize);
+
+      StreamConsumerFactory consumerFactory = getConsumerFactory();
+      List<StreamConsumer> consumers = Lists.newArrayList();
+      List<TransactionContext> txContexts = Lists.newArrayList();
+      for (int i = 0; i < groupSize; i++) {
+        StreamConsumer consumer = consumerFactory.create(streamId, "fifo.throughput",
+                                                         new ConsumerConfig(0L, i, groupSize,
+                                                                            DequeueStrategy.FIFO, null));
+        consumers.add(consumer);
+        txContexts.add(createTxContext(consumer));
+      }
+
+      // Dequeue with all consumers in turn, each event should be claimed by exactly one consumer
+      Set<String> messages = Sets.newHashSet();
+      long startTime = System.nanoTime();
+      boolean done;
+      do {
+        done = true;
+        for (int i = 0; i < groupSize; i++) {
+          txContexts.get(i).start();
+          DequeueResult<StreamEvent> result = consumers.get(i).poll(100, 0, TimeUnit.SECONDS);
+          for (StreamEvent event : result) {
+            Assert.assertTrue(messages.add(Charsets.UTF_8.decode(event.getBody()).toString()));
+          }
+          done = done && result.isEmpty();
+          txContexts.get(i).finish();
+        }
+      } while (!done);
+      long elapsed = System.nanoTime() - startTime;
+
+      Assert.assertEquals(eventCount, messages.size());
+      LOG.info("FIFO group size {}: dequeued {} events in {} ms", groupSize, eventCount,
+               TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+      for (StreamConsumer consumer : consumers) {
+        consumer.close();
+      }
+    }
+  }
+
+  @Test
+  public void testPartitionedRead() throws Exception {
+    cConf.setBoolean(Constants.Stream.CONSUMER_PARTITIONED_READ, true);
+    try {
+      testPartitionedRead(DequeueStrategy.ROUND_ROBIN, null);
+      testPartitionedRead(DequeueStrategy.HASH, "key");
+    } finally {
+      cConf.setBoolean(Constants.Stream.CONSUMER_PARTITIONED_READ, false);
+    }
+  }
+
+  private void testPartitionedRead(DequeueStrategy strategy, @Nullable String hashKey) throws Exception {
+    String stream = "testPartitionedRead" + strategy.name();
+    Id.Stream streamId = Id.Stream.from(TEST_NAMESPACE, stream);
+    StreamAdmin streamAdmin = getStreamAdmin();
+    streamAdmin.create(streamId);
+
+    // Writes events with a different timestamp each, so that every event is in its own data block.
+    // Some of the events don't have the hash key header.
+    int eventCount = 100;
+    long timestamp = System.currentTimeMillis();
+    FileWriter<StreamEvent> writer = getFileWriterFactory().create(streamAdmin.getConfig(streamId), 0);
+    try {
+      for (int i = 0; i < eventCount; i++) {
+        Map<String, String> headers = i % 10 == 0
+          ? ImmutableMap.<String, String>of()
+          : ImmutableMap.of("key", "k" + i % 7);
+        writer.append(new StreamEvent(headers, Charsets.UTF_8.encode("Testing " + i), timestamp + i));
+      }
+    } finally {
+      writer.close();
+    }
+
+    int groupSize = 3;
+    streamAdmin.configureInstances(streamId, 0L, groupSize);
+    StreamConsumerFactory consumerFactory = getConsumerFactory();
+
+    // Consumes a few events with each consumer, then closes and reopens the consumers, which start from the saved
+    // reader offsets. Every event should be consumed by exactly one consumer.
+    Set<String> messages = Sets.newHashSet();
+    boolean done;
+    do {
+      List<StreamConsumer> consumers = Lists.newArrayList();
+      List<TransactionContext> txContexts = Lists.newArrayList();
+      for (int i = 0; i < groupSize; i++) {
+        StreamConsumer consumer = consumerFactory.create(streamId, "partitioned",
+                                                         new ConsumerConfig(0L, i, groupSize, strategy, hashKey));
+        consumers.add(consumer);
+        txContexts.add(createTxContext(consumer));
+      }
+
+      done = true;
+      try {
+        // Polls a few times, so that the consumers read from the stream, and save the reader offsets, more than once
+        for (int round = 0; round < 5; round++) {
+          for (int i = 0; i < groupSize; i++) {
+            txContexts.get(i).start();
+            DequeueResult<StreamEvent> result = consumers.get(i).poll(2, 0, TimeUnit.SECONDS);
+            for (StreamEvent event : result) {
+              String message = Charsets.UTF_8.decode(event.getBody()).toString();
+              Assert.assertTrue("Duplicate event " + message + " for " + strategy, messages.add(message));
+            }
+            done = done && result.isEmpty();
+            txContexts.get(i).finish();
+          }
+        }
+      } finally {
+        for (StreamConsumer consumer : consumers) {
+          consumer.close();
+        }
+      }
+    } while (!done);
+
+    Assert.assertEquals(eventCount, messages.size());
+  }
+
   @Test
   public void testTTL() throws Exception {
     String stream = "testTTL";
@@ -28,6 +28,7 @@ package co.cask.cdap.data.file;
  *  reset() - Called before filtering a new data block
  *  acceptTimestamp() - Called when the timestamp of a data block is read
  *  getNextTimestampHint() - Called if acceptTimestamp() return false
+ *  acceptBlock() - Called if acceptTimestamp() return true, before the data block is read
  *  acceptOffset() - Called at each stream event begin offset
  * </pre>
  *
@@ -66,6 +67,18 @@ public abstract class ReadFilter {
     return true;
   }
 
+  /**
+   * Accept or reject a data block based on the file offset where the block starts. A rejected data block is
+   * skipped without being read. If the data block was already read, e.g. when the reader starts in the middle
+   * of the block, all remaining events of a rejected block are skipped.
+   *
+   * @param offset The file offset of the data block.
+   * @return {@code true} to accept, {@code false} to reject.
+   */
+  public boolean acceptBlock(long offset) {
+    return true;
+  }
+
   /**
    * Accept or reject based on event timestamp.
    *
@@ -48,6 +48,16 @@ public final class AndReadFilter extends ReadFilter {
     return true;
   }
 
+  @Override
+  public boolean acceptBlock(long offset) {
+    for (ReadFilter filter : filters) {
+      if (!filter.acceptBlock(offset)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public boolean acceptTimestamp(long timestamp) {
     for (ReadFilter filter : filters) {
@@ -63,10 +63,14 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
   private SeekableInputStream eventInput;
   private long position;
   private long timestamp;
+  // File offset of the data block in the streamEventBuffer and the filter that accepted it
+  private long blockPosition;
+  private ReadFilter blockFilter;
   private boolean closed;
   private boolean eof;
   private Decoder decoder;
   private StreamEvent eventTemplate;
+  private StreamFileCompression compression;
 
   /**
    * Opens a new {@link StreamDataFileReader} with the given inputs.
@@ -300,6 +304,17 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
 
     verifySchema(properties);
 
+    // Determine the data block compression
+    compression = StreamFileCompression.NONE;
+    if (fileVersion >= 3) {
+      String codec = properties.get(StreamDataFileConstants.Property.Key.COMPRESSION);
+      try {
+        compression = StreamFileCompression.fromName(codec);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Unsupported stream file compression " + codec, e);
+      }
+    }
+
     // Create event template
     if (fileVersion >= 2) {
       eventTemplate = createEventTemplate(properties);
@@ -323,10 +338,14 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
     if (Arrays.equals(magic, StreamDataFileConstants.MAGIC_HEADER_V2)) {
       return 2;
     }
+    if (Arrays.equals(magic, StreamDataFileConstants.MAGIC_HEADER_V3)) {
+      return 3;
+    }
     throw new IOException(
-      String.format("Unsupported stream file format. First two bytes must be %s or %s",
+      String.format("Unsupported stream file format. First two bytes must be %s, %s or %s",
                     Bytes.toStringBinary(StreamDataFileConstants.MAGIC_HEADER_V1),
-                    Bytes.toStringBinary(StreamDataFileConstants.MAGIC_HEADER_V2))
+                    Bytes.toStringBinary(StreamDataFileConstants.MAGIC_HEADER_V2),
+                    Bytes.toStringBinary(StreamDataFileConstants.MAGIC_HEADER_V3))
     );
   }
 
@@ -485,8 +504,18 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
     // Use the template timestamp if available
     timestamp = eventTemplate.getTimestamp() >= 0 ? eventTemplate.getTimestamp() : timestamp;
     if (acceptTimestamp(filter, timestamp)) {
-      streamEventBuffer.fillBuffer(eventInput, readLength());
+      if (!filter.acceptBlock(position)) {
+        skipDataBlock();
+        return;
+      }
+      if (compression == StreamFileCompression.NONE) {
+        streamEventBuffer.fillBuffer(eventInput, readLength());
+      } else {
+        streamEventBuffer.fillBuffer(eventInput, readLength(), compression);
+      }
       this.timestamp = timestamp;
+      this.blockPosition = position;
+      this.blockFilter = filter;
       return;
     }
 
@@ -503,6 +532,13 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
       return;
     }
 
+    skipDataBlock();
+  }
+
+  /**
+   * Skips the data block after the block timestamp is read.
+   */
+  private void skipDataBlock() throws IOException {
     int length = readLength();
     long bytesSkipped = eventInput.skip(length);
     if (bytesSkipped != length) {
@@ -526,6 +562,17 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
       return null;
     }
 
+    // The data block in the buffer can be read with a different filter, e.g. when seeking to an offset.
+    // Check it once against the given filter, and skip all its events if it is rejected.
+    if (blockFilter != filter) {
+      if (!filter.acceptBlock(blockPosition)) {
+        streamEventBuffer.skipAll();
+        position = streamEventBuffer.getPosition();
+        return null;
+      }
+      blockFilter = filter;
+    }
+
     PositionStreamEvent event = streamEventBuffer.nextEvent(timestamp, eventTemplate.getHeaders(), filter);
     position = streamEventBuffer.getPosition();
     return event;
@@ -32,6 +32,7 @@ import com.google.common.io.OutputSupplier;
 import com.google.common.primitives.Longs;
 import org.apache.hadoop.fs.Syncable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -59,6 +60,29 @@ import javax.annotation.concurrent.NotThreadSafe;
  * }
  * </pre>
  *
+ * Stream event file with compressed data blocks (version 3):
+ *
+ * <pre>
+ * {@code
+ *
+ * event_file = <header> <data>* <end_marker>
+ * header = "E" "3" <properties>
+ * properties = Avro encoded with the properties schema, with "stream.compression" set to the codec name
+ * data = <timestamp> <length> <event_count> <raw_length> <compressed_length> <compressed_events> <padding>
+ * length = Avro encoded int32 for size in bytes of everything after the length field in the data block
+ * event_count = 4 bytes int32 for number of <stream_event>s in the block
+ * raw_length = 4 bytes int32 for size in bytes of all <stream_event>s before compression
+ * compressed_length = 4 bytes int32 for size in bytes of the <compressed_events>
+ * compressed_events = <stream_event>+ compressed with the codec
+ * padding = zero bytes, only present to make <length> at least <event_count>
+ *
+ * }
+ * </pre>
+ *
+ * Events inside a compressed data block don't have individual file offsets. The i-th event in a compressed
+ * block has position equals to the offset of the <event_count> field plus i, so that event positions
+ * stay unique, monotonic and within the block boundary.
+ *
  * Stream index file:
  *
  * <pre>
@@ -84,9 +108,14 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
   private final long indexInterval;
   private final BufferedEncoder encoder;
   private final BufferedEncoder lengthEncoder;
+  private final StreamFileCompression compression;
+  private final BlockBuffer blockBuffer;
+  private byte[] compressedBuffer;
 
   // Timestamp for the current block
   private long currentTimestamp;
+  // Number of events in the current block
+  private int blockEventCount;
   private long position;
   private long nextIndexTime;
   private boolean synced;
@@ -116,6 +145,23 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
   public StreamDataFileWriter(OutputSupplier<? extends OutputStream> eventOutputSupplier,
                               OutputSupplier<? extends OutputStream> indexOutputSupplier,
                               long indexInterval, Map<String, String> properties) throws IOException {
+    this(eventOutputSupplier, indexOutputSupplier, indexInterval, properties, StreamFileCompression.NONE);
+  }
+
+  /**
+   * Constructs a new instance that writes to given outputs, with data blocks compressed by the given compression.
+   *
+   * @param eventOutputSupplier the provider of the {@link OutputStream} for writing events
+   * @param indexOutputSupplier the provider of the {@link OutputStream} for writing the index
+   * @param indexInterval the time interval in milliseconds for emitting a new index entry
+   * @param properties the property set that will be stored as file properties
+   * @param compression the compression to apply to each data block
+   * @throws IOException if there is an error in preparing the output streams
+   */
+  public StreamDataFileWriter(OutputSupplier<? extends OutputStream> eventOutputSupplier,
+                              OutputSupplier<? extends OutputStream> indexOutputSupplier,
+                              long indexInterval, Map<String, String> properties,
+                              StreamFileCompression compression) throws IOException {
     this.eventOutput = eventOutputSupplier.getOutput();
     try {
       this.indexOutput = indexOutputSupplier.getOutput();
@@ -124,6 +170,9 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
       throw e;
     }
     this.indexInterval = indexInterval;
+    this.compression = compression;
+    this.blockBuffer = compression == StreamFileCompression.NONE ? null : new BlockBuffer(BUFFER_SIZE);
+    this.compressedBuffer = new byte[0];
     this.currentTimestamp = -1L;
     this.closeTimestamp = -1L;
 
@@ -222,6 +271,7 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
 
       // Encodes the event data into buffer.
       StreamEventDataCodec.encode(event, encoder);
+      blockEventCount++;
 
       // Optionally flush if already filled up the buffer.
       if (encoder.size() >= flushLimit) {
@@ -234,11 +284,16 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
   }
 
   private void init(Map<String, String> properties) throws IOException {
-    // Writes the header for event file
-    encoder.writeRaw(StreamDataFileConstants.MAGIC_HEADER_V2);
-
+    // Writes the header for event file. Only use version 3 if compression is needed so that
+    // uncompressed files stay readable by older readers.
     Map<String, String> headers = Maps.newHashMap(properties);
     headers.put(StreamDataFileConstants.Property.Key.SCHEMA, StreamEventDataCodec.STREAM_DATA_SCHEMA.toString());
+    if (compression == StreamFileCompression.NONE) {
+      encoder.writeRaw(StreamDataFileConstants.MAGIC_HEADER_V2);
+    } else {
+      encoder.writeRaw(StreamDataFileConstants.MAGIC_HEADER_V3);
+      headers.put(StreamDataFileConstants.Property.Key.COMPRESSION, compression.name().toLowerCase());
+    }
     StreamUtils.encodeMap(headers, encoder);
 
     long headerSize = encoder.size();
@@ -278,16 +333,22 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
       indexOffset = position - Bytes.SIZEOF_LONG;
     }
 
-    // Writes the size of the encoded event
-    lengthEncoder.writeInt(encoder.size());
-    int size = lengthEncoder.size();
-    lengthEncoder.writeTo(eventOutput);
-    position += size;
+    if (compression == StreamFileCompression.NONE) {
+      // Writes the size of the encoded event
+      lengthEncoder.writeInt(encoder.size());
+      int size = lengthEncoder.size();
+      lengthEncoder.writeTo(eventOutput);
+      position += size;
+
+      // Writes all encoded data from the buffer to the output.
+      size = encoder.size();
+      encoder.writeTo(eventOutput);
+      position += size;
+    } else {
+      writeCompressedBlock();
+    }
+    blockEventCount = 0;
 
-    // Writes all encoded data from the buffer to the output.
-    size = encoder.size();
-    encoder.writeTo(eventOutput);
-    position += size;
     if (sync) {
       sync(eventOutput);
     }
@@ -310,6 +371,40 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     synced = sync;
   }
 
+  /**
+   * Compresses all encoded events in the buffer and writes them as one data block to the event output.
+   */
+  private void writeCompressedBlock() throws IOException {
+    int rawLength = encoder.size();
+    encoder.writeTo(blockBuffer);
+
+    int maxLength = compression.maxCompressedLength(rawLength);
+    if (compressedBuffer.length < maxLength) {
+      compressedBuffer = new byte[maxLength];
+    }
+    int compressedLength = compression.compress(blockBuffer.getBuffer(), 0, rawLength, compressedBuffer);
+    blockBuffer.reset();
+
+    // Pads the block so that every event in the block can have an unique position within the block.
+    int blockLength = StreamDataFileConstants.COMPRESSED_BLOCK_HEADER_SIZE + compressedLength;
+    int padding = Math.max(0, blockEventCount - blockLength);
+    blockLength += padding;
+
+    lengthEncoder.writeInt(blockLength);
+    int size = lengthEncoder.size();
+    lengthEncoder.writeTo(eventOutput);
+    position += size;
+
+    eventOutput.write(Bytes.toBytes(blockEventCount));
+    eventOutput.write(Bytes.toBytes(rawLength));
+    eventOutput.write(Bytes.toBytes(compressedLength));
+    eventOutput.write(compressedBuffer, 0, compressedLength);
+    if (padding > 0) {
+      eventOutput.write(new byte[padding]);
+    }
+    position += blockLength;
+  }
+
   private void sync(OutputStream output) throws IOException {
     if (output instanceof Syncable) {
       ((Syncable) output).hsync();
@@ -329,6 +424,20 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     throw ex;
   }
 
+  /**
+   * A {@link ByteArrayOutputStream} that exposes the underlying buffer to avoid copying when compressing.
+   */
+  private static final class BlockBuffer extends ByteArrayOutputStream {
+
+    BlockBuffer(int size) {
+      super(size);
+    }
+
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
+
   private static Function<OutputStream, Encoder> createEncoderFactory() {
     return new Function<OutputStream, Encoder>() {
       @Override
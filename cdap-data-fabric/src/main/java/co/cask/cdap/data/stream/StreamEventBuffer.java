@@ -16,6 +16,7 @@
 
 package co.cask.cdap.data.stream;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.io.BinaryDecoder;
 import co.cask.cdap.common.io.ByteBuffers;
 import co.cask.cdap.common.io.Decoder;
@@ -43,11 +44,18 @@ final class StreamEventBuffer {
   private ByteBuffer buffer;
   private long basePosition;
 
+  // Fields for compressed data block. The blockSize is -1 if the buffer holds uncompressed data block.
+  private byte[] compressedBuffer;
+  private int blockSize;
+  private int eventIndex;
+
   StreamEventBuffer() {
     this.buffer = ByteBuffers.EMPTY_BUFFER;
     this.bufferInput = new ByteBufferInputStream(buffer);
     this.decoder = new BinaryDecoder(bufferInput);
     this.basePosition = -1L;
+    this.compressedBuffer = new byte[0];
+    this.blockSize = -1;
   }
 
   /**
@@ -64,14 +72,8 @@ final class StreamEventBuffer {
 
     try {
       basePosition = input.getPos();
-      int bytesRead = 0;
-      while (bytesRead != size) {
-        int len = input.read(buffer.array(), bytesRead, size - bytesRead);
-        if (len < 0) {
-          throw new EOFException("Expected to read " + size + ", but only " + bytesRead + " was read");
-        }
-        bytesRead += len;
-      }
+      blockSize = -1;
+      readFully(input, buffer.array(), size);
       buffer.limit(size);
       bufferInput.reset(buffer);
     } catch (IOException e) {
@@ -82,6 +84,51 @@ final class StreamEventBuffer {
     }
   }
 
+  /**
+   * Fills the internal buffer by reading a compressed data block from the given input stream.
+   *
+   * @param input input stream to read from
+   * @param size number of bytes in the data block
+   * @param compression the compression used by the data block
+   * @throws IOException if failed to read from the stream or failed to decompress
+   * @throws EOFException if failed to read the given number of bytes from the input
+   */
+  void fillBuffer(SeekableInputStream input, int size, StreamFileCompression compression) throws IOException {
+    if (size < StreamDataFileConstants.COMPRESSED_BLOCK_HEADER_SIZE) {
+      throw new IOException("Invalid compressed data block size " + size);
+    }
+    if (compressedBuffer.length < size) {
+      compressedBuffer = new byte[size];
+    }
+    buffer.clear();
+
+    try {
+      basePosition = input.getPos();
+      readFully(input, compressedBuffer, size);
+
+      int eventCount = Bytes.toInt(compressedBuffer, 0);
+      int rawLength = Bytes.toInt(compressedBuffer, Bytes.SIZEOF_INT);
+      int compressedLength = Bytes.toInt(compressedBuffer, Bytes.SIZEOF_INT * 2);
+      if (eventCount > size || compressedLength > size - StreamDataFileConstants.COMPRESSED_BLOCK_HEADER_SIZE) {
+        throw new IOException("Corrupted compressed data block with size " + size);
+      }
+
+      buffer = ensureCapacity(buffer, rawLength);
+      compression.decompress(compressedBuffer, StreamDataFileConstants.COMPRESSED_BLOCK_HEADER_SIZE,
+                             compressedLength, buffer.array(), rawLength);
+      buffer.limit(rawLength);
+      bufferInput.reset(buffer);
+      blockSize = size;
+      eventIndex = 0;
+    } catch (IOException e) {
+      // Make the buffer has nothing to read
+      buffer.position(buffer.limit());
+      basePosition = -1L;
+      blockSize = -1;
+      throw e;
+    }
+  }
+
   /**
    * Returns {@code true} if there are events in the buffer, {@code false} otherwise.
    */
@@ -89,12 +136,25 @@ final class StreamEventBuffer {
     return buffer.hasRemaining();
   }
 
+  /**
+   * Skips all remaining events in the buffer.
+   */
+  void skipAll() {
+    buffer.position(buffer.limit());
+  }
+
   /**
    * Returns the position in the stream that this buffer is currently at or {@code -1} if nothing has been
    * read from the stream.
    */
   long getPosition() {
-    return basePosition >= 0 ? basePosition + buffer.position() : -1L;
+    if (basePosition < 0) {
+      return -1L;
+    }
+    if (blockSize < 0) {
+      return basePosition + buffer.position();
+    }
+    return hasEvent() ? basePosition + eventIndex : basePosition + blockSize;
   }
 
   /**
@@ -102,7 +162,10 @@ final class StreamEventBuffer {
    * been read from the stream.
    */
   long getEndPosition() {
-    return basePosition >= 0 ? basePosition + buffer.limit() : -1L;
+    if (basePosition < 0) {
+      return -1L;
+    }
+    return basePosition + (blockSize < 0 ? buffer.limit() : blockSize);
   }
 
   /**
@@ -120,7 +183,8 @@ final class StreamEventBuffer {
       throw new IOException("No more event in the buffer");
     }
 
-    long eventPos = basePosition + buffer.position();
+    long eventPos = getPosition();
+    eventIndex++;
     if (filter.acceptOffset(eventPos)) {
       return new PositionStreamEvent(StreamEventDataCodec.decode(decoder, defaultHeaders), timestamp, eventPos);
     }
@@ -128,6 +192,20 @@ final class StreamEventBuffer {
     return null;
   }
 
+  /**
+   * Reads exactly the given number of bytes from the input into the given array.
+   */
+  private void readFully(SeekableInputStream input, byte[] bytes, int size) throws IOException {
+    int bytesRead = 0;
+    while (bytesRead != size) {
+      int len = input.read(bytes, bytesRead, size - bytesRead);
+      if (len < 0) {
+        throw new EOFException("Expected to read " + size + ", but only " + bytesRead + " was read");
+      }
+      bytesRead += len;
+    }
+  }
+
   /**
    * Ensures that the given {@link ByteBuffer} is of sufficient size.
    *
@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.stream;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * Compression codecs that can be applied to the data blocks of a stream file.
+ * Files written with a codec other than {@link #NONE} use the version 3 stream file format.
+ */
+public enum StreamFileCompression {
+
+  NONE {
+    @Override
+    public int maxCompressedLength(int length) {
+      return length;
+    }
+
+    @Override
+    public int compress(byte[] input, int offset, int length, byte[] output) {
+      System.arraycopy(input, offset, output, 0, length);
+      return length;
+    }
+
+    @Override
+    public void decompress(byte[] input, int offset, int length, byte[] output, int rawLength) throws IOException {
+      if (length != rawLength) {
+        throw new IOException("Expected block size " + rawLength + " but got " + length);
+      }
+      System.arraycopy(input, offset, output, 0, length);
+    }
+  },
+
+  SNAPPY {
+    @Override
+    public int maxCompressedLength(int length) {
+      return Snappy.maxCompressedLength(length);
+    }
+
+    @Override
+    public int compress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      return Snappy.compress(input, offset, length, output, 0);
+    }
+
+    @Override
+    public void decompress(byte[] input, int offset, int length, byte[] output, int rawLength) throws IOException {
+      int size = Snappy.uncompress(input, offset, length, output, 0);
+      if (size != rawLength) {
+        throw new IOException("Expected uncompressed block size " + rawLength + " but got " + size);
+      }
+    }
+  },
+
+  DEFLATE {
+    @Override
+    public int maxCompressedLength(int length) {
+      // Upper bound of deflate output as computed by zlib's deflateBound(), plus the zlib wrapper
+      return length + (length >> 12) + (length >> 14) + (length >> 25) + 13 + 6;
+    }
+
+    @Override
+    public int compress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(input, offset, length);
+        deflater.finish();
+        int size = deflater.deflate(output, 0, output.length);
+        if (!deflater.finished()) {
+          throw new IOException("Insufficient buffer size for compressing " + length + " bytes");
+        }
+        return size;
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    public void decompress(byte[] input, int offset, int length, byte[] output, int rawLength) throws IOException {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(input, offset, length);
+        int size = 0;
+        while (size < rawLength && !inflater.finished()) {
+          int len = inflater.inflate(output, size, rawLength - size);
+          if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          size += len;
+        }
+        if (size != rawLength) {
+          throw new IOException("Expected uncompressed block size " + rawLength + " but got " + size);
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Failed to decompress stream data block", e);
+      } finally {
+        inflater.end();
+      }
+    }
+  };
+
+  /**
+   * Returns the maximum number of bytes that compressing the given number of bytes could produce.
+   */
+  public abstract int maxCompressedLength(int length);
+
+  /**
+   * Compresses the given bytes into the output array, starting at the beginning of the output array.
+   *
+   * @param input the array containing bytes to compress
+   * @param offset offset in the input array to start compressing from
+   * @param length number of bytes to compress
+   * @param output the output array, which must be at least {@link #maxCompressedLength(int)} in size
+   * @return number of bytes written to the output array
+   * @throws IOException if failed to compress
+   */
+  public abstract int compress(byte[] input, int offset, int length, byte[] output) throws IOException;
+
+  /**
+   * Decompresses the given bytes into the output array, starting at the beginning of the output array.
+   *
+   * @param input the array containing compressed bytes
+   * @param offset offset in the input array to start decompressing from
+   * @param length number of compressed bytes
+   * @param output the output array, which must be at least {@code rawLength} in size
+   * @param rawLength the expected number of bytes after decompression
+   * @throws IOException if failed to decompress or the decompressed size is not the same as {@code rawLength}
+   */
+  public abstract void decompress(byte[] input, int offset, int length,
+                                  byte[] output, int rawLength) throws IOException;
+
+  /**
+   * Returns the {@link StreamFileCompression} represented by the given name. The name is case insensitive.
+   * A {@code null} name is treated as {@link #NONE}.
+   *
+   * @throws IllegalArgumentException if the name is not a known compression
+   */
+  public static StreamFileCompression fromName(@Nullable String name) {
+    if (name == null) {
+      return NONE;
+    }
+    return valueOf(name.toUpperCase());
+  }
+}
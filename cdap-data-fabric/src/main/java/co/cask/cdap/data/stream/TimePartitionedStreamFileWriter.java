@@ -19,6 +19,7 @@ import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.data.file.FileWriter;
 import co.cask.cdap.data.file.PartitionedFileWriter;
 import co.cask.cdap.data.stream.TimePartitionedStreamFileWriter.TimePartition;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.OutputSupplier;
 import com.google.common.primitives.Longs;
 import org.apache.twill.filesystem.Location;
@@ -66,7 +67,13 @@ public class TimePartitionedStreamFileWriter extends PartitionedFileWriter<Strea
 
   public TimePartitionedStreamFileWriter(Location streamLocation, long partitionDuration,
                                          String fileNamePrefix, long indexInterval) {
-    super(new StreamWriterFactory(streamLocation, partitionDuration, fileNamePrefix, indexInterval));
+    this(streamLocation, partitionDuration, fileNamePrefix, indexInterval, StreamFileCompression.NONE);
+  }
+
+  public TimePartitionedStreamFileWriter(Location streamLocation, long partitionDuration,
+                                         String fileNamePrefix, long indexInterval,
+                                         StreamFileCompression compression) {
+    super(new StreamWriterFactory(streamLocation, partitionDuration, fileNamePrefix, indexInterval, compression));
     this.partitionDuration = partitionDuration;
   }
 
@@ -125,12 +132,15 @@ public class TimePartitionedStreamFileWriter extends PartitionedFileWriter<Strea
     private final long partitionDuration;
     private final String fileNamePrefix;
     private final long indexInterval;
+    private final StreamFileCompression compression;
 
-    StreamWriterFactory(Location streamLocation, long partitionDuration, String fileNamePrefix, long indexInterval) {
+    StreamWriterFactory(Location streamLocation, long partitionDuration, String fileNamePrefix, long indexInterval,
+                        StreamFileCompression compression) {
       this.streamLocation = streamLocation;
       this.partitionDuration = partitionDuration;
       this.fileNamePrefix = fileNamePrefix;
       this.indexInterval = indexInterval;
+      this.compression = compression;
     }
 
     @Override
@@ -158,7 +168,8 @@ public class TimePartitionedStreamFileWriter extends PartitionedFileWriter<Strea
       }
 
       LOG.debug("New stream file created at {}", eventFile);
-      return new StreamDataFileWriter(createOutputSupplier(eventFile), createOutputSupplier(indexFile), indexInterval);
+      return new StreamDataFileWriter(createOutputSupplier(eventFile), createOutputSupplier(indexFile),
+                                      indexInterval, ImmutableMap.<String, String>of(), compression);
     }
 
     private OutputSupplier<OutputStream> createOutputSupplier(final Location location) {
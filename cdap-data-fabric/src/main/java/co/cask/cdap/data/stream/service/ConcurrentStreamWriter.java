@@ -52,9 +52,13 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -81,15 +85,26 @@ import javax.annotation.concurrent.ThreadSafe;
  * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
  * get written and flushed.
  *
+ * When a group commit window is set, the writer in step 4 keeps polling for up to the window before the flush in
+ * step 5, so that events from more concurrent threads are persisted with the same flush. The writer only waits if
+ * the last flush persisted requests from more than one thread, and stops waiting once it has written as many
+ * requests as the last flush did.
+ *
+ * To bound memory usage, the number of bytes of events queued for each stream can be limited. A request that
+ * would exceed the limit is rejected with a {@link StreamBackpressureException}.
  */
 @ThreadSafe
 public final class ConcurrentStreamWriter implements Closeable {
 
   private static final Logger LOG = LoggerFactory.getLogger(ConcurrentStreamWriter.class);
+  // Time to park between polls of the queue while waiting for a group commit
+  private static final long GROUP_COMMIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 
   private final StreamCoordinatorClient streamCoordinatorClient;
   private final StreamAdmin streamAdmin;
   private final int workerThreads;
+  private final long groupCommitWindowNanos;
+  private final long maxQueuedBytes;
   private final StreamMetricsCollectorFactory metricsCollectorFactory;
   private final ConcurrentMap<Id.Stream, EventQueue> eventQueues;
   private final StreamFileFactory streamFileFactory;
@@ -97,12 +112,22 @@ public final class ConcurrentStreamWriter implements Closeable {
   private final List<Cancellable> cancellables;
   private final Lock createLock;
 
+  /**
+   * Creates a new instance.
+   *
+   * @param groupCommitWindowMicros maximum time in microseconds to wait for concurrent requests before a flush,
+   *                                or {@code 0} to flush without waiting
+   * @param maxQueuedBytes maximum number of bytes of events queued per stream, or {@code 0} for no limit
+   */
   ConcurrentStreamWriter(StreamCoordinatorClient streamCoordinatorClient, StreamAdmin streamAdmin,
                          StreamFileWriterFactory writerFactory, int workerThreads,
+                         long groupCommitWindowMicros, long maxQueuedBytes,
                          StreamMetricsCollectorFactory metricsCollectorFactory) {
     this.streamCoordinatorClient = streamCoordinatorClient;
     this.streamAdmin = streamAdmin;
     this.workerThreads = workerThreads;
+    this.groupCommitWindowNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitWindowMicros);
+    this.maxQueuedBytes = maxQueuedBytes;
     this.metricsCollectorFactory = metricsCollectorFactory;
     this.eventQueues = new MapMaker().concurrencyLevel(workerThreads).makeMap();
     this.streamFileFactory = new StreamFileFactory(writerFactory);
@@ -118,6 +143,7 @@ public final class ConcurrentStreamWriter implements Closeable {
    * @param headers header of the event
    * @param body content of the event
    *
+   * @throws StreamBackpressureException if too many bytes are queued for the stream
    * @throws IOException if failed to write to stream
    * @throws IllegalArgumentException If the stream doesn't exists
    */
@@ -151,6 +177,7 @@ public final class ConcurrentStreamWriter implements Closeable {
    * @param headers header of the event
    * @param body content of the event
    * @param executor The executor for performing the async write flush operation
+   * @throws StreamBackpressureException if too many bytes are queued for the stream
    * @throws IOException if fails to get stream information
    * @throws IllegalArgumentException If the stream doesn't exists
    */
@@ -368,17 +395,21 @@ public final class ConcurrentStreamWriter implements Closeable {
     private final StreamMetricsCollectorFactory.StreamMetricsCollector metricsCollector;
     private final Queue<WriteRequest> queue;
     private final AtomicBoolean writerFlag;
+    private final AtomicLong queuedBytes;
     private final WriteRequest.Metrics metrics;
     private final MutableStreamEvent streamEvent;
     private final Function<StreamEventData, StreamEvent> eventTransformer;
     private FileWriter<StreamEventData> fileWriter;
     private boolean closed;
+    // Number of requests persisted by the last flush, for deciding how long to wait for a group commit
+    private int lastFlushSize;
 
     EventQueue(Id.Stream streamId, StreamMetricsCollectorFactory.StreamMetricsCollector metricsCollector) {
       this.streamId = streamId;
       this.streamEvent = new MutableStreamEvent();
       this.queue = new ConcurrentLinkedQueue<>();
       this.writerFlag = new AtomicBoolean(false);
+      this.queuedBytes = new AtomicLong();
       this.metrics = new WriteRequest.Metrics();
       this.metricsCollector = metricsCollector;
       this.eventTransformer = new Function<StreamEventData, StreamEvent>() {
@@ -395,9 +426,11 @@ public final class ConcurrentStreamWriter implements Closeable {
      * @param headers headers of the event
      * @param body body of the event
      * @return A {@link WriteRequest} that contains the status of the request
+     * @throws StreamBackpressureException if adding the event would exceed the maximum number of queued bytes
      */
-    WriteRequest append(Map<String, String> headers, ByteBuffer body) {
+    WriteRequest append(Map<String, String> headers, ByteBuffer body) throws StreamBackpressureException {
       WriteRequest request = new SingleWriteRequest(headers, body);
+      reserve(request.getQueuedBytes());
       queue.add(request);
       return request;
     }
@@ -415,6 +448,18 @@ public final class ConcurrentStreamWriter implements Closeable {
       return request;
     }
 
+    /**
+     * Reserves the given number of bytes from the queued bytes limit. A request is always accepted if nothing is
+     * queued, so that an event larger than the limit can still be written.
+     */
+    private void reserve(int bytes) throws StreamBackpressureException {
+      long queued = queuedBytes.addAndGet(bytes);
+      if (maxQueuedBytes > 0 && queued > maxQueuedBytes && queued > bytes) {
+        queuedBytes.addAndGet(-bytes);
+        throw new StreamBackpressureException(streamId, queued - bytes, maxQueuedBytes);
+      }
+    }
+
     /**
      * Attempts to append a file to the stream.
      *
@@ -461,6 +506,8 @@ public final class ConcurrentStreamWriter implements Closeable {
     boolean tryWrite() {
       int bytesWritten = 0;
       int eventsWritten = 0;
+      int requestsFlushed = 0;
+      long flushLatencyNanos = 0L;
 
       if (!writerFlag.compareAndSet(false, true)) {
         return false;
@@ -474,36 +521,89 @@ public final class ConcurrentStreamWriter implements Closeable {
         List<WriteRequest> processQueue = Lists.newArrayListWithExpectedSize(workerThreads);
         try {
           FileWriter<StreamEventData> writer = getFileWriter();
-          WriteRequest request = queue.poll();
           streamEvent.setTimestamp(System.currentTimeMillis());
-          while (request != null) {
-            processQueue.add(request);
-            request.write(writer, metrics);
-            request = queue.poll();
-          }
-          writer.flush();
-          for (WriteRequest processed : processQueue) {
-            processed.completed(null);
+          if (writeQueued(writer, processQueue)) {
+            if (groupCommitWindowNanos > 0 && lastFlushSize > 1) {
+              waitForGroupCommit(writer, processQueue);
+            }
+            long flushStartTime = System.nanoTime();
+            writer.flush();
+            flushLatencyNanos = System.nanoTime() - flushStartTime;
+            lastFlushSize = requestsFlushed = processQueue.size();
           }
+          complete(processQueue, null);
           bytesWritten = metrics.bytesWritten;
           eventsWritten = metrics.eventsWritten;
         } catch (Throwable t) {
           // On exception, remove this EventQueue from the map and close this event queue
           eventQueues.remove(streamId, this);
           doClose();
-
-          for (WriteRequest processed : processQueue) {
-            processed.completed(t);
-          }
+          complete(processQueue, t);
         }
       } finally {
         writerFlag.set(false);
       }
 
       metricsCollector.emitMetrics(bytesWritten, eventsWritten);
+      if (requestsFlushed > 0) {
+        metricsCollector.emitFlushMetrics(TimeUnit.NANOSECONDS.toMicros(flushLatencyNanos),
+                                          requestsFlushed, queuedBytes.get());
+      }
       return true;
     }
 
+    /**
+     * Writes all requests in the queue to the given writer. This method should only be called from the writer
+     * leader thread.
+     *
+     * @param processQueue list for adding the requests polled from the queue
+     * @return true if there was any request in the queue, false otherwise
+     */
+    private boolean writeQueued(FileWriter<StreamEventData> writer,
+                                List<WriteRequest> processQueue) throws IOException {
+      WriteRequest request = queue.poll();
+      if (request == null) {
+        return false;
+      }
+      while (request != null) {
+        processQueue.add(request);
+        request.write(writer, metrics);
+        request = queue.poll();
+      }
+      return true;
+    }
+
+    /**
+     * Keeps writing requests from the queue until either the group commit window has passed or as many requests
+     * as in the last flush have been written. While the queue is empty, the thread is parked in short steps instead
+     * of spinning. This method should only be called from the writer leader thread.
+     */
+    private void waitForGroupCommit(FileWriter<StreamEventData> writer,
+                                    List<WriteRequest> processQueue) throws IOException {
+      long deadline = System.nanoTime() + groupCommitWindowNanos;
+      long remaining = groupCommitWindowNanos;
+      while (processQueue.size() < lastFlushSize && remaining > 0) {
+        if (!writeQueued(writer, processQueue)) {
+          LockSupport.parkNanos(Math.min(remaining, GROUP_COMMIT_PARK_NANOS));
+        }
+        remaining = deadline - System.nanoTime();
+      }
+    }
+
+    /**
+     * Releases the bytes reserved by the given requests and sets them to completed.
+     */
+    private void complete(List<WriteRequest> requests, @Nullable Throwable failure) {
+      long bytes = 0L;
+      for (WriteRequest request : requests) {
+        bytes += request.getQueuedBytes();
+      }
+      queuedBytes.addAndGet(-bytes);
+      for (WriteRequest request : requests) {
+        request.completed(failure);
+      }
+    }
+
     /**
      * Returns the current {@link FileWriter}. A new {@link FileWriter} will be created
      * if none existed yet. This method should only be called from the writer leader thread.
@@ -549,6 +649,7 @@ public final class ConcurrentStreamWriter implements Closeable {
       WriteRequest data = queue.poll();
       Throwable writerClosedException = new IOException("Stream writer closed").fillInStackTrace();
       while (data != null) {
+        queuedBytes.addAndGet(-data.getQueuedBytes());
         data.completed(writerClosedException);
         data = queue.poll();
       }
@@ -602,6 +703,13 @@ public final class ConcurrentStreamWriter implements Closeable {
       return failure;
     }
 
+    /**
+     * Returns the number of bytes reserved for this request from the queued bytes limit.
+     */
+    int getQueuedBytes() {
+      return 0;
+    }
+
     /**
      * Writes the data contained in this request to the given file writer.
      *
@@ -618,9 +726,16 @@ public final class ConcurrentStreamWriter implements Closeable {
   private static final class SingleWriteRequest extends WriteRequest {
 
     private final StreamEventData eventData;
+    private final int size;
 
     SingleWriteRequest(Map<String, String> headers, ByteBuffer body) {
       this.eventData = new StreamEventData(headers, body);
+      this.size = body.remaining();
+    }
+
+    @Override
+    int getQueuedBytes() {
+      return size;
     }
 
     @Override
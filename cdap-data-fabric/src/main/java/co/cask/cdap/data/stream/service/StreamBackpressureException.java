@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package co.cask.cdap.data.stream.service;
+
+import co.cask.cdap.proto.Id;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown by {@link ConcurrentStreamWriter} when a write request is rejected because too many bytes are
+ * already queued for the stream. The request can be retried later.
+ */
+public final class StreamBackpressureException extends IOException {
+
+  private final Id.Stream streamId;
+
+  public StreamBackpressureException(Id.Stream streamId, long queuedBytes, long maxQueuedBytes) {
+    super(String.format("Too many bytes queued for stream %s: %d bytes queued with a limit of %d bytes",
+                        streamId, queuedBytes, maxQueuedBytes));
+    this.streamId = streamId;
+  }
+
+  public Id.Stream getStreamId() {
+    return streamId;
+  }
+}
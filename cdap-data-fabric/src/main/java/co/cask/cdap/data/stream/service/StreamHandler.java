@@ -42,10 +42,12 @@ import co.cask.http.BodyConsumer;
 import co.cask.http.HandlerContext;
 import co.cask.http.HttpHandler;
 import co.cask.http.HttpResponder;
+import com.google.common.base.Charsets;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.io.Closeables;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -60,6 +62,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.apache.twill.common.Threads;
 import org.jboss.netty.buffer.ChannelBufferInputStream;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
@@ -134,6 +137,8 @@ public final class StreamHandler extends AbstractHttpHandler {
     StreamMetricsCollectorFactory metricsCollectorFactory = createStreamMetricsCollectorFactory();
     this.streamWriter = new ConcurrentStreamWriter(streamCoordinatorClient, streamAdmin, writerFactory,
                                                    cConf.getInt(Constants.Stream.WORKER_THREADS),
+                                                   cConf.getLong(Constants.Stream.WRITER_GROUP_COMMIT_WINDOW_MICROS),
+                                                   cConf.getLong(Constants.Stream.WRITER_MAX_QUEUED_BYTES),
                                                    metricsCollectorFactory);
     this.namespaceClient = namespaceClient;
   }
@@ -210,6 +215,8 @@ public final class StreamHandler extends AbstractHttpHandler {
     try {
       streamWriter.enqueue(streamId, getHeaders(request, stream), request.getContent().toByteBuffer());
       responder.sendStatus(HttpResponseStatus.OK);
+    } catch (StreamBackpressureException e) {
+      sendBackpressure(responder, e);
     } catch (IOException e) {
       LOG.error("Failed to write to stream {}", stream, e);
       responder.sendString(HttpResponseStatus.INTERNAL_SERVER_ERROR, e.getMessage());
@@ -224,9 +231,13 @@ public final class StreamHandler extends AbstractHttpHandler {
     Id.Stream streamId = Id.Stream.from(namespaceId, stream);
     // No need to copy the content buffer as we always uses a ChannelBufferFactory that won't reuse buffer.
     // See StreamHttpService
-    streamWriter.asyncEnqueue(streamId, getHeaders(request, stream),
-                              request.getContent().toByteBuffer(), asyncExecutor);
-    responder.sendStatus(HttpResponseStatus.ACCEPTED);
+    try {
+      streamWriter.asyncEnqueue(streamId, getHeaders(request, stream),
+                                request.getContent().toByteBuffer(), asyncExecutor);
+      responder.sendStatus(HttpResponseStatus.ACCEPTED);
+    } catch (StreamBackpressureException e) {
+      sendBackpressure(responder, e);
+    }
   }
 
   @POST
@@ -294,6 +305,18 @@ public final class StreamHandler extends AbstractHttpHandler {
     }
   }
 
+  /**
+   * Responds to a request that is rejected because too many bytes are queued for the stream. The client is told
+   * to retry after a second.
+   */
+  private void sendBackpressure(HttpResponder responder, StreamBackpressureException e) {
+    LOG.trace("Reject write to stream {}", e.getStreamId(), e);
+    streamHandlerMetricsContext.increment("collect.backpressure.reject", 1);
+    responder.sendContent(HttpResponseStatus.SERVICE_UNAVAILABLE,
+                          ChannelBuffers.wrappedBuffer(Charsets.UTF_8.encode(e.getMessage())),
+                          "text/plain; charset=utf-8", ImmutableMultimap.of(HttpHeaders.Names.RETRY_AFTER, "1"));
+  }
+
   private StreamMetricsCollectorFactory createStreamMetricsCollectorFactory() {
     return new StreamMetricsCollectorFactory() {
       @Override
@@ -312,6 +335,13 @@ public final class StreamHandler extends AbstractHttpHandler {
               childCollector.increment("collect.events", eventsWritten);
             }
           }
+
+          @Override
+          public void emitFlushMetrics(long flushLatencyMicros, int requestsFlushed, long queuedBytes) {
+            childCollector.gauge("collect.flush.latency.us", flushLatencyMicros);
+            childCollector.gauge("collect.flush.requests", requestsFlushed);
+            childCollector.gauge("collect.queued.bytes", queuedBytes);
+          }
         };
       }
     };
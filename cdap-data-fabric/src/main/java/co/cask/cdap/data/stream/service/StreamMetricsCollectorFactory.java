@@ -35,6 +35,15 @@ public interface StreamMetricsCollectorFactory {
      * @param eventsWritten number of events written to the stream
      */
     void emitMetrics(long bytesWritten, long eventsWritten);
+
+    /**
+     * Emit metrics about a flush of the stream writer.
+     *
+     * @param flushLatencyMicros time taken by the flush in microseconds
+     * @param requestsFlushed number of write requests persisted by the flush
+     * @param queuedBytes number of bytes of events that are queued but not yet persisted
+     */
+    void emitFlushMetrics(long flushLatencyMicros, int requestsFlushed, long queuedBytes);
   }
 
   /**
@@ -26,6 +26,7 @@ import co.cask.cdap.api.dataset.DatasetDefinition;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.common.lang.ClassLoaders;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
+import co.cask.cdap.data2.transaction.ReadOnlyTransactionProvider;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.tephra.TransactionAware;
 import co.cask.tephra.TransactionContext;
@@ -149,6 +150,16 @@ public abstract class DynamicDatasetCache implements DatasetProvider, Supplier<T
    */
   public abstract TransactionContext newTransactionContext();
 
+  /**
+   * Same as {@link #newTransactionContext()}, except that transactions of the returned context are read-only
+   * transactions acquired from the given {@link ReadOnlyTransactionProvider}. Those transactions are never committed.
+   *
+   * @param txProvider provider of read-only transactions
+   * @return a new transaction context
+   * @see co.cask.cdap.data2.transaction.ReadOnlyTransactionContext
+   */
+  public abstract TransactionContext newReadOnlyTransactionContext(ReadOnlyTransactionProvider txProvider);
+
   /**
    * Dismiss the current transaction context. This releases the references to the context's
    * transaction-aware datasets so that they can be collected by the garbage collector (if no one
@@ -20,6 +20,7 @@ import co.cask.cdap.api.data.DatasetInstantiationException;
 import co.cask.cdap.api.dataset.Dataset;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
+import co.cask.cdap.data2.transaction.ReadOnlyTransactionProvider;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.tephra.TransactionAware;
 import co.cask.tephra.TransactionContext;
@@ -113,6 +114,11 @@ public class MultiThreadDatasetCache extends DynamicDatasetCache {
     return entryForCurrentThread().newTransactionContext();
   }
 
+  @Override
+  public TransactionContext newReadOnlyTransactionContext(ReadOnlyTransactionProvider txProvider) {
+    return entryForCurrentThread().newReadOnlyTransactionContext(txProvider);
+  }
+
   @Override
   public void dismissTransactionContext() {
     entryForCurrentThread().dismissTransactionContext();
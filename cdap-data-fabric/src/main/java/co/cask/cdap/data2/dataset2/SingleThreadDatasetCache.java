@@ -23,6 +23,8 @@ import co.cask.cdap.api.dataset.metrics.MeteredDataset;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
+import co.cask.cdap.data2.transaction.ReadOnlyTransactionContext;
+import co.cask.cdap.data2.transaction.ReadOnlyTransactionProvider;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.tephra.Transaction;
 import co.cask.tephra.TransactionAware;
@@ -228,7 +230,14 @@ public class SingleThreadDatasetCache extends DynamicDatasetCache {
   @Override
   public TransactionContext newTransactionContext() {
     dismissTransactionContext();
-    txContext = new DelayedDiscardingTransactionContext(activeTxAwares.values(), extraTxAwares);
+    txContext = new DelayedDiscardingTransactionContext(activeTxAwares.values(), extraTxAwares, null);
+    return txContext;
+  }
+
+  @Override
+  public TransactionContext newReadOnlyTransactionContext(ReadOnlyTransactionProvider txProvider) {
+    dismissTransactionContext();
+    txContext = new DelayedDiscardingTransactionContext(activeTxAwares.values(), extraTxAwares, txProvider);
     return txContext;
   }
 
@@ -308,14 +317,19 @@ public class SingleThreadDatasetCache extends DynamicDatasetCache {
 
     private final Collection<TransactionAware> txAwares;
     private final Collection<TransactionAware> toDiscard;
+    private final ReadOnlyTransactionProvider readOnlyTxProvider;
     private TransactionContext txContext;
 
     /**
      * Constructs the context from the transaction system client (needed by TransactionContext).
+     *
+     * @param readOnlyTxProvider if non-null, transactions are read-only transactions acquired from this provider
      */
     private DelayedDiscardingTransactionContext(Collection<TransactionAware> txAwares,
-                                                Collection<TransactionAware> extraTxAwares) {
+                                                Collection<TransactionAware> extraTxAwares,
+                                                @Nullable ReadOnlyTransactionProvider readOnlyTxProvider) {
       super(txClient);
+      this.readOnlyTxProvider = readOnlyTxProvider;
       this.toDiscard = Sets.newIdentityHashSet();
       this.txAwares = Sets.newIdentityHashSet();
       this.txAwares.addAll(txAwares);
@@ -369,7 +383,11 @@ public class SingleThreadDatasetCache extends DynamicDatasetCache {
                  txContext.getCurrentTransaction().getTransactionId());
         cleanup();
       }
-      txContext = new TransactionContext(SingleThreadDatasetCache.this.txClient, txAwares);
+      if (readOnlyTxProvider == null) {
+        txContext = new TransactionContext(SingleThreadDatasetCache.this.txClient, txAwares);
+      } else {
+        txContext = new ReadOnlyTransactionContext(readOnlyTxProvider, txAwares);
+      }
       txContext.start();
     }
 
@@ -0,0 +1,251 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.cube;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Caches the time series read by {@link DefaultCube} queries for time buckets that are closed, i.e. buckets that
+ * end before the current time minus a configurable delay, which is the time given to late writes to arrive.
+ *
+ * Entries are keyed by the normalized query without its time range. Each entry covers a continuous time range of
+ * closed buckets, so that a query only needs to scan the buckets after the covered range, which are usually the
+ * latest and still open ones. The cache size is bounded by an estimate of the memory used by the entries.
+ *
+ * Writes through the owning {@link DefaultCube} invalidate the affected entries, but facts are usually written by
+ * another process. Entries therefore also expire a fixed time after they were cached, which bounds how long a
+ * fact that arrives later than the closed delay can be missing from query results.
+ */
+final class CubeQueryCache {
+
+  // Estimated memory used by a cached time value and by a cached series, in bytes
+  private static final int TIME_VALUE_SIZE = 64;
+  private static final int SERIES_SIZE = 128;
+
+  private final Cache<Key, Entry> cache;
+  private final long closedDelaySeconds;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param maxSizeBytes the maximum estimated size in bytes of the cached results
+   * @param closedDelaySeconds number of seconds after the end of a time bucket to treat the bucket as closed
+   * @param expireSeconds number of seconds after which a cached entry expires
+   */
+  CubeQueryCache(long maxSizeBytes, long closedDelaySeconds, long expireSeconds) {
+    this.closedDelaySeconds = closedDelaySeconds;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxSizeBytes)
+      .weigher(new Weigher<Key, Entry>() {
+        @Override
+        public int weigh(Key key, Entry entry) {
+          return entry.getSizeInBytes();
+        }
+      })
+      .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+      .build();
+  }
+
+  /**
+   * Returns the cached {@link Entry} for the given key or {@code null} if there is none.
+   */
+  @Nullable
+  Entry get(Key key) {
+    return cache.getIfPresent(key);
+  }
+
+  /**
+   * Caches the time values of the given series that are in closed buckets.
+   *
+   * @param startTs start of the time range of the series, inclusive
+   * @param endTs end of the time range of the series, inclusive
+   */
+  void put(Key key, long startTs, long endTs, Table<Map<String, String>, String, Map<Long, Long>> series) {
+    long closedEndTs = Math.min(getClosedEndTs(key.resolution), endTs + 1);
+    if (closedEndTs <= startTs) {
+      cache.invalidate(key);
+      return;
+    }
+    cache.put(key, new Entry(startTs, closedEndTs, copy(series, startTs, closedEndTs - 1)));
+  }
+
+  /**
+   * Invalidates the given key.
+   */
+  void invalidate(Key key) {
+    cache.invalidate(key);
+  }
+
+  /**
+   * Invalidates all entries that cover the given timestamp or any time after it. Used when a fact with the
+   * given timestamp is written through the owning cube after its time bucket may have been cached.
+   */
+  void invalidateFrom(long ts) {
+    Iterator<Map.Entry<Key, Entry>> iterator = cache.asMap().entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Key, Entry> entry = iterator.next();
+      int resolution = entry.getKey().resolution;
+      if (entry.getValue().closedEndTs > ts / resolution * resolution) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Invalidates all entries of the given resolution.
+   */
+  void invalidateResolution(int resolution) {
+    Iterator<Key> iterator = cache.asMap().keySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().resolution == resolution) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the timestamp of the first time bucket of the given resolution that is not closed.
+   */
+  long getClosedEndTs(int resolution) {
+    long ts = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - closedDelaySeconds;
+    return ts < 0 ? 0 : ts / resolution * resolution;
+  }
+
+  /**
+   * Copies the time values of the given series which are in the given inclusive time range.
+   */
+  static Table<Map<String, String>, String, Map<Long, Long>> copy(
+    Table<Map<String, String>, String, Map<Long, Long>> series, long startTs, long endTs) {
+
+    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+    for (Table.Cell<Map<String, String>, String, Map<Long, Long>> cell : series.cellSet()) {
+      Map<Long, Long> timeValues = Maps.newHashMap();
+      for (Map.Entry<Long, Long> timeValue : cell.getValue().entrySet()) {
+        if (timeValue.getKey() >= startTs && timeValue.getKey() <= endTs) {
+          timeValues.put(timeValue.getKey(), timeValue.getValue());
+        }
+      }
+      if (!timeValues.isEmpty()) {
+        result.put(cell.getRowKey(), cell.getColumnKey(), timeValues);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Cache key made of the query fields that select the time series, other than the time range.
+   */
+  static final class Key {
+    private final String aggregation;
+    private final int resolution;
+    private final List<DimensionValue> dimensionValues;
+    private final Map<String, AggregationFunction> measurements;
+    private final Collection<String> groupByDimensions;
+
+    Key(String aggregation, int resolution, List<DimensionValue> dimensionValues,
+        Map<String, AggregationFunction> measurements, Collection<String> groupByDimensions) {
+      this.aggregation = aggregation;
+      this.resolution = resolution;
+      this.dimensionValues = ImmutableList.copyOf(dimensionValues);
+      this.measurements = ImmutableSortedMap.copyOf(measurements);
+      this.groupByDimensions = ImmutableSortedSet.copyOf(groupByDimensions);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key other = (Key) o;
+      return resolution == other.resolution
+        && aggregation.equals(other.aggregation)
+        && dimensionValues.equals(other.dimensionValues)
+        && measurements.equals(other.measurements)
+        && groupByDimensions.equals(other.groupByDimensions);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(aggregation, resolution, dimensionValues, measurements, groupByDimensions);
+    }
+  }
+
+  /**
+   * The cached time series of a query for the time range [startTs, closedEndTs).
+   */
+  static final class Entry {
+    private final long startTs;
+    private final long closedEndTs;
+    private final Table<Map<String, String>, String, Map<Long, Long>> series;
+    private final int sizeInBytes;
+
+    private Entry(long startTs, long closedEndTs, Table<Map<String, String>, String, Map<Long, Long>> series) {
+      this.startTs = startTs;
+      this.closedEndTs = closedEndTs;
+      this.series = series;
+
+      long size = 0;
+      for (Map.Entry<Map<String, String>, Map<String, Map<Long, Long>>> row : series.rowMap().entrySet()) {
+        size += SERIES_SIZE * row.getKey().size();
+        for (Map<Long, Long> timeValues : row.getValue().values()) {
+          size += SERIES_SIZE + TIME_VALUE_SIZE * timeValues.size();
+        }
+      }
+      this.sizeInBytes = (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    long getStartTs() {
+      return startTs;
+    }
+
+    long getClosedEndTs() {
+      return closedEndTs;
+    }
+
+    /**
+     * Returns the cached series. The returned table must not be modified.
+     */
+    Table<Map<String, String>, String, Map<Long, Long>> getSeries() {
+      return series;
+    }
+
+    int getSizeInBytes() {
+      return sizeInBytes;
+    }
+  }
+}
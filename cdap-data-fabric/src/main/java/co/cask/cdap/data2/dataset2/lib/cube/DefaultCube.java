@@ -65,13 +65,34 @@ public class DefaultCube implements Cube {
 
   private final Map<Integer, FactTable> resolutionToFactTable;
   private final Map<String, ? extends Aggregation> aggregations;
+  @Nullable
+  private final CubeQueryCache queryCache;
 
   @Nullable
   private MetricsCollector metrics;
 
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations) {
+    this(resolutions, factTableSupplier, aggregations, 0, 0, 0);
+  }
+
+  /**
+   * Creates a {@link DefaultCube} that caches query results of closed time buckets. The cache must only be used if
+   * the underlying fact tables are not transactional, since the cached results are shared by all queries.
+   *
+   * @param queryCacheSizeBytes maximum estimated size in bytes of the cached query results, or {@code 0} to
+   *                            disable the cache
+   * @param queryCacheClosedDelaySeconds number of seconds after the end of a time bucket to treat it as closed,
+   *                                     i.e. to not expect any more writes for it
+   * @param queryCacheExpireSeconds number of seconds after which cached query results expire. It bounds how long
+   *                                facts written by other processes after the closed delay can go unnoticed.
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     long queryCacheSizeBytes, long queryCacheClosedDelaySeconds, long queryCacheExpireSeconds) {
     this.aggregations = aggregations;
+    this.queryCache = queryCacheSizeBytes > 0
+      ? new CubeQueryCache(queryCacheSizeBytes, queryCacheClosedDelaySeconds, queryCacheExpireSeconds) : null;
     this.resolutionToFactTable = Maps.newHashMap();
     for (int resolution : resolutions) {
       resolutionToFactTable.put(resolution, factTableSupplier.get(resolution, 3600));
@@ -87,7 +108,9 @@ public class DefaultCube implements Cube {
   public void add(Collection<? extends CubeFact> facts) {
     List<Fact> toWrite = Lists.newArrayList();
     int dimValuesCount = 0;
+    long minTs = Long.MAX_VALUE;
     for (CubeFact fact : facts) {
+      minTs = Math.min(minTs, fact.getTimestamp());
       for (Aggregation agg : aggregations.values()) {
         if (agg.accept(fact)) {
           List<DimensionValue> dimensionValues = Lists.newArrayList();
@@ -103,6 +126,11 @@ public class DefaultCube implements Cube {
     for (FactTable table : resolutionToFactTable.values()) {
       table.add(toWrite);
     }
+    // drop cached query results that may not include the written facts. Facts written by other cube instances
+    // are only picked up once the cached results expire.
+    if (queryCache != null && !facts.isEmpty()) {
+      queryCache.invalidateFrom(minTs);
+    }
 
     incrementMetric("cube.cubeFact.add.request.count", 1);
     incrementMetric("cube.cubeFact.added.count", facts.size());
@@ -191,13 +219,17 @@ public class DefaultCube implements Cube {
       dimensionValues.add(new DimensionValue(dimensionName, query.getDimensionValues().get(dimensionName)));
     }
 
-    FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
-                                 query.getMeasurements().keySet(), dimensionValues);
-
     // 3) execute scan query
     FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    Table<Map<String, String>, String, Map<Long, Long>> resultMap;
+    if (queryCache == null) {
+      FactScan scan = new FactScan(query.getStartTs(), query.getEndTs(),
+                                   query.getMeasurements().keySet(), dimensionValues);
+      resultMap = HashBasedTable.create();
+      getTimeSeries(query, table.scan(scan), resultMap);
+    } else {
+      resultMap = getTimeSeriesWithCache(query, aggName, dimensionValues, table);
+    }
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -225,6 +257,9 @@ public class DefaultCube implements Cube {
         factTable.delete(scan);
       }
     }
+    if (queryCache != null) {
+      queryCache.invalidateResolution(query.getResolution());
+    }
   }
 
   @Override
@@ -315,10 +350,62 @@ public class DefaultCube implements Cube {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
-    // {dimension values, measure} -> {time -> value}s
-    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+  /**
+   * Reads the time series of the given query, using the query cache for the closed time buckets. Only the time
+   * range after the cached time range is scanned, and the result is cached again for subsequent queries.
+   */
+  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeriesWithCache(
+    CubeQuery query, String aggName, List<DimensionValue> dimensionValues, FactTable table) {
+
+    CubeQueryCache.Key key = new CubeQueryCache.Key(aggName, query.getResolution(), dimensionValues,
+                                                    query.getMeasurements(), query.getGroupByDimensions());
+    CubeQueryCache.Entry entry = queryCache.get(key);
+
+    Table<Map<String, String>, String, Map<Long, Long>> result;
+    long scanStartTs = query.getStartTs();
+    if (entry != null && entry.getStartTs() <= query.getStartTs() && entry.getClosedEndTs() > query.getStartTs()) {
+      incrementMetric("cube.query.cache.hit.count", 1);
+      result = CubeQueryCache.copy(entry.getSeries(), query.getStartTs(), query.getEndTs());
+      scanStartTs = entry.getClosedEndTs();
+      if (scanStartTs > query.getEndTs()) {
+        return result;
+      }
+    } else {
+      incrementMetric("cube.query.cache.miss.count", 1);
+      result = HashBasedTable.create();
+    }
 
+    FactScan scan = new FactScan(scanStartTs, query.getEndTs(), query.getMeasurements().keySet(), dimensionValues);
+    Table<Map<String, String>, String, Map<Long, Long>> scanned = HashBasedTable.create();
+    boolean complete = getTimeSeries(query, table.scan(scan), scanned);
+
+    // The cached and the scanned time ranges don't overlap, hence time values can simply be added
+    for (Table.Cell<Map<String, String>, String, Map<Long, Long>> cell : scanned.cellSet()) {
+      Map<Long, Long> timeValues = result.get(cell.getRowKey(), cell.getColumnKey());
+      if (timeValues == null) {
+        result.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+      } else {
+        timeValues.putAll(cell.getValue());
+      }
+    }
+
+    if (complete) {
+      queryCache.put(key, query.getStartTs(), query.getEndTs(), result);
+    } else {
+      // don't cache partial results
+      queryCache.invalidate(key);
+    }
+    return result;
+  }
+
+  /**
+   * Reads time series from the given scanner into the given table of
+   * {dimension values, measure} -> {time -> value}s.
+   *
+   * @return {@code true} if all records were read, {@code false} if reading stopped at the scan limit
+   */
+  private boolean getTimeSeries(CubeQuery query, FactScanner scanner,
+                                Table<Map<String, String>, String, Map<Long, Long>> result) {
     int count = 0;
     while (scanner.hasNext()) {
       FactScanResult next = scanner.next();
@@ -380,10 +467,10 @@ public class DefaultCube implements Cube {
         }
       }
       if (++count >= MAX_RECORDS_TO_SCAN) {
-        break;
+        return !scanner.hasNext();
       }
     }
-    return result;
+    return true;
   }
 
   private Collection<TimeSeries> convertToQueryResult(CubeQuery query,
@@ -42,13 +42,17 @@ import co.cask.cdap.api.dataset.lib.Partitioning;
 import co.cask.cdap.api.dataset.lib.Partitioning.FieldType;
 import co.cask.cdap.api.dataset.table.Put;
 import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.Scan;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.utils.ImmutablePair;
+import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import co.cask.cdap.explore.client.ExploreFacade;
 import co.cask.cdap.proto.Id;
 import co.cask.tephra.Transaction;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -60,6 +64,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -101,6 +106,11 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
   // by adding the partition in the onSuccess() of this dataset, map/reduce programs do not need to do that in
   // their onFinish() any longer. But existing map/reduce programs may still do that, and would now fail.
   private final Map<String, PartitionKey> partitionsAddedInSameTx = Maps.newHashMap();
+
+  // Partitions read by getPartitions() in the current transaction, keyed by the partition filter. The cache is
+  // cleared at transaction boundaries and whenever this dataset modifies the partitions table, hence repeated
+  // lookups within a transaction see the same result as a scan of the partitions table would.
+  private final Map<PartitionFilter, CachedPartitions> partitionsCache = Maps.newHashMap();
   private Transaction tx;
 
   // this will store the result of filterInputPaths() after it is called (the result is needed by
@@ -125,6 +135,7 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
   @Override
   public void startTx(Transaction tx) {
     partitionsAddedInSameTx.clear();
+    partitionsCache.clear();
     super.startTx(tx);
     this.tx = tx;
   }
@@ -132,12 +143,14 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
   @Override
   public boolean commitTx() throws Exception {
     this.tx = null;
+    partitionsCache.clear();
     return super.commitTx();
   }
 
   @Override
   public boolean rollbackTx() throws Exception {
     this.tx = null;
+    partitionsCache.clear();
     return super.rollbackTx();
   }
 
@@ -194,6 +207,7 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
 
     partitionsTable.put(put);
     partitionsAddedInSameTx.put(path, key);
+    partitionsCache.clear();
 
 
     if (explorable) {
@@ -360,6 +374,7 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
     Put put = new Put(rowKey);
     addMetadataToPut(metadata, put);
     partitionsTable.put(put);
+    partitionsCache.clear();
   }
 
   private void addMetadataToPut(Map<String, String> metadata, Put put) {
@@ -406,6 +421,7 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
       }
     }
     partitionsTable.delete(rowKey);
+    partitionsCache.clear();
     dropPartitionFromExplore(key);
     // TODO: make DDL operations transactional [CDAP-1393]
   }
@@ -485,9 +501,24 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
   // if decodeMetadata is false, null is passed as the PartitionMetadata to the PartitionConsumer,
   // for efficiency reasons, since the metadata is not always needed
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata) {
+    CachedPartitions cached = partitionsCache.get(filter);
+    if (cached == null || (decodeMetadata && !cached.hasMetadata)) {
+      cached = scanPartitions(filter, decodeMetadata);
+      // only cache within a transaction, since the cache is invalidated at transaction boundaries
+      if (tx != null) {
+        partitionsCache.put(filter, cached);
+      }
+    }
+    for (CachedPartition partition : cached.partitions) {
+      consumer.consume(partition.key, partition.path, decodeMetadata ? partition.metadata : null);
+    }
+  }
+
+  private CachedPartitions scanPartitions(@Nullable PartitionFilter filter, boolean decodeMetadata) {
+    List<CachedPartition> partitions = Lists.newArrayList();
     byte[] startKey = generateStartKey(filter);
     byte[] endKey = generateStopKey(filter);
-    Scanner scanner = partitionsTable.scan(startKey, endKey);
+    Scanner scanner = partitionsTable.scan(new Scan(startKey, endKey, generateFuzzyRowFilter(filter)));
     try {
       while (true) {
         Row row = scanner.next();
@@ -509,12 +540,14 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
         }
         byte[] pathBytes = row.get(RELATIVE_PATH);
         if (pathBytes != null) {
-          consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
+          partitions.add(new CachedPartition(key, Bytes.toString(pathBytes),
+                                             decodeMetadata ? metadataFromRow(row) : null));
         }
       }
     } finally {
       scanner.close();
     }
+    return new CachedPartitions(partitions, decodeMetadata);
   }
 
   private PartitionMetadata metadataFromRow(Row row) {
@@ -826,6 +859,75 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
     return stopKey;
   }
 
+  /**
+   * Generates a {@link FuzzyRowFilter} for the single value conditions of a partition filter that are not covered by
+   * the start and stop key of the scan, so that non-matching rows are skipped by the table instead of being returned
+   * and matched here. A field can only be part of the fuzzy row key if all fields before it have a known length,
+   * that is, they either have a single value condition or are of a fixed length type.
+   *
+   * @return the fuzzy row filter, or {@code null} if it would not filter any more rows than the start and stop key
+   */
+  @Nullable
+  private FuzzyRowFilter generateFuzzyRowFilter(@Nullable PartitionFilter filter) {
+    if (null == filter) {
+      return null;
+    }
+    List<byte[]> keyParts = Lists.newArrayList();
+    List<byte[]> maskParts = Lists.newArrayList();
+    int totalSize = 0;
+    boolean inStartKey = true;   // whether all fields so far are covered by the start and stop key
+    boolean needFilter = false;  // whether there is a single value condition not covered by the start and stop key
+    for (Map.Entry<String, FieldType> entry : partitioning.getFields().entrySet()) {
+      String fieldName = entry.getKey();
+      FieldType fieldType = entry.getValue();
+      if (totalSize > 0) {
+        // the \0 separator between fields is fixed
+        keyParts.add(new byte[1]);
+        maskParts.add(new byte[1]);
+        totalSize++;
+      }
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(fieldName);
+      if (condition != null && condition.isSingleValue()) {
+        Comparable value = condition.getValue();
+        if (!FieldTypes.validateType(value, fieldType)) {
+          return null; // leave it to the client side matching to deal with the invalid condition
+        }
+        byte[] bytes = FieldTypes.toBytes(value, fieldType);
+        keyParts.add(bytes);
+        maskParts.add(new byte[bytes.length]); // all bytes are fixed
+        totalSize += bytes.length;
+        needFilter = needFilter || !inStartKey;
+        continue;
+      }
+
+      inStartKey = false;
+      int size;
+      switch (fieldType) {
+        case INT:
+          size = Bytes.SIZEOF_INT;
+          break;
+        case LONG:
+          size = Bytes.SIZEOF_LONG;
+          break;
+        default:
+          size = -1;
+      }
+      if (size < 0) {
+        break; // the position of the following fields in the row key is unknown
+      }
+      byte[] mask = new byte[size];
+      Arrays.fill(mask, (byte) 1); // all bytes are not fixed
+      keyParts.add(new byte[size]);
+      maskParts.add(mask);
+      totalSize += size;
+    }
+    if (!needFilter) {
+      return null;
+    }
+    return new FuzzyRowFilter(ImmutableList.of(ImmutablePair.of(Bytes.concat(keyParts.toArray(new byte[0][])),
+                                                                Bytes.concat(maskParts.toArray(new byte[0][])))));
+  }
+
   @VisibleForTesting
   static PartitionKey parseRowKey(byte[] rowKey, Partitioning partitioning) {
     PartitionKey.Builder builder = PartitionKey.builder();
@@ -867,6 +969,34 @@ public class PartitionedFileSetDataset extends AbstractDataset implements Partit
     return builder.build();
   }
 
+  /**
+   * A partition read from the partitions table, kept in the per transaction partitions cache.
+   */
+  private static final class CachedPartition {
+    private final PartitionKey key;
+    private final String path;
+    private final PartitionMetadata metadata;
+
+    private CachedPartition(PartitionKey key, String path, @Nullable PartitionMetadata metadata) {
+      this.key = key;
+      this.path = path;
+      this.metadata = metadata;
+    }
+  }
+
+  /**
+   * Result of a scan of the partitions table for a partition filter.
+   */
+  private static final class CachedPartitions {
+    private final List<CachedPartition> partitions;
+    private final boolean hasMetadata;
+
+    private CachedPartitions(List<CachedPartition> partitions, boolean hasMetadata) {
+      this.partitions = partitions;
+      this.hasMetadata = hasMetadata;
+    }
+  }
+
   /**
    * Simple Implementation of PartitionOutput.
    */
@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link TableWriteBuffer} that appends every write as row/column/value slices of a single growing byte array.
+ *
+ * Writes are cheap appends without per-cell map entries. The sorted view is only built when the buffer is read
+ * or drained:
+ * <ul>
+ *   <li>The first read sorts all writes once and builds compact immutable sorted maps. For transactions that only
+ *       write, this happens once when computing transaction changes and the same maps are used for persisting.</li>
+ *   <li>If there are more writes after that, the view is turned into mutable sorted maps, and writes are applied
+ *       to it lazily on the next read, so that interleaved reads and writes don't re-sort the whole buffer.</li>
+ * </ul>
+ */
+final class ArenaTableWriteBuffer extends TableWriteBuffer {
+
+  private static final int INITIAL_ARENA_SIZE = 4096;
+  private static final int INITIAL_ENTRIES = 64;
+  // Maximum capacity kept when the buffer is reset, so that a large transaction doesn't pin its memory
+  // for the lifetime of the table
+  private static final int MAX_RETAINED_ARENA_SIZE = 1024 * 1024;
+  private static final int MAX_RETAINED_ENTRIES = 16 * 1024;
+
+  // Number of ints per entry in the slices array: row offset, row length, column offset, column length,
+  // value offset, value length. A value length of -1 means delete, -2 means increment.
+  private static final int SLICE_INTS = 6;
+  private static final int DELETE = -1;
+  private static final int INCREMENT = -2;
+
+  private byte[] arena;
+  private int arenaSize;
+  private int[] slices;
+  private long[] amounts;
+  private int entries;
+
+  // Offset and length of the row of the last entry, for sharing the row bytes among consecutive writes to a row
+  private int lastRowOffset;
+  private int lastRowLength;
+
+  // Sorted view of the entries [0, viewEntries). It is null if the buffer was never read since last reset.
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> view;
+  private int viewEntries;
+  private boolean mutableView;
+
+  ArenaTableWriteBuffer() {
+    this.arena = new byte[INITIAL_ARENA_SIZE];
+    this.slices = new int[INITIAL_ENTRIES * SLICE_INTS];
+    this.amounts = new long[INITIAL_ENTRIES];
+    this.lastRowOffset = -1;
+  }
+
+  @Nullable
+  @Override
+  NavigableMap<byte[], Update> getRow(byte[] row) {
+    return getRows().get(row);
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> getRows() {
+    if (view != null && viewEntries == entries) {
+      return view;
+    }
+    if (view == null) {
+      view = buildSorted();
+      viewEntries = entries;
+      return view;
+    }
+    if (!mutableView) {
+      view = toMutable(view);
+      mutableView = true;
+    }
+    // Apply pending writes in the order they were written
+    for (int i = viewEntries; i < entries; i++) {
+      byte[] row = getRowKey(i);
+      NavigableMap<byte[], Update> colVals = view.get(row);
+      if (colVals == null) {
+        colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        view.put(row, colVals);
+      }
+      byte[] column = getColumnKey(i);
+      colVals.put(column, Updates.mergeUpdates(colVals.get(column), getUpdate(i)));
+    }
+    viewEntries = entries;
+    return view;
+  }
+
+  @Override
+  void put(byte[] row, byte[] column, @Nullable byte[] value) {
+    int index = append(row, column);
+    if (value == null) {
+      slices[index * SLICE_INTS + 4] = 0;
+      slices[index * SLICE_INTS + 5] = DELETE;
+    } else {
+      slices[index * SLICE_INTS + 4] = appendBytes(value);
+      slices[index * SLICE_INTS + 5] = value.length;
+    }
+  }
+
+  @Override
+  void increment(byte[] row, byte[] column, long amount) {
+    int index = append(row, column);
+    slices[index * SLICE_INTS + 4] = 0;
+    slices[index * SLICE_INTS + 5] = INCREMENT;
+    amounts[index] = amount;
+  }
+
+  @Override
+  boolean isEmpty() {
+    return entries == 0;
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> drain() {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> result = getRows();
+    reset();
+    return result;
+  }
+
+  @Override
+  void clear() {
+    reset();
+  }
+
+  @Override
+  long getSizeInBytes() {
+    return arenaSize + (long) entries * Bytes.SIZEOF_LONG;
+  }
+
+  /**
+   * Sorts all entries by row and column and builds immutable sorted maps from them.
+   * Entries of the same cell are merged in the order they were written.
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> buildSorted() {
+    List<Integer> order = Lists.newArrayListWithCapacity(entries);
+    for (int i = 0; i < entries; i++) {
+      order.add(i);
+    }
+    // Collections.sort is stable, hence writes to the same cell stay in the written order
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer left, Integer right) {
+        int cmp = compareSlice(left, right, 0);
+        return cmp != 0 ? cmp : compareSlice(left, right, 2);
+      }
+    });
+
+    ImmutableSortedMap.Builder<byte[], NavigableMap<byte[], Update>> rows =
+      ImmutableSortedMap.orderedBy(Bytes.BYTES_COMPARATOR);
+    int i = 0;
+    while (i < entries) {
+      int rowStart = order.get(i);
+      ImmutableSortedMap.Builder<byte[], Update> columns = ImmutableSortedMap.orderedBy(Bytes.BYTES_COMPARATOR);
+      while (i < entries && compareSlice(rowStart, order.get(i), 0) == 0) {
+        int cell = order.get(i);
+        Update update = getUpdate(cell);
+        i++;
+        while (i < entries && compareSlice(cell, order.get(i), 0) == 0 && compareSlice(cell, order.get(i), 2) == 0) {
+          update = Updates.mergeUpdates(update, getUpdate(order.get(i)));
+          i++;
+        }
+        columns.put(getColumnKey(cell), update);
+      }
+      rows.put(getRowKey(rowStart), columns.build());
+    }
+    return rows.build();
+  }
+
+  /**
+   * Copies the given immutable view into mutable maps that new writes can be applied to.
+   */
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> toMutable(
+    NavigableMap<byte[], NavigableMap<byte[], Update>> rows) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> result = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : rows.entrySet()) {
+      NavigableMap<byte[], Update> colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      colVals.putAll(entry.getValue());
+      result.put(entry.getKey(), colVals);
+    }
+    return result;
+  }
+
+  /**
+   * Appends the row and column of a new entry and returns the entry index.
+   */
+  private int append(byte[] row, byte[] column) {
+    if (entries == amounts.length) {
+      slices = Arrays.copyOf(slices, slices.length * 2);
+      amounts = Arrays.copyOf(amounts, amounts.length * 2);
+    }
+    int index = entries++;
+    int base = index * SLICE_INTS;
+
+    // Share the row bytes with the previous entry if it is the same row
+    if (lastRowOffset < 0 || Bytes.compareTo(arena, lastRowOffset, lastRowLength, row, 0, row.length) != 0) {
+      lastRowOffset = appendBytes(row);
+      lastRowLength = row.length;
+    }
+    slices[base] = lastRowOffset;
+    slices[base + 1] = lastRowLength;
+    slices[base + 2] = appendBytes(column);
+    slices[base + 3] = column.length;
+    return index;
+  }
+
+  /**
+   * Copies the given bytes to the end of the arena and returns the offset in the arena.
+   */
+  private int appendBytes(byte[] bytes) {
+    if (arenaSize + bytes.length > arena.length) {
+      arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + bytes.length));
+    }
+    int offset = arenaSize;
+    System.arraycopy(bytes, 0, arena, offset, bytes.length);
+    arenaSize += bytes.length;
+    return offset;
+  }
+
+  /**
+   * Compares a slice of two entries.
+   *
+   * @param sliceIdx 0 to compare rows, 2 to compare columns
+   */
+  private int compareSlice(int left, int right, int sliceIdx) {
+    int leftBase = left * SLICE_INTS + sliceIdx;
+    int rightBase = right * SLICE_INTS + sliceIdx;
+    return Bytes.compareTo(arena, slices[leftBase], slices[leftBase + 1],
+                           arena, slices[rightBase], slices[rightBase + 1]);
+  }
+
+  private byte[] getRowKey(int index) {
+    int base = index * SLICE_INTS;
+    return Arrays.copyOfRange(arena, slices[base], slices[base] + slices[base + 1]);
+  }
+
+  private byte[] getColumnKey(int index) {
+    int base = index * SLICE_INTS + 2;
+    return Arrays.copyOfRange(arena, slices[base], slices[base] + slices[base + 1]);
+  }
+
+  private Update getUpdate(int index) {
+    int base = index * SLICE_INTS + 4;
+    int length = slices[base + 1];
+    if (length == INCREMENT) {
+      return new IncrementValue(amounts[index]);
+    }
+    if (length == DELETE) {
+      return new PutValue(null);
+    }
+    return new PutValue(Arrays.copyOfRange(arena, slices[base], slices[base] + length));
+  }
+
+  @VisibleForTesting
+  int getArenaCapacity() {
+    return arena.length;
+  }
+
+  @VisibleForTesting
+  int getEntriesCapacity() {
+    return amounts.length;
+  }
+
+  private void reset() {
+    if (arena.length > MAX_RETAINED_ARENA_SIZE) {
+      arena = new byte[INITIAL_ARENA_SIZE];
+    }
+    if (amounts.length > MAX_RETAINED_ENTRIES) {
+      slices = new int[INITIAL_ENTRIES * SLICE_INTS];
+      amounts = new long[INITIAL_ENTRIES];
+    }
+    arenaSize = 0;
+    entries = 0;
+    lastRowOffset = -1;
+    view = null;
+    viewEntries = 0;
+    mutableView = false;
+  }
+}
@@ -49,7 +49,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import javax.annotation.Nullable;
 
 /**
@@ -93,7 +92,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
   // that the corresponded column was removed.
-  private NavigableMap<byte[], NavigableMap<byte[], Update>> buff;
+  private TableWriteBuffer buff;
 
   // Keeps track of what was persisted so far
   private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
@@ -132,6 +131,21 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
    */
   public BufferingTable(String name, ConflictDetection level, boolean enableReadlessIncrements,
                         @Nullable Schema schema, @Nullable String rowFieldName) {
+    this(name, level, enableReadlessIncrements, schema, rowFieldName, TableWriteBuffer.Type.SORTED_MAP);
+  }
+
+  /**
+   * Creates an instance of {@link BufferingTable}.
+   *
+   * @param name the name of the table
+   * @param level the conflict detection level
+   * @param enableReadlessIncrements whether or not readless increments are enabled
+   * @param schema the schema of the table, or null if there is no schema
+   * @param rowFieldName the name of the schema field that the row key maps to, or null if there is none
+   * @param bufferType the type of in-memory buffer for keeping writes of a transaction
+   */
+  public BufferingTable(String name, ConflictDetection level, boolean enableReadlessIncrements,
+                        @Nullable Schema schema, @Nullable String rowFieldName, TableWriteBuffer.Type bufferType) {
     super(schema, rowFieldName);
     // for optimization purposes we don't allow table name of length greater than Byte.MAX_VALUE
     Preconditions.checkArgument(name.length() < Byte.MAX_VALUE,
@@ -144,7 +158,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     // we want it to be of format length+value to avoid conflicts like table="ab", row="cd" vs table="abc", row="d"
     // Default uses the above scheme. Subclasses can change it by overriding the #getNameAsTxChangePrefix method
     this.nameAsTxChangePrefix = Bytes.add(new byte[]{(byte) name.length()}, Bytes.toBytes(name));
-    this.buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    this.buff = TableWriteBuffer.create(bufferType);
   }
 
   /**
@@ -301,8 +315,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getRowChanges() {
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (byte[] changedRow : buff.keySet()) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> rows = buff.getRows();
+    List<byte[]> changes = new ArrayList<>(rows.size());
+    for (byte[] changedRow : rows.keySet()) {
       changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
     }
     return changes;
@@ -310,8 +325,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getColumnChanges() {
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> rows = buff.getRows();
+    List<byte[]> changes = new ArrayList<>(rows.size());
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : rows.entrySet()) {
       if (rowChange.getValue() == null) {
         // NOTE: as of now we cannot detect conflict between delete whole row and row's column value change.
         //       this is not a big problem as of now, as row deletion is now act as deletion of every column, but this
@@ -332,13 +348,11 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public boolean commitTx() throws Exception {
     if (!buff.isEmpty()) {
+      reportBufferSize(buff.getSizeInBytes());
       // We first assume that all data will be persisted. So that if exception happen during persist we try to
       // rollback everything we had in in-memory buffer.
-      toUndo = buff;
-      // clearing up in-memory buffer by initializing new map.
-      // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
-      // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
-      buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+      // Draining the buffer also clears it up for the next tx.
+      toUndo = buff.drain();
       // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
       //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
       persist(toUndo);
@@ -394,7 +408,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   public Row get(byte[] row, byte[] startColumn, byte[] stopColumn, int limit) {
     reportRead(1);
     // checking if the row was deleted inside this tx
-    NavigableMap<byte[], Update> buffCols = buff.get(row);
+    NavigableMap<byte[], Update> buffCols = buff.getRow(row);
 
     // NOTE: since we cannot tell the exact column set, we always have to go to persisted store.
     //       potential improvement: do not fetch columns available in in-mem buffer (we know them at this point)
@@ -444,7 +458,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
         rowColumns.putAll(persistedRow);
 
         byte[] row = get.getRow();
-        NavigableMap<byte[], Update> buffCols = buff.get(row);
+        NavigableMap<byte[], Update> buffCols = buff.getRow(row);
 
         // merge what was in the buffer and what was persisted
         if (buffCols != null) {
@@ -475,23 +489,13 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private void putInternal(byte[] row, byte[][] columns, byte[][] values) {
-    NavigableMap<byte[], Update> colVals = buff.get(row);
-    boolean newRow = false;
-    if (colVals == null) {
-      colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      newRow = true;
-    }
     for (int i = 0; i < columns.length; i++) {
-      // NOTE: we copy passed column's and value's byte arrays to protect buffer against possible changes of these
-      // arrays on client
       if (values[i] != null && values[i].length == 0) {
         LOG.warn("Write of an empty value is not supported");
       }
-      colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
-    }
-    if (newRow) {
-      // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
-      buff.put(copy(row), colVals);
+      // NOTE: the buffer copies passed row's, column's and value's byte arrays to protect itself against
+      // possible changes of these arrays on client
+      buff.put(row, columns[i], values[i]);
     }
   }
 
@@ -583,13 +587,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
     if (enableReadlessIncrements) {
-      NavigableMap<byte[], Update> colVals = buff.get(row);
-      if (colVals == null) {
-        colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        buff.put(row, colVals);
-      }
       for (int i = 0; i < columns.length; i++) {
-        colVals.put(columns[i], Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i])));
+        buff.increment(row, columns[i], amounts[i]);
       }
       reportWrite(1, getSize(row) + getSize(columns) + getSize(amounts));
     } else {
@@ -662,17 +661,15 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private NavigableMap<byte[], NavigableMap<byte[], Update>> scanBuffer(Scan scan) {
-    NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap;
+    NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap = buff.getRows();
     byte[] startRow = scan.getStartRow();
     byte[] stopRow = scan.getStopRow();
-    if (startRow == null && stopRow == null) {
-      bufferMap = buff;
-    } else if (startRow == null) {
-      bufferMap = buff.headMap(stopRow, false);
-    } else if (stopRow == null) {
-      bufferMap = buff.tailMap(startRow, true);
-    } else {
-      bufferMap = buff.subMap(startRow, true, stopRow, false);
+    if (startRow == null && stopRow != null) {
+      bufferMap = bufferMap.headMap(stopRow, false);
+    } else if (startRow != null && stopRow == null) {
+      bufferMap = bufferMap.tailMap(startRow, true);
+    } else if (startRow != null) {
+      bufferMap = bufferMap.subMap(startRow, true, stopRow, false);
     }
     bufferMap = applyFilter(bufferMap, scan.getFilter());
     return bufferMap;
@@ -701,13 +698,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Map<byte[], byte[]> getRowMap(byte[] row) throws Exception {
     NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    // checking if the row was deleted inside this tx
-    NavigableMap<byte[], Update> buffCols = buff.get(row);
-    boolean rowDeleted = buffCols == null && buff.containsKey(row);
-    if (rowDeleted) {
-      return Collections.emptyMap();
-    }
-
+    NavigableMap<byte[], Update> buffCols = buff.getRow(row);
     Map<byte[], byte[]> persisted = getPersisted(row, null);
 
 
@@ -722,8 +713,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Map<byte[], byte[]> getRowMap(byte[] row, byte[][] columns) throws Exception {
     NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    // checking if the row was deleted inside this tx
-    NavigableMap<byte[], Update> buffCols = buff.get(row);
+    NavigableMap<byte[], Update> buffCols = buff.getRow(row);
 
     // if nothing locally, return all from server
     if (buffCols == null) {
@@ -885,6 +875,12 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  private void reportBufferSize(long bytes) {
+    if (metricsCollector != null) {
+      metricsCollector.increment(Constants.Metrics.Name.Dataset.BUFFER_BYTES, bytes);
+    }
+  }
+
   private void reportRead(int numOps) {
     if (metricsCollector != null) {
       // todo: report amount of data being read
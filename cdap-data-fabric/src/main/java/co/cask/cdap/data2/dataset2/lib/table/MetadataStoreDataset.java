@@ -23,7 +23,9 @@ import co.cask.cdap.api.dataset.table.Put;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.api.dataset.table.Table;
+import co.cask.cdap.common.io.Codec;
 import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
@@ -31,13 +33,19 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
- * Handy dataset to be used for managing metadata
+ * Handy dataset to be used for managing metadata.
+ *
+ * Values are stored as JSON by default. Types that are read often can have a binary {@link Codec} registered with
+ * {@link #addCodec(Class, Codec)}. Values of those types are then written with the codec, prefixed by a marker byte
+ * that never starts a JSON value, so that rows written as JSON before the codec was added can still be read.
  */
 public class MetadataStoreDataset extends AbstractDataset {
   private static final Gson GSON = new Gson();
@@ -45,12 +53,25 @@ public class MetadataStoreDataset extends AbstractDataset {
    * All rows we store use single column of this name.
    */
   private static final byte[] COLUMN = Bytes.toBytes("c");
+  /**
+   * First byte of values encoded with a binary {@link Codec}.
+   */
+  private static final byte BINARY_MARKER = 0;
 
   private final Table table;
+  private final Map<Type, Codec<?>> codecs;
 
   public MetadataStoreDataset(Table table) {
     super("ignored", table);
     this.table = table;
+    this.codecs = Maps.newHashMap();
+  }
+
+  /**
+   * Registers a binary {@link Codec} to use for values of the given type, instead of JSON.
+   */
+  protected <T> void addCodec(Class<T> type, Codec<T> codec) {
+    codecs.put(type, codec);
   }
 
   protected <T> byte[] serialize(T value) {
@@ -61,6 +82,29 @@ public class MetadataStoreDataset extends AbstractDataset {
     return GSON.fromJson(Bytes.toString(serialized), typeOfT);
   }
 
+  private <T> byte[] encode(T value) throws IOException {
+    @SuppressWarnings("unchecked")
+    Codec<T> codec = (Codec<T>) codecs.get(value.getClass());
+    if (codec == null) {
+      return serialize(value);
+    }
+    return Bytes.concat(new byte[] { BINARY_MARKER }, codec.encode(value));
+  }
+
+  private <T> T decode(byte[] value, Type typeOfT) {
+    if (value.length == 0 || value[0] != BINARY_MARKER) {
+      return deserialize(value, typeOfT);
+    }
+    @SuppressWarnings("unchecked")
+    Codec<T> codec = (Codec<T>) codecs.get(typeOfT);
+    Preconditions.checkState(codec != null, "No codec for decoding binary value of type %s", typeOfT);
+    try {
+      return codec.decode(Arrays.copyOfRange(value, 1, value.length));
+    } catch (IOException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
   public boolean exists(MDSKey id) {
     Row row = table.get(id.getKey());
     if (row.isEmpty()) {
@@ -87,7 +131,7 @@ public class MetadataStoreDataset extends AbstractDataset {
       return null;
     }
 
-    return deserialize(value, typeOfT);
+    return decode(value, typeOfT);
   }
 
   // returns first that matches
@@ -106,7 +150,7 @@ public class MetadataStoreDataset extends AbstractDataset {
           return null;
         }
 
-        return deserialize(value, typeOfT);
+        return decode(value, typeOfT);
       } finally {
         scan.close();
       }
@@ -157,7 +201,7 @@ public class MetadataStoreDataset extends AbstractDataset {
           if (columnValue == null) {
             continue;
           }
-          T value = deserialize(columnValue, typeOfT);
+          T value = decode(columnValue, typeOfT);
 
           if (filter.apply(value)) {
             MDSKey key = new MDSKey(next.getRow());
@@ -197,7 +241,7 @@ public class MetadataStoreDataset extends AbstractDataset {
         if (columnValue == null) {
           continue;
         }
-        T value = deserialize(columnValue, typeOfT);
+        T value = decode(columnValue, typeOfT);
 
         MDSKey key = new MDSKey(next.getRow());
         //noinspection ConstantConditions
@@ -258,7 +302,7 @@ public class MetadataStoreDataset extends AbstractDataset {
 
   public <T> void write(MDSKey id, T value) {
     try {
-      table.put(new Put(id.getKey()).add(COLUMN, serialize(value)));
+      table.put(new Put(id.getKey()).add(COLUMN, encode(value)));
     } catch (Exception e) {
       throw Throwables.propagate(e);
     }
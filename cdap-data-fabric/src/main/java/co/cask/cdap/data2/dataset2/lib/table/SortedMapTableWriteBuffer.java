@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link TableWriteBuffer} that keeps writes in a {@link ConcurrentSkipListMap} of row to sorted column map.
+ */
+final class SortedMapTableWriteBuffer extends TableWriteBuffer {
+
+  private NavigableMap<byte[], NavigableMap<byte[], Update>> buff;
+  private long size;
+
+  SortedMapTableWriteBuffer() {
+    this.buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+  }
+
+  @Nullable
+  @Override
+  NavigableMap<byte[], Update> getRow(byte[] row) {
+    return buff.get(row);
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> getRows() {
+    return buff;
+  }
+
+  @Override
+  void put(byte[] row, byte[] column, @Nullable byte[] value) {
+    // NOTE: we copy passed row, column and value byte arrays to protect buffer against possible changes of these
+    // arrays on client
+    getOrCreateRow(row).put(copy(column), new PutValue(copy(value)));
+    size += row.length + column.length + (value == null ? 0 : value.length);
+  }
+
+  @Override
+  void increment(byte[] row, byte[] column, long amount) {
+    NavigableMap<byte[], Update> colVals = getOrCreateRow(row);
+    Update existing = colVals.get(column);
+    colVals.put(copy(column), Updates.mergeUpdates(existing, new IncrementValue(amount)));
+    size += row.length + column.length + Bytes.SIZEOF_LONG;
+  }
+
+  @Override
+  boolean isEmpty() {
+    return buff.isEmpty();
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> drain() {
+    NavigableMap<byte[], NavigableMap<byte[], Update>> result = buff;
+    // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
+    // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
+    buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    size = 0;
+    return result;
+  }
+
+  @Override
+  void clear() {
+    buff.clear();
+    size = 0;
+  }
+
+  @Override
+  long getSizeInBytes() {
+    return size;
+  }
+
+  private NavigableMap<byte[], Update> getOrCreateRow(byte[] row) {
+    NavigableMap<byte[], Update> colVals = buff.get(row);
+    if (colVals == null) {
+      colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      buff.put(copy(row), colVals);
+    }
+    return colVals;
+  }
+
+  private static byte[] copy(byte[] bytes) {
+    return bytes == null ? null : Arrays.copyOf(bytes, bytes.length);
+  }
+}
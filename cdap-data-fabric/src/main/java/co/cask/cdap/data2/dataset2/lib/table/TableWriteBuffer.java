@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import java.util.NavigableMap;
+import javax.annotation.Nullable;
+
+/**
+ * In-memory buffer used by {@link BufferingTable} to keep the writes of the current transaction that are not
+ * yet persisted. The content is presented as a row->(column->update) map.
+ */
+public abstract class TableWriteBuffer {
+
+  /**
+   * Types of write buffer. It is selected per dataset through the
+   * {@link co.cask.cdap.common.conf.Constants.Dataset#TABLE_WRITE_BUFFER} dataset property.
+   */
+  public enum Type {
+    /**
+     * Keeps writes in sorted maps as they are written. Suitable for transactions that mix reads and writes.
+     */
+    SORTED_MAP,
+
+    /**
+     * Appends writes to a compact byte arena and only sorts them when they are read or persisted.
+     * Suitable for transactions that write a lot of cells and read few of them back.
+     */
+    ARENA;
+
+    /**
+     * Returns the {@link Type} represented by the given property value, or {@link #SORTED_MAP} if it is
+     * {@code null}. The value is case insensitive.
+     */
+    public static Type fromProperty(@Nullable String value) {
+      return value == null ? SORTED_MAP : valueOf(value.toUpperCase());
+    }
+  }
+
+  /**
+   * Creates a new {@link TableWriteBuffer} of the given type.
+   */
+  static TableWriteBuffer create(Type type) {
+    switch (type) {
+      case SORTED_MAP:
+        return new SortedMapTableWriteBuffer();
+      case ARENA:
+        return new ArenaTableWriteBuffer();
+      default:
+        throw new IllegalArgumentException("Unsupported write buffer type " + type);
+    }
+  }
+
+  /**
+   * Returns the buffered updates for the given row, or {@code null} if nothing was buffered for the row.
+   */
+  @Nullable
+  abstract NavigableMap<byte[], Update> getRow(byte[] row);
+
+  /**
+   * Returns all buffered rows. The returned map must not be modified.
+   */
+  abstract NavigableMap<byte[], NavigableMap<byte[], Update>> getRows();
+
+  /**
+   * Buffers a put of the given value, overriding anything buffered for the same cell before.
+   * The row, column and value are copied by this method.
+   *
+   * @param value the value to put or {@code null} for deleting the column
+   */
+  abstract void put(byte[] row, byte[] column, @Nullable byte[] value);
+
+  /**
+   * Buffers an increment, which is merged with anything buffered for the same cell before.
+   * The row and column are copied by this method.
+   */
+  abstract void increment(byte[] row, byte[] column, long amount);
+
+  /**
+   * Returns {@code true} if nothing is buffered.
+   */
+  abstract boolean isEmpty();
+
+  /**
+   * Returns all buffered rows and resets this buffer to empty. Subsequent writes to this buffer have no effect
+   * on the map returned.
+   */
+  abstract NavigableMap<byte[], NavigableMap<byte[], Update>> drain();
+
+  /**
+   * Discards everything in the buffer.
+   */
+  abstract void clear();
+
+  /**
+   * Returns the approximate number of bytes of rows, columns and values written to the buffer since
+   * it was last cleared or drained.
+   */
+  abstract long getSizeInBytes();
+}
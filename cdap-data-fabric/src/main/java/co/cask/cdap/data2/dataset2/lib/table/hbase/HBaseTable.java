@@ -26,11 +26,13 @@ import co.cask.cdap.api.dataset.table.Filter;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
 import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import co.cask.cdap.data2.dataset2.lib.table.IncrementValue;
 import co.cask.cdap.data2.dataset2.lib.table.PutValue;
+import co.cask.cdap.data2.dataset2.lib.table.TableWriteBuffer;
 import co.cask.cdap.data2.dataset2.lib.table.Update;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 import co.cask.cdap.data2.util.TableId;
@@ -94,7 +96,8 @@ public class HBaseTable extends BufferingTable {
           HBaseTableAdmin.supportsReadlessIncrements(spec),
           spec.getProperty(Table.PROPERTY_SCHEMA) == null ?
             null : Schema.parseJson(spec.getProperty(Table.PROPERTY_SCHEMA)),
-          spec.getProperty(Table.PROPERTY_SCHEMA_ROW_FIELD));
+          spec.getProperty(Table.PROPERTY_SCHEMA_ROW_FIELD),
+          TableWriteBuffer.Type.fromProperty(spec.getProperty(Constants.Dataset.TABLE_WRITE_BUFFER)));
     TableId tableId = TableId.from(datasetContext.getNamespaceId(), spec.getName());
     HTable hTable = tableUtil.createHTable(hConf, tableId);
     // todo: make configurable
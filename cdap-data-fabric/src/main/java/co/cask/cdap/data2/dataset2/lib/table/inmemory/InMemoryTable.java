@@ -27,6 +27,7 @@ import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
 import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
+import co.cask.cdap.data2.dataset2.lib.table.TableWriteBuffer;
 import co.cask.cdap.data2.dataset2.lib.table.Update;
 import co.cask.tephra.Transaction;
 import com.google.common.annotations.VisibleForTesting;
@@ -76,8 +77,13 @@ public class InMemoryTable extends BufferingTable {
 
   public InMemoryTable(DatasetContext datasetContext, String name, ConflictDetection level,
                        CConfiguration cConf, Schema schema, String schemaRowField) {
+    this(datasetContext, name, level, cConf, schema, schemaRowField, TableWriteBuffer.Type.SORTED_MAP);
+  }
+
+  public InMemoryTable(DatasetContext datasetContext, String name, ConflictDetection level,
+                       CConfiguration cConf, Schema schema, String schemaRowField, TableWriteBuffer.Type bufferType) {
     super(PrefixedNamespaces.namespace(cConf, datasetContext.getNamespaceId(), name),
-          level, false, schema, schemaRowField);
+          level, false, schema, schemaRowField, bufferType);
   }
 
   @Override
@@ -24,6 +24,8 @@ import co.cask.cdap.api.dataset.lib.AbstractDatasetDefinition;
 import co.cask.cdap.api.dataset.table.ConflictDetection;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.dataset2.lib.table.TableWriteBuffer;
 import com.google.inject.Inject;
 
 import java.io.IOException;
@@ -63,7 +65,10 @@ public class InMemoryTableDefinition
     } catch (IOException e) {
       throw new IllegalArgumentException("Invalid schema", e);
     }
-    return new InMemoryTable(datasetContext, spec.getName(), conflictDetection, cConf, schema, schemaRowField);
+    TableWriteBuffer.Type bufferType =
+      TableWriteBuffer.Type.fromProperty(spec.getProperty(Constants.Dataset.TABLE_WRITE_BUFFER));
+    return new InMemoryTable(datasetContext, spec.getName(), conflictDetection, cConf,
+                             schema, schemaRowField, bufferType);
   }
 
   @Override
@@ -28,6 +28,7 @@ import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
 import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import co.cask.cdap.data2.dataset2.lib.table.IncrementValue;
 import co.cask.cdap.data2.dataset2.lib.table.PutValue;
+import co.cask.cdap.data2.dataset2.lib.table.TableWriteBuffer;
 import co.cask.cdap.data2.dataset2.lib.table.Update;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 import co.cask.tephra.Transaction;
@@ -50,8 +51,14 @@ public class LevelDBTable extends BufferingTable {
   public LevelDBTable(DatasetContext datasetContext, String tableName, ConflictDetection level,
                       LevelDBTableService service, CConfiguration cConf,
                       Schema schema, String schemaRowField) throws IOException {
+    this(datasetContext, tableName, level, service, cConf, schema, schemaRowField, TableWriteBuffer.Type.SORTED_MAP);
+  }
+
+  public LevelDBTable(DatasetContext datasetContext, String tableName, ConflictDetection level,
+                      LevelDBTableService service, CConfiguration cConf,
+                      Schema schema, String schemaRowField, TableWriteBuffer.Type bufferType) throws IOException {
     super(PrefixedNamespaces.namespace(cConf, datasetContext.getNamespaceId(), tableName), level,
-          false, schema, schemaRowField);
+          false, schema, schemaRowField, bufferType);
     this.core = new LevelDBTableCore(getTableName(), service);
   }
 
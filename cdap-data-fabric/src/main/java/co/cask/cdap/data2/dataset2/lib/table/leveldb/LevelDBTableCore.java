@@ -27,7 +27,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.WriteBatch;
@@ -40,8 +43,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -77,10 +82,12 @@ public class LevelDBTableCore {
 
   private final String tableName;
   private final LevelDBTableService service;
+  private final Striped<Lock> rowLocks;
 
   public LevelDBTableCore(String tableName, LevelDBTableService service) throws IOException {
     this.tableName = tableName;
     this.service = service;
+    this.rowLocks = service.getRowLocks(tableName);
   }
 
   private DB getDB() throws IOException {
@@ -92,48 +99,92 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), System.currentTimeMillis());
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Lock lock = rowLocks.get(lockKey(row));
+    lock.lock();
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)),
+                System.currentTimeMillis());
+      }
+      return true;
+    } finally {
+      lock.unlock();
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
-    Map<byte[], Long> result = getResultMap(row, increments);
-    Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], Long> entry : result.entrySet()) {
-      replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+    Lock lock = rowLocks.get(lockKey(row));
+    lock.lock();
+    try {
+      Map<byte[], Long> result = getResultMap(row, increments);
+      Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      for (Map.Entry<byte[], Long> entry : result.entrySet()) {
+        replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+      }
+      persist(ImmutableMap.of(row, replacing), System.currentTimeMillis());
+      return result;
+    } finally {
+      lock.unlock();
     }
-    persist(ImmutableMap.of(row, replacing), System.currentTimeMillis());
-    return result;
   }
 
 
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
-    Map<byte[], Map<byte[], byte[]>> resultMap = Maps.newHashMap();
-    for (NavigableMap.Entry<byte[], NavigableMap<byte[], Long>> row : updates.entrySet()) {
-      NavigableMap<byte[], Long> increments = row.getValue();
-      Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      Map<byte[], Long> result = getResultMap(row.getKey(), increments);
-      for (Map.Entry<byte[], Long> entry : result.entrySet()) {
-        replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+    // Acquires the locks of all rows. The bulkGet returns locks in a consistent order to avoid deadlock.
+    List<Object> lockKeys = Lists.newArrayListWithCapacity(updates.size());
+    for (byte[] row : updates.keySet()) {
+      lockKeys.add(lockKey(row));
+    }
+    // Multiple rows can map to the same stripe, hence only lock each distinct lock once.
+    List<Lock> locks = Lists.newArrayList();
+    for (Lock lock : rowLocks.bulkGet(lockKeys)) {
+      if (locks.isEmpty() || Iterables.getLast(locks) != lock) {
+        locks.add(lock);
+      }
+    }
+    int locked = 0;
+    try {
+      for (Lock lock : locks) {
+        lock.lock();
+        locked++;
+      }
+
+      Map<byte[], Map<byte[], byte[]>> resultMap = Maps.newHashMap();
+      for (NavigableMap.Entry<byte[], NavigableMap<byte[], Long>> row : updates.entrySet()) {
+        NavigableMap<byte[], Long> increments = row.getValue();
+        Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        Map<byte[], Long> result = getResultMap(row.getKey(), increments);
+        for (Map.Entry<byte[], Long> entry : result.entrySet()) {
+          replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+        }
+        resultMap.put(row.getKey(), replacing);
+      }
+      persist(resultMap, System.currentTimeMillis());
+    } finally {
+      for (int i = locked - 1; i >= 0; i--) {
+        locks.get(i).unlock();
       }
-      resultMap.put(row.getKey(), replacing);
     }
-    persist(resultMap, System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the key for looking up the lock stripe of the given row.
+   */
+  private static Object lockKey(byte[] row) {
+    return Bytes.hashCode(row);
   }
 
   private Map<byte[], Long> getResultMap(byte[] row, Map<byte[], Long> increments) throws IOException {
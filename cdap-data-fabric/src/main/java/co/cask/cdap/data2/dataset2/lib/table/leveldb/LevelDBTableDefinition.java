@@ -24,6 +24,8 @@ import co.cask.cdap.api.dataset.lib.AbstractDatasetDefinition;
 import co.cask.cdap.api.dataset.table.ConflictDetection;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.dataset2.lib.table.TableWriteBuffer;
 import com.google.inject.Inject;
 
 import java.io.IOException;
@@ -65,7 +67,10 @@ public class LevelDBTableDefinition
     } catch (IOException e) {
       throw new IllegalArgumentException("Invalid schema", e);
     }
-    return new LevelDBTable(datasetContext, spec.getName(), conflictDetection, service, cConf, schema, schemaRowField);
+    TableWriteBuffer.Type bufferType =
+      TableWriteBuffer.Type.fromProperty(spec.getProperty(Constants.Dataset.TABLE_WRITE_BUFFER));
+    return new LevelDBTable(datasetContext, spec.getName(), conflictDetection, service, cConf,
+                            schema, schemaRowField, bufferType);
   }
 
   @Override
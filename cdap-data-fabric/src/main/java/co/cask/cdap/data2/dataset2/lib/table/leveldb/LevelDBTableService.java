@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.iq80.leveldb.DB;
@@ -43,6 +44,7 @@ import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -54,12 +56,16 @@ public class LevelDBTableService {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
 
+  // Number of lock stripes per table for guarding read-modify-write operations on rows
+  private static final int ROW_LOCK_STRIPES = 256;
+
   private int blockSize;
   private long cacheSize;
   private String basePath;
   private WriteOptions writeOptions;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, Striped<Lock>> rowLocks = Maps.newConcurrentMap();
 
   private static final LevelDBTableService SINGLETON = new LevelDBTableService();
 
@@ -93,6 +99,7 @@ public class LevelDBTableService {
    */
   public void clearTables() {
     tables.clear();
+    rowLocks.clear();
   }
 
   public Collection<String> list() throws Exception {
@@ -167,6 +174,23 @@ public class LevelDBTableService {
     return db;
   }
 
+  /**
+   * Returns the striped row locks for the given table. All {@link LevelDBTableCore} instances of the same table
+   * share the same set of locks, so that read-modify-write operations on the same row are atomic, while
+   * operations on different rows can proceed in parallel.
+   */
+  Striped<Lock> getRowLocks(String tableName) {
+    Striped<Lock> locks = rowLocks.get(tableName);
+    if (locks == null) {
+      locks = Striped.lock(ROW_LOCK_STRIPES);
+      Striped<Lock> existing = rowLocks.putIfAbsent(tableName, locks);
+      if (existing != null) {
+        locks = existing;
+      }
+    }
+    return locks;
+  }
+
   public void ensureTableExists(String tableName) throws IOException {
     DB db = tables.get(tableName);
     if (db == null) {
@@ -221,6 +245,7 @@ public class LevelDBTableService {
     if (db != null) {
       db.close();
     }
+    rowLocks.remove(name);
     String dbPath = getDBPath(basePath, name);
     factory.destroy(new File(dbPath), new Options());
   }
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction;
+
+import co.cask.tephra.Transaction;
+import co.cask.tephra.TransactionAware;
+import co.cask.tephra.TransactionContext;
+import co.cask.tephra.TransactionFailureException;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link TransactionContext} for read-only operations. The transaction is acquired from a
+ * {@link ReadOnlyTransactionProvider} and is never committed, hence there is no conflict detection and no calls to
+ * the transaction service when the transaction finishes. If any {@link TransactionAware} reports changes through
+ * {@link TransactionAware#getTxChanges()}, the transaction fails. Everything is rolled back when the transaction
+ * finishes, hence changes that are not reported are discarded without failing the transaction.
+ */
+public class ReadOnlyTransactionContext extends TransactionContext {
+
+  private final ReadOnlyTransactionProvider txProvider;
+  private final Set<TransactionAware> txAwares;
+  private ReadOnlyTransactionProvider.Lease lease;
+
+  public ReadOnlyTransactionContext(ReadOnlyTransactionProvider txProvider,
+                                    Iterable<? extends TransactionAware> txAwares) {
+    super(txProvider.getTransactionSystemClient());
+    this.txProvider = txProvider;
+    this.txAwares = Sets.newIdentityHashSet();
+    Iterables.addAll(this.txAwares, txAwares);
+  }
+
+  @Override
+  public boolean addTransactionAware(TransactionAware txAware) {
+    if (!txAwares.add(txAware)) {
+      return false;
+    }
+    // Same as TransactionContext, join the current transaction if there is one
+    if (lease != null) {
+      txAware.startTx(lease.getTransaction());
+    }
+    return true;
+  }
+
+  @Override
+  public boolean removeTransactionAware(TransactionAware txAware) {
+    Preconditions.checkState(lease == null, "Cannot remove TransactionAware while there is a transaction running");
+    return txAwares.remove(txAware);
+  }
+
+  @Override
+  public void start() throws TransactionFailureException {
+    Preconditions.checkState(lease == null, "Already have an active transaction.");
+    try {
+      lease = txProvider.acquire();
+    } catch (Throwable t) {
+      throw new TransactionFailureException("Failed to start read-only transaction", t);
+    }
+
+    Transaction tx = lease.getTransaction();
+    for (TransactionAware txAware : txAwares) {
+      try {
+        txAware.startTx(tx);
+      } catch (Throwable t) {
+        abort(new TransactionFailureException(
+          String.format("Unable to start transaction-aware '%s' for read-only transaction %d. ",
+                        txAware.getTransactionAwareName(), tx.getTransactionId()), t));
+      }
+    }
+  }
+
+  @Override
+  public void finish() throws TransactionFailureException {
+    Preconditions.checkState(lease != null, "Cannot finish tx that has not been started");
+
+    for (TransactionAware txAware : txAwares) {
+      boolean hasChanges;
+      try {
+        hasChanges = !txAware.getTxChanges().isEmpty();
+      } catch (Throwable t) {
+        abort(new TransactionFailureException(
+          String.format("Unable to retrieve changes from transaction-aware '%s' for read-only transaction %d. ",
+                        txAware.getTransactionAwareName(), lease.getTransaction().getTransactionId()), t));
+        return;
+      }
+      if (hasChanges) {
+        abort(new TransactionFailureException(
+          String.format("Transaction-aware '%s' made changes in read-only transaction %d.",
+                        txAware.getTransactionAwareName(), lease.getTransaction().getTransactionId())));
+        return;
+      }
+    }
+
+    // Nothing to persist. Rollback to discard anything that is buffered but not tracked as changes.
+    abort(null);
+  }
+
+  @Override
+  public void checkpoint() throws TransactionFailureException {
+    throw new TransactionFailureException("Checkpoint is not supported by read-only transaction");
+  }
+
+  @Nullable
+  @Override
+  public Transaction getCurrentTransaction() {
+    return lease == null ? null : lease.getTransaction();
+  }
+
+  @Override
+  public void abort(TransactionFailureException cause) throws TransactionFailureException {
+    if (lease == null) {
+      // same behavior as Tephra's TransactionContext
+      return;
+    }
+
+    boolean success = true;
+    for (TransactionAware txAware : txAwares) {
+      try {
+        if (!txAware.rollbackTx()) {
+          success = false;
+        }
+      } catch (Throwable t) {
+        success = false;
+        if (cause == null) {
+          cause = new TransactionFailureException(
+            String.format("Unable to roll back changes in transaction-aware '%s' for read-only transaction %d. ",
+                          txAware.getTransactionAwareName(), lease.getTransaction().getTransactionId()), t);
+        }
+      }
+    }
+
+    // Invalidate the shared transaction if a rollback failed, since it may have left changes behind.
+    lease.release(!success);
+    lease = null;
+
+    if (cause != null) {
+      throw cause;
+    }
+  }
+}
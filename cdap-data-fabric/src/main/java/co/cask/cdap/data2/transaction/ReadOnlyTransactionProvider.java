@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction;
+
+import co.cask.tephra.Transaction;
+import co.cask.tephra.TransactionSystemClient;
+import org.apache.twill.common.Threads;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides {@link Transaction} for read-only operations. A transaction started through the
+ * {@link TransactionSystemClient} is shared by all read-only operations that begin within the maximum age of that
+ * transaction, hence read-heavy callers don't need to call the transaction service for every operation.
+ * The shared transaction is never committed. It is aborted when it is expired and no longer used by any operation.
+ * Expiry is scheduled when the transaction is started, so that an idle caller doesn't keep a transaction in progress.
+ * Calls to the transaction service are made without holding the lock of this provider, so that a slow call doesn't
+ * block operations that can use the current transaction.
+ */
+@ThreadSafe
+public final class ReadOnlyTransactionProvider {
+
+  private final TransactionSystemClient txClient;
+  private final long maxAgeMillis;
+  private Lease current;
+  private ScheduledExecutorService expiryExecutor;
+  private boolean closed;
+
+  /**
+   * Creates an instance.
+   *
+   * @param txClient client for starting and aborting the shared transaction
+   * @param maxAgeMillis maximum time in milliseconds a transaction is shared with new operations after it is started.
+   *                     If it is {@code 0}, every operation uses its own transaction.
+   */
+  public ReadOnlyTransactionProvider(TransactionSystemClient txClient, long maxAgeMillis) {
+    this.txClient = txClient;
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  /**
+   * Returns the {@link TransactionSystemClient} used by this provider.
+   */
+  public TransactionSystemClient getTransactionSystemClient() {
+    return txClient;
+  }
+
+  /**
+   * Acquires a {@link Lease} on a transaction that can be used for reading. The {@link Lease#release(boolean)}
+   * method must be called when the caller no longer uses the transaction.
+   */
+  public Lease acquire() {
+    synchronized (this) {
+      if (current != null && System.currentTimeMillis() - current.startTime < maxAgeMillis) {
+        current.refCount.incrementAndGet();
+        return current;
+      }
+    }
+
+    // Operations that find the current transaction expired at the same time each start a new one. The last one
+    // started becomes the shared transaction, the others are only used by the operation that started them.
+    Lease lease = new Lease(txClient.startShort(), System.currentTimeMillis());
+    lease.refCount.incrementAndGet();
+    Lease expired;
+    synchronized (this) {
+      if (closed) {
+        // Not shared anymore, hence the provider reference is released right away
+        expired = lease;
+      } else {
+        expired = current;
+        current = lease;
+        scheduleExpiry(lease);
+      }
+    }
+    if (expired != null) {
+      expired.release(false);
+    }
+    return lease;
+  }
+
+  /**
+   * Stops sharing the current transaction. It will be aborted once all operations using it released their leases.
+   */
+  public void close() {
+    Lease lease;
+    synchronized (this) {
+      lease = current;
+      current = null;
+      closed = true;
+      if (expiryExecutor != null) {
+        expiryExecutor.shutdownNow();
+      }
+    }
+    if (lease != null) {
+      lease.release(false);
+    }
+  }
+
+  /**
+   * Schedules the provider reference on the given lease to be released once the lease is expired, unless the lease
+   * is replaced by a new one before that. Must be called while holding the lock of this provider.
+   */
+  private void scheduleExpiry(final Lease lease) {
+    if (expiryExecutor == null) {
+      expiryExecutor = Executors.newSingleThreadScheduledExecutor(
+        Threads.createDaemonThreadFactory("read-only-tx-expiry"));
+    }
+    expiryExecutor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        synchronized (ReadOnlyTransactionProvider.this) {
+          if (current != lease) {
+            // Already replaced or closed, which released the provider reference
+            return;
+          }
+          current = null;
+        }
+        lease.release(false);
+      }
+    }, maxAgeMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * A reference to a shared read-only transaction.
+   */
+  public final class Lease {
+
+    private final Transaction tx;
+    private final long startTime;
+    // One reference is held by the provider until the lease is expired
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private volatile boolean invalidate;
+
+    private Lease(Transaction tx, long startTime) {
+      this.tx = tx;
+      this.startTime = startTime;
+    }
+
+    /**
+     * Returns the shared {@link Transaction}.
+     */
+    public Transaction getTransaction() {
+      return tx;
+    }
+
+    /**
+     * Releases this lease.
+     *
+     * @param invalidate {@code true} if the caller may have left changes with the transaction write pointer, in
+     *                   which case the transaction is invalidated instead of aborted when it is no longer used
+     */
+    public void release(boolean invalidate) {
+      if (invalidate) {
+        this.invalidate = true;
+      }
+      if (refCount.decrementAndGet() == 0) {
+        if (this.invalidate) {
+          Transactions.invalidateQuietly(txClient, tx);
+        } else {
+          Transactions.abortQuietly(txClient, tx);
+        }
+      }
+    }
+  }
+}
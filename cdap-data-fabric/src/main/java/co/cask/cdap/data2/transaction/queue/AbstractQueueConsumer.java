@@ -32,6 +32,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
@@ -89,6 +90,23 @@ public abstract class AbstractQueueConsumer implements QueueConsumer, Transactio
   protected int commitCount;
 
   protected abstract boolean claimEntry(byte[] rowKey, byte[] stateContent) throws IOException;
+
+  /**
+   * Claims a batch of entries. By default it calls {@link #claimEntry(byte[], byte[])} for each entry.
+   * Implementations can override this method to claim the entries with fewer round trips to the queue table.
+   *
+   * @param rowKeys row keys of the entries to claim
+   * @param stateContent the claimed state value
+   * @return the claim result of each row, in the same order as the given row keys
+   */
+  protected boolean[] claimEntries(List<byte[]> rowKeys, byte[] stateContent) throws IOException {
+    boolean[] claimed = new boolean[rowKeys.size()];
+    for (int i = 0; i < claimed.length; i++) {
+      claimed[i] = claimEntry(rowKeys.get(i), stateContent);
+    }
+    return claimed;
+  }
+
   protected abstract void updateState(Set<byte[]> rowKeys, byte[] stateColumnName, byte[] stateContent)
     throws IOException;
   protected abstract void undoState(Set<byte[]> rowKeys, byte[] stateColumnName)
@@ -231,24 +249,23 @@ public abstract class AbstractQueueConsumer implements QueueConsumer, Transactio
 
       // For FIFO, need to try claiming the entry if group size > 1
       if (getConfig().getDequeueStrategy() == DequeueStrategy.FIFO && getConfig().getGroupSize() > 1) {
-        Iterator<Map.Entry<byte[], SimpleQueueEntry>> iterator = consumingEntries.entrySet().iterator();
-        while (iterator.hasNext()) {
-          SimpleQueueEntry entry = iterator.next().getValue();
-
+        List<byte[]> claimRows = Lists.newArrayList();
+        for (SimpleQueueEntry entry : consumingEntries.values()) {
           if (entry.getState() == null ||
             QueueEntryRow.getStateInstanceId(entry.getState()) >= getConfig().getGroupSize()) {
-            // If not able to claim it, remove it, and move to next one.
-            if (!claimEntry(entry.getRowKey(), claimedStateValue)) {
-              iterator.remove();
-            }
+            claimRows.add(entry.getRowKey());
+          }
+        }
 
-            if (stopwatch.elapsedMillis() >= maxDequeueMillis) {
-              break;
+        // Claim all entries in one batch. If not able to claim an entry, remove it.
+        if (!claimRows.isEmpty()) {
+          boolean[] claimed = claimEntries(claimRows, claimedStateValue);
+          for (int i = 0; i < claimed.length; i++) {
+            if (!claimed[i]) {
+              consumingEntries.remove(claimRows.get(i));
             }
           }
         }
-        // Drain the iterator in case of dequeue time limit reached
-        Iterators.advance(iterator, Integer.MAX_VALUE);
       }
 
       if (stopwatch.elapsedMillis() >= maxDequeueMillis) {
@@ -29,6 +29,7 @@ public final class QueueConstants {
     public static final String QUEUE_TABLE_COPROCESSOR_DIR = "data.queue.table.coprocessor.dir";
     public static final String QUEUE_TABLE_PRESPLITS = "data.queue.table.presplits";
     public static final String DEQUEUE_TX_PERCENT = "data.queue.dequeue.tx.percent";
+    public static final String QUEUE_TABLE_SHARED_PAYLOAD = "data.queue.table.shared.payload";
   }
 
   // This is a hardcoded value for the row key distributor bucket size before CDAP-1946
@@ -36,6 +37,7 @@ public final class QueueConstants {
   public static final String QUEUE_CONFIG_TABLE_NAME = QueueType.QUEUE.toString() + ".config";
 
   public static final String DEFAULT_QUEUE_TABLE_COPROCESSOR_DIR = "/queue";
+  public static final boolean DEFAULT_QUEUE_TABLE_SHARED_PAYLOAD = true;
 
   public static final long MAX_CREATE_TABLE_WAIT = 5000L;    // Maximum wait of 5 seconds for table creation.
 
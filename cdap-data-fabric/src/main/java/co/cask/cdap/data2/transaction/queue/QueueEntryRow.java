@@ -41,6 +41,10 @@ public class QueueEntryRow {
   public static final byte[] DATA_COLUMN = new byte[] {'d'};
   public static final byte[] META_COLUMN = new byte[] {'m'};
   public static final byte[] STATE_COLUMN_PREFIX = new byte[] {'s'};
+  // Column in the row that stores the payload of an entry once for all consumer groups
+  public static final byte[] PAYLOAD_COLUMN = new byte[] {'p'};
+  // Column in a consumer group entry row that has the row key of the row storing the payload of the entry
+  public static final byte[] PAYLOAD_REF_COLUMN = new byte[] {'r'};
 
   /**
    * Returns a byte array representing prefix of a queue. The prefix is formed by first byte of
@@ -181,6 +185,20 @@ public class QueueEntryRow {
     return columnHasPrefix(qualifierBuffer, qualifierOffset, DATA_COLUMN);
   }
 
+  /**
+   * Returns {@code true} if the given {@code byte[]} is a shared payload column qualifier in queue entry row.
+   */
+  public static boolean isPayloadColumn(byte[] qualifierBuffer, int qualifierOffset) {
+    return columnHasPrefix(qualifierBuffer, qualifierOffset, PAYLOAD_COLUMN);
+  }
+
+  /**
+   * Returns {@code true} if the given {@code byte[]} is a shared payload reference column qualifier in queue entry row.
+   */
+  public static boolean isPayloadRefColumn(byte[] qualifierBuffer, int qualifierOffset) {
+    return columnHasPrefix(qualifierBuffer, qualifierOffset, PAYLOAD_REF_COLUMN);
+  }
+
   private static boolean columnHasPrefix(KeyValue keyValue, byte[] prefix) {
     return columnHasPrefix(keyValue.getBuffer(), keyValue.getQualifierOffset(), prefix);
   }
@@ -80,6 +80,11 @@ public class HBaseQueueAdmin extends AbstractQueueAdmin {
    */
   public static final String PROPERTY_PREFIX_BYTES = "cdap.prefix.bytes";
 
+  /**
+   * HBase table property for whether the payload of a queue entry is stored once for all consumer groups.
+   */
+  public static final String PROPERTY_SHARED_PAYLOAD = "cdap.queue.shared.payload";
+
   protected final HBaseTableUtil tableUtil;
   private final CConfiguration cConf;
   private final Configuration hConf;
@@ -222,6 +227,11 @@ public class HBaseQueueAdmin extends AbstractQueueAdmin {
           properties.setProperty(HBaseQueueAdmin.PROPERTY_PREFIX_BYTES,
                                  Integer.toString(SaltedHBaseQueueStrategy.SALT_BYTES));
         }
+        if (desc.getValue(HBaseQueueAdmin.PROPERTY_SHARED_PAYLOAD) == null && isShardedTable(tableId)) {
+          // The upgraded coprocessors know how to evict shared payload rows, hence it is safe to turn it on.
+          // Consumers can read entries written with or without shared payload.
+          properties.setProperty(HBaseQueueAdmin.PROPERTY_SHARED_PAYLOAD, Boolean.toString(isSharedPayloadEnabled()));
+        }
         upgrade(tableId, properties);
         LOG.info("Upgraded queue table: {}", tableId);
       } else if (isStateStoreTable(tableId)) {
@@ -433,6 +443,16 @@ public class HBaseQueueAdmin extends AbstractQueueAdmin {
     return false;
   }
 
+  private boolean isShardedTable(TableId tableId) {
+    return tableId.getTableName().startsWith(Id.Namespace.SYSTEM.getId() + "."
+                                               + QueueConstants.QueueType.SHARDED_QUEUE.toString());
+  }
+
+  private boolean isSharedPayloadEnabled() {
+    return cConf.getBoolean(QueueConstants.ConfigKeys.QUEUE_TABLE_SHARED_PAYLOAD,
+                            QueueConstants.DEFAULT_QUEUE_TABLE_SHARED_PAYLOAD);
+  }
+
   private boolean isStateStoreTable(TableId tableId) {
     // Namespace doesn't matter
     return tableId.getTableName().equals(getConfigTableId("ns").getTableName());
@@ -511,6 +531,9 @@ public class HBaseQueueAdmin extends AbstractQueueAdmin {
       int prefixBytes = (type == QueueConstants.QueueType.SHARDED_QUEUE) ? ShardedHBaseQueueStrategy.PREFIX_BYTES
                                                                          : SaltedHBaseQueueStrategy.SALT_BYTES;
       htd.setValue(HBaseQueueAdmin.PROPERTY_PREFIX_BYTES, Integer.toString(prefixBytes));
+      if (type == QueueConstants.QueueType.SHARDED_QUEUE) {
+        htd.setValue(HBaseQueueAdmin.PROPERTY_SHARED_PAYLOAD, Boolean.toString(isSharedPayloadEnabled()));
+      }
       LOG.info("Create queue table with prefix bytes {}", htd.getValue(HBaseQueueAdmin.PROPERTY_PREFIX_BYTES));
       tableUtil.createTableIfNotExists(getHBaseAdmin(), tableId, htd.build(), splitKeys);
     }
@@ -104,9 +104,11 @@ public class HBaseQueueClientFactory implements QueueClientFactory {
       Preconditions.checkState(!groupConfigs.isEmpty(), "Missing consumer group information for queue %s", queueName);
 
       HTable hTable = createHTable(admin.getDataTableId(queueName, queueAdmin.getType()));
-      int distributorBuckets = getDistributorBuckets(hTable.getTableDescriptor());
+      HTableDescriptor htd = hTable.getTableDescriptor();
+      int distributorBuckets = getDistributorBuckets(htd);
       return createProducer(hTable, queueName, queueMetrics,
-                            new ShardedHBaseQueueStrategy(hBaseTableUtil, distributorBuckets), groupConfigs);
+                            new ShardedHBaseQueueStrategy(hBaseTableUtil, distributorBuckets, isSharedPayload(htd)),
+                            groupConfigs);
     } catch (Exception e) {
       Throwables.propagateIfPossible(e);
       throw new IOException(e);
@@ -248,6 +250,14 @@ public class HBaseQueueClientFactory implements QueueClientFactory {
     return Integer.parseInt(value);
   }
 
+  /**
+   * Returns {@code true} if queue entries written to the table should store the payload once for all consumer groups.
+   */
+  private static boolean isSharedPayload(HTableDescriptor htd) {
+    // Old tables don't have the setting, hence payload is written to every consumer group row
+    return Boolean.parseBoolean(htd.getValue(HBaseQueueAdmin.PROPERTY_SHARED_PAYLOAD));
+  }
+
   /**
    * A {@link QueueConsumer} that delegates to a list of consumers sequentially. It also has logic to renew
    * the consumers list when all existing consumers has consumed everything in the current queue barrier.
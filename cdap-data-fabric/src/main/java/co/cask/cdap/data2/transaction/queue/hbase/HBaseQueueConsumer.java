@@ -23,6 +23,7 @@ import co.cask.cdap.data2.queue.DequeueResult;
 import co.cask.cdap.data2.transaction.queue.AbstractQueueConsumer;
 import co.cask.cdap.data2.transaction.queue.QueueEntryRow;
 import co.cask.cdap.data2.transaction.queue.QueueScanner;
+import co.cask.cdap.data2.util.hbase.ParallelCheckAndPut;
 import co.cask.tephra.Transaction;
 import com.google.common.collect.Lists;
 import com.google.common.io.Closeables;
@@ -31,22 +32,33 @@ import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Threads;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Queue consumer for HBase.
  */
 abstract class HBaseQueueConsumer extends AbstractQueueConsumer {
 
+  // Maximum number of concurrent checkAndPut calls for claiming a batch of entries
+  private static final int MAX_CLAIM_CONCURRENCY = 8;
+
   private final HTable hTable;
   private final HBaseConsumerState state;
   private final HBaseConsumerStateStore stateStore;
   private final HBaseQueueStrategy queueStrategy;
+  private final ExecutorService claimExecutor;
+  private final ParallelCheckAndPut claimer;
   private boolean closed;
   private boolean canConsume;
   private boolean completed;
@@ -69,6 +81,15 @@ abstract class HBaseQueueConsumer extends AbstractQueueConsumer {
     this.stateStore = stateStore;
     this.queueStrategy = queueStrategy;
     this.canConsume = false;
+
+    // Threads are only created when claiming a batch of entries, and are released when idle
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, MAX_CLAIM_CONCURRENCY,
+                                                         60, TimeUnit.SECONDS,
+                                                         new SynchronousQueue<Runnable>(),
+                                                         Threads.newDaemonThreadFactory("queue-consumer-claim"));
+    executor.allowCoreThreadTimeOut(true);
+    this.claimExecutor = executor;
+    this.claimer = new ParallelCheckAndPut(hTable, claimExecutor, MAX_CLAIM_CONCURRENCY);
   }
 
   @Override
@@ -93,6 +114,19 @@ abstract class HBaseQueueConsumer extends AbstractQueueConsumer {
                               stateColumnName, null, put);
   }
 
+  @Override
+  protected boolean[] claimEntries(List<byte[]> rowKeys, byte[] claimedStateValue) throws IOException {
+    // HBase has no multi-row checkAndPut, hence run the claims concurrently to save round trip time
+    List<Put> puts = Lists.newArrayListWithCapacity(rowKeys.size());
+    for (byte[] rowKey : rowKeys) {
+      Put put = new Put(queueStrategy.getActualRowKey(getConfig(), rowKey));
+      put.add(QueueEntryRow.COLUMN_FAMILY, stateColumnName, claimedStateValue);
+      puts.add(put);
+    }
+    return claimer.checkAndPut(QueueEntryRow.COLUMN_FAMILY, stateColumnName, puts,
+                               Collections.<byte[]>nCopies(puts.size(), null));
+  }
+
   @Override
   protected void updateState(Set<byte[]> rowKeys, byte[] stateColumnName, byte[] stateContent) throws IOException {
     if (rowKeys.isEmpty()) {
@@ -147,8 +181,10 @@ abstract class HBaseQueueConsumer extends AbstractQueueConsumer {
       return;
     }
     closed = true;
+    claimExecutor.shutdownNow();
     Closeables.closeQuietly(queueStrategy);
     Closeables.closeQuietly(stateStore);
+    Closeables.closeQuietly(claimer);
     Closeables.closeQuietly(hTable);
   }
 
@@ -15,6 +15,7 @@
  */
 package co.cask.cdap.data2.transaction.queue.hbase;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.queue.QueueName;
 import co.cask.cdap.data2.queue.ConsumerGroupConfig;
 import co.cask.cdap.data2.queue.QueueEntry;
@@ -95,16 +96,30 @@ public class HBaseQueueProducer extends AbstractQueueProducer implements Closeab
       queueStrategy.getRowKeys(consumerGroupConfigs, entry, queueRowPrefix, writePointer, count, rowKeys);
       rollbackKeys.addAll(rowKeys);
 
+      // Only share the payload if there is more than one consumer group, otherwise it is just an extra row
+      byte[] payloadRowKey = rowKeys.size() > 1
+        ? queueStrategy.getPayloadRowKey(queueRowPrefix, writePointer, count) : null;
+      byte[] data = entry.getData();
+      if (payloadRowKey != null) {
+        rollbackKeys.add(payloadRowKey);
+        puts.add(new Put(payloadRowKey).add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.PAYLOAD_COLUMN, data));
+        bytes += data.length;
+      }
+
       byte[] metaData = QueueEntry.serializeHashKeys(entry.getHashKeys());
       for (byte[] rowKey : rowKeys) {
         // No need to write ts=writePointer, as the row key already contains the writePointer
         Put put = new Put(rowKey);
-        put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN, entry.getData());
         put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.META_COLUMN, metaData);
-
+        if (payloadRowKey == null) {
+          put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN, data);
+          bytes += data.length;
+        } else {
+          // The data column is still needed for the dequeue filter and the eviction logic to recognize the entry
+          put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN, Bytes.EMPTY_BYTE_ARRAY);
+          put.add(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.PAYLOAD_REF_COLUMN, payloadRowKey);
+        }
         puts.add(put);
-
-        bytes += entry.getData().length;
       }
       count++;
     }
@@ -21,42 +21,69 @@ import co.cask.cdap.data2.transaction.queue.QueueEntryRow;
 import co.cask.cdap.data2.transaction.queue.QueueScanner;
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 
 import java.io.IOException;
-import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * An adapter class to convert HBase {@link ResultScanner} into {@link QueueScanner}.
+ *
+ * If a {@link HTable} is provided, entry rows that refer to a shared payload row
+ * (see {@link QueueEntryRow#PAYLOAD_REF_COLUMN}) get their data column filled with the shared payload.
+ * Payloads of all rows returned by one scanner batch are fetched with a single multi-get.
  */
 final class HBaseQueueScanner implements QueueScanner {
   private final ResultScanner scanner;
-  private final LinkedList<Result> cached = Lists.newLinkedList();
+  private final LinkedList<ImmutablePair<byte[], Map<byte[], byte[]>>> cached = Lists.newLinkedList();
   private final int numRows;
   private final Function<byte[], byte[]> rowKeyConverter;
+  private final HTable hTable;
 
   public HBaseQueueScanner(ResultScanner scanner, int numRows, Function<byte[], byte[]> rowKeyConverter) {
+    this(scanner, numRows, rowKeyConverter, null);
+  }
+
+  public HBaseQueueScanner(ResultScanner scanner, int numRows,
+                           Function<byte[], byte[]> rowKeyConverter, @Nullable HTable hTable) {
     this.scanner = scanner;
     this.numRows = numRows;
     this.rowKeyConverter = rowKeyConverter;
+    this.hTable = hTable;
   }
 
   @Override
   public ImmutablePair<byte[], Map<byte[], byte[]>> next() throws IOException {
     while (true) {
       if (cached.size() > 0) {
-        Result result = cached.removeFirst();
-        Map<byte[], byte[]> row = result.getFamilyMap(QueueEntryRow.COLUMN_FAMILY);
-        return ImmutablePair.of(rowKeyConverter.apply(result.getRow()), row);
+        return cached.removeFirst();
       }
       Result[] results = scanner.next(numRows);
       if (results.length == 0) {
         return null;
       }
-      Collections.addAll(cached, results);
+
+      List<Map<byte[], byte[]>> payloadRefRows = Lists.newArrayList();
+      List<Get> payloadGets = Lists.newArrayList();
+      for (Result result : results) {
+        Map<byte[], byte[]> row = result.getFamilyMap(QueueEntryRow.COLUMN_FAMILY);
+        cached.add(ImmutablePair.of(rowKeyConverter.apply(result.getRow()), row));
+
+        byte[] payloadRowKey = row.get(QueueEntryRow.PAYLOAD_REF_COLUMN);
+        if (hTable != null && payloadRowKey != null) {
+          payloadRefRows.add(row);
+          payloadGets.add(new Get(payloadRowKey).addColumn(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.PAYLOAD_COLUMN));
+        }
+      }
+      if (!payloadGets.isEmpty()) {
+        resolvePayloads(payloadRefRows, payloadGets);
+      }
     }
   }
 
@@ -64,4 +91,22 @@ final class HBaseQueueScanner implements QueueScanner {
   public void close() throws IOException {
     scanner.close();
   }
+
+  /**
+   * Replaces the data column of the given rows with the shared payloads fetched by the given gets.
+   */
+  private void resolvePayloads(List<Map<byte[], byte[]>> rows, List<Get> gets) throws IOException {
+    Result[] payloads = hTable.get(gets);
+    for (int i = 0; i < payloads.length; i++) {
+      Map<byte[], byte[]> row = rows.get(i);
+      byte[] payload = payloads[i].getValue(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.PAYLOAD_COLUMN);
+      if (payload == null) {
+        // The payload row is only evicted after all consumers moved past the entry.
+        // Removing the data column makes the consumer skip the row.
+        row.remove(QueueEntryRow.DATA_COLUMN);
+      } else {
+        row.put(QueueEntryRow.DATA_COLUMN, payload);
+      }
+    }
+  }
 }
@@ -38,6 +38,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * A {@link HBaseQueueStrategy} that scans HBase by using the {@link DistributedScanner}.
@@ -112,6 +113,13 @@ public final class SaltedHBaseQueueStrategy implements HBaseQueueStrategy {
     return rowKeyDistributor.getDistributedKey(originalRowKey);
   }
 
+  @Nullable
+  @Override
+  public byte[] getPayloadRowKey(byte[] rowKeyPrefix, long writePointer, int counter) {
+    // Salted queue always writes the payload to each consumer group row
+    return null;
+  }
+
   @Override
   public void getRowKeys(Iterable<ConsumerGroupConfig> consumerGroupConfigs, QueueEntry queueEntry, byte[] rowKeyPrefix,
                          long writePointer, int counter, Collection<byte[]> rowKeys) {
@@ -42,6 +42,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * An implementation of {@link HBaseQueueStrategy} with sharded keys.
@@ -64,12 +65,19 @@ import java.util.concurrent.TimeUnit;
  * }
  * </pre>
  *
+ * With shared payload enabled, the entry data is written once to a row with the payload shard
+ * ({@code consumer_group_id = 0} and {@code consumer_instance_id = -2}) in the {@link QueueEntryRow#PAYLOAD_COLUMN}.
+ * The row for each consumer group only has the meta column, an empty data column and the row key of the
+ * payload row in the {@link QueueEntryRow#PAYLOAD_REF_COLUMN}.
  */
 public final class ShardedHBaseQueueStrategy implements HBaseQueueStrategy, Closeable {
 
   // Number of bytes as the row key prefix, including salt bytes added by the row key distributor
   public static final int PREFIX_BYTES = SaltedHBaseQueueStrategy.SALT_BYTES + Bytes.SIZEOF_LONG + Bytes.SIZEOF_INT;
 
+  // Consumer instance id of the shard for rows storing shared payloads. Never used by actual consumers.
+  private static final int PAYLOAD_SHARD_ID = -2;
+
   private static final Function<byte[], byte[]> ROW_KEY_CONVERTER = new Function<byte[], byte[]>() {
     @Override
     public byte[] apply(byte[] input) {
@@ -83,12 +91,23 @@ public final class ShardedHBaseQueueStrategy implements HBaseQueueStrategy, Clos
   private final int distributorBuckets;
   private final AbstractRowKeyDistributor rowKeyDistributor;
   private final ExecutorService scansExecutor;
+  private final boolean sharedPayload;
 
   /**
    * Constructs a new instance with the given number of buckets for distributed scan.
    */
   public ShardedHBaseQueueStrategy(HBaseTableUtil tableUtil, int distributorBuckets) {
+    this(tableUtil, distributorBuckets, false);
+  }
+
+  /**
+   * Constructs a new instance with the given number of buckets for distributed scan.
+   *
+   * @param sharedPayload {@code true} to store the payload of a queue entry once for all consumer groups
+   */
+  public ShardedHBaseQueueStrategy(HBaseTableUtil tableUtil, int distributorBuckets, boolean sharedPayload) {
     this.tableUtil = tableUtil;
+    this.sharedPayload = sharedPayload;
     this.distributorBuckets = distributorBuckets;
     this.rowKeyDistributor = new RowKeyDistributorByHashPrefix(
       new RowKeyDistributorByHashPrefix.OneByteSimpleHash(distributorBuckets));
@@ -109,7 +128,8 @@ public final class ShardedHBaseQueueStrategy implements HBaseQueueStrategy, Clos
   public QueueScanner createScanner(ConsumerConfig consumerConfig,
                                     HTable hTable, Scan scan, int numRows) throws IOException {
     ResultScanner scanner = createHBaseScanner(consumerConfig, hTable, scan, numRows);
-    return new HBaseQueueScanner(scanner, numRows, ROW_KEY_CONVERTER);
+    // Always resolve shared payloads, since the table can contain entries written with or without shared payload
+    return new HBaseQueueScanner(scanner, numRows, ROW_KEY_CONVERTER, hTable);
   }
 
   private ResultScanner createHBaseScanner(ConsumerConfig consumerConfig, HTable hTable, Scan scan,
@@ -139,14 +159,21 @@ public final class ShardedHBaseQueueStrategy implements HBaseQueueStrategy, Clos
                                                              consumerConfig.getInstanceId(), originalRowKey));
   }
 
+  @Nullable
+  @Override
+  public byte[] getPayloadRowKey(byte[] rowKeyPrefix, long writePointer, int counter) {
+    if (!sharedPayload) {
+      return null;
+    }
+    return rowKeyDistributor.getDistributedKey(getShardedKey(0L, PAYLOAD_SHARD_ID,
+                                                             getRowKey(rowKeyPrefix, writePointer, counter)));
+  }
+
   @Override
   public void getRowKeys(Iterable<ConsumerGroupConfig> consumerGroupConfigs, QueueEntry queueEntry, byte[] rowKeyPrefix,
                          long writePointer, int counter, Collection<byte[]> rowKeys) {
 
-    byte[] rowKey = new byte[rowKeyPrefix.length + Bytes.SIZEOF_LONG + Bytes.SIZEOF_INT];
-    Bytes.putBytes(rowKey, 0, rowKeyPrefix, 0, rowKeyPrefix.length);
-    Bytes.putLong(rowKey, rowKeyPrefix.length, writePointer);
-    Bytes.putInt(rowKey, rowKey.length - Bytes.SIZEOF_INT, counter);
+    byte[] rowKey = getRowKey(rowKeyPrefix, writePointer, counter);
 
     // Generates all row keys, one per consumer group.
     for (ConsumerGroupConfig config : consumerGroupConfigs) {
@@ -174,16 +201,27 @@ public final class ShardedHBaseQueueStrategy implements HBaseQueueStrategy, Clos
     scansExecutor.shutdownNow();
   }
 
+  private byte[] getRowKey(byte[] rowKeyPrefix, long writePointer, int counter) {
+    byte[] rowKey = new byte[rowKeyPrefix.length + Bytes.SIZEOF_LONG + Bytes.SIZEOF_INT];
+    Bytes.putBytes(rowKey, 0, rowKeyPrefix, 0, rowKeyPrefix.length);
+    Bytes.putLong(rowKey, rowKeyPrefix.length, writePointer);
+    Bytes.putInt(rowKey, rowKey.length - Bytes.SIZEOF_INT, counter);
+    return rowKey;
+  }
+
   private byte[] getShardedKey(ConsumerGroupConfig groupConfig, int instanceId,
                                byte[] originalRowKey) {
+    // Default for FIFO case.
+    int shardId = groupConfig.getDequeueStrategy() == DequeueStrategy.FIFO ? -1 : instanceId;
+    return getShardedKey(groupConfig.getGroupId(), shardId, originalRowKey);
+  }
+
+  private byte[] getShardedKey(long groupId, int shardId, byte[] originalRowKey) {
     // Need to subtract the SALT_BYTES as the row key distributor will prefix the key with salted bytes
     byte[] result = new byte[PREFIX_BYTES - SaltedHBaseQueueStrategy.SALT_BYTES + originalRowKey.length];
     Bytes.putBytes(result, PREFIX_BYTES - SaltedHBaseQueueStrategy.SALT_BYTES,
                    originalRowKey, 0, originalRowKey.length);
-    Bytes.putLong(result, 0, groupConfig.getGroupId());
-
-    // Default for FIFO case.
-    int shardId = groupConfig.getDequeueStrategy() == DequeueStrategy.FIFO ? -1 : instanceId;
+    Bytes.putLong(result, 0, groupId);
     Bytes.putInt(result, Bytes.SIZEOF_LONG, shardId);
 
     return result;
@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
@@ -115,6 +116,32 @@ public final class LevelDBQueueConsumer extends AbstractQueueConsumer {
     }
   }
 
+  @Override
+  protected boolean[] claimEntries(List<byte[]> rowKeys, byte[] stateContent) throws IOException {
+    boolean[] claimed = new boolean[rowKeys.size()];
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+
+    // Check all rows and persist the claimed ones with one write under the lock
+    synchronized (this.lock) {
+      for (int i = 0; i < claimed.length; i++) {
+        byte[] rowKey = rowKeys.get(i);
+        Map<byte[], byte[]> row =
+          core.getRow(rowKey, new byte[][] { stateColumnName }, null, null, -1, Transaction.ALL_VISIBLE_LATEST);
+        if (row.get(stateColumnName) != null) {
+          continue;
+        }
+        NavigableMap<byte[], byte[]> columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        columns.put(stateColumnName, stateContent);
+        changes.put(rowKey, columns);
+        claimed[i] = true;
+      }
+      if (!changes.isEmpty()) {
+        core.persist(changes, KeyValue.LATEST_TIMESTAMP);
+      }
+    }
+    return claimed;
+  }
+
   @Override
   protected void updateState(Set<byte[]> rowKeys, byte[] stateColumnName, byte[] stateContent) throws IOException {
     if (rowKeys.isEmpty()) {
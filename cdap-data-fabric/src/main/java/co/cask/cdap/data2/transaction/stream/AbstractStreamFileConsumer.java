@@ -18,6 +18,7 @@ package co.cask.cdap.data2.transaction.stream;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data.file.FileReader;
 import co.cask.cdap.data.file.ReadFilter;
 import co.cask.cdap.data.file.ReadFilters;
@@ -94,6 +95,12 @@ import javax.annotation.concurrent.NotThreadSafe;
  *   state = ConsumerEntryState.getState(), either CLAIMED or PROCESSED
  * }</pre>
  *
+ * <p>
+ * If {@link Constants.Stream#CONSUMER_PARTITIONED_READ} is enabled, instances of a ROUND_ROBIN consumer group
+ * only read the data blocks that are assigned to them by hashing the block offset, and skip the other blocks
+ * without reading them. Instances of a HASH consumer group with a hash key claim the events by hashing the value
+ * of the event header named by the hash key.
+ * </p>
  */
 @NotThreadSafe
 public abstract class AbstractStreamFileConsumer implements StreamConsumer {
@@ -146,6 +153,8 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
   private final StreamConsumerStateStore consumerStateStore;
   private final FileReader<StreamEventOffset, Iterable<StreamFileOffset>> reader;
   private final ReadFilter readFilter;
+  // Name of the event header to partition events with, or null if events are not partitioned by header
+  private final String partitionHeader;
 
   // Map from row key prefix (row key without last eight bytes offset) to a sorted map of row key to state value
   // The rows are only needed for entries that are already in the state table when this consumer start.
@@ -186,7 +195,10 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     this.consumerConfig = consumerConfig;
     this.consumerStateStore = consumerStateStore;
     this.reader = reader;
-    this.readFilter = createReadFilter(consumerConfig, extraFilter);
+    boolean partitionedRead = cConf.getBoolean(Constants.Stream.CONSUMER_PARTITIONED_READ, false);
+    this.readFilter = createReadFilter(consumerConfig, partitionedRead, extraFilter);
+    this.partitionHeader = partitionedRead && consumerConfig.getGroupSize() > 1
+      && consumerConfig.getDequeueStrategy() == DequeueStrategy.HASH ? consumerConfig.getHashKey() : null;
 
     this.entryStates = Maps.newTreeMap(ROW_PREFIX_COMPARATOR);
     this.entryStatesScanCompleted = Sets.newTreeSet(ROW_PREFIX_COMPARATOR);
@@ -203,6 +215,24 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
 
   protected abstract boolean claimFifoEntry(byte[] row, byte[] value, byte[] oldValue) throws IOException;
 
+  /**
+   * Claims a batch of entries for FIFO consumption. By default it calls
+   * {@link #claimFifoEntry(byte[], byte[], byte[])} for each entry. Implementations can override this method to
+   * claim the entries with fewer round trips to the state table.
+   *
+   * @param rows row keys of the entries to claim
+   * @param value the state value to set
+   * @param oldValues the expected state value of each row, with {@code null} element for rows without state
+   * @return the claim result of each row, in the same order as the given rows
+   */
+  protected boolean[] claimFifoEntries(List<byte[]> rows, byte[] value, List<byte[]> oldValues) throws IOException {
+    boolean[] claimed = new boolean[rows.size()];
+    for (int i = 0; i < claimed.length; i++) {
+      claimed[i] = claimFifoEntry(rows.get(i), value, oldValues.get(i));
+    }
+    return claimed;
+  }
+
   protected abstract void updateState(Iterable<byte[]> rows, int size, byte[] value) throws IOException;
 
   protected abstract void undoState(Iterable<byte[]> rows, int size) throws IOException;
@@ -411,8 +441,9 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
       .toString();
   }
 
-  private ReadFilter createReadFilter(ConsumerConfig consumerConfig, @Nullable ReadFilter extraFilter) {
-    ReadFilter baseFilter = createBaseReadFilter(consumerConfig);
+  private ReadFilter createReadFilter(ConsumerConfig consumerConfig, boolean partitionedRead,
+                                     @Nullable ReadFilter extraFilter) {
+    ReadFilter baseFilter = createBaseReadFilter(consumerConfig, partitionedRead);
 
     if (extraFilter != null) {
       return ReadFilters.and(extraFilter, baseFilter);
@@ -421,7 +452,7 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     }
   }
 
-  private ReadFilter createBaseReadFilter(final ConsumerConfig consumerConfig) {
+  private ReadFilter createBaseReadFilter(final ConsumerConfig consumerConfig, boolean partitionedRead) {
     final int groupSize = consumerConfig.getGroupSize();
     final DequeueStrategy strategy = consumerConfig.getDequeueStrategy();
 
@@ -429,6 +460,20 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
       return ReadFilter.ALWAYS_ACCEPT;
     }
 
+    if (partitionedRead) {
+      // For Hash with hash key, every event needs to be read to get the header value, which is matched in claimEntry
+      if (strategy == DequeueStrategy.HASH && consumerConfig.getHashKey() != null) {
+        return ReadFilter.ALWAYS_ACCEPT;
+      }
+      // Otherwise, each data block is only read by the instance it is assigned to
+      return new ReadFilter() {
+        @Override
+        public boolean acceptBlock(long offset) {
+          return isAssigned(ROUND_ROBIN_HASHER.hashLong(offset).asInt());
+        }
+      };
+    }
+
     // For RoundRobin and Hash partition, the claim is done by matching hashCode to instance id.
     // For Hash, to preserve existing behavior, everything route to instance 0.
     // For RoundRobin, the idea is to scatter the events across consumers evenly. Since there is no way to known
@@ -445,19 +490,72 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
     };
   }
 
+  /**
+   * Returns {@code true} if the given hash value is assigned to this consumer instance.
+   */
+  private boolean isAssigned(int hashValue) {
+    return (hashValue & Integer.MAX_VALUE) % consumerConfig.getGroupSize() == consumerConfig.getInstanceId();
+  }
+
+  /**
+   * Returns {@code true} if the given event is assigned to this consumer instance by the partition header.
+   * Events without the header are assigned by the event offset.
+   */
+  private boolean isAssigned(StreamEventOffset event) {
+    String value = event.getHeaders().get(partitionHeader);
+    if (value == null) {
+      return isAssigned(ROUND_ROBIN_HASHER.hashLong(event.getOffset()).asInt());
+    }
+    return isAssigned(ROUND_ROBIN_HASHER.hashBytes(Bytes.toBytes(value)).asInt());
+  }
+
   private int getEvents(List<? extends StreamEventOffset> source,
                          List<? super PollStreamEvent> result,
-                         int maxEvents, byte[] stateContent) throws IOException {
+                         int maxEvents, @Nullable byte[] fifoStateContent) throws IOException {
     Iterator<? extends StreamEventOffset> iterator = Iterators.consumingIterator(source.iterator());
     int eventsClaimed = 0;
     while (result.size() < maxEvents && iterator.hasNext()) {
-      StreamEventOffset event = iterator.next();
-      byte[] stateRow = claimEntry(event.getOffset(), stateContent);
-      if (stateRow == null) {
-        continue;
+      // Collect events that need to be claimed, up to the number of events still needed, to claim them in one batch
+      List<StreamEventOffset> claimEvents = Lists.newArrayList();
+      List<byte[]> claimRows = Lists.newArrayList();
+      List<byte[]> claimOldStates = Lists.newArrayList();
+
+      while (result.size() + claimEvents.size() < maxEvents && iterator.hasNext()) {
+        StreamEventOffset event = iterator.next();
+        if (partitionHeader != null && !isAssigned(event)) {
+          continue;
+        }
+        byte[] stateRow = getStateRow(event.getOffset());
+        SortedMap<byte[], byte[]> rowStates = getInitRowStates(stateRow);
+
+        // See if the entry should be ignored. If it is in the rowStates with null value, then it should be ignored.
+        byte[] rowState = rowStates.get(stateRow);
+        if (rowStates.containsKey(stateRow) && rowState == null) {
+          continue;
+        }
+
+        // Only need to claim entry if FIFO and group size > 1
+        // For Hash, RR and FIFO with group size == 1, no need to claim and check,
+        // as it's already handled by the readFilter or the partition header check
+        if (fifoStateContent == null) {
+          result.add(new PollStreamEvent(event, stateRow));
+          eventsClaimed++;
+        } else {
+          claimEvents.add(event);
+          claimRows.add(stateRow);
+          claimOldStates.add(rowState);
+        }
+      }
+
+      if (!claimRows.isEmpty()) {
+        boolean[] claimed = claimFifoEntries(claimRows, fifoStateContent, claimOldStates);
+        for (int i = 0; i < claimed.length; i++) {
+          if (claimed[i]) {
+            result.add(new PollStreamEvent(claimEvents.get(i), claimRows.get(i)));
+            eventsClaimed++;
+          }
+        }
       }
-      result.add(new PollStreamEvent(event, stateRow));
-      eventsClaimed++;
     }
     return eventsClaimed;
   }
@@ -492,32 +590,13 @@ public abstract class AbstractStreamFileConsumer implements StreamConsumer {
   }
 
   /**
-   * Try to claim a stream event offset.
-   *
-   * @return The row key for writing to the state table if successfully claimed or {@code null} if not claimed.
+   * Returns the row key in the state table for the given stream event offset.
    */
-  private byte[] claimEntry(StreamFileOffset offset, byte[] claimedStateContent) throws IOException {
+  private byte[] getStateRow(StreamFileOffset offset) throws IOException {
     ByteArrayDataOutput out = ByteStreams.newDataOutput(50);
     out.writeLong(consumerConfig.getGroupId());
     StreamUtils.encodeOffset(out, offset);
-    byte[] row = out.toByteArray();
-
-    SortedMap<byte[], byte[]> rowStates = getInitRowStates(row);
-
-    // See if the entry should be ignored. If it is in the rowStates with null value, then it should be ignored.
-    byte[] rowState = rowStates.get(row);
-    if (rowStates.containsKey(row) && rowState == null) {
-      return null;
-    }
-
-    // Only need to claim entry if FIFO and group size > 1
-    if (consumerConfig.getDequeueStrategy() == DequeueStrategy.FIFO && consumerConfig.getGroupSize() > 1) {
-      return claimFifoEntry(row, claimedStateContent, rowState) ? row : null;
-    }
-
-    // For Hash, RR and FIFO with group size == 1, no need to claim and check,
-    // as it's already handled by the readFilter
-    return row;
+    return out.toByteArray();
   }
 
   /**
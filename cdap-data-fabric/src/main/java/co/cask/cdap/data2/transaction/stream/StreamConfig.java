@@ -18,6 +18,7 @@ package co.cask.cdap.data2.transaction.stream;
 import co.cask.cdap.api.data.format.FormatSpecification;
 import co.cask.cdap.api.data.format.Formats;
 import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.data.stream.StreamFileCompression;
 import co.cask.cdap.proto.Id;
 import com.google.common.base.Objects;
 import org.apache.twill.filesystem.Location;
@@ -41,11 +42,19 @@ public final class StreamConfig {
   private final long ttl;
   private final FormatSpecification format;
   private final int notificationThresholdMB;
+  private final StreamFileCompression compression;
 
   private final transient Location location;
 
   public StreamConfig(Id.Stream streamId, long partitionDuration, long indexInterval, long ttl,
                       Location location, FormatSpecification format, int notificationThresholdMB) {
+    this(streamId, partitionDuration, indexInterval, ttl, location, format, notificationThresholdMB,
+         StreamFileCompression.NONE);
+  }
+
+  public StreamConfig(Id.Stream streamId, long partitionDuration, long indexInterval, long ttl,
+                      Location location, FormatSpecification format, int notificationThresholdMB,
+                      StreamFileCompression compression) {
     this.streamId = streamId;
     this.partitionDuration = partitionDuration;
     this.indexInterval = indexInterval;
@@ -53,6 +62,7 @@ public final class StreamConfig {
     this.location = location;
     this.notificationThresholdMB = notificationThresholdMB;
     this.format = format;
+    this.compression = compression;
   }
 
   /**
@@ -104,6 +114,14 @@ public final class StreamConfig {
     return notificationThresholdMB;
   }
 
+  /**
+   * @return The compression applied to data blocks of new stream files.
+   */
+  public StreamFileCompression getCompression() {
+    // Configs created before compression was added don't have the field
+    return Objects.firstNonNull(compression, StreamFileCompression.NONE);
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -114,6 +132,7 @@ public final class StreamConfig {
       .add("location", location)
       .add("format", format)
       .add("notificationThresholdMB", notificationThresholdMB)
+      .add("compression", compression)
       .toString();
   }
 
@@ -152,7 +171,8 @@ public final class StreamConfig {
                               Objects.firstNonNull(ttl, config.getTTL()),
                               config.getLocation(),
                               Objects.firstNonNull(formatSpec, config.getFormat()),
-                              Objects.firstNonNull(notificationThreshold, config.getNotificationThresholdMB()));
+                              Objects.firstNonNull(notificationThreshold, config.getNotificationThresholdMB()),
+                              config.getCompression());
     }
   }
 }
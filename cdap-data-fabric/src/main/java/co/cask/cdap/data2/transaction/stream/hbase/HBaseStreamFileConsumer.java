@@ -28,6 +28,7 @@ import co.cask.cdap.data2.transaction.stream.StreamConsumer;
 import co.cask.cdap.data2.transaction.stream.StreamConsumerState;
 import co.cask.cdap.data2.transaction.stream.StreamConsumerStateStore;
 import co.cask.cdap.data2.util.hbase.HBaseTableUtil;
+import co.cask.cdap.data2.util.hbase.ParallelCheckAndPut;
 import co.cask.cdap.hbase.wd.AbstractRowKeyDistributor;
 import co.cask.cdap.hbase.wd.DistributedScanner;
 import co.cask.cdap.proto.Id;
@@ -56,10 +57,14 @@ import javax.annotation.concurrent.NotThreadSafe;
 @NotThreadSafe
 public final class HBaseStreamFileConsumer extends AbstractStreamFileConsumer {
 
+  // Maximum number of concurrent checkAndPut calls for claiming a batch of entries
+  private static final int MAX_CLAIM_CONCURRENCY = 8;
+
   private final HBaseTableUtil tableUtil;
   private final HTable hTable;
   private final AbstractRowKeyDistributor keyDistributor;
   private final ExecutorService scanExecutor;
+  private final ParallelCheckAndPut claimer;
 
   /**
    * Constructor.
@@ -75,12 +80,17 @@ public final class HBaseStreamFileConsumer extends AbstractStreamFileConsumer {
     this.hTable = hTable;
     this.keyDistributor = keyDistributor;
     this.scanExecutor = createScanExecutor(streamConfig.getStreamId());
+    this.claimer = new ParallelCheckAndPut(hTable, scanExecutor, MAX_CLAIM_CONCURRENCY);
   }
 
   @Override
   protected void doClose() throws IOException {
     scanExecutor.shutdownNow();
-    hTable.close();
+    try {
+      claimer.close();
+    } finally {
+      hTable.close();
+    }
   }
 
   @Override
@@ -90,6 +100,18 @@ public final class HBaseStreamFileConsumer extends AbstractStreamFileConsumer {
     return hTable.checkAndPut(put.getRow(), QueueEntryRow.COLUMN_FAMILY, stateColumnName, oldValue, put);
   }
 
+  @Override
+  protected boolean[] claimFifoEntries(List<byte[]> rows, byte[] value, List<byte[]> oldValues) throws IOException {
+    // HBase has no multi-row checkAndPut, hence run the claims concurrently to save round trip time
+    List<Put> puts = Lists.newArrayListWithCapacity(rows.size());
+    for (byte[] row : rows) {
+      Put put = new Put(keyDistributor.getDistributedKey(row));
+      put.add(QueueEntryRow.COLUMN_FAMILY, stateColumnName, value);
+      puts.add(put);
+    }
+    return claimer.checkAndPut(QueueEntryRow.COLUMN_FAMILY, stateColumnName, puts, oldValues);
+  }
+
   @Override
   protected void updateState(Iterable<byte[]> rows, int size, byte[] value) throws IOException {
     List<Put> puts = Lists.newArrayListWithCapacity(size);
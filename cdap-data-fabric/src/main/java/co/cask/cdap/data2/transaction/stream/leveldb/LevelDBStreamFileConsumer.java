@@ -35,6 +35,7 @@ import com.google.common.collect.Maps;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import javax.annotation.Nullable;
@@ -90,6 +91,32 @@ public final class LevelDBStreamFileConsumer extends AbstractStreamFileConsumer
     }
   }
 
+  @Override
+  protected boolean[] claimFifoEntries(List<byte[]> rows, byte[] value, List<byte[]> oldValues) throws IOException {
+    boolean[] claimed = new boolean[rows.size()];
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+
+    // Check all rows and persist the claimed ones with one write under the lock
+    synchronized (dbLock) {
+      for (int i = 0; i < claimed.length; i++) {
+        byte[] row = rows.get(i);
+        Map<byte[], byte[]> values =
+          tableCore.getRow(row, new byte[][] { stateColumnName }, null, null, -1, Transaction.ALL_VISIBLE_LATEST);
+        if (!Arrays.equals(values.get(stateColumnName), oldValues.get(i))) {
+          continue;
+        }
+        NavigableMap<byte[], byte[]> columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        columns.put(stateColumnName, value);
+        changes.put(row, columns);
+        claimed[i] = true;
+      }
+      if (!changes.isEmpty()) {
+        tableCore.persist(changes, KeyValue.LATEST_TIMESTAMP);
+      }
+    }
+    return claimed;
+  }
+
   @Override
   protected void updateState(Iterable<byte[]> rows, int size, byte[] value) throws IOException {
     NavigableMap<byte[], NavigableMap<byte[], byte[]>> changes = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.util.hbase;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Performs a batch of single row checkAndPut calls concurrently, since HBase has no multi-row checkAndPut.
+ * As {@link HTable} is not thread safe, each concurrent task uses its own {@link HTable} instance. The extra
+ * instances are created on first use and kept until this class is closed.
+ */
+@NotThreadSafe
+public final class ParallelCheckAndPut implements Closeable {
+
+  private final HTable hTable;
+  private final ExecutorService executor;
+  private final int maxConcurrency;
+  private final List<HTable> taskTables;
+
+  /**
+   * Creates an instance.
+   *
+   * @param hTable the table to operate on. It is used by the calling thread, and is not closed by this class.
+   * @param executor the executor to run the concurrent tasks
+   * @param maxConcurrency maximum number of concurrent checkAndPut calls, including the calling thread
+   */
+  public ParallelCheckAndPut(HTable hTable, ExecutorService executor, int maxConcurrency) {
+    this.hTable = hTable;
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+    this.taskTables = Lists.newArrayList();
+  }
+
+  /**
+   * Performs a checkAndPut for each of the given {@link Put}s against the given column.
+   *
+   * @param family column family of the column to check
+   * @param qualifier qualifier of the column to check
+   * @param puts the {@link Put}s to perform
+   * @param expectedValues the expected value of the column of each row, or {@code null} for an absent column
+   * @return the result of each checkAndPut, in the same order as the given {@link Put}s
+   */
+  public boolean[] checkAndPut(final byte[] family, final byte[] qualifier, final List<Put> puts,
+                               final List<byte[]> expectedValues) throws IOException {
+    final boolean[] results = new boolean[puts.size()];
+    final int tasks = Math.min(puts.size(), maxConcurrency);
+
+    // The first task runs in the calling thread, the others on the executor with their own HTable.
+    ensureTaskTables(tasks - 1);
+    List<Future<?>> futures = Lists.newArrayListWithCapacity(tasks);
+    for (int i = 1; i < tasks; i++) {
+      final int task = i;
+      final HTable table = taskTables.get(task - 1);
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          checkAndPut(table, family, qualifier, puts, expectedValues, results, task, tasks);
+          return null;
+        }
+      }));
+    }
+
+    IOException failure = null;
+    try {
+      checkAndPut(hTable, family, qualifier, puts, expectedValues, results, 0, tasks);
+    } catch (IOException e) {
+      failure = e;
+    }
+
+    // Always wait for all tasks, so that no task is still using the results or a task table after returning
+    for (Future<?> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (HTable table : taskTables) {
+      Closeables.closeQuietly(table);
+    }
+    taskTables.clear();
+  }
+
+  /**
+   * Performs the checkAndPut for every {@code step} {@link Put}, starting from the given index.
+   */
+  private void checkAndPut(HTable table, byte[] family, byte[] qualifier, List<Put> puts,
+                           List<byte[]> expectedValues, boolean[] results, int start, int step) throws IOException {
+    for (int i = start; i < results.length; i += step) {
+      Put put = puts.get(i);
+      results[i] = table.checkAndPut(put.getRow(), family, qualifier, expectedValues.get(i), put);
+    }
+  }
+
+  private void ensureTaskTables(int count) throws IOException {
+    while (taskTables.size() < count) {
+      taskTables.add(new HTable(hTable.getConfiguration(), hTable.getTableName()));
+    }
+  }
+}
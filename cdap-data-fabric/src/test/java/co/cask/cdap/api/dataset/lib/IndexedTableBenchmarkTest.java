@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.dataset.lib;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.DatasetAdmin;
+import co.cask.cdap.api.dataset.DatasetContext;
+import co.cask.cdap.api.dataset.DatasetProperties;
+import co.cask.cdap.api.dataset.DatasetSpecification;
+import co.cask.cdap.api.dataset.table.ConflictDetection;
+import co.cask.cdap.api.dataset.table.Put;
+import co.cask.cdap.api.dataset.table.Scanner;
+import co.cask.cdap.api.dataset.table.Table;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.guice.ConfigModule;
+import co.cask.cdap.common.guice.DiscoveryRuntimeModule;
+import co.cask.cdap.common.guice.LocationRuntimeModule;
+import co.cask.cdap.data.runtime.DataFabricLevelDBModule;
+import co.cask.cdap.data.runtime.DataSetsModules;
+import co.cask.cdap.data.runtime.TransactionMetricsModule;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableAdmin;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTable;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableAdmin;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableDefinition;
+import co.cask.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import co.cask.cdap.test.SlowTests;
+import co.cask.tephra.TransactionContext;
+import co.cask.tephra.TransactionManager;
+import co.cask.tephra.TransactionSystemClient;
+import co.cask.tephra.inmemory.InMemoryTxSystemClient;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of reading {@link IndexedTable} by index with different read ahead sizes.
+ */
+@Category(SlowTests.class)
+public class IndexedTableBenchmarkTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IndexedTableBenchmarkTest.class);
+
+  private static final DatasetContext CONTEXT = DatasetContext.from("benchmark");
+  private static final byte[] IDX_COL = Bytes.toBytes("idx");
+  private static final byte[] VAL_COL = Bytes.toBytes("val");
+  private static final int ROWS = 20000;
+  private static final int[] READ_AHEAD_SIZES = { 1, 10, 100, 1000 };
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static CConfiguration cConf;
+  private static LevelDBTableService levelDBService;
+  private static TransactionManager txManager;
+  private static TransactionSystemClient txClient;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
+    Injector injector = Guice.createInjector(
+      new ConfigModule(cConf),
+      new LocationRuntimeModule().getStandaloneModules(),
+      new DiscoveryRuntimeModule().getStandaloneModules(),
+      new DataSetsModules().getStandaloneModules(),
+      new DataFabricLevelDBModule(),
+      new TransactionMetricsModule());
+    levelDBService = injector.getInstance(LevelDBTableService.class);
+
+    txManager = new TransactionManager(HBaseConfiguration.create());
+    txManager.startAndWait();
+    txClient = new InMemoryTxSystemClient(txManager);
+  }
+
+  @AfterClass
+  public static void finish() {
+    txManager.stopAndWait();
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    new InMemoryTableAdmin(CONTEXT, "data", cConf).create();
+    new InMemoryTableAdmin(CONTEXT, "index", cConf).create();
+    runBenchmark("InMemoryTable",
+                 new InMemoryTable(CONTEXT, "data", ConflictDetection.ROW, cConf),
+                 new InMemoryTable(CONTEXT, "index", ConflictDetection.ROW, cConf));
+  }
+
+  @Test
+  public void testLevelDB() throws Exception {
+    getLevelDBAdmin("data").create();
+    getLevelDBAdmin("index").create();
+    runBenchmark("LevelDBTable",
+                 new LevelDBTable(CONTEXT, "data", ConflictDetection.ROW, levelDBService, cConf, null, null),
+                 new LevelDBTable(CONTEXT, "index", ConflictDetection.ROW, levelDBService, cConf, null, null));
+  }
+
+  private DatasetAdmin getLevelDBAdmin(String name) throws Exception {
+    DatasetSpecification spec = new LevelDBTableDefinition("benchmark").configure(name, DatasetProperties.EMPTY);
+    return new LevelDBTableAdmin(CONTEXT, spec, levelDBService, cConf);
+  }
+
+  private void runBenchmark(String tableType, Table dataTable, Table indexTable) throws Exception {
+    // All rows have the same indexed value, hence all of them are read by one index lookup
+    IndexedTable table = new IndexedTable("benchmark", dataTable, indexTable, new byte[][] { IDX_COL });
+    TransactionContext txContext = new TransactionContext(txClient, table);
+    txContext.start();
+    for (int i = 0; i < ROWS; i++) {
+      table.put(new Put(Bytes.toBytes(i)).add(IDX_COL, Bytes.toBytes("value")).add(VAL_COL, Bytes.toBytes(i)));
+    }
+    txContext.finish();
+
+    // Run twice, with the first round for warm up
+    for (int round = 0; round < 2; round++) {
+      for (int readAhead : READ_AHEAD_SIZES) {
+        table = new IndexedTable("benchmark", dataTable, indexTable, new byte[][] { IDX_COL }, readAhead);
+        txContext = new TransactionContext(txClient, table);
+        txContext.start();
+
+        long startTime = System.nanoTime();
+        int count = 0;
+        Scanner scanner = table.readByIndex(IDX_COL, Bytes.toBytes("value"));
+        try {
+          while (scanner.next() != null) {
+            count++;
+          }
+        } finally {
+          scanner.close();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        txContext.finish();
+
+        Assert.assertEquals(ROWS, count);
+        if (round > 0) {
+          LOG.info("{} index read with read ahead {}: {} rows in {} ms, {} us per row", tableType, readAhead, count,
+                   TimeUnit.NANOSECONDS.toMillis(elapsed), TimeUnit.NANOSECONDS.toMicros(elapsed) / (double) count);
+        }
+      }
+    }
+  }
+}
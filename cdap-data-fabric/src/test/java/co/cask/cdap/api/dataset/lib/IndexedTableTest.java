@@ -340,6 +340,64 @@ public class IndexedTableTest {
     }
   }
 
+  @Test
+  public void testIndexScanReadAhead() throws Exception {
+    Id.DatasetInstance readAheadDs = Id.DatasetInstance.from(DatasetFrameworkTestUtil.NAMESPACE_ID, "readAhead");
+    dsFrameworkUtil.createInstance("indexedTable", readAheadDs, DatasetProperties.builder()
+      .add(IndexedTableDefinition.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTableDefinition.INDEX_SCAN_READ_AHEAD_CONF_KEY, "3")
+      .build());
+    final IndexedTable iTable = dsFrameworkUtil.getInstance(readAheadDs);
+    TransactionExecutor txnl = dsFrameworkUtil.newTransactionExecutor(iTable);
+
+    try {
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // Rows 0, 2, 4, ... are indexed with idx1, rows 1, 3, 5, ... with idx2
+          for (int i = 0; i < 10; i++) {
+            iTable.put(new Put(Bytes.toBytes("row" + i)).add(idxCol, i % 2 == 0 ? idx1 : idx2)
+                         .add(valCol, Bytes.toBytes(i)));
+          }
+        }
+      });
+
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // Rows must be returned in index order across read ahead batches
+          Scanner scanner = iTable.readByIndex(idxCol, idx1);
+          try {
+            for (int i = 0; i < 10; i += 2) {
+              Row row = scanner.next();
+              Assert.assertNotNull(row);
+              Assert.assertArrayEquals(Bytes.toBytes("row" + i), row.getRow());
+              Assert.assertEquals(i, Bytes.toInt(row.get(valCol)));
+            }
+            assertEmpty(scanner);
+          } finally {
+            scanner.close();
+          }
+
+          scanner = iTable.scanByIndex(idxCol, idx1, idx3);
+          try {
+            for (int i = 0; i < 10; i++) {
+              int expected = i < 5 ? i * 2 : (i - 5) * 2 + 1;
+              Row row = scanner.next();
+              Assert.assertNotNull(row);
+              Assert.assertArrayEquals(Bytes.toBytes("row" + expected), row.getRow());
+            }
+            assertEmpty(scanner);
+          } finally {
+            scanner.close();
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(readAheadDs);
+    }
+  }
+
   @Test
   public void testIndexKeyDelimiterAmbiguity() throws Exception {
     final byte[] a = { 'a' };
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.cube;
+
+import co.cask.cdap.api.dataset.lib.cube.AggregationFunction;
+import co.cask.cdap.api.dataset.lib.cube.Cube;
+import co.cask.cdap.api.dataset.lib.cube.TimeSeries;
+import co.cask.cdap.api.metrics.MetricsCollector;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
+import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import co.cask.cdap.data2.dataset2.lib.timeseries.EntityTable;
+import co.cask.cdap.data2.dataset2.lib.timeseries.FactTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the cube tests against a {@link DefaultCube} with query cache enabled.
+ */
+public class DefaultCubeQueryCacheTest extends AbstractCubeTest {
+
+  @Override
+  protected DefaultCube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
+    return getCube(name, resolutions, aggregations, 600);
+  }
+
+  private DefaultCube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations,
+                              long expireSeconds) {
+    FactTableSupplier supplier = new FactTableSupplier() {
+      @Override
+      public FactTable get(int resolution, int rollTime) {
+        String entityTableName = "EntityTable-" + name;
+        InMemoryTableService.create(entityTableName);
+        String dataTableName = "DataTable-" + name + "-" + resolution;
+        InMemoryTableService.create(dataTableName);
+        return new FactTable(new InMemoryMetricsTable(dataTableName),
+                             new EntityTable(new InMemoryMetricsTable(entityTableName)),
+                             resolution, rollTime);
+
+      }
+    };
+
+    return new DefaultCube(resolutions, supplier, aggregations, 1024 * 1024, 10, expireSeconds);
+  }
+
+  @Test
+  public void testCacheHitAndMiss() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    DefaultCube cube = getCube("cachedCube", new int[] {1}, ImmutableMap.of("agg", agg));
+    CountingMetricsCollector metrics = new CountingMetricsCollector();
+    cube.setMetricsCollector(metrics);
+
+    // Time buckets in the past are closed
+    writeInc(cube, "metric1", 1, 1, "1", "1");
+    writeInc(cube, "metric1", 2, 2, "1", "1");
+
+    verifyCountQuery(cube, 0, 10, 1, "metric1", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                     ImmutableList.<String>of(),
+                     ImmutableList.of(new TimeSeries("metric1", Maps.<String, String>newHashMap(),
+                                                     timeValues(1, 1, 2, 2))));
+    Assert.assertEquals(1L, metrics.get("cube.query.cache.miss.count"));
+    Assert.assertEquals(0L, metrics.get("cube.query.cache.hit.count"));
+
+    // Same query with a smaller time range should be served from the cache
+    verifyCountQuery(cube, 2, 10, 1, "metric1", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                     ImmutableList.<String>of(),
+                     ImmutableList.of(new TimeSeries("metric1", Maps.<String, String>newHashMap(),
+                                                     timeValues(2, 2))));
+    Assert.assertEquals(1L, metrics.get("cube.query.cache.miss.count"));
+    Assert.assertEquals(1L, metrics.get("cube.query.cache.hit.count"));
+
+    // Writing to a cached time bucket should invalidate the cache
+    writeInc(cube, "metric1", 2, 3, "1", "1");
+    verifyCountQuery(cube, 0, 10, 1, "metric1", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                     ImmutableList.<String>of(),
+                     ImmutableList.of(new TimeSeries("metric1", Maps.<String, String>newHashMap(),
+                                                     timeValues(1, 1, 2, 5))));
+    Assert.assertEquals(2L, metrics.get("cube.query.cache.miss.count"));
+
+    // Data in time buckets which are still open is always read from the table
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    writeInc(cube, "metric2", now, 1, "1", "1");
+    for (int i = 0; i < 2; i++) {
+      verifyCountQuery(cube, 0, now + 10, 1, "metric2", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                       ImmutableList.<String>of(),
+                       ImmutableList.of(new TimeSeries("metric2", Maps.<String, String>newHashMap(),
+                                                       timeValues(now, i + 1))));
+      // Increment through a different cube instance, which doesn't invalidate the cache
+      writeInc(getCube("cachedCube", new int[] {1}, ImmutableMap.of("agg", agg)), "metric2", now, 1, "1", "1");
+    }
+  }
+
+  @Test
+  public void testCacheExpiry() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    DefaultCube cube = getCube("expiringCube", new int[] {1}, ImmutableMap.of("agg", agg), 1);
+    CountingMetricsCollector metrics = new CountingMetricsCollector();
+    cube.setMetricsCollector(metrics);
+
+    writeInc(cube, "metric1", 1, 1, "1", "1");
+    verifyCountQuery(cube, 0, 10, 1, "metric1", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                     ImmutableList.<String>of(),
+                     ImmutableList.of(new TimeSeries("metric1", Maps.<String, String>newHashMap(),
+                                                     timeValues(1, 1))));
+
+    // A late write through a different cube instance, as done by another process, doesn't invalidate the cache
+    writeInc(getCube("expiringCube", new int[] {1}, ImmutableMap.of("agg", agg)), "metric1", 1, 2, "1", "1");
+    verifyCountQuery(cube, 0, 10, 1, "metric1", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                     ImmutableList.<String>of(),
+                     ImmutableList.of(new TimeSeries("metric1", Maps.<String, String>newHashMap(),
+                                                     timeValues(1, 1))));
+    Assert.assertEquals(1L, metrics.get("cube.query.cache.hit.count"));
+
+    // Once the cached results expire, the late write is read from the table
+    TimeUnit.MILLISECONDS.sleep(1100);
+    verifyCountQuery(cube, 0, 10, 1, "metric1", AggregationFunction.SUM, ImmutableMap.of("dim1", "1"),
+                     ImmutableList.<String>of(),
+                     ImmutableList.of(new TimeSeries("metric1", Maps.<String, String>newHashMap(),
+                                                     timeValues(1, 3))));
+    Assert.assertEquals(2L, metrics.get("cube.query.cache.miss.count"));
+  }
+
+  /**
+   * A {@link MetricsCollector} that keeps the sum of incremented values.
+   */
+  private static final class CountingMetricsCollector implements MetricsCollector {
+
+    private final Map<String, Long> metrics = Maps.newHashMap();
+
+    @Override
+    public void increment(String metricName, long value) {
+      metrics.put(metricName, get(metricName) + value);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      metrics.put(metricName, value);
+    }
+
+    long get(String metricName) {
+      Long value = metrics.get(metricName);
+      return value == null ? 0L : value;
+    }
+  }
+}
@@ -549,6 +549,74 @@ public class PartitionedFileSetTest {
     });
   }
 
+  @Test
+  public void testFilterOnNonLeadingFields() throws Exception {
+    final PartitionedFileSet dataset = dsFrameworkUtil.getInstance(pfsInstance);
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) dataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (String s : new String[] { "a", "b" }) {
+          for (int i = 0; i < 5; i++) {
+            for (long l = 0; l < 5; l++) {
+              PartitionKey key = PartitionKey.builder().addStringField("s", s).addIntField("i", i)
+                .addLongField("l", l).build();
+              dataset.getPartitionOutput(key).addPartition();
+            }
+          }
+        }
+      }
+    });
+
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) dataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        // the condition on "l" can only be matched if the fixed length field "i" is skipped
+        PartitionFilter filter = PartitionFilter.builder()
+          .addValueCondition("s", "b")
+          .addRangeCondition("i", 1, 3)
+          .addValueCondition("l", 4L)
+          .build();
+        Set<PartitionKey> keys = Sets.newHashSet();
+        for (PartitionDetail partition : dataset.getPartitions(filter)) {
+          keys.add(partition.getPartitionKey());
+        }
+        Assert.assertEquals(ImmutableSet.of(
+          PartitionKey.builder().addStringField("s", "b").addIntField("i", 1).addLongField("l", 4L).build(),
+          PartitionKey.builder().addStringField("s", "b").addIntField("i", 2).addLongField("l", 4L).build()), keys);
+
+        // no condition on the leading field
+        filter = PartitionFilter.builder().addValueCondition("l", 2L).build();
+        Assert.assertEquals(10, dataset.getPartitions(filter).size());
+      }
+    });
+  }
+
+  @Test
+  public void testGetPartitionsAfterUpdateInSameTx() throws Exception {
+    final PartitionedFileSet dataset = dsFrameworkUtil.getInstance(pfsInstance);
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) dataset).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        PartitionFilter filter = PartitionFilter.builder().addValueCondition("s", "x").build();
+        Assert.assertTrue(dataset.getPartitions(filter).isEmpty());
+
+        // repeated lookups must reflect the changes made in the same transaction
+        dataset.getPartitionOutput(PARTITION_KEY).addPartition();
+        Set<PartitionDetail> partitions = dataset.getPartitions(filter);
+        Assert.assertEquals(1, partitions.size());
+        Assert.assertTrue(Iterables.getOnlyElement(partitions).getMetadata().asMap().isEmpty());
+
+        dataset.addMetadata(PARTITION_KEY, "key", "value");
+        partitions = dataset.getPartitions(filter);
+        Assert.assertEquals(ImmutableMap.of("key", "value"),
+                            Iterables.getOnlyElement(partitions).getMetadata().asMap());
+
+        dataset.dropPartition(PARTITION_KEY);
+        Assert.assertTrue(dataset.getPartitions(filter).isEmpty());
+      }
+    });
+  }
+
   @Test
   public void testAddRemoveGetPartition() throws Exception {
     final PartitionedFileSet pfs = dsFrameworkUtil.getInstance(pfsInstance);
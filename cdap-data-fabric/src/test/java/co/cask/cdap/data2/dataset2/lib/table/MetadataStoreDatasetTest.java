@@ -20,9 +20,14 @@ import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.DatasetProperties;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.data2.dataset2.DatasetFrameworkTestUtil;
+import co.cask.cdap.internal.app.store.RunRecordMeta;
+import co.cask.cdap.internal.app.store.RunRecordMetaCodec;
 import co.cask.cdap.proto.Id;
+import co.cask.cdap.proto.ProgramRunStatus;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import org.junit.Assert;
 import org.junit.ClassRule;
@@ -127,6 +132,57 @@ public class MetadataStoreDatasetTest {
     Assert.assertEquals(expected, actual);
   }
 
+  @Test
+  public void testBinaryCodec() throws Exception {
+    Id.DatasetInstance storeTable = Id.DatasetInstance.from(DatasetFrameworkTestUtil.NAMESPACE_ID, "testBinaryCodec");
+    dsFrameworkUtil.createInstance(Table.class.getName(), storeTable, DatasetProperties.EMPTY);
+
+    Table table = dsFrameworkUtil.getInstance(storeTable);
+    MetadataStoreDataset jsonStore = new MetadataStoreDataset(table);
+    MetadataStoreDataset binaryStore = new MetadataStoreDataset(table);
+    binaryStore.addCodec(RunRecordMeta.class, new RunRecordMetaCodec());
+
+    RunRecordMeta jsonRecord = new RunRecordMeta("run1", 10L, 20L, ProgramRunStatus.COMPLETED,
+                                                 ImmutableMap.of("key", "value"), null, "twill1");
+    RunRecordMeta binaryRecord = new RunRecordMeta("run2", 30L, null, ProgramRunStatus.RUNNING,
+                                                   null, ImmutableMap.of("arg", "value"), null);
+    MDSKey jsonKey = new MDSKey.Builder().add("runs", "run1").build();
+    MDSKey binaryKey = new MDSKey.Builder().add("runs", "run2").build();
+    jsonStore.write(jsonKey, jsonRecord);
+    binaryStore.write(binaryKey, binaryRecord);
+
+    // Rows written as JSON can still be read with the codec registered
+    Assert.assertEquals(jsonRecord, binaryStore.get(jsonKey, RunRecordMeta.class));
+    RunRecordMeta decoded = binaryStore.get(binaryKey, RunRecordMeta.class);
+    Assert.assertEquals(binaryRecord, decoded);
+    Assert.assertEquals(binaryRecord.getSystemArgs(), decoded.getSystemArgs());
+    Assert.assertEquals(ImmutableMap.of("run1", jsonRecord, "run2", binaryRecord),
+                        toPidMap(binaryStore.<RunRecordMeta>list(new MDSKey.Builder().add("runs").build(),
+                                                                 RunRecordMeta.class)));
+
+    // Re-encoding a decoded record without accessing its maps keeps the maps
+    MDSKey copyKey = new MDSKey.Builder().add("runs", "run3").build();
+    binaryStore.write(copyKey, binaryStore.get(binaryKey, RunRecordMeta.class));
+    Assert.assertEquals(binaryRecord, binaryStore.get(copyKey, RunRecordMeta.class));
+
+    // Binary rows can't be read without the codec
+    try {
+      jsonStore.list(new MDSKey.Builder().add("runs").build(), null, RunRecordMeta.class, Integer.MAX_VALUE,
+                     Predicates.<RunRecordMeta>alwaysTrue());
+      Assert.fail("Expected failure when reading binary value without codec");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private Map<String, RunRecordMeta> toPidMap(List<RunRecordMeta> records) {
+    ImmutableMap.Builder<String, RunRecordMeta> builder = ImmutableMap.builder();
+    for (RunRecordMeta record : records) {
+      builder.put(record.getPid(), record);
+    }
+    return builder.build();
+  }
+
   private static class ScanFunction implements Function<MetadataStoreDataset.KeyValue<Integer>, Boolean> {
     private final List<Integer> values = new ArrayList<>();
     private final int limit;
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+
+/**
+ * Tests for {@link TableWriteBuffer} implementations.
+ */
+public class TableWriteBufferTest {
+
+  @Test
+  public void testArenaSameAsSortedMap() {
+    Random random = new Random();
+    long seed = random.nextLong();
+    random.setSeed(seed);
+
+    TableWriteBuffer expected = TableWriteBuffer.create(TableWriteBuffer.Type.SORTED_MAP);
+    TableWriteBuffer actual = TableWriteBuffer.create(TableWriteBuffer.Type.ARENA);
+
+    // Run a couple of transactions with random writes, with reads in between
+    for (int tx = 0; tx < 5; tx++) {
+      for (int i = 0; i < 10000; i++) {
+        byte[] row = Bytes.toBytes("row" + random.nextInt(50));
+        byte[] column = Bytes.toBytes("col" + random.nextInt(20));
+        switch (random.nextInt(3)) {
+          case 0:
+            byte[] value = Bytes.toBytes(random.nextLong());
+            expected.put(row, column, value);
+            actual.put(row, column, value);
+            break;
+          case 1:
+            expected.put(row, column, null);
+            actual.put(row, column, null);
+            break;
+          default:
+            long amount = random.nextInt(100);
+            expected.increment(row, column, amount);
+            actual.increment(row, column, amount);
+        }
+
+        // Only read in some of the transactions so that both the immutable and mutable views are exercised
+        if (tx % 2 == 1 && random.nextInt(100) == 0) {
+          assertRowEquals(seed, expected.getRow(row), actual.getRow(row));
+        }
+      }
+      assertRowsEquals(seed, expected.getRows(), actual.getRows());
+      assertRowsEquals(seed, expected.drain(), actual.drain());
+      Assert.assertTrue(actual.isEmpty());
+      Assert.assertEquals(0L, actual.getSizeInBytes());
+    }
+  }
+
+  @Test
+  public void testWriteAfterRead() {
+    TableWriteBuffer buffer = TableWriteBuffer.create(TableWriteBuffer.Type.ARENA);
+    byte[] row = Bytes.toBytes("row");
+    byte[] col = Bytes.toBytes("col");
+
+    buffer.increment(row, col, 1L);
+    NavigableMap<byte[], NavigableMap<byte[], Update>> snapshot = buffer.getRows();
+    Assert.assertEquals(1L, ((IncrementValue) snapshot.get(row).get(col)).getValue().longValue());
+
+    // Writes after a read should show up in the next read, but not in the map returned before
+    buffer.increment(row, col, 2L);
+    buffer.put(Bytes.toBytes("row2"), col, Bytes.toBytes("value"));
+    Assert.assertEquals(3L, ((IncrementValue) buffer.getRow(row).get(col)).getValue().longValue());
+    Assert.assertArrayEquals(Bytes.toBytes("value"), buffer.getRow(Bytes.toBytes("row2")).get(col).getBytes());
+    Assert.assertEquals(1L, ((IncrementValue) snapshot.get(row).get(col)).getValue().longValue());
+    Assert.assertEquals(1, snapshot.size());
+
+    // Put overrides the increments
+    buffer.put(row, col, Bytes.toBytes(10L));
+    buffer.increment(row, col, 5L);
+    Assert.assertArrayEquals(Bytes.toBytes(15L), buffer.drain().get(row).get(col).getBytes());
+    Assert.assertNull(buffer.getRow(row));
+  }
+
+  @Test
+  public void testArenaCapacityRelease() {
+    ArenaTableWriteBuffer buffer = (ArenaTableWriteBuffer) TableWriteBuffer.create(TableWriteBuffer.Type.ARENA);
+    int arenaCapacity = buffer.getArenaCapacity();
+    int entriesCapacity = buffer.getEntriesCapacity();
+
+    // A large transaction grows the buffer
+    byte[] value = new byte[64];
+    for (int i = 0; i < 20000; i++) {
+      buffer.put(Bytes.toBytes("row" + i), Bytes.toBytes("col"), value);
+    }
+    Assert.assertTrue(buffer.getArenaCapacity() > arenaCapacity);
+    Assert.assertTrue(buffer.getEntriesCapacity() > entriesCapacity);
+
+    // The memory is released after the transaction
+    Assert.assertEquals(20000, buffer.drain().size());
+    Assert.assertEquals(arenaCapacity, buffer.getArenaCapacity());
+    Assert.assertEquals(entriesCapacity, buffer.getEntriesCapacity());
+
+    // Small transactions keep reusing the grown buffer
+    for (int i = 0; i < 1000; i++) {
+      buffer.put(Bytes.toBytes("row" + i), Bytes.toBytes("col"), value);
+    }
+    int smallCapacity = buffer.getArenaCapacity();
+    Assert.assertTrue(smallCapacity > arenaCapacity);
+    buffer.clear();
+    Assert.assertEquals(smallCapacity, buffer.getArenaCapacity());
+  }
+
+  private void assertRowsEquals(long seed, NavigableMap<byte[], NavigableMap<byte[], Update>> expected,
+                                NavigableMap<byte[], NavigableMap<byte[], Update>> actual) {
+    Assert.assertEquals("Seed " + seed, expected.size(), actual.size());
+    Iterator<Map.Entry<byte[], NavigableMap<byte[], Update>>> iterator = actual.entrySet().iterator();
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : expected.entrySet()) {
+      Map.Entry<byte[], NavigableMap<byte[], Update>> actualEntry = iterator.next();
+      Assert.assertArrayEquals("Seed " + seed, entry.getKey(), actualEntry.getKey());
+      assertRowEquals(seed, entry.getValue(), actualEntry.getValue());
+    }
+  }
+
+  private void assertRowEquals(long seed, NavigableMap<byte[], Update> expected, NavigableMap<byte[], Update> actual) {
+    Assert.assertEquals("Seed " + seed, expected.size(), actual.size());
+    Iterator<Map.Entry<byte[], Update>> iterator = actual.entrySet().iterator();
+    for (Map.Entry<byte[], Update> entry : expected.entrySet()) {
+      Map.Entry<byte[], Update> actualEntry = iterator.next();
+      Assert.assertArrayEquals("Seed " + seed, entry.getKey(), actualEntry.getKey());
+      Assert.assertEquals("Seed " + seed, entry.getValue().getClass(), actualEntry.getValue().getClass());
+      Assert.assertArrayEquals("Seed " + seed, entry.getValue().getBytes(), actualEntry.getValue().getBytes());
+    }
+  }
+}
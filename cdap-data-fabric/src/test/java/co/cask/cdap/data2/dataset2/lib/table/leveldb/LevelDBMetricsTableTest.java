@@ -16,6 +16,7 @@
 
 package co.cask.cdap.data2.dataset2.lib.table.leveldb;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.DatasetProperties;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
@@ -31,17 +32,38 @@ import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.data2.dataset2.lib.table.MetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.MetricsTableTest;
 import co.cask.cdap.proto.Id;
+import co.cask.cdap.test.SlowTests;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
 import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * metrics table test for levelDB.
  */
 public class LevelDBMetricsTableTest extends MetricsTableTest {
 
+  private static final Logger LOG = LoggerFactory.getLogger(LevelDBMetricsTableTest.class);
+
   private static DatasetFramework dsFramework;
 
   @ClassRule
@@ -69,4 +91,64 @@ public class LevelDBMetricsTableTest extends MetricsTableTest {
     return DatasetsUtil.getOrCreateDataset(dsFramework, metricsDatasetInstanceId, MetricsTable.class.getName(),
                                            DatasetProperties.EMPTY, null, null);
   }
+
+  /**
+   * Measures increment throughput with multiple threads, each incrementing its own row, comparing
+   * against all threads incrementing the same row. Increments on different rows should scale with threads.
+   */
+  @Category(SlowTests.class)
+  @Test
+  public void testIncrementThroughput() throws Exception {
+    final int rounds = 2000;
+    for (int threads : new int[] { 1, 2, 4, 8 }) {
+      long distinctRowsRate = runIncrements(getTable("testIncrementThroughputDistinct" + threads),
+                                            threads, rounds, false);
+      long sameRowRate = runIncrements(getTable("testIncrementThroughputSame" + threads), threads, rounds, true);
+      LOG.info("LevelDB metrics table increments with {} threads: {} ops/sec for distinct rows, " +
+                 "{} ops/sec for same row", threads, distinctRowsRate, sameRowRate);
+    }
+  }
+
+  /**
+   * Runs increments concurrently and returns the number of increments per second.
+   */
+  private long runIncrements(final MetricsTable table, int threads,
+                             final int rounds, final boolean sameRow) throws Exception {
+    ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(threads));
+    final CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+    final Map<byte[], Long> increments = ImmutableMap.of(X, 1L, Y, 2L);
+    try {
+      List<ListenableFuture<?>> futures = Lists.newArrayList();
+      for (int i = 0; i < threads; i++) {
+        final byte[] row = sameRow ? A : Bytes.toBytes("row" + i);
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            barrier.await();
+            for (int j = 0; j < rounds; j++) {
+              table.increment(row, increments);
+            }
+            return null;
+          }
+        }));
+      }
+      barrier.await();
+      long startTime = System.nanoTime();
+      Futures.allAsList(futures).get();
+      long elapsed = System.nanoTime() - startTime;
+
+      // Verify no increment was lost
+      if (sameRow) {
+        Assert.assertEquals((long) threads * rounds, Bytes.toLong(table.get(A, X)));
+      } else {
+        for (int i = 0; i < threads; i++) {
+          Assert.assertEquals(2L * rounds, Bytes.toLong(table.get(Bytes.toBytes("row" + i), Y)));
+        }
+      }
+      return (long) threads * rounds * TimeUnit.SECONDS.toNanos(1) / Math.max(1L, elapsed);
+    } finally {
+      executor.shutdownNow();
+      table.close();
+    }
+  }
 }
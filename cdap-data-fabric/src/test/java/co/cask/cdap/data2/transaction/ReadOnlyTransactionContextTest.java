@@ -0,0 +1,298 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.transaction;
+
+import co.cask.cdap.common.utils.Tasks;
+import co.cask.tephra.Transaction;
+import co.cask.tephra.TransactionAware;
+import co.cask.tephra.TransactionFailureException;
+import co.cask.tephra.TransactionManager;
+import co.cask.tephra.inmemory.InMemoryTxSystemClient;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ReadOnlyTransactionProvider} and {@link ReadOnlyTransactionContext}.
+ */
+public class ReadOnlyTransactionContextTest {
+
+  private static TransactionManager txManager;
+
+  @BeforeClass
+  public static void init() {
+    Configuration txConf = HBaseConfiguration.create();
+    txManager = new TransactionManager(txConf);
+    txManager.startAndWait();
+  }
+
+  @AfterClass
+  public static void finish() {
+    txManager.stopAndWait();
+  }
+
+  @Test
+  public void testLeaseSharing() {
+    CountingTxSystemClient txClient = new CountingTxSystemClient(txManager);
+    ReadOnlyTransactionProvider txProvider = new ReadOnlyTransactionProvider(txClient, Long.MAX_VALUE);
+
+    // Leases acquired before the transaction expires share the same transaction
+    ReadOnlyTransactionProvider.Lease lease1 = txProvider.acquire();
+    ReadOnlyTransactionProvider.Lease lease2 = txProvider.acquire();
+    Assert.assertSame(lease1, lease2);
+    Assert.assertEquals(1, txClient.getStarted());
+    Transaction tx = lease1.getTransaction();
+
+    // The transaction stays open while the provider still shares it, even if no one else uses it
+    lease1.release(false);
+    lease2.release(false);
+    Assert.assertTrue(isInProgress(tx));
+
+    // Once the provider stops sharing it, the transaction is aborted
+    txProvider.close();
+    Assert.assertFalse(isInProgress(tx));
+    Assert.assertFalse(isInvalid(tx));
+  }
+
+  @Test
+  public void testLeaseExpiry() {
+    CountingTxSystemClient txClient = new CountingTxSystemClient(txManager);
+    ReadOnlyTransactionProvider txProvider = new ReadOnlyTransactionProvider(txClient, 0L);
+
+    // With no sharing, every lease has its own transaction
+    ReadOnlyTransactionProvider.Lease lease1 = txProvider.acquire();
+    ReadOnlyTransactionProvider.Lease lease2 = txProvider.acquire();
+    Assert.assertNotSame(lease1, lease2);
+    Assert.assertEquals(2, txClient.getStarted());
+
+    // The expired transaction is aborted once the last lease on it is released
+    Assert.assertTrue(isInProgress(lease1.getTransaction()));
+    lease1.release(false);
+    Assert.assertFalse(isInProgress(lease1.getTransaction()));
+    Assert.assertFalse(isInvalid(lease1.getTransaction()));
+
+    // The current transaction is aborted when the provider is closed, after the last lease is released
+    txProvider.close();
+    Assert.assertTrue(isInProgress(lease2.getTransaction()));
+    lease2.release(false);
+    Assert.assertFalse(isInProgress(lease2.getTransaction()));
+  }
+
+  @Test
+  public void testIdleExpiry() throws Exception {
+    CountingTxSystemClient txClient = new CountingTxSystemClient(txManager);
+    ReadOnlyTransactionProvider txProvider = new ReadOnlyTransactionProvider(txClient, 100L);
+    try {
+      ReadOnlyTransactionProvider.Lease lease = txProvider.acquire();
+      final Transaction tx = lease.getTransaction();
+      lease.release(false);
+
+      // Without any other acquire, the transaction is aborted once it expires
+      Tasks.waitFor(false, new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws Exception {
+          return isInProgress(tx);
+        }
+      }, 10, TimeUnit.SECONDS, 10, TimeUnit.MILLISECONDS);
+      Assert.assertFalse(isInvalid(tx));
+
+      // The next acquire starts a new transaction
+      lease = txProvider.acquire();
+      Assert.assertNotEquals(tx.getWritePointer(), lease.getTransaction().getWritePointer());
+      Assert.assertEquals(2, txClient.getStarted());
+      lease.release(false);
+    } finally {
+      txProvider.close();
+    }
+  }
+
+  @Test
+  public void testReadOnly() throws TransactionFailureException {
+    ReadOnlyTransactionProvider txProvider = new ReadOnlyTransactionProvider(new InMemoryTxSystemClient(txManager),
+                                                                             Long.MAX_VALUE);
+    TestTransactionAware txAware = new TestTransactionAware(ImmutableList.<byte[]>of(), true);
+    ReadOnlyTransactionContext txContext = new ReadOnlyTransactionContext(txProvider, ImmutableList.of(txAware));
+
+    txContext.start();
+    Transaction tx = txContext.getCurrentTransaction();
+    Assert.assertNotNull(tx);
+    Assert.assertSame(tx, txAware.getTransaction());
+    txContext.finish();
+
+    // The transaction is never committed, but everything is rolled back
+    Assert.assertNull(txContext.getCurrentTransaction());
+    Assert.assertEquals(0, txAware.getCommitted());
+    Assert.assertEquals(1, txAware.getRolledBack());
+
+    txProvider.close();
+    Assert.assertFalse(isInProgress(tx));
+    Assert.assertFalse(isInvalid(tx));
+  }
+
+  @Test
+  public void testWriteDetection() throws TransactionFailureException {
+    ReadOnlyTransactionProvider txProvider = new ReadOnlyTransactionProvider(new InMemoryTxSystemClient(txManager),
+                                                                             Long.MAX_VALUE);
+    TestTransactionAware txAware = new TestTransactionAware(ImmutableList.of(new byte[] { 1 }), true);
+    ReadOnlyTransactionContext txContext = new ReadOnlyTransactionContext(txProvider, ImmutableList.of(txAware));
+
+    txContext.start();
+    Transaction tx = txContext.getCurrentTransaction();
+    try {
+      txContext.finish();
+      Assert.fail("Expected read-only transaction to fail for changes");
+    } catch (TransactionFailureException e) {
+      // expected
+    }
+
+    // The changes are rolled back and never committed
+    Assert.assertEquals(0, txAware.getCommitted());
+    Assert.assertEquals(1, txAware.getRolledBack());
+
+    // The rollback succeeded, hence the transaction is aborted and not invalidated
+    txProvider.close();
+    Assert.assertFalse(isInProgress(tx));
+    Assert.assertFalse(isInvalid(tx));
+  }
+
+  @Test
+  public void testInvalidateOnRollbackFailure() throws TransactionFailureException {
+    ReadOnlyTransactionProvider txProvider = new ReadOnlyTransactionProvider(new InMemoryTxSystemClient(txManager),
+                                                                             Long.MAX_VALUE);
+    TestTransactionAware txAware = new TestTransactionAware(ImmutableList.<byte[]>of(), false);
+    ReadOnlyTransactionContext txContext = new ReadOnlyTransactionContext(txProvider, ImmutableList.of(txAware));
+
+    txContext.start();
+    Transaction tx = txContext.getCurrentTransaction();
+    txContext.finish();
+    Assert.assertEquals(1, txAware.getRolledBack());
+
+    // The transaction is still shared by the provider, hence it is not invalidated yet
+    Assert.assertTrue(isInProgress(tx));
+    Assert.assertFalse(isInvalid(tx));
+
+    // The failed rollback may have left changes behind, hence the transaction is invalidated instead of aborted
+    txProvider.close();
+    Assert.assertFalse(isInProgress(tx));
+    Assert.assertTrue(isInvalid(tx));
+  }
+
+  private boolean isInProgress(Transaction tx) {
+    return txManager.getCurrentState().getInProgress().containsKey(tx.getWritePointer());
+  }
+
+  private boolean isInvalid(Transaction tx) {
+    return txManager.getCurrentState().getInvalid().contains(tx.getWritePointer());
+  }
+
+  /**
+   * An {@link InMemoryTxSystemClient} that counts the transactions started.
+   */
+  private static final class CountingTxSystemClient extends InMemoryTxSystemClient {
+
+    private final AtomicInteger started = new AtomicInteger();
+
+    CountingTxSystemClient(TransactionManager txManager) {
+      super(txManager);
+    }
+
+    @Override
+    public Transaction startShort() {
+      started.incrementAndGet();
+      return super.startShort();
+    }
+
+    int getStarted() {
+      return started.get();
+    }
+  }
+
+  /**
+   * A {@link TransactionAware} that reports the given changes and records the calls made to it.
+   */
+  private static final class TestTransactionAware implements TransactionAware {
+
+    private final Collection<byte[]> changes;
+    private final boolean rollbackResult;
+    private Transaction tx;
+    private int committed;
+    private int rolledBack;
+
+    TestTransactionAware(Collection<byte[]> changes, boolean rollbackResult) {
+      this.changes = changes;
+      this.rollbackResult = rollbackResult;
+    }
+
+    @Override
+    public void startTx(Transaction tx) {
+      this.tx = tx;
+    }
+
+    @Override
+    public void updateTx(Transaction tx) {
+      this.tx = tx;
+    }
+
+    @Override
+    public Collection<byte[]> getTxChanges() {
+      return changes;
+    }
+
+    @Override
+    public boolean commitTx() throws Exception {
+      committed++;
+      return true;
+    }
+
+    @Override
+    public void postTxCommit() {
+      // no-op
+    }
+
+    @Override
+    public boolean rollbackTx() throws Exception {
+      rolledBack++;
+      return rollbackResult;
+    }
+
+    @Override
+    public String getTransactionAwareName() {
+      return "test";
+    }
+
+    Transaction getTransaction() {
+      return tx;
+    }
+
+    int getCommitted() {
+      return committed;
+    }
+
+    int getRolledBack() {
+      return rolledBack;
+    }
+  }
+}
@@ -102,6 +102,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -493,6 +494,78 @@ public abstract class HBaseQueueTest extends QueueTest {
     verifyQueueIsEmpty(queueName, ImmutableList.of(consumerConfig));
   }
 
+  @Test (timeout = 30000L)
+  public void testSharedPayload() throws Exception {
+    QueueName queueName = QueueName.fromFlowlet(Id.Namespace.DEFAULT.getId(), "app",
+                                                "flow", "flowlet", "sharedpayload");
+    List<ConsumerGroupConfig> groupConfigs = ImmutableList.of(
+      new ConsumerGroupConfig(0L, 1, DequeueStrategy.FIFO, null),
+      new ConsumerGroupConfig(1L, 2, DequeueStrategy.HASH, "key")
+    );
+    configureGroups(queueName, groupConfigs);
+
+    // Enqueue 10 items. Each item should have one row per consumer group plus one shared payload row.
+    createEnqueueRunnable(queueName, 10, 1, null).run();
+    HBaseQueueAdmin hbaseQueueAdmin = (HBaseQueueAdmin) queueAdmin;
+    Assert.assertEquals(30, countRows(hbaseQueueAdmin.getDataTableId(queueName)));
+
+    // Every consumer group should see all items
+    for (ConsumerGroupConfig groupConfig : groupConfigs) {
+      final List<Integer> dequeued = Lists.newArrayList();
+      for (int instanceId = 0; instanceId < groupConfig.getGroupSize(); instanceId++) {
+        try (final QueueConsumer consumer = queueClientFactory.createConsumer(
+          queueName, new ConsumerConfig(groupConfig, instanceId), 1)) {
+          Transactions.createTransactionExecutor(executorFactory, (TransactionAware) consumer)
+            .execute(new TransactionExecutor.Subroutine() {
+              @Override
+              public void apply() throws Exception {
+                for (byte[] data : consumer.dequeue(20)) {
+                  dequeued.add(Bytes.toInt(data));
+                }
+              }
+            });
+        }
+      }
+      Collections.sort(dequeued);
+      Assert.assertEquals(ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), dequeued);
+    }
+
+    // Both the consumer group rows and the shared payload rows should get evicted
+    List<ConsumerConfig> consumerConfigs = Lists.newArrayList();
+    for (ConsumerGroupConfig groupConfig : groupConfigs) {
+      for (int instanceId = 0; instanceId < groupConfig.getGroupSize(); instanceId++) {
+        consumerConfigs.add(new ConsumerConfig(groupConfig, instanceId));
+      }
+    }
+    verifyQueueIsEmpty(queueName, consumerConfigs);
+  }
+
+  @Test (timeout = 30000L)
+  public void testSharedPayloadIncompleteRows() throws Exception {
+    QueueName queueName = QueueName.fromFlowlet(Id.Namespace.DEFAULT.getId(), "app",
+                                                "flow", "flowlet", "sharedpayloadincomplete");
+    configureGroups(queueName, ImmutableList.of(
+      new ConsumerGroupConfig(0L, 1, DequeueStrategy.FIFO, null),
+      new ConsumerGroupConfig(1L, 1, DequeueStrategy.FIFO, null)
+    ));
+
+    // Enqueue 10 items, which writes one row per consumer group with the data, meta and payload reference columns,
+    // plus one shared payload row.
+    createEnqueueRunnable(queueName, 10, 1, null).run();
+    HBaseQueueAdmin hbaseQueueAdmin = (HBaseQueueAdmin) queueAdmin;
+    Assert.assertEquals(30, countRows(hbaseQueueAdmin.getDataTableId(queueName)));
+
+    // Replace the groups with a new one, which starts after all the enqueued items
+    ConsumerGroupConfig groupConfig = new ConsumerGroupConfig(2L, 1, DequeueStrategy.FIFO, null);
+    configureGroups(queueName, ImmutableList.of(groupConfig));
+    forceEviction(queueName, 1);
+
+    // The shared payload rows are evicted, since no consumer can reach them any more. The consumer group rows
+    // only have data columns without any state column, hence they must be kept, since their state columns
+    // could be in a different store file.
+    Assert.assertEquals(20, countRows(hbaseQueueAdmin.getDataTableId(queueName)));
+  }
+
   @Test (timeout = 30000L)
   public void testReconfigure() throws Exception {
     final QueueName queueName = QueueName.fromFlowlet(Id.Namespace.DEFAULT.getId(),
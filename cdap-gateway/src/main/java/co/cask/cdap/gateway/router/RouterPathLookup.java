@@ -18,14 +18,18 @@ package co.cask.cdap.gateway.router;
 
 import co.cask.cdap.common.conf.Constants;
 import co.cask.http.AbstractHttpHandler;
-import org.apache.commons.lang.StringUtils;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 
+import javax.annotation.Nullable;
+
 /**
  * Class to match the request path to corresponding service like app-fabric, or metrics service.
+ * The v3 routes are compiled into a {@link RouterPathTrie} once, and evaluated in the order they are added.
  */
 public final class RouterPathLookup extends AbstractHttpHandler {
 
+  private static final RouterPathTrie V3_ROUTES = createV3Routes();
+
   @SuppressWarnings("unused")
   private enum AllowedMethod {
     GET, PUT, POST, DELETE
@@ -43,18 +47,29 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     try {
       String method = httpRequest.getMethod().getName();
       AllowedMethod requestMethod = AllowedMethod.valueOf(method);
-      String[] uriParts = StringUtils.split(requestPath, '/');
+
+      int start = 0;
+      while (start < requestPath.length() && requestPath.charAt(start) == '/') {
+        start++;
+      }
+      if (start == requestPath.length()) {
+        // No path segment
+        return Constants.Service.APP_FABRIC_HTTP;
+      }
+      String versionToken = Constants.Gateway.API_VERSION_3_TOKEN;
+      int end = start + versionToken.length();
+      boolean isV3 = requestPath.startsWith(versionToken, start)
+        && (end == requestPath.length() || requestPath.charAt(end) == '/');
 
       //Check if the call should go to webapp
-      //If service contains "$HOST" and if first split element is NOT the gateway version, then send it to WebApp
+      //If service contains "$HOST" and if first path segment is NOT the gateway version, then send it to WebApp
       //WebApp serves only static files (HTML, CSS, JS) and so /<appname> calls should go to WebApp
       //But stream calls issued by the UI should be routed to the appropriate CDAP service
-      if (fallbackService.contains("$HOST") && (uriParts.length >= 1)
-        && !("/" + uriParts[0]).equals(Constants.Gateway.API_VERSION_3)) {
+      if (fallbackService.contains("$HOST") && !isV3) {
         return fallbackService;
       }
-      if (uriParts[0].equals(Constants.Gateway.API_VERSION_3_TOKEN)) {
-        return getV3RoutingService(uriParts, requestMethod);
+      if (isV3) {
+        return getV3RoutingService(requestPath, requestMethod);
       }
     } catch (Exception e) {
       // Ignore exception. Default routing to app-fabric.
@@ -62,122 +77,97 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     return Constants.Service.APP_FABRIC_HTTP;
   }
 
-  private String getV3RoutingService(String [] uriParts, AllowedMethod requestMethod) {
-    if ((uriParts.length >= 2) && uriParts[1].equals("feeds")) {
-      // TODO find a better way to handle that - this looks hackish
-      return null;
-    } else if ((uriParts.length >= 9) && "services".equals(uriParts[5]) && "methods".equals(uriParts[7])) {
-      //User defined services handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
-      //Discoverable Service Name -> "service.%s.%s.%s", namespaceId, appId, serviceId
-      return String.format("service.%s.%s.%s", uriParts[2], uriParts[4], uriParts[6]);
-    } else if (matches(uriParts, "v3", "system", "services", null, "logs")) {
-      //Log Handler Path /v3/system/services/<service-id>/logs
-      return Constants.Service.METRICS;
-    } else if (matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata") ||
-
-      matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata", "properties") ||
-
-      matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata", "tags") ||
-
-      matches(uriParts, "v3", "namespaces", null, "metadata", "search") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "lineage") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "lineage") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "runs", null, "metadata")) {
-      return Constants.Service.METADATA_SERVICE;
-    } else if ((matches(uriParts, "v3", "namespaces", null, "streams", null, "adapters")
-      || matches(uriParts, "v3", "namespaces", null, "streams", null, "programs")
-      || matches(uriParts, "v3", "namespaces", null, "data", "datasets", null, "adapters")
-      || matches(uriParts, "v3", "namespaces", null, "data", "datasets", null, "programs")) &&
-      requestMethod.equals(AllowedMethod.GET)) {
-      return Constants.Service.APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 4) && uriParts[1].equals("namespaces") && uriParts[3].equals("streams")) {
-      // /v3/namespaces/<namespace>/streams goes to AppFabricHttp
-      // All else go to Stream Handler
-      if (uriParts.length == 4) {
-        return Constants.Service.APP_FABRIC_HTTP;
-      } else {
-        return Constants.Service.STREAMS;
-      }
-    } else if ((uriParts.length >= 8 && uriParts[7].equals("logs")) ||
-      (uriParts.length >= 10 && uriParts[9].equals("logs")) ||
-      (uriParts.length >= 6 && uriParts[5].equals("logs"))) {
-      //Log Handler Paths:
-      // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
-      // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
-      // /v3/namespaces/<namespaceid>/adapters/<adapterid>/logs
-      // /v3/namespaces/{namespace-id}/adapters/{adapter-id}/runs/{run-id}/logs (same as case 1)
-      return Constants.Service.METRICS;
-    } else if (uriParts.length >= 2 && uriParts[1].equals("metrics")) {
-      //Metrics Search Handler Path /v3/metrics
-      return Constants.Service.METRICS;
-    } else if (uriParts.length >= 5 && uriParts[1].equals("data") && uriParts[2].equals("explore") &&
-      (uriParts[3].equals("queries") || uriParts[3].equals("jdbc") || uriParts[3].equals("namespaces"))) {
-      // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
-      return Constants.Service.EXPLORE_HTTP_USER_SERVICE;
-    } else if (uriParts.length >= 6 && uriParts[3].equals("data") && uriParts[4].equals("explore") &&
-      (uriParts[5].equals("queries") || uriParts[5].equals("streams") || uriParts[5].equals("datasets")
-        || uriParts[5].equals("tables") || uriParts[5].equals("jdbc"))) {
-      // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/streams/{stream}/enable
-      return Constants.Service.EXPLORE_HTTP_USER_SERVICE;
-    } else if ((uriParts.length == 3) && uriParts[1].equals("explore") && uriParts[2].equals("status")) {
-      return Constants.Service.EXPLORE_HTTP_USER_SERVICE;
-    } else if (uriParts.length == 7 && uriParts[3].equals("data") && uriParts[4].equals("datasets") &&
-      (uriParts[6].equals("flows") || uriParts[6].equals("workers") || uriParts[6].equals("mapreduce"))) {
-      // namespaced app fabric data operations:
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
-      return Constants.Service.APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 4) && uriParts[3].equals("data")) {
-      // other data operations. For example:
-      // /v3/namespaces/{namespace-id}/data/datasets
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
-      return Constants.Service.DATASET_MANAGER;
-    }
-    return Constants.Service.APP_FABRIC_HTTP;
+  @Nullable
+  private String getV3RoutingService(String requestPath, AllowedMethod requestMethod) {
+    RouterPathTrie.Target target = V3_ROUTES.lookup(requestPath, requestMethod.name());
+    return target == null ? Constants.Service.APP_FABRIC_HTTP : target.getService(requestPath);
   }
 
   /**
-   * Determines if actual matches expected.
-   *
-   * - actual may be longer than expected, but we'll return true as long as expected was found
-   * - null in expected means "accept any string"
-   *
-   * @param actual actual string array to check
-   * @param expected expected string array format
-   * @return true if actual matches expected
+   * Creates the {@link RouterPathTrie} for the v3 APIs. Routes added first take precedence.
    */
-  private boolean matches(String[] actual, String... expected) {
-    if (actual.length < expected.length) {
-      return false;
-    }
+  private static RouterPathTrie createV3Routes() {
+    RouterPathTrie.Target appFabric = RouterPathTrie.fixed(Constants.Service.APP_FABRIC_HTTP);
+    RouterPathTrie.Target metrics = RouterPathTrie.fixed(Constants.Service.METRICS);
+    RouterPathTrie.Target metadata = RouterPathTrie.fixed(Constants.Service.METADATA_SERVICE);
+    RouterPathTrie.Target explore = RouterPathTrie.fixed(Constants.Service.EXPLORE_HTTP_USER_SERVICE);
+    RouterPathTrie.Builder builder = RouterPathTrie.builder();
+
+    // TODO find a better way to handle that - this looks hackish
+    builder.add("/v3/feeds/**", RouterPathTrie.fixed(null));
 
-    for (int i = 0; i < expected.length; i++) {
-      if (expected[i] == null) {
-        continue;
+    //User defined services handle methods on them:
+    //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
+    //Discoverable Service Name -> "service.%s.%s.%s", namespaceId, appId, serviceId
+    builder.add("/v3/*/*/*/*/services/*/methods/*/**", new RouterPathTrie.Target() {
+      @Override
+      public String getService(String path) {
+        return String.format("service.%s.%s.%s", RouterPathTrie.getSegment(path, 2),
+                             RouterPathTrie.getSegment(path, 4), RouterPathTrie.getSegment(path, 6));
       }
-      if (!expected[i].equals(actual[i])) {
-        return false;
+    });
+
+    //Log Handler Path /v3/system/services/<service-id>/logs
+    builder.add("/v3/system/services/*/logs/**", metrics);
+
+    for (String entity : new String[] { "apps/*", "apps/*/*/*", "artifacts/*/versions/*", "datasets/*", "streams/*",
+                                        "streams/*/views/*" }) {
+      for (String suffix : new String[] { "metadata", "metadata/properties", "metadata/tags" }) {
+        builder.add("/v3/namespaces/*/" + entity + "/" + suffix + "/**", metadata);
       }
     }
-    return true;
+    builder.add("/v3/namespaces/*/metadata/search/**", metadata);
+    builder.add("/v3/namespaces/*/datasets/*/lineage/**", metadata);
+    builder.add("/v3/namespaces/*/streams/*/lineage/**", metadata);
+    builder.add("/v3/namespaces/*/apps/*/*/*/runs/*/metadata/**", metadata);
+
+    for (String entity : new String[] { "streams/*", "data/datasets/*" }) {
+      builder.add("/v3/namespaces/*/" + entity + "/adapters/**", AllowedMethod.GET.name(), appFabric);
+      builder.add("/v3/namespaces/*/" + entity + "/programs/**", AllowedMethod.GET.name(), appFabric);
+    }
+
+    // /v3/namespaces/<namespace>/streams goes to AppFabricHttp
+    // All else go to Stream Handler
+    builder.add("/v3/namespaces/*/streams", appFabric);
+    builder.add("/v3/namespaces/*/streams/*/**", RouterPathTrie.fixed(Constants.Service.STREAMS));
+
+    //Log Handler Paths:
+    // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
+    // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
+    // /v3/namespaces/<namespaceid>/adapters/<adapterid>/logs
+    // /v3/namespaces/{namespace-id}/adapters/{adapter-id}/runs/{run-id}/logs (same as case 1)
+    builder.add("/v3/*/*/*/*/*/*/logs/**", metrics);
+    builder.add("/v3/*/*/*/*/*/*/*/*/logs/**", metrics);
+    builder.add("/v3/*/*/*/*/logs/**", metrics);
+
+    //Metrics Search Handler Path /v3/metrics
+    builder.add("/v3/metrics/**", metrics);
+
+    // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
+    for (String type : new String[] { "queries", "jdbc", "namespaces" }) {
+      builder.add("/v3/data/explore/" + type + "/*/**", explore);
+    }
+    // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/streams/{stream}/enable
+    for (String type : new String[] { "queries", "streams", "datasets", "tables", "jdbc" }) {
+      builder.add("/v3/*/*/data/explore/" + type + "/**", explore);
+    }
+    builder.add("/v3/explore/status", explore);
+
+    // namespaced app fabric data operations:
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
+    for (String programType : new String[] { "flows", "workers", "mapreduce" }) {
+      builder.add("/v3/*/*/data/datasets/*/" + programType, appFabric);
+    }
+
+    // other data operations. For example:
+    // /v3/namespaces/{namespace-id}/data/datasets
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
+    builder.add("/v3/*/*/data/**", RouterPathTrie.fixed(Constants.Service.DATASET_MANAGER));
+
+    return builder.build();
   }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.router;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A trie of URI path patterns used to find the service that handles a request path. Patterns are made of
+ * segments separated by {@code '/'}. A segment is either a literal, or {@code *} which matches any one segment.
+ * A pattern that ends with {@code /**} also matches any path that has more segments after the pattern.
+ * When more than one pattern matches a path, the one that was added first wins.
+ *
+ * Lookup walks the path once, without splitting it. Empty segments in the path are ignored.
+ * This class is immutable once built and is thread-safe.
+ */
+final class RouterPathTrie {
+
+  private static final String WILDCARD = "*";
+  private static final String ANY_REMAINING = "**";
+
+  private final Node root;
+  private final Route[] routes;
+
+  private RouterPathTrie(Node root, List<Route> routes) {
+    this.root = root;
+    this.routes = routes.toArray(new Route[routes.size()]);
+  }
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns the {@link Target} of the first added pattern that matches the given path and method.
+   *
+   * @param path the request path, without query string
+   * @param method the request method
+   * @return the {@link Target} or {@code null} if no pattern matches
+   */
+  @Nullable
+  Target lookup(String path, String method) {
+    int routeIdx = find(root, path, 0, method, Integer.MAX_VALUE);
+    return routeIdx == Integer.MAX_VALUE ? null : routes[routeIdx].target;
+  }
+
+  /**
+   * Returns the index of the first route matching the remaining of the path from the given node, or {@code best}
+   * if there is no route matching before {@code best}.
+   */
+  private int find(Node node, String path, int pos, String method, int best) {
+    if (node.minRouteIdx >= best) {
+      return best;
+    }
+
+    best = findRoute(node.prefixRoutes, method, best);
+
+    int start = skipSeparators(path, pos);
+    if (start >= path.length()) {
+      return findRoute(node.exactRoutes, method, best);
+    }
+
+    int end = path.indexOf('/', start);
+    if (end < 0) {
+      end = path.length();
+    }
+    int length = end - start;
+    for (int i = 0; i < node.literals.length; i++) {
+      String literal = node.literals[i];
+      if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+        best = find(node.literalChildren[i], path, end, method, best);
+        break;
+      }
+    }
+    if (node.wildcardChild != null) {
+      best = find(node.wildcardChild, path, end, method, best);
+    }
+    return best;
+  }
+
+  private int findRoute(int[] routeIndices, String method, int best) {
+    for (int routeIdx : routeIndices) {
+      if (routeIdx >= best) {
+        break;
+      }
+      if (routes[routeIdx].method == null || routes[routeIdx].method.equals(method)) {
+        return routeIdx;
+      }
+    }
+    return best;
+  }
+
+  private static int skipSeparators(String path, int pos) {
+    while (pos < path.length() && path.charAt(pos) == '/') {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * Returns the segment at the given index in the path, ignoring empty segments.
+   *
+   * @throws IllegalArgumentException if the path has no segment at the given index
+   */
+  static String getSegment(String path, int index) {
+    int start = skipSeparators(path, 0);
+    for (int i = 0; i < index && start < path.length(); i++) {
+      int end = path.indexOf('/', start);
+      start = end < 0 ? path.length() : skipSeparators(path, end);
+    }
+    Preconditions.checkArgument(start < path.length(), "No segment at index %s in path %s", index, path);
+    int end = path.indexOf('/', start);
+    return path.substring(start, end < 0 ? path.length() : end);
+  }
+
+  /**
+   * Provides the service to route a request to, once its path is matched.
+   */
+  interface Target {
+
+    /**
+     * Returns the service for the given path, or {@code null} if the request should not be routed.
+     */
+    @Nullable
+    String getService(String path);
+  }
+
+  /**
+   * Returns a {@link Target} that always returns the given service.
+   */
+  static Target fixed(@Nullable final String service) {
+    return new Target() {
+      @Nullable
+      @Override
+      public String getService(String path) {
+        return service;
+      }
+    };
+  }
+
+  /**
+   * Builder for {@link RouterPathTrie}.
+   */
+  static final class Builder {
+    private final Node root = new Node();
+    private final List<Route> routes = Lists.newArrayList();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a pattern that matches requests of any method.
+     */
+    Builder add(String pattern, Target target) {
+      return add(pattern, null, target);
+    }
+
+    /**
+     * Adds a pattern that only matches requests of the given method.
+     */
+    Builder add(String pattern, @Nullable String method, Target target) {
+      int routeIdx = routes.size();
+      routes.add(new Route(method, target));
+
+      Node node = root;
+      node.minRouteIdx = Math.min(node.minRouteIdx, routeIdx);
+      boolean prefix = false;
+      for (String segment : Splitter.on('/').omitEmptyStrings().split(pattern)) {
+        Preconditions.checkArgument(!prefix, "'%s' must be the last segment in pattern %s", ANY_REMAINING, pattern);
+        if (ANY_REMAINING.equals(segment)) {
+          prefix = true;
+          continue;
+        }
+        node = WILDCARD.equals(segment) ? node.getWildcardChild() : node.getLiteralChild(segment);
+        node.minRouteIdx = Math.min(node.minRouteIdx, routeIdx);
+      }
+
+      if (prefix) {
+        node.prefixRoutes = append(node.prefixRoutes, routeIdx);
+      } else {
+        node.exactRoutes = append(node.exactRoutes, routeIdx);
+      }
+      return this;
+    }
+
+    RouterPathTrie build() {
+      return new RouterPathTrie(root, routes);
+    }
+
+    private static int[] append(int[] array, int value) {
+      int[] result = Arrays.copyOf(array, array.length + 1);
+      result[array.length] = value;
+      return result;
+    }
+  }
+
+  /**
+   * A pattern added to the trie.
+   */
+  private static final class Route {
+    private final String method;
+    private final Target target;
+
+    private Route(@Nullable String method, Target target) {
+      this.method = method;
+      this.target = target;
+    }
+  }
+
+  /**
+   * A node in the trie, matching one path segment.
+   */
+  private static final class Node {
+    private String[] literals = new String[0];
+    private Node[] literalChildren = new Node[0];
+    private Node wildcardChild;
+    // Routes that end at this node, ordered by index
+    private int[] exactRoutes = new int[0];
+    // Routes that end at this node and match any remaining segments, ordered by index
+    private int[] prefixRoutes = new int[0];
+    // Smallest index of the routes that go through this node
+    private int minRouteIdx = Integer.MAX_VALUE;
+
+    private Node getLiteralChild(String literal) {
+      for (int i = 0; i < literals.length; i++) {
+        if (literals[i].equals(literal)) {
+          return literalChildren[i];
+        }
+      }
+      Node child = new Node();
+      literals = Arrays.copyOf(literals, literals.length + 1);
+      literals[literals.length - 1] = literal;
+      literalChildren = Arrays.copyOf(literalChildren, literalChildren.length + 1);
+      literalChildren[literalChildren.length - 1] = child;
+      return child;
+    }
+
+    private Node getWildcardChild() {
+      if (wildcardChild == null) {
+        wildcardChild = new Node();
+      }
+      return wildcardChild;
+    }
+  }
+}
@@ -49,19 +49,30 @@ public class RouterServiceLookup {
     new AtomicReference<Map<Integer, String>>(ImmutableMap.<Integer, String>of());
 
   private final DiscoveryServiceClient discoveryServiceClient;
-  private final LoadingCache<CacheKey, EndpointStrategy> discoverableCache;
+  // Cache for services that do not depend on the request, keyed by the service name
+  private final LoadingCache<String, EndpointStrategy> serviceCache;
+  // Cache for webapp services, which depend on the host header and the first path part of the request
+  private final LoadingCache<CacheKey, EndpointStrategy> webappCache;
   private final RouterPathLookup routerPathLookup;
 
   @Inject
   public RouterServiceLookup(DiscoveryServiceClient discoveryServiceClient, RouterPathLookup routerPathLookup) {
     this.discoveryServiceClient = discoveryServiceClient;
     this.routerPathLookup = routerPathLookup;
-    this.discoverableCache = CacheBuilder.newBuilder()
+    this.serviceCache = CacheBuilder.newBuilder()
+      .expireAfterAccess(1, TimeUnit.HOURS)
+      .build(new CacheLoader<String, EndpointStrategy>() {
+        @Override
+        public EndpointStrategy load(String service) throws Exception {
+          return checkEndpoint(discover(service), service);
+        }
+      });
+    this.webappCache = CacheBuilder.newBuilder()
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build(new CacheLoader<CacheKey, EndpointStrategy>() {
         @Override
         public EndpointStrategy load(CacheKey key) throws Exception {
-          return loadCache(key);
+          return loadWebappCache(key);
         }
       });
   }
@@ -116,10 +127,13 @@ public class RouterServiceLookup {
         return null;
       }
 
-      CacheKey cacheKey = new CacheKey(destService, host, path);
-      LOG.trace("Request was routed from {} to: {}", path, cacheKey.getService());
+      LOG.trace("Request was routed from {} to: {}", path, destService);
 
-      return discoverableCache.get(cacheKey);
+      // Only webapp routes depend on the host and path, other services are looked up without allocating a key
+      if (destService.contains("$HOST")) {
+        return webappCache.get(new CacheKey(destService, host, path));
+      }
+      return serviceCache.get(destService);
     } catch (ExecutionException e) {
       return null;
     }
@@ -129,23 +143,21 @@ public class RouterServiceLookup {
     serviceMapRef.set(serviceMap);
   }
 
-  private EndpointStrategy loadCache(CacheKey cacheKey) throws Exception {
-    EndpointStrategy endpointStrategy;
-    String service = cacheKey.getService();
-    if (service.contains("$HOST")) {
-      // Route URLs to host in the header.
-      endpointStrategy = discoverService(cacheKey);
+  private EndpointStrategy loadWebappCache(CacheKey cacheKey) throws Exception {
+    // Route URLs to host in the header.
+    EndpointStrategy endpointStrategy = discoverService(cacheKey);
 
-      if (endpointStrategy.pick() == null) {
-        // Now try default, this matches any host / any port in the host header.
-        endpointStrategy = discoverDefaultService(cacheKey);
-      }
-    } else {
-      endpointStrategy = discover(service);
+    if (endpointStrategy.pick() == null) {
+      // Now try default, this matches any host / any port in the host header.
+      endpointStrategy = discoverDefaultService(cacheKey);
     }
 
+    return checkEndpoint(endpointStrategy, cacheKey);
+  }
+
+  private EndpointStrategy checkEndpoint(EndpointStrategy endpointStrategy, Object service) throws Exception {
     if (endpointStrategy.pick() == null) {
-      String message = String.format("No discoverable endpoints found for service %s", cacheKey);
+      String message = String.format("No discoverable endpoints found for service %s", service);
       LOG.error(message);
       throw new Exception(message);
     }
@@ -17,6 +17,7 @@
 package co.cask.cdap.gateway.router;
 
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.test.SlowTests;
 import com.google.common.collect.ImmutableList;
 import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
 import org.jboss.netty.handler.codec.http.HttpMethod;
@@ -25,12 +26,19 @@ import org.jboss.netty.handler.codec.http.HttpVersion;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  *  To test the RouterPathLookup regular expression tests.
  */
 public class RouterPathTest {
 
+  private static final Logger LOG = LoggerFactory.getLogger(RouterPathTest.class);
   private static RouterPathLookup pathLookup;
   private static final HttpVersion VERSION = HttpVersion.HTTP_1_1;
   private static final String API_KEY = "SampleTestApiKey";
@@ -372,6 +380,53 @@ public class RouterPathTest {
     assertMetadataRouting("/v3/namespaces/default//apps/WordCount/flows/WordCountFlow/runs/runid/metadata");
   }
 
+  @Category(SlowTests.class)
+  @Test
+  public void testLookupPerformance() {
+    // Paths covering all the v3 routes, in the order of the routing rules
+    List<String> paths = ImmutableList.of(
+      "/v3/feeds/test",
+      "/v3/namespaces/default/apps/PurchaseHistory/services/CatalogLookup/methods/ping/1",
+      "/v3/system/services/appfabric/logs",
+      "/v3/namespaces/default/apps/WordCount/flows/WordCountFlow/metadata/tags",
+      "/v3/namespaces/default/streams/s1/views/v1/metadata/properties",
+      "/v3/namespaces/default/metadata/search",
+      "/v3/namespaces/default/datasets/ds1/lineage",
+      "/v3/namespaces/default/data/datasets/ds1/programs",
+      "/v3/namespaces/default/streams",
+      "/v3/namespaces/default/streams/HelloStream/info",
+      "/v3/namespaces/default/apps/WordCount/flows/WordCountFlow/logs",
+      "/v3/namespaces/default/apps/WordCount/flows/WordCountFlow/runs/runid/logs",
+      "/v3/metrics/search",
+      "/v3/data/explore/queries/queryid",
+      "/v3/namespaces/default/data/explore/datasets/ds1/enable",
+      "/v3/explore/status",
+      "/v3/namespaces/default/data/datasets/ds1/flows",
+      "/v3/namespaces/default/data/datasets/ds1/admin/truncate",
+      "/v3/namespaces/default/apps/WordCount/flows/WordCountFlow/status",
+      "/v3/namespaces/default/apps"
+    );
+    HttpRequest[] requests = new HttpRequest[paths.size()];
+    for (int i = 0; i < requests.length; i++) {
+      requests[i] = new DefaultHttpRequest(VERSION, HttpMethod.GET, paths.get(i));
+    }
+
+    int lookups = 2000000;
+    // Run twice, with the first round for warm up
+    for (int round = 0; round < 2; round++) {
+      long startTime = System.nanoTime();
+      for (int i = 0; i < lookups; i++) {
+        int idx = i % requests.length;
+        pathLookup.getRoutingService(FALLBACKSERVICE, paths.get(idx), requests[idx]);
+      }
+      long elapsed = System.nanoTime() - startTime;
+      if (round > 0) {
+        LOG.info("{} lookups in {} ms, {} ns per lookup", lookups,
+                 TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / lookups);
+      }
+    }
+  }
+
   private void assertMetadataRouting(String path) {
     for (HttpMethod method : ImmutableList.of(HttpMethod.GET, HttpMethod.POST, HttpMethod.DELETE)) {
       HttpRequest httpRequest = new DefaultHttpRequest(VERSION, method, path);
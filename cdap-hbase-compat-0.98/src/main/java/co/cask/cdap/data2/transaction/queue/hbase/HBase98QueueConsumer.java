@@ -54,6 +54,7 @@ final class HBase98QueueConsumer extends HBaseQueueConsumer {
     scan.setStopRow(stopRow);
     scan.addColumn(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.DATA_COLUMN);
     scan.addColumn(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.META_COLUMN);
+    scan.addColumn(QueueEntryRow.COLUMN_FAMILY, QueueEntryRow.PAYLOAD_REF_COLUMN);
     scan.addColumn(QueueEntryRow.COLUMN_FAMILY, stateColumnName);
     scan.setFilter(createFilter());
     scan.setMaxVersions(1);
@@ -267,6 +267,14 @@ public final class HBaseQueueRegionObserver extends BaseRegionObserver {
         return false;
       }
 
+      // A shared payload row only has the payload column "p". It can be evicted once all consumers have moved
+      // beyond the entry, since there is no consumer group row referring to it that could still be dequeued.
+      Cell firstCell = result.get(0);
+      if (QueueEntryRow.isPayloadColumn(firstCell.getQualifierArray(), firstCell.getQualifierOffset())) {
+        byte[] smallestStartRow = consumerConfig.getSmallestStartRow();
+        return smallestStartRow != null && compareRowKey(firstCell, smallestStartRow) < 0;
+      }
+
       // TODO (terence): Right now we can only evict if we see all the data columns.
       // It's because it's possible that in some previous flush, only the data columns are flush,
       // then consumer writes the state columns. In the next flush, it'll only see the state columns and those
@@ -274,10 +282,17 @@ public final class HBaseQueueRegionObserver extends BaseRegionObserver {
       // This logic is not perfect as if flush happens after enqueue and before dequeue, that entry may never get
       // evicted (depends on when the next compaction happens, whether the queue configuration has been change or not).
 
-      // There are two data columns, "d" and "m".
-      // If the size == 2, it should not be evicted as well,
+      // There are two data columns, "d" and "m", followed by the payload reference column "r" if the entry
+      // refers to a shared payload. If there are only data columns, it should not be evicted as well,
       // as state columns (dequeue) always happen after data columns (enqueue).
-      if (result.size() <= 2) {
+      int dataColumns = 2;
+      if (result.size() > dataColumns) {
+        Cell refCell = result.get(dataColumns);
+        if (QueueEntryRow.isPayloadRefColumn(refCell.getQualifierArray(), refCell.getQualifierOffset())) {
+          dataColumns++;
+        }
+      }
+      if (result.size() <= dataColumns) {
         skippedIncomplete++;
         return false;
       }
@@ -92,11 +92,6 @@ public abstract class AbstractKeyManager extends AbstractIdleService implements
    */
   protected abstract void doInit() throws IOException;
 
-  /**
-   * Returns whether or not a key exists for the given unique ID.
-   */
-  protected abstract boolean hasKey(int id);
-
   /**
    * Returns the key instance matching a given unique ID.
    */
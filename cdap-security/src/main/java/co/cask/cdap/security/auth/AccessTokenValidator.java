@@ -16,7 +16,12 @@
 
 package co.cask.cdap.security.auth;
 
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Codec;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
 import org.apache.commons.codec.binary.Base64;
@@ -27,17 +32,23 @@ import java.io.IOException;
 
 /**
  * This class validates the accessToken and returns the different states
- * of accessToken validation.
+ * of accessToken validation. Tokens that are validated successfully are cached, so that subsequent validations
+ * of the same token only need to check for token expiration and removal of the secret key used to sign it.
  */
 public class AccessTokenValidator extends AbstractIdleService implements TokenValidator {
   private static final Logger LOG = LoggerFactory.getLogger(AccessTokenValidator.class);
   private final TokenManager tokenManager;
   private final Codec<AccessToken> accessTokenCodec;
+  private final Cache<String, AccessToken> validTokens;
 
   @Inject
-  public AccessTokenValidator(TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
+  public AccessTokenValidator(CConfiguration cConf, TokenManager tokenManager, Codec<AccessToken> accessTokenCodec) {
     this.tokenManager = tokenManager;
     this.accessTokenCodec = accessTokenCodec;
+    this.validTokens = CacheBuilder.newBuilder()
+      .maximumSize(cConf.getLong(Constants.Security.TOKEN_VALIDATION_CACHE_SIZE))
+      .recordStats()
+      .build();
   }
 
   @Override
@@ -47,6 +58,8 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
 
   @Override
   protected void shutDown() throws Exception {
+    LOG.info("Validated access token cache statistics: {}", validTokens.stats());
+    validTokens.invalidateAll();
     tokenManager.stopAndWait();
   }
 
@@ -58,11 +71,26 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
       LOG.debug("Token is missing");
       return TokenState.MISSING;
     }
+
+    accessToken = validTokens.getIfPresent(token);
+    if (accessToken != null) {
+      try {
+        tokenManager.revalidateSecret(accessToken);
+        return state;
+      } catch (InvalidTokenException ite) {
+        validTokens.invalidate(token);
+        state = ite.getReason();
+        LOG.debug("{} {}", state, ite);
+        return state;
+      }
+    }
+
     byte[] decodedToken = Base64.decodeBase64(token);
 
     try {
       accessToken = accessTokenCodec.decode(decodedToken);
       tokenManager.validateSecret(accessToken);
+      validTokens.put(token, accessToken);
     } catch (IOException ioe) {
       state = TokenState.INVALID;
       LOG.debug("Unknown Schema version for Access Token. {}", ioe);
@@ -72,4 +100,11 @@ public class AccessTokenValidator extends AbstractIdleService implements TokenVa
     }
     return state;
   }
+
+  /**
+   * Returns the hit and miss statistics of the validated token cache.
+   */
+  public CacheStats getCacheStats() {
+    return validTokens.stats();
+  }
 }
@@ -121,7 +121,7 @@ public class DistributedKeyManager extends AbstractKeyManager implements Resourc
   }
 
   @Override
-  protected boolean hasKey(int id) {
+  public boolean hasKey(int id) {
     return keyCache.getIfPresent(Integer.toString(id)) != null;
   }
 
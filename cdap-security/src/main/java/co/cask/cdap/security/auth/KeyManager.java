@@ -64,4 +64,11 @@ public interface KeyManager extends Service {
   <T> void validateMAC(Codec<T> codec, Signed<T> signedMessage)
     throws InvalidDigestException, InvalidKeyException;
 
+  /**
+   * Returns whether or not a secret key exists for the given unique ID. A key no longer exists once it is removed
+   * during key rotation, after which digests computed with it can no longer be validated.
+   * @param id The ID of the secret key.
+   */
+  boolean hasKey(int id);
+
 }
@@ -73,10 +73,7 @@ public class TokenManager extends AbstractIdleService {
    * recomputed value.
    */
   public void validateSecret(AccessToken token) throws InvalidTokenException {
-    long now = System.currentTimeMillis();
-    if (token.getIdentifier().getExpireTimestamp() < now) {
-      throw new InvalidTokenException(TokenState.EXPIRED, "Token is expired.");
-    }
+    validateExpiration(token);
 
     try {
       keyManager.validateMAC(identifierCodec, token);
@@ -86,4 +83,26 @@ public class TokenManager extends AbstractIdleService {
       throw new InvalidTokenException(TokenState.INTERNAL, "Invalid key for token.", ike);
     }
   }
+
+  /**
+   * Given an {@link AccessToken} instance that was previously validated by {@link #validateSecret(AccessToken)},
+   * checks that the token has not yet expired and that the secret key used to sign it has not been removed.
+   * This doesn't recompute the digest.
+   * @param token The token instance to revalidate.
+   * @throws InvalidTokenException If the provided token instance is expired or its secret key no longer exists.
+   */
+  public void revalidateSecret(AccessToken token) throws InvalidTokenException {
+    validateExpiration(token);
+    if (!keyManager.hasKey(token.getKeyId())) {
+      throw new InvalidTokenException(TokenState.INTERNAL, "Invalid key for token.",
+                                      new InvalidKeyException("No key found for ID " + token.getKeyId()));
+    }
+  }
+
+  private void validateExpiration(AccessToken token) throws InvalidTokenException {
+    long now = System.currentTimeMillis();
+    if (token.getIdentifier().getExpireTimestamp() < now) {
+      throw new InvalidTokenException(TokenState.EXPIRED, "Token is expired.");
+    }
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.security.auth;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.guice.ConfigModule;
+import co.cask.cdap.common.guice.IOModule;
+import co.cask.cdap.test.SlowTests;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AccessTokenValidator}.
+ */
+public class AccessTokenValidatorTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AccessTokenValidatorTest.class);
+
+  private static Injector injector;
+
+  @BeforeClass
+  public static void init() {
+    injector = Guice.createInjector(new ConfigModule(), new IOModule());
+  }
+
+  @Test
+  public void testCachedValidation() throws Exception {
+    RotatingKeyManager keyManager = new RotatingKeyManager(CConfiguration.create());
+    TokenManager tokenManager = createTokenManager(keyManager);
+    AccessTokenValidator validator = createValidator(CConfiguration.create(), tokenManager);
+    validator.startAndWait();
+    try {
+      long now = System.currentTimeMillis();
+      String token = signToken(tokenManager, now + TimeUnit.HOURS.toMillis(1), "testuser");
+
+      // First validation is a cache miss, the second one is a hit
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+      Assert.assertEquals(1L, validator.getCacheStats().missCount());
+      Assert.assertEquals(1L, validator.getCacheStats().hitCount());
+
+      // Invalid tokens are not cached
+      String invalidToken = token.substring(0, token.length() - 4) + "AAAA";
+      Assert.assertEquals(TokenState.INVALID, validator.validate(invalidToken));
+      Assert.assertEquals(TokenState.INVALID, validator.validate(invalidToken));
+      Assert.assertEquals(3L, validator.getCacheStats().missCount());
+
+      // Rotating the key doesn't invalidate tokens signed with the old key, until the old key is removed
+      int oldKeyId = keyManager.getCurrentKeyId();
+      keyManager.rotate();
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+      keyManager.removeKey(oldKeyId);
+      Assert.assertEquals(TokenState.INTERNAL, validator.validate(token));
+      Assert.assertEquals(TokenState.INTERNAL, validator.validate(token));
+    } finally {
+      validator.stopAndWait();
+    }
+  }
+
+  @Test
+  public void testCachedExpiration() throws Exception {
+    TokenManager tokenManager = createTokenManager(new RotatingKeyManager(CConfiguration.create()));
+    AccessTokenValidator validator = createValidator(CConfiguration.create(), tokenManager);
+    validator.startAndWait();
+    try {
+      String token = signToken(tokenManager, System.currentTimeMillis() + 500, "testuser");
+      Assert.assertEquals(TokenState.VALID, validator.validate(token));
+
+      // The cached token should be expired
+      TimeUnit.MILLISECONDS.sleep(600);
+      Assert.assertEquals(TokenState.EXPIRED, validator.validate(token));
+      Assert.assertEquals(TokenState.EXPIRED, validator.validate(token));
+    } finally {
+      validator.stopAndWait();
+    }
+  }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testValidationThroughput() throws Exception {
+    int tokenCount = 100;
+    int validations = 500000;
+
+    for (long cacheSize : new long[] { 0, 10000 }) {
+      CConfiguration cConf = CConfiguration.create();
+      cConf.setLong(Constants.Security.TOKEN_VALIDATION_CACHE_SIZE, cacheSize);
+      TokenManager tokenManager = createTokenManager(new RotatingKeyManager(cConf));
+      AccessTokenValidator validator = createValidator(cConf, tokenManager);
+      validator.startAndWait();
+      try {
+        String[] tokens = new String[tokenCount];
+        long expiration = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        for (int i = 0; i < tokenCount; i++) {
+          tokens[i] = signToken(tokenManager, expiration, "user" + i);
+        }
+
+        // Run twice, with the first round for warm up
+        for (int round = 0; round < 2; round++) {
+          long startTime = System.nanoTime();
+          for (int i = 0; i < validations; i++) {
+            Assert.assertEquals(TokenState.VALID, validator.validate(tokens[i % tokenCount]));
+          }
+          long elapsed = System.nanoTime() - startTime;
+          if (round > 0) {
+            LOG.info("Cache size {}: {} validations in {} ms, {} validations per second", cacheSize, validations,
+                     TimeUnit.NANOSECONDS.toMillis(elapsed), validations * TimeUnit.SECONDS.toNanos(1) / elapsed);
+          }
+        }
+      } finally {
+        validator.stopAndWait();
+      }
+    }
+  }
+
+  private TokenManager createTokenManager(KeyManager keyManager) {
+    return new TokenManager(keyManager, injector.getInstance(AccessTokenIdentifierCodec.class));
+  }
+
+  private AccessTokenValidator createValidator(CConfiguration cConf, TokenManager tokenManager) {
+    return new AccessTokenValidator(cConf, tokenManager, injector.getInstance(AccessTokenCodec.class));
+  }
+
+  private String signToken(TokenManager tokenManager, long expiration, String user) throws Exception {
+    AccessTokenIdentifier identifier = new AccessTokenIdentifier(user, ImmutableList.of("users"),
+                                                                 System.currentTimeMillis(), expiration);
+    AccessToken token = tokenManager.signIdentifier(identifier);
+    return new String(Base64.encodeBase64(injector.getInstance(AccessTokenCodec.class).encode(token)), Charsets.UTF_8);
+  }
+
+  /**
+   * A {@link KeyManager} that allows rotating and removing keys explicitly.
+   */
+  private static final class RotatingKeyManager extends InMemoryKeyManager {
+
+    RotatingKeyManager(CConfiguration conf) {
+      super(conf);
+    }
+
+    int getCurrentKeyId() {
+      return currentKey.getKeyId();
+    }
+
+    void rotate() {
+      generateKey();
+    }
+
+    void removeKey(int keyId) {
+      allKeys.remove(keyId);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.io.SeekableInputStream;
 import co.cask.cdap.logging.filter.Filter;
 import co.cask.cdap.logging.serialize.LoggingEvent;
+import co.cask.cdap.logging.write.LogFileIndex;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -39,7 +40,8 @@ import java.util.Collection;
 import java.util.List;
 
 /**
- * Reads log events from an Avro file.
+ * Reads log events from an Avro file. If the file has a {@link LogFileIndex}, the index is used to seek close to the
+ * requested time range.
  */
 public class AvroFileReader {
   private static final Logger LOG = LoggerFactory.getLogger(AvroFileReader.class);
@@ -54,29 +56,35 @@ public class AvroFileReader {
   public void readLog(Location file, Filter logFilter, long fromTimeMs, long toTimeMs,
                       int maxEvents, Callback callback) {
     try {
+      LogFileIndex index = LogFileIndex.read(file);
       DataFileReader<GenericRecord> dataFileReader = createReader(file);
       try {
         ILoggingEvent loggingEvent;
-        GenericRecord datum;
+        GenericRecord datum = null;
         if (dataFileReader.hasNext()) {
-          datum = dataFileReader.next();
-          loggingEvent = LoggingEvent.decode(datum);
-          long prevPrevSyncPos = 0;
-          long prevSyncPos = 0;
-          // Seek to time fromTimeMs
-          while (loggingEvent.getTimeStamp() < fromTimeMs && dataFileReader.hasNext()) {
-            // Seek to the next sync point
-            long curPos = dataFileReader.tell();
-            prevPrevSyncPos = prevSyncPos;
-            prevSyncPos = dataFileReader.previousSync();
-            dataFileReader.sync(curPos);
-            if (dataFileReader.hasNext()) {
-              loggingEvent = LoggingEvent.decode(dataFileReader.next(datum));
+          if (index != null) {
+            // Seek to the first indexed segment that can contain events at or after fromTimeMs
+            dataFileReader.seek(index.getReadStartPosition(fromTimeMs));
+          } else {
+            datum = dataFileReader.next();
+            loggingEvent = LoggingEvent.decode(datum);
+            long prevPrevSyncPos = 0;
+            long prevSyncPos = 0;
+            // Seek to time fromTimeMs
+            while (loggingEvent.getTimeStamp() < fromTimeMs && dataFileReader.hasNext()) {
+              // Seek to the next sync point
+              long curPos = dataFileReader.tell();
+              prevPrevSyncPos = prevSyncPos;
+              prevSyncPos = dataFileReader.previousSync();
+              dataFileReader.sync(curPos);
+              if (dataFileReader.hasNext()) {
+                loggingEvent = LoggingEvent.decode(dataFileReader.next(datum));
+              }
             }
-          }
 
-          // We're now likely past the record with fromTimeMs, rewind to the previous sync point
-          dataFileReader.sync(prevPrevSyncPos);
+            // We're now likely past the record with fromTimeMs, rewind to the previous sync point
+            dataFileReader.sync(prevPrevSyncPos);
+          }
 
           // Start reading events from file
           int count = 0;
@@ -110,6 +118,7 @@ public class AvroFileReader {
 
   public Collection<LogEvent> readLogPrev(Location file, Filter logFilter, long fromTimeMs, final int maxEvents) {
     try {
+      LogFileIndex index = LogFileIndex.read(file);
       DataFileReader<GenericRecord> dataFileReader = createReader(file);
 
       try {
@@ -132,7 +141,8 @@ public class AvroFileReader {
         List<LogEvent> logSegment = Lists.newArrayList();
 
         long lastSeekPos;
-        long seekPos = file.length();
+        // Skip the indexed segments that only contain events after fromTimeMs
+        long seekPos = index == null ? file.length() : index.getReadEndPosition(fromTimeMs, file.length());
         while (seekPos > 0) {
           lastSeekPos = seekPos;
           seekPos = seekPos < skipLen ? 0 : seekPos - skipLen;
@@ -99,6 +99,11 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
     Preconditions.checkArgument(syncIntervalBytes > 0,
                                 "Log file sync interval is invalid: %s", syncIntervalBytes);
 
+    long indexIntervalBytes = cConfig.getLong(LoggingConfiguration.LOG_FILE_INDEX_INTERVAL_BYTES,
+                                              LoggingConfiguration.DEFAULT_LOG_FILE_INDEX_INTERVAL_BYTES);
+    Preconditions.checkArgument(indexIntervalBytes >= 0,
+                                "Log file index interval is invalid: %s", indexIntervalBytes);
+
     long checkpointIntervalMs = cConfig.getLong(LoggingConfiguration.LOG_SAVER_CHECKPOINT_INTERVAL_MS,
                                                 LoggingConfiguration.DEFAULT_LOG_SAVER_CHECKPOINT_INTERVAL_MS);
     Preconditions.checkArgument(checkpointIntervalMs > 0,
@@ -133,7 +138,7 @@ public class KafkaLogWriterPlugin extends AbstractKafkaLogProcessor {
 
     AvroFileWriter avroFileWriter = new AvroFileWriter(fileMetaDataManager, cConfig, locationFactory.create(""),
                                                        logBaseDir, serializer.getAvroSchema(), maxLogFileSizeBytes,
-                                                       syncIntervalBytes, inactiveIntervalMs);
+                                                       syncIntervalBytes, inactiveIntervalMs, indexIntervalBytes);
 
     checkpointManager = checkpointManagerFactory.create(KafkaTopic.getTopic(), CHECKPOINT_ROW_KEY_PREFIX);
 
@@ -52,6 +52,7 @@ public final class AvroFileWriter implements Closeable, Flushable {
   private final String logBaseDir;
   private final Schema schema;
   private final int syncIntervalBytes;
+  private final long indexIntervalBytes;
   private final Map<String, AvroFile> fileMap;
   private final long maxFileSize;
   private final long inactiveIntervalMs;
@@ -68,16 +69,19 @@ public final class AvroFileWriter implements Closeable, Flushable {
    * @param maxFileSize Avro files greater than maxFileSize will get rotated.
    * @param syncIntervalBytes the approximate number of uncompressed bytes to write in each block.
    * @param inactiveIntervalMs files that have no data written for more than inactiveIntervalMs will be closed.
+   * @param indexIntervalBytes the approximate number of bytes covered by each entry of the {@link LogFileIndex}
+   *                           of a file. If it is {@code 0}, no index is written.
    */
   public AvroFileWriter(FileMetaDataManager fileMetaDataManager, CConfiguration cConf, Location rootDir,
                         String logBaseDir, Schema schema, long maxFileSize, int syncIntervalBytes,
-                        long inactiveIntervalMs) {
+                        long inactiveIntervalMs, long indexIntervalBytes) {
     this.fileMetaDataManager = fileMetaDataManager;
     this.cConf = cConf;
     this.rootDir = rootDir;
     this.logBaseDir = logBaseDir;
     this.schema = schema;
     this.syncIntervalBytes = syncIntervalBytes;
+    this.indexIntervalBytes = indexIntervalBytes;
     this.fileMap = Maps.newHashMap();
     this.maxFileSize = maxFileSize;
     this.inactiveIntervalMs = inactiveIntervalMs;
@@ -206,6 +210,7 @@ public final class AvroFileWriter implements Closeable, Flushable {
       if (avroFile.getLocation().exists()) {
         avroFile.getLocation().delete();
       }
+      LogFileIndex.delete(avroFile.getLocation());
     } catch (IOException e) {
       LOG.error("Error while closing and deleting file {}", avroFile.getLocation(), e);
     }
@@ -221,6 +226,14 @@ public final class AvroFileWriter implements Closeable, Flushable {
     private long lastModifiedTs;
     private boolean isOpen = false;
 
+    // Index of the file, null if indexing is disabled
+    private LogFileIndex index;
+    private boolean indexModified;
+    private long segmentStartPos;
+    private long segmentEvents;
+    private long segmentMinTs;
+    private long segmentMaxTs;
+
     public AvroFile(Location location) {
       this.location = location;
     }
@@ -237,6 +250,10 @@ public final class AvroFileWriter implements Closeable, Flushable {
       this.dataFileWriter.setSyncInterval(syncIntervalBytes);
       this.lastModifiedTs = System.currentTimeMillis();
       this.isOpen = true;
+      if (indexIntervalBytes > 0) {
+        this.index = new LogFileIndex();
+        startSegment(dataFileWriter.sync());
+      }
     }
 
     public Location getLocation() {
@@ -244,8 +261,18 @@ public final class AvroFileWriter implements Closeable, Flushable {
     }
 
     public void append(LogWriteEvent event) throws IOException {
+      if (index != null && segmentEvents > 0 && getPos() - segmentStartPos >= indexIntervalBytes) {
+        endSegment();
+      }
       dataFileWriter.append(event.getGenericRecord());
       lastModifiedTs = System.currentTimeMillis();
+
+      if (index != null) {
+        long timestamp = event.getLogEvent().getTimeStamp();
+        segmentMinTs = Math.min(segmentMinTs, timestamp);
+        segmentMaxTs = Math.max(segmentMaxTs, timestamp);
+        segmentEvents++;
+      }
     }
 
     public long getPos() throws IOException {
@@ -264,6 +291,7 @@ public final class AvroFileWriter implements Closeable, Flushable {
     public void sync() throws IOException {
       dataFileWriter.flush();
       outputStream.hsync();
+      writeIndex();
     }
 
     @Override
@@ -274,6 +302,9 @@ public final class AvroFileWriter implements Closeable, Flushable {
 
       try {
         if (dataFileWriter != null) {
+          if (index != null && segmentEvents > 0) {
+            endSegment();
+          }
           dataFileWriter.close();
         }
       } finally {
@@ -283,6 +314,39 @@ public final class AvroFileWriter implements Closeable, Flushable {
       }
 
       isOpen = false;
+      writeIndex();
+    }
+
+    /**
+     * Ends the current index segment by forcing a synchronization point in the file, and starts a new segment.
+     */
+    private void endSegment() throws IOException {
+      long syncPos = dataFileWriter.sync();
+      index.addSegment(segmentStartPos, syncPos, segmentMinTs, segmentMaxTs);
+      indexModified = true;
+      startSegment(syncPos);
+    }
+
+    private void startSegment(long syncPos) {
+      segmentStartPos = syncPos;
+      segmentEvents = 0;
+      segmentMinTs = Long.MAX_VALUE;
+      segmentMaxTs = Long.MIN_VALUE;
+    }
+
+    /**
+     * Writes the index if it was modified. Failure is only logged since the index is not needed to read the file.
+     */
+    private void writeIndex() {
+      if (index == null || !indexModified) {
+        return;
+      }
+      try {
+        index.write(location);
+        indexModified = false;
+      } catch (IOException e) {
+        LOG.warn("Failed to write index for log file {}", location, e);
+      }
     }
   }
 }
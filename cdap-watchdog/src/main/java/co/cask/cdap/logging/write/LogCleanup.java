@@ -64,6 +64,7 @@ public final class LogCleanup implements Runnable {
                                                 LOG.info("Deleting log file {}", location);
                                                 location.delete();
                                               }
+                                              LogFileIndex.delete(location);
                                               parentDirs.put(namespacedLogBaseDir, getParent(location));
                                             } catch (IOException e) {
                                               LOG.error("Got exception when deleting path {}", location, e);
@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import co.cask.cdap.common.io.Locations;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A sparse time index of an Avro log file. The log file is divided into segments, each of them starts at an Avro
+ * synchronization point, and the index records the range of log event timestamps in every segment.
+ * Readers use the index to seek close to the events of a time range instead of scanning the file from the beginning
+ * or from the end. The index is stored in a file next to the log file. The part of the log file after the
+ * last indexed segment is not covered by the index. This class is not thread-safe.
+ */
+public final class LogFileIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(LogFileIndex.class);
+
+  private static final String INDEX_FILE_SUFFIX = ".idx";
+  private static final int VERSION = 1;
+
+  private final List<Segment> segments;
+
+  public LogFileIndex() {
+    this.segments = Lists.newArrayList();
+  }
+
+  /**
+   * Returns the {@link Location} of the index file of the given log file.
+   */
+  public static Location getIndexLocation(Location logFile) throws IOException {
+    Location parent = Locations.getParent(logFile);
+    Preconditions.checkArgument(parent != null, "Log file %s has no parent", logFile);
+    return parent.append(logFile.getName() + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * Reads the index of the given log file.
+   *
+   * @return the index or {@code null} if the log file has no index or the index cannot be read
+   */
+  @Nullable
+  public static LogFileIndex read(Location logFile) {
+    try {
+      Location indexLocation = getIndexLocation(logFile);
+      if (!indexLocation.exists()) {
+        return null;
+      }
+      try (DataInputStream is = new DataInputStream(new BufferedInputStream(indexLocation.getInputStream()))) {
+        int version = is.readInt();
+        if (version != VERSION) {
+          LOG.debug("Ignoring index of log file {} with unsupported version {}", logFile, version);
+          return null;
+        }
+        int size = is.readInt();
+        if (size <= 0) {
+          return null;
+        }
+        LogFileIndex index = new LogFileIndex();
+        for (int i = 0; i < size; i++) {
+          index.addSegment(is.readLong(), is.readLong(), is.readLong(), is.readLong());
+        }
+        return index;
+      }
+    } catch (Exception e) {
+      // The index can be partially written while the log file is still being written to
+      LOG.debug("Failed to read index of log file {}, reading without index", logFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes this index for the given log file, replacing any existing index of the file.
+   */
+  public void write(Location logFile) throws IOException {
+    Location indexLocation = getIndexLocation(logFile);
+    try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(indexLocation.getOutputStream()))) {
+      os.writeInt(VERSION);
+      os.writeInt(segments.size());
+      for (Segment segment : segments) {
+        os.writeLong(segment.startPosition);
+        os.writeLong(segment.endPosition);
+        os.writeLong(segment.minTimestamp);
+        os.writeLong(segment.maxTimestamp);
+      }
+    }
+  }
+
+  /**
+   * Deletes the index of the given log file, if there is one.
+   */
+  public static void delete(Location logFile) throws IOException {
+    Location indexLocation = getIndexLocation(logFile);
+    if (indexLocation.exists()) {
+      indexLocation.delete();
+    }
+  }
+
+  /**
+   * Adds a segment to the end of this index.
+   *
+   * @param startPosition synchronization point in the log file where the segment starts
+   * @param endPosition synchronization point in the log file where the segment ends
+   * @param minTimestamp the smallest timestamp of the log events in the segment
+   * @param maxTimestamp the largest timestamp of the log events in the segment
+   */
+  public void addSegment(long startPosition, long endPosition, long minTimestamp, long maxTimestamp) {
+    Preconditions.checkArgument(startPosition <= endPosition,
+                                "Segment start %s is after segment end %s", startPosition, endPosition);
+    Preconditions.checkArgument(segments.isEmpty() || segments.get(segments.size() - 1).endPosition == startPosition,
+                                "Segment starting at %s is not contiguous with the previous segment", startPosition);
+    segments.add(new Segment(startPosition, endPosition, minTimestamp, maxTimestamp));
+  }
+
+  /**
+   * Returns the synchronization point to start reading from to get all log events with timestamp greater than or
+   * equal to the given time. All log events before the returned position have smaller timestamps.
+   */
+  public long getReadStartPosition(long fromTimeMs) {
+    for (Segment segment : segments) {
+      if (segment.maxTimestamp >= fromTimeMs) {
+        return segment.startPosition;
+      }
+    }
+    return getIndexedLength();
+  }
+
+  /**
+   * Returns the position to stop reading at to get all log events with timestamp smaller than or equal to the
+   * given time. All log events after the returned position have larger timestamps.
+   *
+   * @param toTimeMs the largest timestamp to read
+   * @param fileLength current length of the log file
+   */
+  public long getReadEndPosition(long toTimeMs, long fileLength) {
+    // Nothing is known about the events after the last indexed segment
+    if (getIndexedLength() < fileLength) {
+      return fileLength;
+    }
+    long endPosition = fileLength;
+    for (Segment segment : Lists.reverse(segments)) {
+      if (segment.minTimestamp <= toTimeMs) {
+        break;
+      }
+      endPosition = segment.startPosition;
+    }
+    return endPosition;
+  }
+
+  /**
+   * Returns the position in the log file up to which the file is covered by this index.
+   */
+  public long getIndexedLength() {
+    return segments.isEmpty() ? 0L : segments.get(segments.size() - 1).endPosition;
+  }
+
+  /**
+   * Returns the number of segments in this index.
+   */
+  public int size() {
+    return segments.size();
+  }
+
+  /**
+   * A contiguous range of log events in the log file.
+   */
+  private static final class Segment {
+    private final long startPosition;
+    private final long endPosition;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+
+    Segment(long startPosition, long endPosition, long minTimestamp, long maxTimestamp) {
+      this.startPosition = startPosition;
+      this.endPosition = endPosition;
+      this.minTimestamp = minTimestamp;
+      this.maxTimestamp = maxTimestamp;
+    }
+  }
+}
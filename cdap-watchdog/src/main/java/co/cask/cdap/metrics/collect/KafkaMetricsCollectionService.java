@@ -17,9 +17,9 @@ package co.cask.cdap.metrics.collect;
 
 import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.common.conf.Constants;
-import co.cask.cdap.common.io.BinaryEncoder;
-import co.cask.cdap.common.io.Encoder;
-import co.cask.cdap.internal.io.DatumWriter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -33,10 +33,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@link AggregatedMetricsCollectionService} that publish {@link co.cask.cdap.api.metrics.MetricValues} to kafka.
- * The partition is determined by the metric context.
+ * All {@link MetricValues} of the same metric context are published as one message, encoded by
+ * {@link MetricValuesBatchCodec}. The partition is determined by the metric context. The number of bytes published
+ * and the time spent encoding them are tracked, so that the cost of publishing can be observed at runtime.
  */
 @Singleton
 public class KafkaMetricsCollectionService extends AggregatedMetricsCollectionService {
@@ -45,29 +50,45 @@ public class KafkaMetricsCollectionService extends AggregatedMetricsCollectionSe
   private final KafkaClient kafkaClient;
   private final String topicPrefix;
   private final KafkaPublisher.Ack ack;
-  private final DatumWriter<MetricValues> recordWriter;
+  private final MetricValuesBatchCodec codec;
   private final ByteArrayOutputStream encoderOutputStream;
-  private final Encoder encoder;
+  private final AtomicLong publishedBytes;
+  private final AtomicLong encodeNanos;
 
   private KafkaPublisher publisher;
 
   @Inject
   public KafkaMetricsCollectionService(KafkaClient kafkaClient,
-                                       @Named(Constants.Metrics.KAFKA_TOPIC_PREFIX) String topicPrefix,
-                                       DatumWriter<MetricValues> recordWriter) {
-    this(kafkaClient, topicPrefix, KafkaPublisher.Ack.FIRE_AND_FORGET, recordWriter);
+                                       @Named(Constants.Metrics.KAFKA_TOPIC_PREFIX) String topicPrefix) {
+    this(kafkaClient, topicPrefix, KafkaPublisher.Ack.FIRE_AND_FORGET);
   }
 
-  public KafkaMetricsCollectionService(KafkaClient kafkaClient, String topicPrefix,
-                                       KafkaPublisher.Ack ack, DatumWriter<MetricValues> recordWriter) {
+  public KafkaMetricsCollectionService(KafkaClient kafkaClient, String topicPrefix, KafkaPublisher.Ack ack) {
     this.kafkaClient = kafkaClient;
     this.topicPrefix = topicPrefix;
     this.ack = ack;
-    this.recordWriter = recordWriter;
 
     // Parent guarantees the publish method would not get called concurrently, hence safe to reuse the same instances.
+    this.codec = new MetricValuesBatchCodec();
     this.encoderOutputStream = new ByteArrayOutputStream(1024);
-    this.encoder = new BinaryEncoder(encoderOutputStream);
+    this.publishedBytes = new AtomicLong();
+    this.encodeNanos = new AtomicLong();
+  }
+
+  /**
+   * Returns the total number of message bytes published to Kafka so far.
+   */
+  @VisibleForTesting
+  long getPublishedBytes() {
+    return publishedBytes.get();
+  }
+
+  /**
+   * Returns the total time in nanoseconds spent on encoding published messages so far.
+   */
+  @VisibleForTesting
+  long getEncodeNanos() {
+    return encodeNanos.get();
   }
 
   @Override
@@ -84,26 +105,45 @@ public class KafkaMetricsCollectionService extends AggregatedMetricsCollectionSe
     }
     encoderOutputStream.reset();
 
-    KafkaPublisher.Preparer preparer = publisher.prepare(topicPrefix);
+    // Group the MetricValues by context, so that each context is encoded as an individual kafka message
+    Map<Map<String, String>, List<MetricValues>> batches = Maps.newLinkedHashMap();
     while (metrics.hasNext()) {
-      // Encode each MetricRecord into bytes and make it an individual kafka message in a message set.
       MetricValues value = metrics.next();
-      publishMetric(preparer, value);
+      List<MetricValues> batch = batches.get(value.getTags());
+      if (batch == null) {
+        batch = Lists.newArrayList();
+        batches.put(value.getTags(), batch);
+      }
+      batch.add(value);
     }
 
+    KafkaPublisher.Preparer preparer = publisher.prepare(topicPrefix);
+    long bytes = 0;
+    long startTime = System.nanoTime();
+    for (Map.Entry<Map<String, String>, List<MetricValues>> batch : batches.entrySet()) {
+      bytes += publishBatch(preparer, batch.getKey(), batch.getValue());
+    }
+    long nanos = System.nanoTime() - startTime;
+    publishedBytes.addAndGet(bytes);
+    encodeNanos.addAndGet(nanos);
+    LOG.trace("Encoded {} metrics messages of {} bytes in {} ns", batches.size(), bytes, nanos);
+
     preparer.send();
   }
 
-  private void publishMetric(KafkaPublisher.Preparer preparer, MetricValues value) throws IOException {
-    recordWriter.encode(value, encoder);
+  /**
+   * Encodes the given {@link MetricValues} as one message and adds it to the given {@link KafkaPublisher.Preparer}.
+   *
+   * @return the size of the message in bytes
+   */
+  private int publishBatch(KafkaPublisher.Preparer preparer,
+                           Map<String, String> tags, List<MetricValues> values) throws IOException {
+    codec.encode(tags, values, encoderOutputStream);
     // partitioning by the context
-    preparer.add(ByteBuffer.wrap(encoderOutputStream.toByteArray()), getPartitionKey(value));
+    byte[] message = encoderOutputStream.toByteArray();
+    preparer.add(ByteBuffer.wrap(message), tags.hashCode());
     encoderOutputStream.reset();
-  }
-
-  private Integer getPartitionKey(MetricValues value) {
-    // TODO: incredibly non-efficient: it is performed for each metrics data point,
-    return value.getTags().hashCode();
+    return message.length;
   }
 
   private KafkaPublisher getPublisher() {
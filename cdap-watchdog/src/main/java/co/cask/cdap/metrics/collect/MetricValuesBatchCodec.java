@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.collect;
+
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.common.io.ByteBufferInputStream;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Encodes and decodes a batch of {@link MetricValues} that have the same tags as a single message.
+ *
+ * The format is:
+ * <pre>
+ *   byte    format marker
+ *   int     number of strings in the dictionary, followed by the strings
+ *   int     number of tags, followed by the dictionary indexes of each tag name and value
+ *   int     number of MetricValues, followed by each MetricValues as
+ *     long  timestamp, as delta from the timestamp of the previous MetricValues in the batch
+ *     int   number of metrics, followed by each metric as
+ *       int   dictionary index of the metric name
+ *       int   ordinal of the {@link MetricType}
+ *       long  value, as delta from the previous value of the metric with the same name in the batch
+ * </pre>
+ * All numbers are zig-zag variable length encoded with {@link BinaryEncoder}.
+ *
+ * The format marker is an odd byte. A {@link MetricValues} encoded with the reflection based
+ * {@link co.cask.cdap.internal.io.DatumWriter} always starts with the zig-zag encoding of a non-negative number,
+ * which is even. This allows decoders to tell both formats apart.
+ */
+@NotThreadSafe
+public final class MetricValuesBatchCodec {
+
+  private static final byte BATCH_FORMAT = 0x01;
+  private static final MetricType[] METRIC_TYPES = MetricType.values();
+
+  // Reusable states for encoding
+  private final Map<String, Integer> dictionary = Maps.newLinkedHashMap();
+  private long[] lastValues = new long[16];
+
+  /**
+   * Returns {@code true} if the given payload is encoded in the batch format. The position of the given buffer
+   * is not changed.
+   */
+  public static boolean isBatch(ByteBuffer payload) {
+    return payload.hasRemaining() && payload.get(payload.position()) == BATCH_FORMAT;
+  }
+
+  /**
+   * Encodes the given {@link MetricValues} into the given {@link OutputStream}.
+   *
+   * @param tags the tags shared by all the given {@link MetricValues}
+   * @param values the {@link MetricValues} to encode
+   */
+  public void encode(Map<String, String> tags, Collection<MetricValues> values, OutputStream os) throws IOException {
+    dictionary.clear();
+    for (Map.Entry<String, String> tag : tags.entrySet()) {
+      addToDictionary(tag.getKey());
+      addToDictionary(tag.getValue());
+    }
+    for (MetricValues value : values) {
+      for (MetricValue metric : value.getMetrics()) {
+        addToDictionary(metric.getName());
+      }
+    }
+
+    os.write(BATCH_FORMAT);
+    Encoder encoder = new BinaryEncoder(os);
+    encoder.writeInt(dictionary.size());
+    for (String str : dictionary.keySet()) {
+      encoder.writeString(str);
+    }
+
+    encoder.writeInt(tags.size());
+    for (Map.Entry<String, String> tag : tags.entrySet()) {
+      encoder.writeInt(dictionary.get(tag.getKey()));
+      encoder.writeInt(dictionary.get(tag.getValue()));
+    }
+
+    if (lastValues.length < dictionary.size()) {
+      lastValues = new long[Math.max(lastValues.length * 2, dictionary.size())];
+    }
+    Arrays.fill(lastValues, 0, dictionary.size(), 0L);
+
+    encoder.writeInt(values.size());
+    long lastTimestamp = 0L;
+    for (MetricValues value : values) {
+      encoder.writeLong(value.getTimestamp() - lastTimestamp);
+      lastTimestamp = value.getTimestamp();
+
+      encoder.writeInt(value.getMetrics().size());
+      for (MetricValue metric : value.getMetrics()) {
+        int nameIdx = dictionary.get(metric.getName());
+        encoder.writeInt(nameIdx);
+        encoder.writeInt(metric.getType().ordinal());
+        encoder.writeLong(metric.getValue() - lastValues[nameIdx]);
+        lastValues[nameIdx] = metric.getValue();
+      }
+    }
+  }
+
+  /**
+   * Decodes a batch encoded by {@link #encode(Map, Collection, OutputStream)} from the given payload. The position
+   * of the given buffer is not changed.
+   *
+   * @param payload the encoded batch
+   * @param result collection for adding the decoded {@link MetricValues}
+   */
+  public static void decode(ByteBuffer payload, Collection<MetricValues> result) throws IOException {
+    ByteBuffer buffer = payload.duplicate();
+    if (buffer.get() != BATCH_FORMAT) {
+      throw new IOException("Payload is not encoded in batch format");
+    }
+    Decoder decoder = new BinaryDecoder(new ByteBufferInputStream(buffer));
+
+    String[] strings = new String[readSize(decoder)];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = decoder.readString();
+    }
+
+    int tagCount = readSize(decoder);
+    ImmutableMap.Builder<String, String> tags = ImmutableMap.builder();
+    for (int i = 0; i < tagCount; i++) {
+      String name = getString(strings, decoder.readInt());
+      tags.put(name, getString(strings, decoder.readInt()));
+    }
+    Map<String, String> tagMap = tags.build();
+
+    long[] lastValues = new long[strings.length];
+    int valuesCount = readSize(decoder);
+    List<MetricValues> decoded = new ArrayList<>(valuesCount);
+    long timestamp = 0L;
+    for (int i = 0; i < valuesCount; i++) {
+      timestamp += decoder.readLong();
+      int metricCount = readSize(decoder);
+      List<MetricValue> metrics = new ArrayList<>(metricCount);
+      for (int j = 0; j < metricCount; j++) {
+        int nameIdx = decoder.readInt();
+        String name = getString(strings, nameIdx);
+        int type = decoder.readInt();
+        if (type < 0 || type >= METRIC_TYPES.length) {
+          throw new IOException("Invalid metric type " + type);
+        }
+        long value = lastValues[nameIdx] + decoder.readLong();
+        lastValues[nameIdx] = value;
+        metrics.add(new MetricValue(name, METRIC_TYPES[type], value));
+      }
+      decoded.add(new MetricValues(tagMap, timestamp, metrics));
+    }
+    // Only add to the result if the whole batch is decoded successfully
+    result.addAll(decoded);
+  }
+
+  private void addToDictionary(String str) {
+    if (!dictionary.containsKey(str)) {
+      dictionary.put(str, dictionary.size());
+    }
+  }
+
+  private static int readSize(Decoder decoder) throws IOException {
+    int size = decoder.readInt();
+    if (size < 0) {
+      throw new IOException("Invalid size " + size);
+    }
+    return size;
+  }
+
+  private static String getString(String[] strings, int idx) throws IOException {
+    if (idx < 0 || idx >= strings.length) {
+      throw new IOException("Invalid dictionary index " + idx);
+    }
+    return strings[idx];
+  }
+}
@@ -23,6 +23,7 @@ import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.common.io.BinaryDecoder;
 import co.cask.cdap.internal.io.DatumReader;
+import co.cask.cdap.metrics.collect.MetricValuesBatchCodec;
 import co.cask.common.io.ByteBufferInputStream;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -32,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -41,7 +43,8 @@ import javax.annotation.Nullable;
 
 /**
  * A {@link KafkaConsumer.MessageCallback} that decodes message into {@link co.cask.cdap.api.metrics.MetricValues}
- * and stores it in {@link MetricStore}.
+ * and stores it in {@link MetricStore}. Messages can either be a single {@link MetricValues} encoded with the
+ * {@link DatumReader} schema, or a batch encoded by {@link MetricValuesBatchCodec}.
  */
 public final class MetricsMessageCallback implements KafkaConsumer.MessageCallback {
 
@@ -69,12 +72,18 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
     // Decode the metrics records.
     final ByteBufferInputStream is = new ByteBufferInputStream(null);
     List<MetricValues> records = Lists.newArrayList();
+    long bytes = 0;
 
     while (messages.hasNext()) {
       FetchedMessage input = messages.next();
+      ByteBuffer payload = input.getPayload();
+      bytes += payload.remaining();
       try {
-        MetricValues metricValues = recordReader.read(new BinaryDecoder(is.reset(input.getPayload())), recordSchema);
-        records.add(metricValues);
+        if (MetricValuesBatchCodec.isBatch(payload)) {
+          MetricValuesBatchCodec.decode(payload, records);
+        } else {
+          records.add(recordReader.read(new BinaryDecoder(is.reset(payload)), recordSchema));
+        }
       } catch (IOException e) {
         LOG.info("Failed to decode message to MetricValue. Skipped. {}", e.getMessage());
       }
@@ -86,7 +95,7 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
     }
 
     try {
-      addProcessingStats(records);
+      addProcessingStats(records, bytes);
       metricStore.add(records);
     } catch (Exception e) {
       String msg = "Failed to add metrics data to a store";
@@ -102,7 +111,7 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
     }
   }
 
-  private void addProcessingStats(List<MetricValues> records) {
+  private void addProcessingStats(List<MetricValues> records, long bytes) {
     if (records.isEmpty()) {
       return;
     }
@@ -112,6 +121,7 @@ public final class MetricsMessageCallback implements KafkaConsumer.MessageCallba
     records.add(
       new MetricValues(metricsContext, TimeUnit.MILLISECONDS.toSeconds(now),
                        ImmutableList.of(new MetricValue("metrics.process.count", MetricType.COUNTER, count),
+                                        new MetricValue("metrics.process.bytes", MetricType.COUNTER, bytes),
                                         new MetricValue("metrics.process.delay.ms", MetricType.GAUGE, delay))));
   }
 
@@ -35,6 +35,7 @@ import co.cask.cdap.api.metrics.MetricValue;
 import co.cask.cdap.api.metrics.MetricValues;
 import co.cask.cdap.api.metrics.MetricsContext;
 import co.cask.cdap.api.metrics.TagValue;
+import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data2.dataset2.lib.cube.Aggregation;
 import co.cask.cdap.data2.dataset2.lib.cube.DefaultAggregation;
@@ -199,13 +200,24 @@ public class DefaultMetricStore implements MetricStore {
   }
 
   @Inject
-  public DefaultMetricStore(final MetricDatasetFactory dsFactory) {
+  public DefaultMetricStore(final MetricDatasetFactory dsFactory, CConfiguration cConf) {
     // 1 sec, 1 min, 1 hour and "all time totals"
-    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION});
+    this(dsFactory, new int[] {1, 60, 3600, TOTALS_RESOLUTION},
+         cConf.getLong(Constants.Metrics.QUERY_CACHE_SIZE_BYTES, Constants.Metrics.DEFAULT_QUERY_CACHE_SIZE_BYTES),
+         cConf.getLong(Constants.Metrics.QUERY_CACHE_CLOSED_DELAY_SECONDS,
+                       Constants.Metrics.DEFAULT_QUERY_CACHE_CLOSED_DELAY_SECONDS),
+         cConf.getLong(Constants.Metrics.QUERY_CACHE_EXPIRE_SECONDS,
+                       Constants.Metrics.DEFAULT_QUERY_CACHE_EXPIRE_SECONDS));
   }
 
   // NOTE: should never be used apart from data migration during cdap upgrade
   public DefaultMetricStore(final MetricDatasetFactory dsFactory, final int resolutions[]) {
+    this(dsFactory, resolutions, 0, 0, 0);
+  }
+
+  private DefaultMetricStore(final MetricDatasetFactory dsFactory, final int resolutions[],
+                             final long queryCacheSizeBytes, final long queryCacheClosedDelaySeconds,
+                             final long queryCacheExpireSeconds) {
     this.resolutions = resolutions;
     final FactTableSupplier factTableSupplier = new FactTableSupplier() {
       @Override
@@ -217,7 +229,10 @@ public class DefaultMetricStore implements MetricStore {
     this.cube = Suppliers.memoize(new Supplier<Cube>() {
       @Override
       public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS);
+        // metrics tables are not transactional, hence query results of closed time buckets can be cached.
+        // Metrics are written by the metrics processor, so cached results only catch up when they expire.
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, queryCacheSizeBytes,
+                                           queryCacheClosedDelaySeconds, queryCacheExpireSeconds);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
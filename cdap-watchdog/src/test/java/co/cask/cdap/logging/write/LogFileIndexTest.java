@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import ch.qos.logback.classic.Level;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.logging.LoggingContext;
+import co.cask.cdap.logging.appender.LoggingTester;
+import co.cask.cdap.logging.context.FlowletLoggingContext;
+import co.cask.cdap.logging.filter.Filter;
+import co.cask.cdap.logging.read.AvroFileReader;
+import co.cask.cdap.logging.read.LogEvent;
+import co.cask.cdap.logging.serialize.LogSchema;
+import co.cask.cdap.logging.serialize.LoggingEvent;
+import co.cask.cdap.test.SlowTests;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LogFileIndex} written by {@link AvroFileWriter} and used by {@link AvroFileReader}.
+ */
+public class LogFileIndexTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogFileIndexTest.class);
+  private static final long START_TIME = 1000000L;
+  private static final LoggingContext LOGGING_CONTEXT =
+    new FlowletLoggingContext("NS_1", "APP_1", "FLOW_1", "FLOWLET_1", "RUN1", "INSTANCE1");
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static Schema schema;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    schema = new LogSchema().getAvroSchema();
+  }
+
+  @Test
+  public void testIndexedRead() throws Exception {
+    Location file = createLocation();
+    AvroFileWriter.AvroFile avroFile = openFile(file, 4096, 16 * 1024);
+    appendEvents(avroFile, 0, 20000);
+    avroFile.close();
+
+    LogFileIndex index = LogFileIndex.read(file);
+    Assert.assertNotNull(index);
+    Assert.assertTrue(index.size() > 1);
+    Assert.assertEquals(file.length(), index.getIndexedLength());
+
+    AvroFileReader reader = new AvroFileReader(schema);
+    List<Long> next = readNext(reader, file, START_TIME + 10000, 100);
+    List<Long> prev = readPrev(reader, file, START_TIME + 10000, 100);
+    assertTimestamps(START_TIME + 10000, START_TIME + 10100, next);
+    assertTimestamps(START_TIME + 9901, START_TIME + 10001, prev);
+
+    // Reads beyond both ends of the file
+    assertTimestamps(START_TIME, START_TIME + 10, readNext(reader, file, 0, 10));
+    Assert.assertTrue(readNext(reader, file, START_TIME + 20000, 10).isEmpty());
+    Assert.assertTrue(readPrev(reader, file, START_TIME - 1, 10).isEmpty());
+    assertTimestamps(START_TIME + 19990, START_TIME + 20000, readPrev(reader, file, Long.MAX_VALUE, 10));
+
+    // Reading without the index should give the same result
+    LogFileIndex.delete(file);
+    Assert.assertNull(LogFileIndex.read(file));
+    Assert.assertEquals(next, readNext(reader, file, START_TIME + 10000, 100));
+    Assert.assertEquals(prev, readPrev(reader, file, START_TIME + 10000, 100));
+  }
+
+  @Test
+  public void testPartialIndex() throws Exception {
+    Location file = createLocation();
+    AvroFileWriter.AvroFile avroFile = openFile(file, 4096, 16 * 1024);
+    try {
+      appendEvents(avroFile, 0, 10000);
+      avroFile.sync();
+      LogFileIndex index = LogFileIndex.read(file);
+      Assert.assertNotNull(index);
+
+      // Events written after the index was written are not covered by the index
+      appendEvents(avroFile, 10000, 10000);
+      Assert.assertTrue(index.getIndexedLength() < file.length());
+
+      AvroFileReader reader = new AvroFileReader(schema);
+      assertTimestamps(START_TIME + 15000, START_TIME + 15100, readNext(reader, file, START_TIME + 15000, 100));
+      assertTimestamps(START_TIME + 14901, START_TIME + 15001, readPrev(reader, file, START_TIME + 15000, 100));
+      assertTimestamps(START_TIME + 19900, START_TIME + 20000, readPrev(reader, file, Long.MAX_VALUE, 100));
+    } finally {
+      avroFile.close();
+    }
+  }
+
+  @Test
+  public void testNoIndex() throws Exception {
+    Location file = createLocation();
+    AvroFileWriter.AvroFile avroFile = openFile(file, 4096, 0);
+    appendEvents(avroFile, 0, 1000);
+    avroFile.close();
+
+    Assert.assertFalse(LogFileIndex.getIndexLocation(file).exists());
+    assertTimestamps(START_TIME + 500, START_TIME + 510,
+                     readNext(new AvroFileReader(schema), file, START_TIME + 500, 10));
+  }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testReadPerformance() throws Exception {
+    Location file = createLocation();
+    AvroFileWriter.AvroFile avroFile = openFile(file, 50 * 1024, 256 * 1024);
+    int eventCount = 500000;
+    appendEvents(avroFile, 0, eventCount);
+    avroFile.close();
+    LOG.info("Log file size: {} bytes, index size: {}", file.length(), LogFileIndex.read(file).size());
+
+    AvroFileReader reader = new AvroFileReader(schema);
+    long middle = START_TIME + eventCount / 2;
+    long indexedNext = timeReads(reader, file, middle, true);
+    long indexedPrev = timeReads(reader, file, middle, false);
+
+    LogFileIndex.delete(file);
+    long scanNext = timeReads(reader, file, middle, true);
+    long scanPrev = timeReads(reader, file, middle, false);
+
+    LOG.info("Read 100 events forward: {} ms with index, {} ms without index",
+             TimeUnit.NANOSECONDS.toMillis(indexedNext), TimeUnit.NANOSECONDS.toMillis(scanNext));
+    LOG.info("Read 100 events backward: {} ms with index, {} ms without index",
+             TimeUnit.NANOSECONDS.toMillis(indexedPrev), TimeUnit.NANOSECONDS.toMillis(scanPrev));
+  }
+
+  /**
+   * Returns the average time in nanoseconds of reading 100 events from the given time.
+   */
+  private long timeReads(AvroFileReader reader, Location file, long fromTimeMs, boolean forward) throws Exception {
+    int runs = 20;
+    long elapsed = 0;
+    // Run one more time than measured for warm up
+    for (int i = 0; i <= runs; i++) {
+      long startTime = System.nanoTime();
+      List<Long> timestamps = forward ? readNext(reader, file, fromTimeMs, 100)
+                                      : readPrev(reader, file, fromTimeMs, 100);
+      if (i > 0) {
+        elapsed += System.nanoTime() - startTime;
+      }
+      Assert.assertEquals(100, timestamps.size());
+    }
+    return elapsed / runs;
+  }
+
+  private Location createLocation() throws IOException {
+    return new LocalLocationFactory(TEMP_FOLDER.newFolder()).create(System.currentTimeMillis() + ".avro");
+  }
+
+  private AvroFileWriter.AvroFile openFile(Location file, int syncIntervalBytes,
+                                           long indexIntervalBytes) throws IOException {
+    AvroFileWriter writer = new AvroFileWriter(null, CConfiguration.create(), file, "logs", schema, Long.MAX_VALUE,
+                                               syncIntervalBytes, Long.MAX_VALUE, indexIntervalBytes);
+    AvroFileWriter.AvroFile avroFile = writer.new AvroFile(file);
+    avroFile.open();
+    return avroFile;
+  }
+
+  /**
+   * Appends events with timestamps incrementing by one, flushing in batches like {@link AvroFileWriter} does.
+   */
+  private void appendEvents(AvroFileWriter.AvroFile avroFile, int start, int count) throws IOException {
+    for (int i = start; i < start + count; i++) {
+      ch.qos.logback.classic.spi.LoggingEvent event = new ch.qos.logback.classic.spi.LoggingEvent();
+      event.setLevel(Level.INFO);
+      event.setLoggerName("co.cask.cdap.logging.write.LogFileIndexTest");
+      event.setThreadName("main");
+      event.setMessage("Test log message " + i + " with some padding to make the log event a bit larger");
+      event.setTimeStamp(START_TIME + i);
+      event.setMDCPropertyMap(Maps.<String, String>newHashMap());
+
+      avroFile.append(new LogWriteEvent(LoggingEvent.encode(schema, event, LOGGING_CONTEXT), event, LOGGING_CONTEXT));
+      if ((i + 1) % 100 == 0) {
+        avroFile.flush();
+      }
+    }
+    avroFile.flush();
+  }
+
+  private List<Long> readNext(AvroFileReader reader, Location file, long fromTimeMs, int maxEvents) throws Exception {
+    LoggingTester.LogCallback callback = new LoggingTester.LogCallback();
+    callback.init();
+    reader.readLog(file, Filter.EMPTY_FILTER, fromTimeMs, Long.MAX_VALUE, maxEvents, callback);
+    callback.close();
+    return getTimestamps(callback.getEvents());
+  }
+
+  private List<Long> readPrev(AvroFileReader reader, Location file, long fromTimeMs, int maxEvents) {
+    return getTimestamps(reader.readLogPrev(file, Filter.EMPTY_FILTER, fromTimeMs, maxEvents));
+  }
+
+  private List<Long> getTimestamps(Collection<LogEvent> events) {
+    List<Long> timestamps = Lists.newArrayList();
+    for (LogEvent event : events) {
+      timestamps.add(event.getLoggingEvent().getTimeStamp());
+    }
+    return timestamps;
+  }
+
+  /**
+   * Asserts that the given timestamps are all the timestamps in the range [start, end).
+   */
+  private void assertTimestamps(long start, long end, List<Long> timestamps) {
+    ImmutableList.Builder<Long> expected = ImmutableList.builder();
+    for (long ts = start; ts < end; ts++) {
+      expected.add(ts);
+    }
+    Assert.assertEquals(expected.build(), timestamps);
+  }
+}
@@ -19,11 +19,7 @@ import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.data.schema.UnsupportedTypeException;
 import co.cask.cdap.api.metrics.MetricValue;
 import co.cask.cdap.api.metrics.MetricValues;
-import co.cask.cdap.api.metrics.MetricsCollectionService;
 import co.cask.cdap.common.io.BinaryDecoder;
-import co.cask.cdap.internal.io.ASMDatumWriterFactory;
-import co.cask.cdap.internal.io.ASMFieldAccessorFactory;
-import co.cask.cdap.internal.io.DatumWriter;
 import co.cask.cdap.internal.io.ReflectionDatumReader;
 import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
 import co.cask.cdap.test.SlowTests;
@@ -31,6 +27,7 @@ import co.cask.common.io.ByteBufferInputStream;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Table;
 import com.google.common.reflect.TypeToken;
@@ -55,11 +52,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  *
@@ -92,12 +93,9 @@ public class KafkaMetricsCollectionServiceTest {
 
     final TypeToken<MetricValues> metricValueType = TypeToken.of(MetricValues.class);
     final Schema schema = new ReflectionSchemaGenerator().generate(metricValueType.getType());
-    DatumWriter<MetricValues> metricRecordDatumWriter = new ASMDatumWriterFactory(new ASMFieldAccessorFactory())
-      .create(metricValueType, schema);
 
-    MetricsCollectionService collectionService = new KafkaMetricsCollectionService(kafkaClient, "metrics",
-                                                                                   KafkaPublisher.Ack.FIRE_AND_FORGET,
-                                                                                   metricRecordDatumWriter);
+    KafkaMetricsCollectionService collectionService =
+      new KafkaMetricsCollectionService(kafkaClient, "metrics", KafkaPublisher.Ack.FIRE_AND_FORGET);
     collectionService.startAndWait();
 
     // publish metrics for different context
@@ -116,7 +114,7 @@ public class KafkaMetricsCollectionServiceTest {
     expected.put("tag.2", "processed", 2L);
     expected.put("tag.3", "processed", 3L);
 
-    assertMetricsFromKafka(kafkaClient, schema, metricValueType, expected);
+    assertMetricsFromKafka(kafkaClient, schema, metricValueType, expected, collectionService.getPublishedBytes());
   }
 
   @Test
@@ -131,12 +129,9 @@ public class KafkaMetricsCollectionServiceTest {
 
     final TypeToken<MetricValues> metricRecordType = TypeToken.of(MetricValues.class);
     final Schema schema = new ReflectionSchemaGenerator().generate(metricRecordType.getType());
-    DatumWriter<MetricValues> metricRecordDatumWriter = new ASMDatumWriterFactory(new ASMFieldAccessorFactory())
-      .create(metricRecordType, schema);
 
-    MetricsCollectionService collectionService = new KafkaMetricsCollectionService(kafkaClient, "metrics",
-                                                                                   KafkaPublisher.Ack.FIRE_AND_FORGET,
-                                                                                   metricRecordDatumWriter);
+    KafkaMetricsCollectionService collectionService =
+      new KafkaMetricsCollectionService(kafkaClient, "metrics", KafkaPublisher.Ack.FIRE_AND_FORGET);
     collectionService.startAndWait();
 
     // start the kafka server
@@ -158,15 +153,19 @@ public class KafkaMetricsCollectionServiceTest {
     // <Context, metricName, value>
     Table<String, String, Long> expected = HashBasedTable.create();
     expected.put("tag.test", "metric", 5L);
-    assertMetricsFromKafka(kafkaClient, schema, metricRecordType, expected);
+    assertMetricsFromKafka(kafkaClient, schema, metricRecordType, expected, collectionService.getPublishedBytes());
   }
 
   private void assertMetricsFromKafka(KafkaClientService kafkaClient, final Schema schema,
                                       final TypeToken<MetricValues> metricRecordType,
-                                      Table<String, String, Long> expected) throws InterruptedException {
-
-    // Consume from kafka
-    final Map<String, MetricValues> metrics = Maps.newHashMap();
+                                      Table<String, String, Long> expected,
+                                      long publishedBytes) throws InterruptedException {
+
+    // Consume from kafka. Results are only collected in the callback and verified in the test thread.
+    final Map<String, MetricValues> metrics = Maps.newConcurrentMap();
+    final List<Integer> batchSizes = Collections.synchronizedList(Lists.<Integer>newArrayList());
+    final AtomicLong receivedBytes = new AtomicLong();
+    final AtomicReference<Exception> failure = new AtomicReference<>();
     final Semaphore semaphore = new Semaphore(0);
     kafkaClient.getConsumer().prepare().addFromBeginning("metrics", 0)
                                        .consume(new KafkaConsumer.MessageCallback() {
@@ -178,7 +177,16 @@ public class KafkaMetricsCollectionServiceTest {
         try {
           while (messages.hasNext()) {
             ByteBuffer payload = messages.next().getPayload();
-            MetricValues metricsRecord = reader.read(new BinaryDecoder(new ByteBufferInputStream(payload)), schema);
+            receivedBytes.addAndGet(payload.remaining());
+            MetricValues metricsRecord;
+            if (MetricValuesBatchCodec.isBatch(payload)) {
+              List<MetricValues> batch = Lists.newArrayList();
+              MetricValuesBatchCodec.decode(payload, batch);
+              batchSizes.add(batch.size());
+              metricsRecord = batch.get(0);
+            } else {
+              metricsRecord = reader.read(new BinaryDecoder(new ByteBufferInputStream(payload)), schema);
+            }
             StringBuilder flattenContext = new StringBuilder();
             // for verifying expected results, sorting tags
             Map<String, String> tags = Maps.newTreeMap();
@@ -195,6 +203,7 @@ public class KafkaMetricsCollectionServiceTest {
           }
         } catch (Exception e) {
           LOG.error("Error in consume", e);
+          failure.compareAndSet(null, e);
         }
       }
 
@@ -206,7 +215,12 @@ public class KafkaMetricsCollectionServiceTest {
     });
 
     Assert.assertTrue(semaphore.tryAcquire(expected.size(), 5, TimeUnit.SECONDS));
+    Assert.assertNull(failure.get());
     Assert.assertEquals(expected.rowKeySet().size(), metrics.size());
+    // Each context is published with one MetricValues, all in the batch format
+    Assert.assertEquals(Collections.nCopies(expected.rowKeySet().size(), 1), batchSizes);
+    // The bytes tracked by the producer are the bytes received
+    Assert.assertEquals(publishedBytes, receivedBytes.get());
 
     for (String expectedContext : expected.rowKeySet()) {
       MetricValues metricValues = metrics.get(expectedContext);
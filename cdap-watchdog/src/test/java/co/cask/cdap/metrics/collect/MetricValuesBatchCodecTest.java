@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2016 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.metrics.collect;
+
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.api.metrics.MetricType;
+import co.cask.cdap.api.metrics.MetricValue;
+import co.cask.cdap.api.metrics.MetricValues;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.internal.io.ASMDatumWriterFactory;
+import co.cask.cdap.internal.io.ASMFieldAccessorFactory;
+import co.cask.cdap.internal.io.DatumWriter;
+import co.cask.cdap.internal.io.ReflectionDatumReader;
+import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
+import co.cask.cdap.test.SlowTests;
+import co.cask.common.io.ByteBufferInputStream;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.reflect.TypeToken;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link MetricValuesBatchCodec}.
+ */
+public class MetricValuesBatchCodecTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MetricValuesBatchCodecTest.class);
+
+  private static final Map<String, String> TAGS = ImmutableMap.of(
+    Constants.Metrics.Tag.NAMESPACE, "default",
+    Constants.Metrics.Tag.APP, "PurchaseHistory",
+    Constants.Metrics.Tag.FLOW, "PurchaseFlow",
+    Constants.Metrics.Tag.FLOWLET, "collector",
+    Constants.Metrics.Tag.INSTANCE_ID, "0");
+
+  @Test
+  public void testEncodeDecode() throws Exception {
+    List<MetricValues> values = ImmutableList.of(
+      new MetricValues(TAGS, 1000L, ImmutableList.of(
+        new MetricValue("system.process.events.processed", MetricType.COUNTER, 10),
+        new MetricValue("system.process.tuples.read", MetricType.COUNTER, 12),
+        new MetricValue("system.queue.pending", MetricType.GAUGE, -5))),
+      new MetricValues(TAGS, 1001L, ImmutableList.of(
+        new MetricValue("system.process.events.processed", MetricType.COUNTER, 3),
+        new MetricValue("system.queue.pending", MetricType.GAUGE, Long.MAX_VALUE))),
+      new MetricValues(TAGS, 990L, ImmutableList.<MetricValue>of()));
+
+    MetricValuesBatchCodec codec = new MetricValuesBatchCodec();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    // Encode twice to make sure the codec can be reused
+    for (int i = 0; i < 2; i++) {
+      os.reset();
+      codec.encode(TAGS, values, os);
+
+      ByteBuffer payload = ByteBuffer.wrap(os.toByteArray());
+      Assert.assertTrue(MetricValuesBatchCodec.isBatch(payload));
+
+      List<MetricValues> decoded = Lists.newArrayList();
+      MetricValuesBatchCodec.decode(payload, decoded);
+      Assert.assertEquals(0, payload.position());
+      assertEquals(values, decoded);
+    }
+  }
+
+  @Test
+  public void testFormatDetection() throws Exception {
+    TypeToken<MetricValues> type = TypeToken.of(MetricValues.class);
+    Schema schema = new ReflectionSchemaGenerator().generate(type.getType());
+    DatumWriter<MetricValues> writer = new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(type, schema);
+
+    // A MetricValues encoded with the DatumWriter must not be recognized as a batch
+    for (Map<String, String> tags : ImmutableList.of(TAGS, ImmutableMap.<String, String>of())) {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      writer.encode(new MetricValues(tags, "metric", 1000L, 1L, MetricType.COUNTER), new BinaryEncoder(os));
+      Assert.assertFalse(MetricValuesBatchCodec.isBatch(ByteBuffer.wrap(os.toByteArray())));
+    }
+  }
+
+  @Test
+  public void testEncodedSize() throws Exception {
+    TypeToken<MetricValues> type = TypeToken.of(MetricValues.class);
+    Schema schema = new ReflectionSchemaGenerator().generate(type.getType());
+    DatumWriter<MetricValues> writer = new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(type, schema);
+
+    // A flowlet publishing two seconds worth of metrics of one context
+    List<MetricValues> values = Lists.newArrayList();
+    for (int i = 0; i < 2; i++) {
+      List<MetricValue> metrics = Lists.newArrayList();
+      for (int j = 0; j < 10; j++) {
+        metrics.add(new MetricValue("system.metric" + j, MetricType.COUNTER, j * 100 + i));
+      }
+      values.add(new MetricValues(TAGS, 1423370200L + i, metrics));
+    }
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    for (MetricValues value : values) {
+      writer.encode(value, encoder);
+    }
+    int writerBytes = os.size();
+
+    os.reset();
+    new MetricValuesBatchCodec().encode(TAGS, values, os);
+    int batchBytes = os.size();
+
+    // Tags and metric names are only written once in the batch format
+    LOG.info("Encoded size: {} bytes with DatumWriter, {} bytes in batch format", writerBytes, batchBytes);
+    Assert.assertTrue(batchBytes < writerBytes);
+  }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testEncodingCost() throws Exception {
+    TypeToken<MetricValues> type = TypeToken.of(MetricValues.class);
+    Schema schema = new ReflectionSchemaGenerator().generate(type.getType());
+    DatumWriter<MetricValues> writer = new ASMDatumWriterFactory(new ASMFieldAccessorFactory()).create(type, schema);
+    ReflectionDatumReader<MetricValues> reader = new ReflectionDatumReader<>(schema, type);
+    MetricValuesBatchCodec codec = new MetricValuesBatchCodec();
+
+    // A typical publish of a flowlet: one MetricValues per context per second
+    List<MetricValue> metrics = Lists.newArrayList();
+    for (int i = 0; i < 10; i++) {
+      metrics.add(new MetricValue("system.metric" + i, MetricType.COUNTER, i * 100));
+    }
+    List<MetricValues> values = ImmutableList.of(new MetricValues(TAGS, 1423370200L, metrics));
+    int iterations = 100000;
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    long bytes = 0;
+    long startTime = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      os.reset();
+      writer.encode(values.get(0), encoder);
+      bytes += os.size();
+    }
+    long encodeTime = System.nanoTime() - startTime;
+    ByteBuffer payload = ByteBuffer.wrap(os.toByteArray());
+    startTime = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      reader.read(new BinaryDecoder(new ByteBufferInputStream(payload.duplicate())), schema);
+    }
+    long decodeTime = System.nanoTime() - startTime;
+    LOG.info("DatumWriter format: {} bytes per message, encode {} ns, decode {} ns",
+             bytes / iterations, encodeTime / iterations, decodeTime / iterations);
+
+    bytes = 0;
+    startTime = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      os.reset();
+      codec.encode(TAGS, values, os);
+      bytes += os.size();
+    }
+    encodeTime = System.nanoTime() - startTime;
+    payload = ByteBuffer.wrap(os.toByteArray());
+    List<MetricValues> decoded = Lists.newArrayList();
+    startTime = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      decoded.clear();
+      MetricValuesBatchCodec.decode(payload, decoded);
+    }
+    decodeTime = System.nanoTime() - startTime;
+    LOG.info("Batch format: {} bytes per message, encode {} ns, decode {} ns",
+             bytes / iterations, encodeTime / iterations, decodeTime / iterations);
+
+    assertEquals(values, decoded);
+  }
+
+  private void assertEquals(List<MetricValues> expected, List<MetricValues> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      MetricValues expectedValues = expected.get(i);
+      MetricValues actualValues = actual.get(i);
+      Assert.assertEquals(expectedValues.getTags(), actualValues.getTags());
+      Assert.assertEquals(expectedValues.getTimestamp(), actualValues.getTimestamp());
+
+      List<MetricValue> expectedMetrics = ImmutableList.copyOf(expectedValues.getMetrics());
+      List<MetricValue> actualMetrics = ImmutableList.copyOf(actualValues.getMetrics());
+      Assert.assertEquals(expectedMetrics.size(), actualMetrics.size());
+      for (int j = 0; j < expectedMetrics.size(); j++) {
+        Assert.assertEquals(expectedMetrics.get(j).getName(), actualMetrics.get(j).getName());
+        Assert.assertEquals(expectedMetrics.get(j).getType(), actualMetrics.get(j).getType());
+        Assert.assertEquals(expectedMetrics.get(j).getValue(), actualMetrics.get(j).getValue());
+      }
+    }
+  }
+}